@@ -0,0 +1,186 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A static R-tree indexing the covering rectangles of a list of areas. It is
+ * bulk loaded using Sort-Tile-Recursive packing and allows the areas that may
+ * contain a point to be found without checking every area.
+ */
+public class AreaIndex {
+    private static final int NODE_CAPACITY = 8;
+
+    private IndexNode root;
+    private int[] candidates;
+    private int candidateCount;
+    private IndexNode[] stack;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param areas
+     *            The areas to be indexed. Query results refer to areas by
+     *            their position in this list.
+     */
+    public AreaIndex(List<ExtractArea> areas) {
+        List<IndexNode> nodes = new ArrayList<IndexNode>();
+        int depth;
+
+        for (int i = 0; i < areas.size(); i++) {
+            for (Rectangle2D rectangle : areas.get(i).getCoveringRectangles()) {
+                nodes.add(new IndexNode(rectangle, i));
+            }
+        }
+
+        // Pack each level of the tree until a single root remains.
+        depth = 1;
+        while (nodes.size() > 1) {
+            nodes = packLevel(nodes);
+            depth++;
+        }
+        root = nodes.isEmpty() ? null : nodes.get(0);
+
+        candidates = new int[Math.max(1, areas.size())];
+        stack = new IndexNode[depth * NODE_CAPACITY + 1];
+    }
+
+    private static List<IndexNode> packLevel(List<IndexNode> nodes) {
+        List<IndexNode> parents = new ArrayList<IndexNode>();
+        int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+        List<IndexNode> sorted = new ArrayList<IndexNode>(nodes);
+
+        // Divide the nodes into vertical slices, then group nodes within each
+        // slice by latitude.
+        sorted.sort(Comparator.comparingDouble(IndexNode::getCenterX));
+        for (int sliceBegin = 0; sliceBegin < sorted.size(); sliceBegin += sliceSize) {
+            List<IndexNode> slice =
+                    new ArrayList<IndexNode>(sorted.subList(sliceBegin, Math.min(sliceBegin + sliceSize, sorted.size())));
+
+            slice.sort(Comparator.comparingDouble(IndexNode::getCenterY));
+            for (int groupBegin = 0; groupBegin < slice.size(); groupBegin += NODE_CAPACITY) {
+                parents.add(new IndexNode(
+                        slice.subList(groupBegin, Math.min(groupBegin + NODE_CAPACITY, slice.size()))));
+            }
+        }
+
+        return parents;
+    }
+
+    /**
+     * Finds the areas whose covering rectangles contain a point. Edges are
+     * inclusive. The result is only valid until the next query.
+     *
+     * @param latitude
+     *            The point latitude.
+     * @param longitude
+     *            The point longitude.
+     * @return The number of candidate areas, retrieved using
+     *         {@link #getCandidate(int)}.
+     */
+    public int query(double latitude, double longitude) {
+        int stackSize;
+
+        candidateCount = 0;
+        if (root == null || !root.contains(longitude, latitude)) {
+            return 0;
+        }
+
+        stack[0] = root;
+        stackSize = 1;
+        while (stackSize > 0) {
+            IndexNode node = stack[--stackSize];
+
+            if (node.children == null) {
+                addCandidate(node.area);
+            } else {
+                for (IndexNode child : node.children) {
+                    if (child.contains(longitude, latitude)) {
+                        stack[stackSize++] = child;
+                    }
+                }
+            }
+        }
+
+        return candidateCount;
+    }
+
+    private void addCandidate(int area) {
+        // Areas crossing the anti-meridian have two rectangles but can't match
+        // both for a single point except on the meridian itself.
+        for (int i = 0; i < candidateCount; i++) {
+            if (candidates[i] == area) {
+                return;
+            }
+        }
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+        candidates[candidateCount++] = area;
+    }
+
+    /**
+     * Returns a candidate area found by the last query.
+     *
+     * @param index
+     *            The index of the candidate, less than the count returned by
+     *            the query.
+     * @return The index of the area in the list passed to the constructor.
+     */
+    public int getCandidate(int index) {
+        return candidates[index];
+    }
+
+    /**
+     * A node within the tree. Leaf nodes refer to a single area rectangle.
+     */
+    private static class IndexNode {
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private IndexNode[] children;
+        private int area;
+
+        IndexNode(Rectangle2D rectangle, int area) {
+            minX = rectangle.getMinX();
+            minY = rectangle.getMinY();
+            maxX = rectangle.getMaxX();
+            maxY = rectangle.getMaxY();
+            this.area = area;
+        }
+
+        IndexNode(List<IndexNode> childList) {
+            children = childList.toArray(new IndexNode[0]);
+            minX = Double.POSITIVE_INFINITY;
+            minY = Double.POSITIVE_INFINITY;
+            maxX = Double.NEGATIVE_INFINITY;
+            maxY = Double.NEGATIVE_INFINITY;
+            for (IndexNode child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+            }
+            area = -1;
+        }
+
+        double getCenterX() {
+            return (minX + maxX) / 2;
+        }
+
+        double getCenterY() {
+            return (minY + maxY) / 2;
+        }
+
+        boolean contains(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+    }
+}
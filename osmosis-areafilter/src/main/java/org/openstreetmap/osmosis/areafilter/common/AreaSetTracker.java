@@ -0,0 +1,222 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the set of areas each entity id belongs to. This replaces a separate
+ * id tracker per area with a single structure shared by all areas.
+ * <p>
+ * Ids are grouped into segments of consecutive ids. Each segment holds a
+ * bitmap for each distinct area set used by its ids, so memory use is
+ * proportional to the number of populated segments and the number of area
+ * combinations within them rather than the number of areas.
+ */
+public class AreaSetTracker {
+    private static final int SEGMENT_SIZE = 1024;
+    private static final int WORDS_PER_SEGMENT = SEGMENT_SIZE / 64;
+
+    private AreaSets areaSets;
+    private long[] bases;
+    private Segment[] segments;
+    private int segmentCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param areaSets
+     *            The area sets used to represent membership.
+     */
+    public AreaSetTracker(AreaSets areaSets) {
+        this.areaSets = areaSets;
+
+        bases = new long[16];
+        segments = new Segment[16];
+        segmentCount = 0;
+    }
+
+    private static long calculateBase(long id) {
+        return Math.floorDiv(id, SEGMENT_SIZE);
+    }
+
+    private static int calculateOffset(long id) {
+        return (int) Math.floorMod(id, SEGMENT_SIZE);
+    }
+
+    private int findSegment(long base) {
+        // Ids usually arrive in ascending order so check the last segment
+        // before searching.
+        if (segmentCount > 0 && bases[segmentCount - 1] == base) {
+            return segmentCount - 1;
+        }
+
+        return Arrays.binarySearch(bases, 0, segmentCount, base);
+    }
+
+    private Segment getSegment(long base, boolean createIfMissing) {
+        int index = findSegment(base);
+
+        if (index >= 0) {
+            return segments[index];
+        }
+        if (!createIfMissing) {
+            return null;
+        }
+
+        // Insert a new segment at the insertion point.
+        index = -(index + 1);
+        if (segmentCount == bases.length) {
+            bases = Arrays.copyOf(bases, segmentCount * 2);
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        System.arraycopy(bases, index, bases, index + 1, segmentCount - index);
+        System.arraycopy(segments, index, segments, index + 1, segmentCount - index);
+        bases[index] = base;
+        segments[index] = new Segment();
+        segmentCount++;
+
+        return segments[index];
+    }
+
+    /**
+     * Returns the set of areas the id belongs to.
+     *
+     * @param id
+     *            The entity id.
+     * @return The area set index, {@link AreaSets#EMPTY} if the id doesn't
+     *         belong to any area.
+     */
+    public int get(long id) {
+        Segment segment = getSegment(calculateBase(id), false);
+
+        if (segment == null) {
+            return AreaSets.EMPTY;
+        }
+
+        return segment.get(calculateOffset(id));
+    }
+
+    /**
+     * Adds the id to all areas within a set.
+     *
+     * @param id
+     *            The entity id.
+     * @param set
+     *            The area set index.
+     * @return True if the id was added to at least one new area.
+     */
+    public boolean add(long id, int set) {
+        Segment segment;
+        int offset;
+        int currentSet;
+        int newSet;
+
+        if (set == AreaSets.EMPTY) {
+            return false;
+        }
+
+        segment = getSegment(calculateBase(id), true);
+        offset = calculateOffset(id);
+        currentSet = segment.get(offset);
+        newSet = areaSets.union(currentSet, set);
+
+        if (newSet == currentSet) {
+            return false;
+        }
+
+        segment.set(offset, currentSet, newSet);
+
+        return true;
+    }
+
+    /**
+     * Adds all area memberships of another tracker to this tracker.
+     *
+     * @param other
+     *            The tracker to add memberships from. It must use the same
+     *            area sets as this tracker.
+     */
+    public void addAll(AreaSetTracker other) {
+        for (int i = 0; i < other.segmentCount; i++) {
+            long idBase = other.bases[i] * SEGMENT_SIZE;
+            Segment segment = other.segments[i];
+
+            for (int j = 0; j < segment.setCount; j++) {
+                long[] bitmap = segment.bitmaps[j];
+
+                for (int word = 0; word < WORDS_PER_SEGMENT; word++) {
+                    long bits = bitmap[word];
+
+                    while (bits != 0) {
+                        int bit = Long.numberOfTrailingZeros(bits);
+
+                        add(idBase + word * 64 + bit, segment.sets[j]);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds the membership of a range of ids as a bitmap per area set.
+     */
+    private static class Segment {
+        private int[] sets;
+        private long[][] bitmaps;
+        private int setCount;
+
+        Segment() {
+            sets = new int[1];
+            bitmaps = new long[1][];
+            setCount = 0;
+        }
+
+        int get(int offset) {
+            int word = offset >>> 6;
+            long mask = 1L << offset;
+
+            for (int i = 0; i < setCount; i++) {
+                if ((bitmaps[i][word] & mask) != 0) {
+                    return sets[i];
+                }
+            }
+
+            return AreaSets.EMPTY;
+        }
+
+        private int findOrAddSet(int set) {
+            for (int i = 0; i < setCount; i++) {
+                if (sets[i] == set) {
+                    return i;
+                }
+            }
+
+            if (setCount == sets.length) {
+                sets = Arrays.copyOf(sets, setCount * 2);
+                bitmaps = Arrays.copyOf(bitmaps, setCount * 2);
+            }
+            sets[setCount] = set;
+            bitmaps[setCount] = new long[WORDS_PER_SEGMENT];
+
+            return setCount++;
+        }
+
+        void set(int offset, int oldSet, int newSet) {
+            int word = offset >>> 6;
+            long mask = 1L << offset;
+
+            int index;
+
+            if (oldSet != AreaSets.EMPTY) {
+                index = findOrAddSet(oldSet);
+                bitmaps[index][word] &= ~mask;
+            }
+
+            // The set must be located before dereferencing the bitmaps
+            // because adding a set may replace the array.
+            index = findOrAddSet(newSet);
+            bitmaps[index][word] |= mask;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns sets of area indexes so that each distinct combination of areas is
+ * represented by a single integer. Most entities belong to zero or one area so
+ * only a handful of sets exist in practice, allowing entity membership to be
+ * tracked with a single set index per entity regardless of the number of
+ * areas.
+ */
+public class AreaSets {
+    /**
+     * The index of the empty set.
+     */
+    public static final int EMPTY = 0;
+
+    private List<int[]> sets;
+    private Map<SetKey, Integer> setIndexes;
+    private Map<Long, Integer> unionCache;
+
+    /**
+     * Creates a new instance.
+     */
+    public AreaSets() {
+        sets = new ArrayList<int[]>();
+        setIndexes = new HashMap<SetKey, Integer>();
+        unionCache = new HashMap<Long, Integer>();
+
+        intern(new int[0]);
+    }
+
+    private int intern(int[] areas) {
+        SetKey key = new SetKey(areas);
+        Integer index = setIndexes.get(key);
+
+        if (index == null) {
+            index = sets.size();
+            sets.add(areas);
+            setIndexes.put(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the set containing only the specified area.
+     *
+     * @param area
+     *            The area index.
+     * @return The set index.
+     */
+    public int getSingleton(int area) {
+        return intern(new int[] {area});
+    }
+
+    /**
+     * Returns the union of two sets.
+     *
+     * @param set1
+     *            The first set index.
+     * @param set2
+     *            The second set index.
+     * @return The index of the set containing the areas of both sets.
+     */
+    public int union(int set1, int set2) {
+        long cacheKey;
+        Integer result;
+
+        if (set1 == set2 || set2 == EMPTY) {
+            return set1;
+        }
+        if (set1 == EMPTY) {
+            return set2;
+        }
+
+        // The union is symmetric so only cache one ordering.
+        cacheKey = ((long) Math.min(set1, set2) << 32) | Math.max(set1, set2);
+        result = unionCache.get(cacheKey);
+        if (result == null) {
+            result = intern(merge(sets.get(set1), sets.get(set2)));
+            unionCache.put(cacheKey, result);
+        }
+
+        return result;
+    }
+
+    private static int[] merge(int[] areas1, int[] areas2) {
+        int[] merged = new int[areas1.length + areas2.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+
+        while (i < areas1.length || j < areas2.length) {
+            int next;
+
+            if (j >= areas2.length || (i < areas1.length && areas1[i] < areas2[j])) {
+                next = areas1[i++];
+            } else if (i >= areas1.length || areas2[j] < areas1[i]) {
+                next = areas2[j++];
+            } else {
+                next = areas1[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+
+        return Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * Returns the areas within a set.
+     *
+     * @param set
+     *            The set index.
+     * @return The area indexes in ascending order. The array must not be
+     *         modified.
+     */
+    public int[] getAreas(int set) {
+        return sets.get(set);
+    }
+
+    /**
+     * Indicates if a set contains an area.
+     *
+     * @param set
+     *            The set index.
+     * @param area
+     *            The area index.
+     * @return True if the area is within the set.
+     */
+    public boolean contains(int set, int area) {
+        return Arrays.binarySearch(sets.get(set), area) >= 0;
+    }
+
+    private static final class SetKey {
+        private final int[] areas;
+        private final int hashCode;
+
+        SetKey(int[] areas) {
+            this.areas = areas;
+            hashCode = Arrays.hashCode(areas);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SetKey && Arrays.equals(areas, ((SetKey) o).areas);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+
+/**
+ * A named area to be extracted, defined either by a polygon or by a bounding
+ * box. Containment matches the single area filters, polygons use the
+ * {@link Area} rules and boxes are inclusive of all edges.
+ */
+public class ExtractArea {
+    private String name;
+    private Area area;
+    private PreparedArea preparedArea;
+    private Bound box;
+
+    private ExtractArea(String name, Area area, Bound box) {
+        this.name = name;
+        this.area = area;
+        this.box = box;
+
+        if (area != null) {
+            preparedArea = new PreparedArea(area);
+        }
+    }
+
+    /**
+     * Creates an area defined by a polygon.
+     *
+     * @param name
+     *            The name of the area.
+     * @param area
+     *            The polygon area.
+     * @return The new area.
+     */
+    public static ExtractArea createPolygon(String name, Area area) {
+        return new ExtractArea(name, area, null);
+    }
+
+    /**
+     * Creates an area defined by a bounding box. The left edge may be greater
+     * than the right edge in which case the box crosses the anti-meridian.
+     *
+     * @param name
+     *            The name of the area.
+     * @param left
+     *            The longitude of the left edge.
+     * @param right
+     *            The longitude of the right edge.
+     * @param top
+     *            The latitude of the top edge.
+     * @param bottom
+     *            The latitude of the bottom edge.
+     * @return The new area.
+     */
+    public static ExtractArea createBox(String name, double left, double right, double top, double bottom) {
+        return new ExtractArea(name, null, new Bound(right, left, top, bottom, ""));
+    }
+
+    /**
+     * Returns the name of the area.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns rectangles covering the area, suitable for spatial indexing. The
+     * x axis is longitude and the y axis is latitude.
+     *
+     * @return The covering rectangles.
+     */
+    public List<Rectangle2D> getCoveringRectangles() {
+        List<Rectangle2D> rectangles = new ArrayList<Rectangle2D>();
+
+        if (box != null) {
+            for (Bound simpleBound : box.toSimpleBound()) {
+                rectangles.add(new Rectangle2D.Double(
+                        simpleBound.getLeft(),
+                        simpleBound.getBottom(),
+                        simpleBound.getRight() - simpleBound.getLeft(),
+                        simpleBound.getTop() - simpleBound.getBottom()));
+            }
+        } else {
+            rectangles.add(area.getBounds2D());
+        }
+
+        return rectangles;
+    }
+
+    /**
+     * Indicates if a point lies within the area.
+     *
+     * @param latitude
+     *            The point latitude.
+     * @param longitude
+     *            The point longitude.
+     * @return True if the point is inside the area.
+     */
+    public boolean contains(double latitude, double longitude) {
+        if (box != null) {
+            for (Bound b : box.toSimpleBound()) {
+                if (b.getTop() >= latitude
+                        && b.getBottom() <= latitude
+                        && b.getLeft() <= longitude
+                        && b.getRight() >= longitude) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return preparedArea.contains(longitude, latitude);
+    }
+
+    /**
+     * Clips a bound to the area.
+     *
+     * @param bound
+     *            The bound to clip.
+     * @return The clipped bound, or null if the bound doesn't overlap the area.
+     */
+    public Bound intersect(Bound bound) {
+        Bound newBound = null;
+
+        if (box != null) {
+            return bound.intersect(box);
+        }
+
+        for (Bound b : bound.toSimpleBound()) {
+            Bound clipped = simpleBoundIntersect(b);
+
+            if (newBound == null) {
+                newBound = clipped;
+            } else if (clipped != null) {
+                newBound = newBound.union(clipped);
+            }
+        }
+
+        return newBound;
+    }
+
+    private Bound simpleBoundIntersect(Bound bound) {
+        Area clipped;
+
+        if (bound.getLeft() > bound.getRight()) {
+            return null;
+        }
+
+        // Perform the intersect against the area itself instead of its
+        // bounding box for maximum precision.
+        clipped = (Area) area.clone();
+        clipped.intersect(new Area(new Rectangle2D.Double(
+                bound.getLeft(),
+                bound.getBottom(),
+                bound.getRight() - bound.getLeft(),
+                bound.getTop() - bound.getBottom())));
+        if (clipped.isEmpty()) {
+            return null;
+        }
+
+        Rectangle2D r = clipped.getBounds2D();
+        return new Bound(r.getMaxX(), r.getMinX(), r.getMaxY(), r.getMinY(), bound.getOrigin());
+    }
+}
@@ -0,0 +1,110 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Loads the areas to be extracted from a directory. Each file with a ".poly"
+ * extension is loaded as a polygon file, and each file with a ".bbox" extension
+ * is loaded as a bounding box containing the four values "left bottom right
+ * top" separated by whitespace or commas. Areas are named after their file
+ * name without the extension and are ordered by file name.
+ */
+public class ExtractAreaLoader {
+    private static final String POLYGON_EXTENSION = ".poly";
+    private static final String BOX_EXTENSION = ".bbox";
+
+    private File directory;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory
+     *            The directory containing the area files.
+     */
+    public ExtractAreaLoader(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads all areas within the directory.
+     *
+     * @return The areas ordered by file name.
+     */
+    public List<ExtractArea> loadAreas() {
+        File[] files;
+        List<ExtractArea> areas;
+
+        files = directory.listFiles();
+        if (files == null) {
+            throw new OsmosisRuntimeException("Unable to list the area files in directory " + directory + ".");
+        }
+        Arrays.sort(files);
+
+        areas = new ArrayList<ExtractArea>();
+        for (File file : files) {
+            String fileName = file.getName();
+
+            if (!file.isFile()) {
+                continue;
+            }
+
+            if (fileName.endsWith(POLYGON_EXTENSION)) {
+                areas.add(ExtractArea.createPolygon(
+                        stripExtension(fileName, POLYGON_EXTENSION), new PolygonFileReader(file).loadPolygon()));
+            } else if (fileName.endsWith(BOX_EXTENSION)) {
+                areas.add(loadBox(file, stripExtension(fileName, BOX_EXTENSION)));
+            }
+        }
+
+        if (areas.isEmpty()) {
+            throw new OsmosisRuntimeException("No " + POLYGON_EXTENSION + " or " + BOX_EXTENSION
+                    + " area files were found in directory " + directory + ".");
+        }
+
+        return areas;
+    }
+
+    private static String stripExtension(String fileName, String extension) {
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+
+    private static ExtractArea loadBox(File file, String name) {
+        String content;
+        String[] values;
+        double left;
+        double bottom;
+        double right;
+        double top;
+
+        try {
+            content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to read bounding box file " + file + ".", e);
+        }
+
+        values = content.split("[\\s,]+");
+        if (values.length != 4) {
+            throw new OsmosisRuntimeException(
+                    "Bounding box file " + file + " must contain the four values left, bottom, right and top.");
+        }
+
+        try {
+            left = Double.parseDouble(values[0]);
+            bottom = Double.parseDouble(values[1]);
+            right = Double.parseDouble(values[2]);
+            top = Double.parseDouble(values[3]);
+        } catch (NumberFormatException e) {
+            throw new OsmosisRuntimeException("Bounding box file " + file + " contains an invalid coordinate.", e);
+        }
+
+        return ExtractArea.createBox(name, left, right, top, bottom);
+    }
+}
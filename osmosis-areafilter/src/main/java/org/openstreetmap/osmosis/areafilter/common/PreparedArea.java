@@ -0,0 +1,308 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Prepares an {@link Area} for fast point in polygon tests. Point containment
+ * gives exactly the same results as {@link Area#contains(double, double)}.
+ * <p>
+ * The bounds of the area are divided into a uniform grid. Cells that aren't
+ * touched by the area outline lie entirely inside or outside the area and are
+ * classified once up front, so most points are resolved with a single array
+ * lookup. Points within cells touched by the outline are resolved by counting
+ * crossings of the outline edges within the cell's row, using the same
+ * crossing rules as {@link Area} applied to the same edge coordinates.
+ */
+public class PreparedArea {
+    private static final int MAX_GRID_SIZE = 1024;
+    private static final int EDGES_PER_CELL = 4;
+    private static final byte CELL_OUTSIDE = 0;
+    private static final byte CELL_INSIDE = 1;
+    private static final byte CELL_BOUNDARY = 2;
+
+    // Each edge is stored as six values ordered top to bottom: x0, y0, x1, y1, xmin, xmax.
+    private static final int EDGE_SIZE = 6;
+
+    private Area area;
+    private Rectangle2D bounds;
+    private boolean indexed;
+    private int gridSize;
+    private double minX;
+    private double minY;
+    private double cellWidth;
+    private double cellHeight;
+    private byte[] cells;
+    private double[][] rowEdges;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param area
+     *            The area to be prepared. It must not be modified afterwards.
+     */
+    public PreparedArea(Area area) {
+        List<double[]> outline;
+
+        this.area = area;
+        bounds = area.getBounds2D();
+
+        outline = getOutline(area);
+
+        // Only areas made up of straight lines are indexed, anything else is
+        // passed directly to the area.
+        indexed = outline != null && bounds.getWidth() > 0 && bounds.getHeight() > 0;
+        if (indexed) {
+            buildIndex(outline);
+        }
+    }
+
+    /**
+     * Returns the outline segments of the area in path order, or null if the
+     * outline contains curves.
+     */
+    private static List<double[]> getOutline(Area area) {
+        List<double[]> outline = new ArrayList<double[]>();
+        double[] coords = new double[6];
+        double startX = 0;
+        double startY = 0;
+        double currentX = 0;
+        double currentY = 0;
+
+        for (PathIterator i = area.getPathIterator(null); !i.isDone(); i.next()) {
+            switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = coords[0];
+                    startY = coords[1];
+                    currentX = startX;
+                    currentY = startY;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    outline.add(new double[] {currentX, currentY, coords[0], coords[1]});
+                    currentX = coords[0];
+                    currentY = coords[1];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    outline.add(new double[] {currentX, currentY, startX, startY});
+                    currentX = startX;
+                    currentY = startY;
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        return outline;
+    }
+
+    private void buildIndex(List<double[]> outline) {
+        List<List<double[]>> rowEdgeLists;
+        double marginX;
+        double marginY;
+        double precision;
+
+        gridSize = (int) Math.min(MAX_GRID_SIZE, Math.max(1, Math.ceil(Math.sqrt(outline.size() * EDGES_PER_CELL))));
+        minX = bounds.getMinX();
+        minY = bounds.getMinY();
+        cellWidth = bounds.getWidth() / gridSize;
+        cellHeight = bounds.getHeight() / gridSize;
+
+        // Cells are expanded slightly when determining which edges touch them
+        // so that rounding when locating the cell of a point can't place it
+        // outside the region that was examined.
+        precision = Math.ulp(Math.max(
+                        Math.max(Math.abs(bounds.getMinX()), Math.abs(bounds.getMaxX())),
+                        Math.max(Math.abs(bounds.getMinY()), Math.abs(bounds.getMaxY()))))
+                * 64;
+        marginX = Math.max(cellWidth * 1e-6, precision);
+        marginY = Math.max(cellHeight * 1e-6, precision);
+
+        cells = new byte[gridSize * gridSize];
+        rowEdgeLists = new ArrayList<List<double[]>>(gridSize);
+        for (int row = 0; row < gridSize; row++) {
+            rowEdgeLists.add(new ArrayList<double[]>());
+        }
+
+        for (double[] segment : outline) {
+            double[] edge;
+            int firstRow;
+            int lastRow;
+
+            // Order the segment top to bottom in the same way as the area
+            // does internally.
+            if (segment[1] <= segment[3]) {
+                edge = new double[] {segment[0], segment[1], segment[2], segment[3], 0, 0};
+            } else {
+                edge = new double[] {segment[2], segment[3], segment[0], segment[1], 0, 0};
+            }
+            edge[4] = Math.min(edge[0], edge[2]);
+            edge[5] = Math.max(edge[0], edge[2]);
+
+            firstRow = getRow(edge[1] - marginY);
+            lastRow = getRow(edge[3] + marginY);
+            for (int row = firstRow; row <= lastRow; row++) {
+                double bandTop;
+                double bandBottom;
+                double xLow;
+                double xHigh;
+
+                // Mark the cells touched by the part of the edge within this row.
+                bandTop = Math.max(edge[1], minY + row * cellHeight - marginY);
+                bandBottom = Math.min(edge[3], minY + (row + 1) * cellHeight + marginY);
+                if (bandTop > bandBottom) {
+                    continue;
+                }
+                if (edge[1] == edge[3]) {
+                    xLow = edge[4];
+                    xHigh = edge[5];
+                } else {
+                    xLow = interpolateX(edge, bandTop);
+                    xHigh = interpolateX(edge, bandBottom);
+                    if (xLow > xHigh) {
+                        double temp = xLow;
+                        xLow = xHigh;
+                        xHigh = temp;
+                    }
+                }
+                for (int col = getColumn(xLow - marginX); col <= getColumn(xHigh + marginX); col++) {
+                    cells[row * gridSize + col] = CELL_BOUNDARY;
+                }
+
+                // Horizontal edges never cross a horizontal ray so are only
+                // needed to identify boundary cells.
+                if (edge[1] != edge[3]) {
+                    rowEdgeLists.get(row).add(edge);
+                }
+            }
+        }
+
+        // Sort the edges of each row by descending maximum x so that crossing
+        // counts can stop at the first edge to the left of the point.
+        rowEdges = new double[gridSize][];
+        for (int row = 0; row < gridSize; row++) {
+            List<double[]> edges = rowEdgeLists.get(row);
+            double[] packed = new double[edges.size() * EDGE_SIZE];
+
+            edges.sort(Comparator.comparingDouble((double[] edge) -> edge[5]).reversed());
+            for (int i = 0; i < edges.size(); i++) {
+                System.arraycopy(edges.get(i), 0, packed, i * EDGE_SIZE, EDGE_SIZE);
+            }
+            rowEdges[row] = packed;
+        }
+
+        // The outline doesn't pass through the remaining cells so all points
+        // within each of them share the result of the cell centre.
+        for (int row = 0; row < gridSize; row++) {
+            double centreY = minY + (row + 0.5) * cellHeight;
+
+            for (int col = 0; col < gridSize; col++) {
+                int cell = row * gridSize + col;
+
+                if (cells[cell] != CELL_BOUNDARY) {
+                    double centreX = minX + (col + 0.5) * cellWidth;
+
+                    cells[cell] = isOdd(countCrossings(row, centreX, centreY)) ? CELL_INSIDE : CELL_OUTSIDE;
+                }
+            }
+        }
+    }
+
+    private static double interpolateX(double[] edge, double y) {
+        return edge[0] + (y - edge[1]) * (edge[2] - edge[0]) / (edge[3] - edge[1]);
+    }
+
+    private int getColumn(double x) {
+        return clampToGrid(Math.floor((x - minX) / cellWidth));
+    }
+
+    private int getRow(double y) {
+        return clampToGrid(Math.floor((y - minY) / cellHeight));
+    }
+
+    private int clampToGrid(double index) {
+        if (index < 0) {
+            return 0;
+        }
+        if (index >= gridSize) {
+            return gridSize - 1;
+        }
+        return (int) index;
+    }
+
+    private static boolean isOdd(int value) {
+        return (value & 1) == 1;
+    }
+
+    /**
+     * Counts the edges of a row crossed by a ray from the point towards
+     * positive x. This replicates the crossing rules of the area edges.
+     */
+    private int countCrossings(int row, double x, double y) {
+        double[] edges = rowEdges[row];
+        int crossings = 0;
+
+        for (int i = 0; i < edges.length; i += EDGE_SIZE) {
+            double x0 = edges[i];
+            double y0 = edges[i + 1];
+            double x1 = edges[i + 2];
+            double y1 = edges[i + 3];
+            double xmin = edges[i + 4];
+            double xmax = edges[i + 5];
+
+            // Edges are sorted by xmax so no further edges can be crossed.
+            if (x >= xmax) {
+                break;
+            }
+
+            if (y >= y0 && y < y1 && (x < xmin || x < xForY(x0, y0, x1, y1, y))) {
+                crossings++;
+            }
+        }
+
+        return crossings;
+    }
+
+    private static double xForY(double x0, double y0, double x1, double y1, double y) {
+        if (x0 == x1 || y <= y0) {
+            return x0;
+        }
+        if (y >= y1) {
+            return x1;
+        }
+        return x0 + (y - y0) * (x1 - x0) / (y1 - y0);
+    }
+
+    /**
+     * Indicates if a point lies within the area.
+     *
+     * @param x
+     *            The x coordinate of the point.
+     * @param y
+     *            The y coordinate of the point.
+     * @return True if the point is inside the area.
+     */
+    public boolean contains(double x, double y) {
+        int row;
+        byte cell;
+
+        if (!bounds.contains(x, y)) {
+            return false;
+        }
+        if (!indexed) {
+            return area.contains(x, y);
+        }
+
+        row = getRow(y);
+        cell = cells[row * gridSize + getColumn(x)];
+        if (cell != CELL_BOUNDARY) {
+            return cell == CELL_INSIDE;
+        }
+
+        return isOdd(countCrossings(row, x, y));
+    }
+}
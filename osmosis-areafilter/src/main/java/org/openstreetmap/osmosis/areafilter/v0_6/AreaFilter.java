@@ -1,14 +1,17 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.areafilter.v0_6;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityProcessor;
 import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
@@ -19,8 +22,12 @@ import org.openstreetmap.osmosis.core.filter.common.IdTracker;
 import org.openstreetmap.osmosis.core.filter.common.IdTrackerFactory;
 import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
-import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownSource;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSink;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -30,7 +37,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * @author Brett Henderson
  * @author Karl Newman
  */
-public abstract class AreaFilter implements SinkSource, EntityProcessor {
+public abstract class AreaFilter implements SinkSource, EntityProcessor, MultiPassSink {
     private Sink sink;
     private IdTracker availableNodes; // Nodes within the area.
     private IdTracker requiredNodes; // Nodes needed to complete referencing entities.
@@ -47,6 +54,10 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
     private SimpleObjectStore<NodeContainer> allNodes;
     // this duplicates as a container for held-back relations in the cascadingRelations case:
     private SimpleObjectStore<RelationContainer> allRelations;
+    private MultiPassSource passSource;
+    private boolean multiPass; // Nodes and ways are read again instead of being stored.
+    private boolean wayNodePass; // Selecting the nodes of ways within complete relations.
+    private boolean emitPass; // Sending the selected entities to the sink.
 
     /**
      * Creates a new instance.
@@ -94,14 +105,14 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
         storeEntities = completeWays || completeRelations;
         if (storeEntities) {
             allNodes = new SimpleObjectStore<NodeContainer>(
-                    new SingleClassObjectSerializationFactory(NodeContainer.class), "afn", true);
+                    new CompactObjectSerializationFactory(NodeContainer.class), "afn", true);
             allWays = new SimpleObjectStore<WayContainer>(
-                    new SingleClassObjectSerializationFactory(WayContainer.class), "afw", true);
+                    new CompactObjectSerializationFactory(WayContainer.class), "afw", true);
             allRelations = new SimpleObjectStore<RelationContainer>(
-                    new SingleClassObjectSerializationFactory(RelationContainer.class), "afr", true);
+                    new CompactObjectSerializationFactory(RelationContainer.class), "afr", true);
         } else if (cascadingRelations) {
             allRelations = new SimpleObjectStore<RelationContainer>(
-                    new SingleClassObjectSerializationFactory(RelationContainer.class), "afr", true);
+                    new CompactObjectSerializationFactory(RelationContainer.class), "afr", true);
         }
     }
 
@@ -109,7 +120,33 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
      * {@inheritDoc}
      */
     public void initialize(Map<String, Object> metaData) {
-        sink.initialize(metaData);
+        Map<String, Object> downstreamMetaData;
+        FilterPushdownSource pushdownSource;
+        Bound areaBound;
+
+        // Unless complete entities are required, nodes outside the area are
+        // never used and the source may skip them.
+        pushdownSource = (FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY);
+        areaBound = getAreaBound();
+        if (!storeEntities && pushdownSource != null && areaBound != null) {
+            EntityFilterSpecification specification = new EntityFilterSpecification();
+
+            specification.setBoundingBox(areaBound);
+            pushdownSource.pushDown(this, specification);
+        }
+
+        // If the source can be read again, nodes and ways are emitted during
+        // an additional pass instead of being stored until completion.
+        passSource = (MultiPassSource) metaData.get(MultiPassSource.META_DATA_KEY);
+        multiPass = storeEntities && passSource != null && passSource.requestPass(this);
+        wayNodePass = false;
+        emitPass = false;
+
+        downstreamMetaData = new HashMap<>(metaData);
+        downstreamMetaData.remove(MultiPassSource.META_DATA_KEY);
+        downstreamMetaData.remove(FilterPushdownSource.META_DATA_KEY);
+
+        sink.initialize(downstreamMetaData);
     }
 
     /**
@@ -125,8 +162,10 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
      * {@inheritDoc}
      */
     public void process(BoundContainer boundContainer) {
-        // By default, pass it on unchanged
-        sink.process(boundContainer);
+        // By default, pass it on unchanged, the bound is repeated in each pass
+        if (!wayNodePass && !emitPass) {
+            sink.process(boundContainer);
+        }
     }
 
     /**
@@ -138,6 +177,16 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
      */
     protected abstract boolean isNodeWithinArea(Node node);
 
+    /**
+     * Gets a bounding box containing the entire area. This allows sources to
+     * skip nodes that can't lie within the area.
+     *
+     * @return The bounding box, or null if it isn't known.
+     */
+    protected Bound getAreaBound() {
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -146,8 +195,18 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 
         node = container.getEntity();
 
+        if (emitPass) {
+            if (availableNodes.get(node.getId())) {
+                emitNode(container);
+            }
+            return;
+        }
+        if (wayNodePass) {
+            return;
+        }
+
         // Check if we're storing entities for later.
-        if (storeEntities) {
+        if (storeEntities && !multiPass) {
             allNodes.add(container);
         }
 
@@ -171,8 +230,19 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 
         way = container.getEntity();
 
+        if (emitPass) {
+            if (availableWays.get(way.getId())) {
+                emitWay(container);
+            }
+            return;
+        }
+        if (wayNodePass) {
+            selectWayNodes(way);
+            return;
+        }
+
         // Check if we're storing entities for later.
-        if (storeEntities) {
+        if (storeEntities && !multiPass) {
             allWays.add(container);
         }
 
@@ -217,6 +287,16 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 
         relation = container.getEntity();
 
+        if (emitPass) {
+            if (availableRelations.get(relation.getId())) {
+                emitRelation(container);
+            }
+            return;
+        }
+        if (wayNodePass) {
+            return;
+        }
+
         // First look through all the node and way members to see if any are within the filtered area
         inArea = false;
         holdBackRelation = false;
@@ -469,22 +549,29 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
         }
     }
 
+    /**
+     * Select all nodes within the way if it has already been selected.
+     *
+     * @param way
+     *            The way to be examined.
+     */
+    private void selectWayNodes(Way way) {
+        // Only examine available ways.
+        if (availableWays.get(way.getId())) {
+            // Select all nodes within the way.
+            for (WayNode wayNode : way.getWayNodes()) {
+                availableNodes.set(wayNode.getNodeId());
+            }
+        }
+    }
+
     /**
      * Select all nodes within already selected ways.
      */
     private void selectWayNodes() {
         try (ReleasableIterator<WayContainer> i = allWays.iterate()) {
             while (i.hasNext()) {
-                Way way = i.next().getEntity();
-                long wayId = way.getId();
-
-                // Only examine available relations.
-                if (availableWays.get(wayId)) {
-                    // Select all nodes within the way.
-                    for (WayNode wayNode : way.getWayNodes()) {
-                        availableNodes.set(wayNode.getNodeId());
-                    }
-                }
+                selectWayNodes(i.next().getEntity());
             }
         }
     }
@@ -499,9 +586,27 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
 
         // Select all child relation members of type way or node.
         selectChildNonRelationsPass();
+    }
 
-        // Select all way nodes of existing nodes.
-        selectWayNodes();
+    /**
+     * Selects all entities to be sent to the output once all entities have
+     * been examined.
+     */
+    private void selectStoredEntities() {
+        // Select all parents of current relations.
+        selectParentRelations();
+
+        // Merge required ids into available ids.
+        availableNodes.setAll(requiredNodes);
+        availableWays.setAll(requiredWays);
+        availableRelations.setAll(requiredRelations);
+        requiredNodes = null;
+        requiredWays = null;
+        requiredRelations = null;
+
+        if (completeRelations) {
+            buildCompleteRelations();
+        }
     }
 
     private void pumpNodesToSink() {
@@ -537,25 +642,41 @@ public abstract class AreaFilter implements SinkSource, EntityProcessor {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void completePass() {
+        if (wayNodePass) {
+            wayNodePass = false;
+            emitPass = true;
+        } else if (!emitPass) {
+            selectStoredEntities();
+
+            // The nodes of ways within complete relations can only be selected
+            // by reading the ways again.
+            if (completeRelations) {
+                if (!passSource.requestPass(this)) {
+                    throw new OsmosisRuntimeException("The source refused an additional pass of the data.");
+                }
+                wayNodePass = true;
+            } else {
+                emitPass = true;
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     public void complete() {
         // If we've stored entities temporarily, we now need to forward the selected ones to the output.
-        if (storeEntities) {
-            // Select all parents of current relations.
-            selectParentRelations();
-
-            // Merge required ids into available ids.
-            availableNodes.setAll(requiredNodes);
-            availableWays.setAll(requiredWays);
-            availableRelations.setAll(requiredRelations);
-            requiredNodes = null;
-            requiredWays = null;
-            requiredRelations = null;
+        // When reading multiple passes they have already been sent during the final pass.
+        if (storeEntities && !multiPass) {
+            selectStoredEntities();
 
             if (completeRelations) {
-                buildCompleteRelations();
+                // Select all way nodes of existing nodes.
+                selectWayNodes();
             }
 
             // Send the selected entities to the output.
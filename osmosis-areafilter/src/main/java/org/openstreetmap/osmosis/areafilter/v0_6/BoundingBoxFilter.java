@@ -76,6 +76,14 @@ public class BoundingBoxFilter extends AreaFilter {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Bound getAreaBound() {
+        return bound;
+    }
+
     /**
      * {@inheritDoc}
      */
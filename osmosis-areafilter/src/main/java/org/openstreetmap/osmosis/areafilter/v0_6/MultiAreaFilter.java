@@ -0,0 +1,695 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.v0_6;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.openstreetmap.osmosis.areafilter.common.AreaIndex;
+import org.openstreetmap.osmosis.areafilter.common.AreaSetTracker;
+import org.openstreetmap.osmosis.areafilter.common.AreaSets;
+import org.openstreetmap.osmosis.areafilter.common.ExtractArea;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityProcessor;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkMultiSource;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+
+/**
+ * Extracts entities within many areas in a single pass of the input. Each area
+ * has its own output, and the output of each area matches that of a single
+ * area filter configured with the same options.
+ * <p>
+ * Candidate areas for each node are located using a spatial index, and area
+ * membership of all entities is tracked in shared structures storing a single
+ * area set per entity instead of an id tracker per area.
+ */
+public class MultiAreaFilter implements SinkMultiSource, EntityProcessor {
+    private List<ExtractArea> areas;
+    private List<ProxySinkSource> sinkList;
+    private AreaIndex areaIndex;
+    private AreaSets areaSets;
+    private int[] singletonSets;
+    private AreaSetTracker availableNodes; // Nodes within each area.
+    private AreaSetTracker requiredNodes; // Nodes needed to complete referencing entities.
+    private AreaSetTracker availableWays; // Ways within each area.
+    private AreaSetTracker availableRelations; // Relations within each area.
+    private boolean clipIncompleteEntities;
+    private boolean completeWays;
+    private boolean completeRelations;
+    private boolean storeEntities;
+    private boolean cascadingRelations;
+    private SimpleObjectStore<WayContainer> allWays;
+    private SimpleObjectStore<NodeContainer> allNodes;
+    // this duplicates as a container for held-back relations in the cascadingRelations case:
+    private SimpleObjectStore<RelationContainer> allRelations;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param areas
+     *            The areas to be extracted. Each area is written to the source
+     *            with the same index.
+     * @param clipIncompleteEntities
+     *            If true, entities referring to non-existent entities will be
+     *            modified to ensure referential integrity. For example, ways
+     *            will be modified to only include nodes inside the area.
+     * @param completeWays
+     *            Include all nodes for ways which have at least one node inside
+     *            the filtered area.
+     * @param completeRelations
+     *            Include all relations referenced by other relations which have
+     *            members inside the filtered area.
+     * @param cascadingRelations
+     *            Make sure that a relation referencing a relation which is included
+     *            will also be included.
+     */
+    public MultiAreaFilter(
+            List<ExtractArea> areas,
+            boolean clipIncompleteEntities,
+            boolean completeWays,
+            boolean completeRelations,
+            boolean cascadingRelations) {
+        this.areas = areas;
+        this.clipIncompleteEntities = clipIncompleteEntities;
+        // These options are resolved in the same way as the single area filter.
+        this.completeWays = completeWays || completeRelations;
+        this.completeRelations = completeRelations;
+        this.cascadingRelations = cascadingRelations && !completeRelations && !completeWays;
+
+        sinkList = new ArrayList<ProxySinkSource>();
+        for (int i = 0; i < areas.size(); i++) {
+            sinkList.add(new ProxySinkSource());
+        }
+
+        areaIndex = new AreaIndex(areas);
+        areaSets = new AreaSets();
+        singletonSets = new int[areas.size()];
+        for (int i = 0; i < areas.size(); i++) {
+            singletonSets[i] = areaSets.getSingleton(i);
+        }
+
+        availableNodes = new AreaSetTracker(areaSets);
+        requiredNodes = new AreaSetTracker(areaSets);
+        availableWays = new AreaSetTracker(areaSets);
+        availableRelations = new AreaSetTracker(areaSets);
+
+        storeEntities = completeWays || completeRelations;
+        if (storeEntities) {
+            allNodes = new SimpleObjectStore<NodeContainer>(
+                    new CompactObjectSerializationFactory(NodeContainer.class), "afn", true);
+            allWays = new SimpleObjectStore<WayContainer>(
+                    new CompactObjectSerializationFactory(WayContainer.class), "afw", true);
+            allRelations = new SimpleObjectStore<RelationContainer>(
+                    new CompactObjectSerializationFactory(RelationContainer.class), "afr", true);
+        } else if (cascadingRelations) {
+            allRelations = new SimpleObjectStore<RelationContainer>(
+                    new CompactObjectSerializationFactory(RelationContainer.class), "afr", true);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Source getSource(int index) {
+        if (index < 0 || index >= sinkList.size()) {
+            throw new OsmosisRuntimeException(
+                    "Source index " + index + " is in the range 0 to " + (sinkList.size() - 1) + ".");
+        }
+
+        return sinkList.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getSourceCount() {
+        return sinkList.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void initialize(Map<String, Object> metaData) {
+        for (ProxySinkSource sink : sinkList) {
+            sink.initialize(metaData);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void process(EntityContainer entityContainer) {
+        // Ask the entity container to invoke the appropriate processing method
+        // for the entity type.
+        entityContainer.process(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void process(BoundContainer boundContainer) {
+        Bound bound;
+
+        bound = boundContainer.getEntity();
+
+        // Send each area a bound clipped to that area.
+        for (int i = 0; i < areas.size(); i++) {
+            Bound newBound = areas.get(i).intersect(bound);
+
+            if (newBound != null) {
+                sinkList.get(i).process(new BoundContainer(newBound));
+            }
+        }
+    }
+
+    private int getNodeAreaSet(Node node) {
+        double latitude;
+        double longitude;
+        int candidateCount;
+        int set;
+
+        latitude = node.getLatitude();
+        longitude = node.getLongitude();
+
+        // Only areas with a covering rectangle containing the node need to be
+        // checked in detail.
+        candidateCount = areaIndex.query(latitude, longitude);
+        set = AreaSets.EMPTY;
+        for (int i = 0; i < candidateCount; i++) {
+            int area = areaIndex.getCandidate(i);
+
+            if (areas.get(area).contains(latitude, longitude)) {
+                set = areaSets.union(set, singletonSets[area]);
+            }
+        }
+
+        return set;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void process(NodeContainer container) {
+        Node node;
+        int set;
+
+        node = container.getEntity();
+
+        // Check if we're storing entities for later.
+        if (storeEntities) {
+            allNodes.add(container);
+        }
+
+        set = getNodeAreaSet(node);
+
+        // Only add the node to the areas it lies within.
+        if (set != AreaSets.EMPTY) {
+            availableNodes.add(node.getId(), set);
+
+            // If we're not storing entities, we pass it on immediately.
+            if (!storeEntities) {
+                emitNode(container, set);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void process(WayContainer container) {
+        Way way;
+        int set;
+
+        way = container.getEntity();
+
+        // Check if we're storing entities for later.
+        if (storeEntities) {
+            allWays.add(container);
+        }
+
+        // The way lies within every area containing at least one of its nodes.
+        set = AreaSets.EMPTY;
+        for (WayNode nodeReference : way.getWayNodes()) {
+            set = areaSets.union(set, availableNodes.get(nodeReference.getNodeId()));
+        }
+
+        if (set != AreaSets.EMPTY) {
+            availableWays.add(way.getId(), set);
+
+            // If complete ways are desired, mark all nodes as required by the way's areas.
+            if (completeWays) {
+                for (WayNode nodeReference : way.getWayNodes()) {
+                    requiredNodes.add(nodeReference.getNodeId(), set);
+                }
+            }
+
+            // If we're not storing entities, we pass it on immediately.
+            if (!storeEntities) {
+                emitWay(container, set);
+            }
+        }
+    }
+
+    private int getMemberAreaSet(RelationMember member) {
+        switch (member.getMemberType()) {
+            case Node:
+                return availableNodes.get(member.getMemberId());
+            case Way:
+                return availableWays.get(member.getMemberId());
+            case Relation:
+                return availableRelations.get(member.getMemberId());
+            default:
+                return AreaSets.EMPTY;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void process(RelationContainer container) {
+        Relation relation;
+        int set;
+
+        relation = container.getEntity();
+
+        // The relation lies within every area containing at least one of its members.
+        set = AreaSets.EMPTY;
+        for (RelationMember member : relation.getMembers()) {
+            set = areaSets.union(set, getMemberAreaSet(member));
+        }
+
+        // Check if we're storing entities for later.
+        if (storeEntities || cascadingRelations) {
+            allRelations.add(container);
+        }
+
+        if (set != AreaSets.EMPTY) {
+            availableRelations.add(relation.getId(), set);
+
+            // If we're not storing entities, we pass it on immediately.
+            if (!storeEntities && !cascadingRelations) {
+                emitRelation(container, set);
+            }
+        }
+    }
+
+    private static void prepareForAreas(EntityContainer container, int[] setAreas) {
+        // An entity passed to multiple downstream tasks must be read-only to
+        // prevent them impacting each other.
+        if (setAreas.length > 1) {
+            container.getEntity().makeReadOnly();
+        }
+    }
+
+    /**
+     * Sends a node to the sinks of a set of areas.
+     *
+     * @param nodeContainer
+     *            Node to be sent.
+     * @param set
+     *            The areas to send the node to.
+     */
+    private void emitNode(NodeContainer nodeContainer, int set) {
+        int[] setAreas = areaSets.getAreas(set);
+
+        prepareForAreas(nodeContainer, setAreas);
+        for (int area : setAreas) {
+            sinkList.get(area).process(nodeContainer);
+        }
+    }
+
+    /**
+     * Sends a way to the sinks of a set of areas. This will perform any
+     * necessary transformations on the way for each area before sending it.
+     *
+     * @param wayContainer
+     *            Way to be sent.
+     * @param set
+     *            The areas to send the way to.
+     */
+    private void emitWay(WayContainer wayContainer, int set) {
+        int[] setAreas = areaSets.getAreas(set);
+
+        prepareForAreas(wayContainer, setAreas);
+        for (int area : setAreas) {
+            if (clipIncompleteEntities) {
+                WayContainer filteredWayContainer;
+                Way filteredWay;
+
+                filteredWayContainer = wayContainer.getWriteableInstance();
+                filteredWay = filteredWayContainer.getEntity();
+
+                // Remove node references for nodes that are unavailable in this area.
+                for (Iterator<WayNode> i = filteredWay.getWayNodes().iterator(); i.hasNext(); ) {
+                    WayNode nodeReference = i.next();
+
+                    if (!areaSets.contains(availableNodes.get(nodeReference.getNodeId()), area)) {
+                        i.remove();
+                    }
+                }
+
+                // Only add ways that contain nodes.
+                if (filteredWay.getWayNodes().size() > 0) {
+                    sinkList.get(area).process(filteredWayContainer);
+                }
+
+            } else {
+                sinkList.get(area).process(wayContainer);
+            }
+        }
+    }
+
+    /**
+     * Sends a relation to the sinks of a set of areas. This will perform any
+     * necessary transformations on the relation for each area before sending
+     * it.
+     *
+     * @param relationContainer
+     *            Relation to be sent.
+     * @param set
+     *            The areas to send the relation to.
+     */
+    private void emitRelation(RelationContainer relationContainer, int set) {
+        int[] setAreas = areaSets.getAreas(set);
+
+        prepareForAreas(relationContainer, setAreas);
+        for (int area : setAreas) {
+            if (clipIncompleteEntities) {
+                RelationContainer filteredRelationContainer;
+                Relation filteredRelation;
+
+                filteredRelationContainer = relationContainer.getWriteableInstance();
+                filteredRelation = filteredRelationContainer.getEntity();
+
+                // Remove members for entities that are unavailable in this area.
+                for (Iterator<RelationMember> i = filteredRelation.getMembers().iterator(); i.hasNext(); ) {
+                    if (!areaSets.contains(getMemberAreaSet(i.next()), area)) {
+                        i.remove();
+                    }
+                }
+
+                // Only add relations that contain entities.
+                if (filteredRelation.getMembers().size() > 0) {
+                    sinkList.get(area).process(filteredRelationContainer);
+                }
+
+            } else {
+                sinkList.get(area).process(relationContainer);
+            }
+        }
+    }
+
+    private boolean selectParentRelationsPass() {
+        try (ReleasableIterator<RelationContainer> i = allRelations.iterate()) {
+            int selectionCount;
+
+            selectionCount = 0;
+
+            while (i.hasNext()) {
+                Relation relation = i.next().getEntity();
+                int childSet;
+
+                // This relation becomes available in all areas of its member relations.
+                childSet = AreaSets.EMPTY;
+                for (RelationMember member : relation.getMembers()) {
+                    if (member.getMemberType().equals(EntityType.Relation)) {
+                        childSet = areaSets.union(childSet, availableRelations.get(member.getMemberId()));
+                    }
+                }
+
+                if (availableRelations.add(relation.getId(), childSet)) {
+                    selectionCount++;
+                }
+            }
+
+            return selectionCount > 0;
+        }
+    }
+
+    /**
+     * Walk up the relation tree. This means iterating through relations until all parent relations
+     * of existing relations are marked in the available list. We may have to do this multiple times
+     * depending on the nesting level of relations.
+     */
+    private void selectParentRelations() {
+        boolean selectionsMade;
+
+        do {
+            selectionsMade = selectParentRelationsPass();
+        } while (selectionsMade);
+    }
+
+    /**
+     * Select all relation members of type relation for existing selected relations. This may need
+     * to be called several times until all children are selected.
+     *
+     * @return True if additional selections were made an another pass is needed.
+     */
+    private boolean selectChildRelationsPass() {
+        try (ReleasableIterator<RelationContainer> i = allRelations.iterate()) {
+            int selectionCount;
+
+            selectionCount = 0;
+
+            while (i.hasNext()) {
+                Relation relation = i.next().getEntity();
+                int set = availableRelations.get(relation.getId());
+
+                // Only examine available relations.
+                if (set != AreaSets.EMPTY) {
+                    // Select the child in all areas of the relation.
+                    for (RelationMember member : relation.getMembers()) {
+                        if (member.getMemberType().equals(EntityType.Relation)) {
+                            if (availableRelations.add(member.getMemberId(), set)) {
+                                selectionCount++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            return selectionCount > 0;
+        }
+    }
+
+    /**
+     * Select all relation members of type node or way for existing selected relations.
+     */
+    private void selectChildNonRelationsPass() {
+        try (ReleasableIterator<RelationContainer> i = allRelations.iterate()) {
+            while (i.hasNext()) {
+                Relation relation = i.next().getEntity();
+                int set = availableRelations.get(relation.getId());
+
+                // Only examine available relations.
+                if (set != AreaSets.EMPTY) {
+                    // Select the member in all areas of the relation.
+                    for (RelationMember member : relation.getMembers()) {
+                        switch (member.getMemberType()) {
+                            case Node:
+                                availableNodes.add(member.getMemberId(), set);
+                                break;
+                            case Way:
+                                availableWays.add(member.getMemberId(), set);
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Select all nodes within already selected ways.
+     */
+    private void selectWayNodes() {
+        try (ReleasableIterator<WayContainer> i = allWays.iterate()) {
+            while (i.hasNext()) {
+                Way way = i.next().getEntity();
+                int set = availableWays.get(way.getId());
+
+                // Only examine available ways.
+                if (set != AreaSets.EMPTY) {
+                    // Select all nodes within the way.
+                    for (WayNode wayNode : way.getWayNodes()) {
+                        availableNodes.add(wayNode.getNodeId(), set);
+                    }
+                }
+            }
+        }
+    }
+
+    private void buildCompleteRelations() {
+        boolean selectionsMade;
+
+        // Select all child relation members of type relation.
+        do {
+            selectionsMade = selectChildRelationsPass();
+        } while (selectionsMade);
+
+        // Select all child relation members of type way or node.
+        selectChildNonRelationsPass();
+
+        // Select all way nodes of existing nodes.
+        selectWayNodes();
+    }
+
+    private void pumpNodesToSinks() {
+        try (ReleasableIterator<NodeContainer> i = allNodes.iterate()) {
+            while (i.hasNext()) {
+                NodeContainer nodeContainer = i.next();
+                int set = availableNodes.get(nodeContainer.getEntity().getId());
+
+                if (set != AreaSets.EMPTY) {
+                    emitNode(nodeContainer, set);
+                }
+            }
+        }
+    }
+
+    private void pumpWaysToSinks() {
+        try (ReleasableIterator<WayContainer> i = allWays.iterate()) {
+            while (i.hasNext()) {
+                WayContainer wayContainer = i.next();
+                int set = availableWays.get(wayContainer.getEntity().getId());
+
+                if (set != AreaSets.EMPTY) {
+                    emitWay(wayContainer, set);
+                }
+            }
+        }
+    }
+
+    private void pumpRelationsToSinks() {
+        try (ReleasableIterator<RelationContainer> i = allRelations.iterate()) {
+            while (i.hasNext()) {
+                RelationContainer relationContainer = i.next();
+                int set = availableRelations.get(relationContainer.getEntity().getId());
+
+                if (set != AreaSets.EMPTY) {
+                    emitRelation(relationContainer, set);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void complete() {
+        // If we've stored entities temporarily, we now need to forward the selected ones to the outputs.
+        if (storeEntities) {
+            // Select all parents of current relations.
+            selectParentRelations();
+
+            // Merge required ids into available ids.
+            availableNodes.addAll(requiredNodes);
+            requiredNodes = null;
+
+            if (completeRelations) {
+                buildCompleteRelations();
+            }
+
+            // Send the selected entities to the outputs.
+            pumpNodesToSinks();
+            pumpWaysToSinks();
+            pumpRelationsToSinks();
+        } else if (cascadingRelations) {
+            // Select all parents of current relations.
+            selectParentRelations();
+
+            // Only the held back relations remain to be written in this mode.
+            pumpRelationsToSinks();
+        }
+
+        for (ProxySinkSource sink : sinkList) {
+            sink.complete();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() {
+        if (allNodes != null) {
+            allNodes.close();
+        }
+        if (allWays != null) {
+            allWays.close();
+        }
+        if (allRelations != null) {
+            allRelations.close();
+        }
+        for (ProxySinkSource sink : sinkList) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Instances of this class are returned via the parent class getSource method.
+     */
+    private static class ProxySinkSource implements SinkSource {
+        private Sink sink;
+
+        /**
+         * Creates a new instance.
+         */
+        ProxySinkSource() {
+            // Nothing to do.
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void setSink(Sink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void initialize(Map<String, Object> metaData) {
+            sink.initialize(metaData);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void process(EntityContainer entityContainer) {
+            sink.process(entityContainer);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void complete() {
+            sink.complete();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void close() {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.v0_6;
+
+import java.io.File;
+import java.util.List;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.areafilter.common.ExtractArea;
+import org.openstreetmap.osmosis.areafilter.common.ExtractAreaLoader;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkMultiSourceManager;
+
+/**
+ * The task manager factory for a multi area filter.
+ */
+public class MultiAreaFilterFactory extends AreaFilterTaskManagerFactory {
+    private static final Logger LOG = Logger.getLogger(MultiAreaFilterFactory.class.getName());
+    private static final String ARG_DIRECTORY = "directory";
+    private static final String DEFAULT_DIRECTORY = "areas";
+    private static final String ARG_CLIP_INCOMPLETE_ENTITIES = "clipIncompleteEntities";
+    private static final String ARG_COMPLETE_WAYS = "completeWays";
+    private static final String ARG_COMPLETE_RELATIONS = "completeRelations";
+    private static final String ARG_CASCADING_RELATIONS = "cascadingRelations";
+    private static final boolean DEFAULT_CLIP_INCOMPLETE_ENTITIES = false;
+    private static final boolean DEFAULT_COMPLETE_WAYS = false;
+    private static final boolean DEFAULT_COMPLETE_RELATIONS = false;
+    private static final boolean DEFAULT_CASCADING_RELATIONS = false;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+        String directoryName;
+        boolean clipIncompleteEntities;
+        boolean completeWays;
+        boolean completeRelations;
+        boolean cascadingRelations;
+        List<ExtractArea> areas;
+
+        // Get the task arguments.
+        directoryName =
+                getStringArgument(taskConfig, ARG_DIRECTORY, getDefaultStringArgument(taskConfig, DEFAULT_DIRECTORY));
+        clipIncompleteEntities =
+                getBooleanArgument(taskConfig, ARG_CLIP_INCOMPLETE_ENTITIES, DEFAULT_CLIP_INCOMPLETE_ENTITIES);
+        completeWays = getBooleanArgument(taskConfig, ARG_COMPLETE_WAYS, DEFAULT_COMPLETE_WAYS);
+        completeRelations = getBooleanArgument(taskConfig, ARG_COMPLETE_RELATIONS, DEFAULT_COMPLETE_RELATIONS);
+        cascadingRelations = getBooleanArgument(taskConfig, ARG_CASCADING_RELATIONS, DEFAULT_CASCADING_RELATIONS);
+
+        // The areas must be loaded now because they determine the number of
+        // output pipes.
+        areas = new ExtractAreaLoader(new File(directoryName)).loadAreas();
+        for (int i = 0; i < areas.size(); i++) {
+            LOG.info("Area " + areas.get(i).getName() + " is written to output pipe " + i + ".");
+        }
+
+        return new SinkMultiSourceManager(
+                taskConfig.getId(),
+                new MultiAreaFilter(areas, clipIncompleteEntities, completeWays, completeRelations, cascadingRelations),
+                taskConfig.getPipeArgs());
+    }
+}
@@ -5,6 +5,7 @@ import java.awt.geom.Area;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import org.openstreetmap.osmosis.areafilter.common.PolygonFileReader;
+import org.openstreetmap.osmosis.areafilter.common.PreparedArea;
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
@@ -20,6 +21,7 @@ public class PolygonFilter extends AreaFilter {
 
     private File polygonFile;
     private Area area;
+    private PreparedArea preparedArea;
 
     /**
      * Creates a new instance.
@@ -52,6 +54,17 @@ public class PolygonFilter extends AreaFilter {
         this.polygonFile = polygonFile;
 
         area = null;
+        preparedArea = null;
+    }
+
+    /**
+     * Loads the polygon and prepares it for point tests if it hasn't been loaded yet.
+     */
+    private void loadArea() {
+        if (area == null) {
+            area = new PolygonFileReader(polygonFile).loadPolygon();
+            preparedArea = new PreparedArea(area);
+        }
     }
 
     /**
@@ -61,10 +74,8 @@ public class PolygonFilter extends AreaFilter {
     public void process(BoundContainer boundContainer) {
         Bound newBound = null;
 
-        // Configure the area if it hasn't been created yet. (Should this be in an "initialize" method?)
-        if (area == null) {
-            area = new PolygonFileReader(polygonFile).loadPolygon();
-        }
+        // Configure the area if it hasn't been created yet.
+        loadArea();
 
         for (Bound b : boundContainer.getEntity().toSimpleBound()) {
             if (newBound == null) {
@@ -115,6 +126,26 @@ public class PolygonFilter extends AreaFilter {
         return newBound;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Bound getAreaBound() {
+        Rectangle2D r;
+
+        // Configure the area if it hasn't been created yet.
+        loadArea();
+
+        // Polygons extending beyond the valid coordinate range can't be
+        // described by a bound.
+        r = area.getBounds2D();
+        if (r.getMinX() < -180 || r.getMaxX() > 180 || r.getMinY() < -90 || r.getMaxY() > 90) {
+            return null;
+        }
+
+        return new Bound(r.getMaxX(), r.getMinX(), r.getMaxY(), r.getMinY(), "");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -124,13 +155,13 @@ public class PolygonFilter extends AreaFilter {
         double longitude;
 
         // Configure the area if it hasn't been created yet.
-        if (area == null) {
-            area = new PolygonFileReader(polygonFile).loadPolygon();
-        }
+        loadArea();
 
         latitude = node.getLatitude();
         longitude = node.getLongitude();
 
-        return area.contains(longitude, latitude);
+        // The prepared area gives identical results to the area but avoids
+        // testing every polygon edge for most nodes.
+        return preparedArea.contains(longitude, latitude);
     }
 }
@@ -0,0 +1,127 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the prepared area implementation.
+ */
+public class PreparedAreaTest {
+
+    private static Area createRing(double centreX, double centreY, double radius, int pointCount, Random random) {
+        Path2D.Double path = new Path2D.Double();
+
+        // A jagged ring approximating a detailed coastline.
+        for (int i = 0; i < pointCount; i++) {
+            double angle = 2 * Math.PI * i / pointCount;
+            double distance = radius * (0.6 + 0.4 * random.nextDouble());
+            double x = centreX + distance * Math.cos(angle);
+            double y = centreY + distance * Math.sin(angle);
+
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        path.closePath();
+
+        return new Area(path);
+    }
+
+    private static void checkPoint(Area area, PreparedArea preparedArea, double x, double y) {
+        assertEquals(area.contains(x, y), preparedArea.contains(x, y), "Incorrect result for point " + x + "," + y);
+    }
+
+    private static void checkArea(Area area, Random random) {
+        PreparedArea preparedArea = new PreparedArea(area);
+        Rectangle2D bounds = area.getBounds2D();
+        double[] coords = new double[6];
+
+        // Check random points within and around the area.
+        for (int i = 0; i < 20000; i++) {
+            double x = bounds.getMinX() - 1 + random.nextDouble() * (bounds.getWidth() + 2);
+            double y = bounds.getMinY() - 1 + random.nextDouble() * (bounds.getHeight() + 2);
+
+            checkPoint(area, preparedArea, x, y);
+
+            // Points on a coarse lattice line up with vertices and grid lines.
+            checkPoint(area, preparedArea, Math.rint(x * 4) / 4, Math.rint(y * 4) / 4);
+        }
+
+        // Check points on and next to the outline.
+        for (PathIterator i = area.getPathIterator(null); !i.isDone(); i.next()) {
+            if (i.currentSegment(coords) != PathIterator.SEG_CLOSE) {
+                checkPoint(area, preparedArea, coords[0], coords[1]);
+                checkPoint(area, preparedArea, Math.nextUp(coords[0]), coords[1]);
+                checkPoint(area, preparedArea, Math.nextDown(coords[0]), coords[1]);
+                checkPoint(area, preparedArea, coords[0], Math.nextUp(coords[1]));
+                checkPoint(area, preparedArea, coords[0], Math.nextDown(coords[1]));
+                checkPoint(area, preparedArea, coords[0] + 1e-9, coords[1] - 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Tests a simple polygon loaded from a polygon file.
+     */
+    @Test
+    public void testPolygonFile() {
+        File polygonFile = new File(
+                getClass().getResource("/org/openstreetmap/osmosis/areafilter/v0_6/testPolygon.txt").getFile());
+
+        checkArea(new PolygonFileReader(polygonFile).loadPolygon(), new Random(1));
+    }
+
+    /**
+     * Tests a detailed polygon with many vertices.
+     */
+    @Test
+    public void testDetailedPolygon() {
+        Random random = new Random(2);
+
+        checkArea(createRing(10, 45, 8, 4000, random), random);
+    }
+
+    /**
+     * Tests multiple rings including holes and an island within a hole.
+     */
+    @Test
+    public void testMultipleRings() {
+        Random random = new Random(3);
+        Area area;
+
+        area = createRing(0, 0, 20, 2000, random);
+        area.subtract(createRing(0, 0, 8, 300, random));
+        area.add(createRing(0, 0, 3, 100, random));
+        area.add(createRing(40, 10, 5, 500, random));
+        area.subtract(new Area(new Rectangle2D.Double(-20, -1, 40, 2)));
+
+        checkArea(area, random);
+    }
+
+    /**
+     * Tests an area containing curves which can't be indexed.
+     */
+    @Test
+    public void testCurvedArea() {
+        checkArea(new Area(new Ellipse2D.Double(-10, -5, 20, 10)), new Random(4));
+    }
+
+    /**
+     * Tests an empty area.
+     */
+    @Test
+    public void testEmptyArea() {
+        checkArea(new Area(), new Random(5));
+    }
+}
@@ -175,6 +175,42 @@ public class AreaFilterTest extends AbstractDataTest {
         dataUtils.compareFiles(expectedOutputFile, actualOutputFile);
     }
 
+    /**
+     * Performs a bounding box filter with the completeRelations option enabled where the filter
+     * isn't directly connected to the reader, and must store the data instead of reading it again.
+     */
+    @Test
+    public void testBboxFilterCompleteRelationsStored() {
+        File inputFile;
+        File expectedOutputFile;
+        File actualOutputFile;
+
+        // Generate input files.
+        inputFile = dataUtils.createDataFile("v0_6/areafilter-in.osm");
+        expectedOutputFile = dataUtils.createDataFile("v0_6/areafilter-out-completerelations.osm");
+        actualOutputFile = dataUtils.newFile();
+
+        // Load the database with a dataset.
+        Osmosis.run(new String[] {
+            "-q",
+            "--read-xml-0.6",
+            inputFile.getPath(),
+            "--buffer",
+            "--bounding-box",
+            "completeRelations=yes",
+            "left=-10",
+            "top=10",
+            "right=10",
+            "bottom=-10",
+            "--tag-sort-0.6",
+            "--write-xml-0.6",
+            actualOutputFile.getPath()
+        });
+
+        // Validate that the output file matches the input file.
+        dataUtils.compareFiles(expectedOutputFile, actualOutputFile);
+    }
+
     /**
      * Performs a bounding box filter with the clipIncompleteEntities option enabled.
      */
@@ -0,0 +1,146 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.v0_6;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+
+/**
+ * Tests the multi area filter implementation.
+ */
+public class MultiAreaFilterTest extends AbstractDataTest {
+
+    private File createAreaDirectory(String secondBox) throws IOException {
+        File directory;
+
+        directory = new File(dataUtils.getTempDir(), "areas");
+        directory.mkdir();
+
+        // The first area matches the single area filter tests.
+        Files.write(new File(directory, "a.bbox").toPath(), "-10 -10 10 10".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(directory, "b.bbox").toPath(), secondBox.getBytes(StandardCharsets.UTF_8));
+
+        return directory;
+    }
+
+    private void runFilter(
+            String secondBox, String option, String expectedFirstFileName, String expectedSecondFileName)
+            throws IOException {
+        File inputFile;
+        File expectedFirstFile;
+        File expectedSecondFile;
+        File actualFirstFile;
+        File actualSecondFile;
+
+        // Generate input files.
+        inputFile = dataUtils.createDataFile("v0_6/areafilter-in.osm");
+        expectedFirstFile = dataUtils.createDataFile(expectedFirstFileName);
+        expectedSecondFile = dataUtils.createDataFile(expectedSecondFileName);
+        actualFirstFile = dataUtils.newFile();
+        actualSecondFile = dataUtils.newFile();
+
+        // Extract both areas in a single pass.
+        Osmosis.run(new String[] {
+            "-q",
+            "--read-xml-0.6",
+            inputFile.getPath(),
+            "--multi-bounding-polygon",
+            createAreaDirectory(secondBox).getPath(),
+            option,
+            "outPipe.0=first",
+            "outPipe.1=second",
+            "--tag-sort-0.6",
+            "inPipe.0=first",
+            "--write-xml-0.6",
+            actualFirstFile.getPath(),
+            "--tag-sort-0.6",
+            "inPipe.0=second",
+            "--write-xml-0.6",
+            actualSecondFile.getPath()
+        });
+
+        // Each area must match the output of a single area filter. Identical areas are used
+        // where the whole planet output would differ from the single area test data.
+        dataUtils.compareFiles(expectedFirstFile, actualFirstFile);
+        dataUtils.compareFiles(expectedSecondFile, actualSecondFile);
+    }
+
+    /**
+     * Performs a standard multi area filter.
+     *
+     * @throws IOException
+     *             if the area files cannot be created.
+     */
+    @Test
+    public void testStandard() throws IOException {
+        runFilter(
+                "-180,-90,180,90",
+                "completeWays=no",
+                "v0_6/areafilter-out-standard.osm",
+                "v0_6/areafilter-out-whole.osm");
+    }
+
+    /**
+     * Performs a multi area filter with the cascadingRelations option enabled.
+     *
+     * @throws IOException
+     *             if the area files cannot be created.
+     */
+    @Test
+    public void testCascadingRelations() throws IOException {
+        runFilter(
+                "-10 -10 10 10",
+                "cascadingRelations=yes",
+                "v0_6/areafilter-out-cascadingrelations.osm",
+                "v0_6/areafilter-out-cascadingrelations.osm");
+    }
+
+    /**
+     * Performs a multi area filter with the completeWays option enabled.
+     *
+     * @throws IOException
+     *             if the area files cannot be created.
+     */
+    @Test
+    public void testCompleteWays() throws IOException {
+        runFilter(
+                "-10 -10 10 10",
+                "completeWays=yes",
+                "v0_6/areafilter-out-completeways.osm",
+                "v0_6/areafilter-out-completeways.osm");
+    }
+
+    /**
+     * Performs a multi area filter with the completeRelations option enabled.
+     *
+     * @throws IOException
+     *             if the area files cannot be created.
+     */
+    @Test
+    public void testCompleteRelations() throws IOException {
+        runFilter(
+                "-10 -10 10 10",
+                "completeRelations=yes",
+                "v0_6/areafilter-out-completerelations.osm",
+                "v0_6/areafilter-out-completerelations.osm");
+    }
+
+    /**
+     * Performs a multi area filter with the clipIncompleteEntities option enabled.
+     *
+     * @throws IOException
+     *             if the area files cannot be created.
+     */
+    @Test
+    public void testClipIncompleteEntities() throws IOException {
+        runFilter(
+                "-10 -10 10 10",
+                "clipIncompleteEntities=yes",
+                "v0_6/areafilter-out-clipincompleteentities.osm",
+                "v0_6/areafilter-out-clipincompleteentities.osm");
+    }
+}
@@ -0,0 +1,110 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.areafilter.v0_6;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.benchmarks.v0_6.EntityFixtures;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
+
+/**
+ * Measures the point in polygon test performed by the polygon filter for every
+ * node. This lives in the filter package because the test is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolygonFilterBenchmark {
+    private static final int NODE_COUNT = 100000;
+
+    @Param({"100", "2000"})
+    private int vertexCount;
+
+    private File polygonFile;
+    private PolygonFilter filter;
+    private Node[] nodes;
+
+    /**
+     * Writes a star shaped polygon with the requested number of vertices and
+     * generates nodes scattered across its bounding box.
+     *
+     * @throws IOException
+     *             if the polygon file cannot be written.
+     */
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(EntityFixtures.SEED);
+
+        polygonFile = File.createTempFile("benchmark", ".poly");
+        try (PrintWriter writer = new PrintWriter(polygonFile, StandardCharsets.UTF_8.name())) {
+            writer.println("benchmark");
+            writer.println("1");
+            for (int i = 0; i < vertexCount; i++) {
+                double angle = 2 * Math.PI * i / vertexCount;
+                double radius = 2.5 + random.nextDouble() * 2.5;
+
+                writer.println("   " + (5 + radius * Math.cos(angle)) + " " + (5 + radius * Math.sin(angle)));
+            }
+            writer.println("END");
+            writer.println("END");
+        }
+
+        filter = new PolygonFilter(IdTrackerType.Dynamic, polygonFile, false, false, false, false);
+
+        nodes = new Node[NODE_COUNT];
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodes[i] = new Node(
+                    i + 1, 1, new Date(0), OsmUser.NONE, 1, random.nextDouble() * 10, random.nextDouble() * 10);
+        }
+
+        // Load the polygon outside of the measurement.
+        filter.isNodeWithinArea(nodes[0]);
+    }
+
+    /**
+     * Removes the polygon file.
+     */
+    @TearDown
+    public void tearDown() {
+        if (!polygonFile.delete()) {
+            polygonFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * Tests every node against the polygon.
+     *
+     * @param blackhole
+     *            Consumes the test results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NODE_COUNT)
+    public void isNodeWithinArea(Blackhole blackhole) {
+        for (Node node : nodes) {
+            blackhole.consume(filter.isNodeWithinArea(node));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import crosby.binary.file.BlockOutputStream;
+import crosby.binary.osmosis.OsmosisSerializer;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.xml.v0_6.XmlWriter;
+
+/**
+ * Generates the synthetic data sets used by the benchmarks. All data is derived
+ * from a fixed random seed so that every run, on every commit, processes
+ * exactly the same input and results remain comparable.
+ */
+public final class EntityFixtures {
+    /**
+     * The seed used for all generated data.
+     */
+    public static final long SEED = 0x05D05150L;
+
+    private static final String[] TAG_KEYS = {"highway", "name", "building", "amenity", "surface", "source", "landuse"};
+    private static final String[] TAG_VALUES = {
+        "residential", "primary", "yes", "school", "asphalt", "survey", "Main Street", "forest", "parking", "track"
+    };
+    private static final String[] ROLES = {"outer", "inner", "stop", "platform", ""};
+    private static final long BASE_TIMESTAMP = 1500000000000L;
+    private static final int USER_COUNT = 100;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private EntityFixtures() {}
+
+    private static List<Tag> buildTags(Random random, int maxTags) {
+        int tagCount = random.nextInt(maxTags + 1);
+        List<Tag> tags = new ArrayList<Tag>(tagCount);
+
+        for (int i = 0; i < tagCount; i++) {
+            String key = TAG_KEYS[random.nextInt(TAG_KEYS.length)];
+            String value = TAG_VALUES[random.nextInt(TAG_VALUES.length)];
+
+            tags.add(new Tag(key, value));
+        }
+
+        return tags;
+    }
+
+    private static CommonEntityData buildEntityData(Random random, long id, int maxTags) {
+        int userId = random.nextInt(USER_COUNT) + 1;
+
+        return new CommonEntityData(
+                id,
+                random.nextInt(10) + 1,
+                new Date(BASE_TIMESTAMP + random.nextInt(100000000) * 1000L),
+                new OsmUser(userId, "user" + userId),
+                random.nextInt(1000000) + 1,
+                buildTags(random, maxTags));
+    }
+
+    /**
+     * Creates a sorted entity stream containing a bound followed by nodes, ways
+     * and relations. Nodes are scattered across a 10 degree square, each way
+     * references a run of nearby nodes and each relation references a mix of
+     * ways and nodes.
+     *
+     * @param nodeCount
+     *            The number of nodes to create. Way and relation counts are
+     *            derived from this.
+     * @return The entities.
+     */
+    public static List<EntityContainer> createEntities(int nodeCount) {
+        Random random = new Random(SEED);
+        int wayCount = nodeCount / 10;
+        int relationCount = nodeCount / 100;
+        List<EntityContainer> entities = new ArrayList<EntityContainer>(1 + nodeCount + wayCount + relationCount);
+
+        entities.add(new BoundContainer(new Bound(10, 0, 10, 0, "osmosis-benchmarks")));
+
+        for (int i = 1; i <= nodeCount; i++) {
+            entities.add(new NodeContainer(
+                    new Node(buildEntityData(random, i, 2), random.nextDouble() * 10, random.nextDouble() * 10)));
+        }
+
+        for (int i = 1; i <= wayCount; i++) {
+            int wayNodeCount = random.nextInt(15) + 2;
+            long firstNodeId = random.nextInt(nodeCount - wayNodeCount) + 1;
+            List<WayNode> wayNodes = new ArrayList<WayNode>(wayNodeCount);
+
+            for (int j = 0; j < wayNodeCount; j++) {
+                wayNodes.add(new WayNode(firstNodeId + j));
+            }
+
+            entities.add(new WayContainer(new Way(buildEntityData(random, i, 5), wayNodes)));
+        }
+
+        for (int i = 1; i <= relationCount; i++) {
+            int memberCount = random.nextInt(10) + 1;
+            List<RelationMember> members = new ArrayList<RelationMember>(memberCount);
+
+            for (int j = 0; j < memberCount; j++) {
+                if (random.nextBoolean()) {
+                    members.add(new RelationMember(
+                            random.nextInt(wayCount) + 1, EntityType.Way, ROLES[random.nextInt(ROLES.length)]));
+                } else {
+                    members.add(new RelationMember(
+                            random.nextInt(nodeCount) + 1, EntityType.Node, ROLES[random.nextInt(ROLES.length)]));
+                }
+            }
+
+            entities.add(new RelationContainer(new Relation(buildEntityData(random, i, 5), members)));
+        }
+
+        return entities;
+    }
+
+    /**
+     * Creates a copy of the entity list in a deterministic but unsorted order.
+     *
+     * @param entities
+     *            The entities to be shuffled.
+     * @return The shuffled entities.
+     */
+    public static List<EntityContainer> shuffle(List<EntityContainer> entities) {
+        List<EntityContainer> shuffled = new ArrayList<EntityContainer>(entities);
+
+        Collections.shuffle(shuffled, new Random(SEED));
+
+        return shuffled;
+    }
+
+    private static void sendEntities(List<EntityContainer> entities, Sink sink) {
+        try {
+            sink.initialize(Collections.<String, Object>emptyMap());
+            for (EntityContainer entity : entities) {
+                sink.process(entity);
+            }
+            sink.complete();
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Encodes the entities as an OSM XML document.
+     *
+     * @param entities
+     *            The entities to be encoded.
+     * @return The UTF-8 encoded XML document.
+     */
+    public static byte[] toXml(List<EntityContainer> entities) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        // The XML writer doesn't flush a writer it has been given.
+        sendEntities(entities, new XmlWriter(writer));
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to flush the XML document.", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes the entities as a PBF file using dense nodes.
+     *
+     * @param entities
+     *            The entities to be encoded.
+     * @return The PBF file contents.
+     */
+    public static byte[] toPbf(List<EntityContainer> entities) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OsmosisSerializer serializer = new OsmosisSerializer(new BlockOutputStream(out));
+
+        serializer.setUseDense(true);
+        sendEntities(entities, serializer);
+
+        return out.toByteArray();
+    }
+}
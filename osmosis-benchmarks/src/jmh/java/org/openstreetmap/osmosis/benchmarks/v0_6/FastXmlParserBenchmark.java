@@ -0,0 +1,105 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.xml.v0_6.impl.FastXmlParser;
+
+/**
+ * Measures the parsing of an in-memory OSM XML document into entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastXmlParserBenchmark {
+    @Param({"100000"})
+    private int nodeCount;
+
+    @Param({"true", "false"})
+    private boolean enableDateParsing;
+
+    private byte[] xml;
+    private XMLInputFactory factory;
+
+    /**
+     * Generates the XML document and configures the parser factory in the same
+     * way as the XML reader task.
+     */
+    @Setup
+    public void setup() {
+        xml = EntityFixtures.toXml(EntityFixtures.createEntities(nodeCount));
+
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+    }
+
+    /**
+     * Parses the complete document.
+     *
+     * @param blackhole
+     *            Consumes the parsed entities.
+     * @throws XMLStreamException
+     *             if the document cannot be parsed.
+     */
+    @Benchmark
+    public void parse(final Blackhole blackhole) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(xml));
+
+        new FastXmlParser(new BlackholeSink(blackhole), reader, enableDateParsing).readOsm();
+    }
+
+    /**
+     * A sink passing all entities to a JMH blackhole so the parsing work cannot
+     * be optimised away.
+     */
+    private static class BlackholeSink implements Sink {
+        private Blackhole blackhole;
+
+        BlackholeSink(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void initialize(Map<String, Object> metaData) {
+            // Do nothing.
+        }
+
+        @Override
+        public void process(EntityContainer entityContainer) {
+            blackhole.consume(entityContainer);
+        }
+
+        @Override
+        public void complete() {
+            // Do nothing.
+        }
+
+        @Override
+        public void close() {
+            // Do nothing.
+        }
+    }
+}
@@ -0,0 +1,113 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
+import org.openstreetmap.osmosis.core.sort.common.ParallelFileBasedSort;
+import org.openstreetmap.osmosis.core.sort.v0_6.EntityByTypeThenIdComparator;
+import org.openstreetmap.osmosis.core.sort.v0_6.EntityContainerComparator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.GenericObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.ObjectSerializationFactory;
+
+/**
+ * Measures the external sorting of an unsorted entity stream, including
+ * serialisation to temporary files and the final merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBasedSortBenchmark {
+    private static final long PARALLEL_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    @Param({"200000"})
+    private int nodeCount;
+
+    @Param({"false", "true"})
+    private boolean useCompression;
+
+    @Param({"generic", "compact"})
+    private String serialization;
+
+    private List<EntityContainer> entities;
+    private EntityContainerComparator comparator;
+
+    /**
+     * Generates the unsorted entities.
+     */
+    @Setup
+    public void setup() {
+        entities = EntityFixtures.shuffle(EntityFixtures.createEntities(nodeCount));
+        comparator = new EntityContainerComparator(new EntityByTypeThenIdComparator());
+    }
+
+    private ObjectSerializationFactory createSerializationFactory() {
+        if ("compact".equals(serialization)) {
+            return new CompactObjectSerializationFactory();
+        }
+        return new GenericObjectSerializationFactory();
+    }
+
+    private static void consume(ReleasableIterator<EntityContainer> iterator, Blackhole blackhole) {
+        try {
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+
+    /**
+     * Sorts the entities using the single threaded sort.
+     *
+     * @param blackhole
+     *            Consumes the sorted entities.
+     */
+    @Benchmark
+    public void fileBasedSort(Blackhole blackhole) {
+        try (FileBasedSort<EntityContainer> sort = new FileBasedSort<EntityContainer>(
+                createSerializationFactory(), comparator, useCompression)) {
+            for (EntityContainer entity : entities) {
+                sort.add(entity);
+            }
+            consume(sort.iterate(), blackhole);
+        }
+    }
+
+    /**
+     * Sorts the entities using the parallel sort with a memory budget small
+     * enough to force the data to be written to file.
+     *
+     * @param blackhole
+     *            Consumes the sorted entities.
+     */
+    @Benchmark
+    public void parallelFileBasedSort(Blackhole blackhole) {
+        try (ParallelFileBasedSort<EntityContainer> sort = new ParallelFileBasedSort<EntityContainer>(
+                createSerializationFactory(), comparator, useCompression, PARALLEL_MEMORY_BUDGET, 0)) {
+            for (EntityContainer entity : entities) {
+                sort.add(entity);
+            }
+            consume(sort.iterate(), blackhole);
+        }
+    }
+}
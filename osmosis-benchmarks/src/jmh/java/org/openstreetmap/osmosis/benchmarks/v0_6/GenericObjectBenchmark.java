@@ -0,0 +1,79 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.store.DataInputStoreReader;
+import org.openstreetmap.osmosis.core.store.DataOutputStoreWriter;
+import org.openstreetmap.osmosis.core.store.DynamicStoreClassRegister;
+import org.openstreetmap.osmosis.core.store.GenericObjectReader;
+import org.openstreetmap.osmosis.core.store.GenericObjectWriter;
+import org.openstreetmap.osmosis.core.store.StoreClassRegister;
+
+/**
+ * Measures a full serialisation round trip of entities through the generic
+ * object writer and reader used by the temporary file stores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenericObjectBenchmark {
+    @Param({"100000"})
+    private int nodeCount;
+
+    private List<EntityContainer> entities;
+
+    /**
+     * Generates the entities to be serialised.
+     */
+    @Setup
+    public void setup() {
+        entities = EntityFixtures.createEntities(nodeCount);
+    }
+
+    /**
+     * Writes all entities to memory and reads them back.
+     *
+     * @param blackhole
+     *            Consumes the deserialised entities.
+     */
+    @Benchmark
+    public void roundTrip(Blackhole blackhole) {
+        StoreClassRegister storeClassRegister = new DynamicStoreClassRegister();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GenericObjectWriter writer;
+        GenericObjectReader reader;
+
+        writer = new GenericObjectWriter(new DataOutputStoreWriter(new DataOutputStream(out)), storeClassRegister);
+        for (EntityContainer entity : entities) {
+            writer.writeObject(entity);
+        }
+
+        reader = new GenericObjectReader(
+                new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))),
+                storeClassRegister);
+        for (int i = 0; i < entities.size(); i++) {
+            blackhole.consume(reader.readObject());
+        }
+    }
+}
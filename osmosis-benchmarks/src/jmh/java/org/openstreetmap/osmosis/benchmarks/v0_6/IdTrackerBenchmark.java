@@ -0,0 +1,100 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.filter.common.IdTracker;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerFactory;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
+
+/**
+ * Measures population of, and lookups against, each id tracker implementation.
+ * Ids are ascending with small random gaps which resembles the ids selected by
+ * an area filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdTrackerBenchmark {
+    private static final int ID_COUNT = 1000000;
+
+    @Param({"BitSet", "IdList", "Dynamic", "Roaring"})
+    private IdTrackerType idTrackerType;
+
+    private long[] ids;
+    private long[] lookupIds;
+    private IdTracker populatedTracker;
+
+    /**
+     * Generates the ids and a populated tracker for the lookup benchmark.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(EntityFixtures.SEED);
+        long id = 0;
+
+        ids = new long[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            id += random.nextInt(4) + 1;
+            ids[i] = id;
+        }
+
+        // Roughly half of the lookups will hit an id in the tracker.
+        lookupIds = new long[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            lookupIds[i] = (long) (random.nextDouble() * id);
+        }
+
+        populatedTracker = IdTrackerFactory.createInstance(idTrackerType);
+        for (long value : ids) {
+            populatedTracker.set(value);
+        }
+    }
+
+    /**
+     * Adds all ids to a new tracker.
+     *
+     * @return The populated tracker.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ID_COUNT)
+    public IdTracker set() {
+        IdTracker tracker = IdTrackerFactory.createInstance(idTrackerType);
+
+        for (long id : ids) {
+            tracker.set(id);
+        }
+
+        return tracker;
+    }
+
+    /**
+     * Looks up random ids in a populated tracker.
+     *
+     * @param blackhole
+     *            Consumes the lookup results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ID_COUNT)
+    public void get(Blackhole blackhole) {
+        for (long id : lookupIds) {
+            blackhole.consume(populatedTracker.get(id));
+        }
+    }
+}
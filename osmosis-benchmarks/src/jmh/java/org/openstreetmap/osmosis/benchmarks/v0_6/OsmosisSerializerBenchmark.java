@@ -0,0 +1,68 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import crosby.binary.file.BlockOutputStream;
+import crosby.binary.osmosis.OsmosisSerializer;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+
+/**
+ * Measures the encoding of entities into PBF format. Output is discarded so
+ * that only serialization and compression are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OsmosisSerializerBenchmark {
+    @Param({"100000"})
+    private int nodeCount;
+
+    @Param({"true", "false"})
+    private boolean useDense;
+
+    private List<EntityContainer> entities;
+
+    /**
+     * Generates the entities to be encoded.
+     */
+    @Setup
+    public void setup() {
+        entities = EntityFixtures.createEntities(nodeCount);
+    }
+
+    /**
+     * Encodes all entities.
+     */
+    @Benchmark
+    public void encode() {
+        OsmosisSerializer serializer = new OsmosisSerializer(new BlockOutputStream(OutputStream.nullOutputStream()));
+
+        serializer.setUseDense(useDense);
+        try {
+            serializer.initialize(Collections.<String, Object>emptyMap());
+            for (EntityContainer entity : entities) {
+                serializer.process(entity);
+            }
+            serializer.complete();
+        } finally {
+            serializer.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.PbfBlobDecoder;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.PbfBlobDecoderListener;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.RawBlob;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.StreamSplitter;
+
+/**
+ * Measures the decoding of raw PBF blobs into entities. The blobs are split out
+ * of the file up front so that only decompression and decoding are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PbfBlobDecoderBenchmark {
+    @Param({"100000"})
+    private int nodeCount;
+
+    private List<RawBlob> blobs;
+
+    /**
+     * Generates the PBF data and splits it into blobs.
+     */
+    @Setup
+    public void setup() {
+        byte[] pbf = EntityFixtures.toPbf(EntityFixtures.createEntities(nodeCount));
+
+        blobs = new ArrayList<RawBlob>();
+        try (StreamSplitter splitter = new StreamSplitter(new DataInputStream(new ByteArrayInputStream(pbf)))) {
+            while (splitter.hasNext()) {
+                RawBlob blob = splitter.next();
+
+                if ("OSMData".equals(blob.getType())) {
+                    blobs.add(blob);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes every data blob in the file.
+     *
+     * @param blackhole
+     *            Consumes the decoded entities.
+     */
+    @Benchmark
+    public void decode(final Blackhole blackhole) {
+        PbfBlobDecoderListener listener = new PbfBlobDecoderListener() {
+            @Override
+            public void complete(List<EntityContainer> decodedEntities) {
+                blackhole.consume(decodedEntities);
+            }
+
+            @Override
+            public void error() {
+                throw new OsmosisRuntimeException("Unable to decode blob.");
+            }
+        };
+
+        for (RawBlob blob : blobs) {
+            new PbfBlobDecoder(blob, listener).run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.store.Postbox;
+import org.openstreetmap.osmosis.core.store.RingBufferPostbox;
+import org.openstreetmap.osmosis.core.store.WaitStrategy;
+
+/**
+ * Measures the hand-off of objects between a producer thread and a consumer
+ * thread through a postbox as used by the buffer tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostboxBenchmark {
+    private static final int OBJECT_COUNT = 1000000;
+
+    @Param({"blocking", "ring-spin", "ring-yield", "ring-park"})
+    private String postboxType;
+
+    @Param({"20", "1024"})
+    private int bufferCapacity;
+
+    private Object[] objects;
+
+    /**
+     * Creates the objects to be passed through the postbox.
+     */
+    @Setup
+    public void setup() {
+        objects = new Object[OBJECT_COUNT];
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            objects[i] = Integer.valueOf(i);
+        }
+    }
+
+    private Postbox<Object> createPostbox() {
+        if ("blocking".equals(postboxType)) {
+            return new DataPostbox<Object>(bufferCapacity);
+        } else {
+            return new RingBufferPostbox<Object>(
+                    bufferCapacity, WaitStrategy.fromString(postboxType.substring("ring-".length())));
+        }
+    }
+
+    /**
+     * Passes all objects from a producer thread to the benchmark thread.
+     *
+     * @param blackhole
+     *            Consumes the received objects.
+     * @throws InterruptedException
+     *             if the producer thread cannot be joined.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OBJECT_COUNT)
+    public void handoff(Blackhole blackhole) throws InterruptedException {
+        final Postbox<Object> postbox = createPostbox();
+        Thread producer;
+
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    postbox.initialize(Collections.<String, Object>emptyMap());
+                    for (Object o : objects) {
+                        postbox.put(o);
+                    }
+                    postbox.complete();
+                } finally {
+                    postbox.close();
+                }
+            }
+        });
+        producer.start();
+
+        try {
+            postbox.outputInitialize();
+            while (postbox.hasNext()) {
+                blackhole.consume(postbox.getNext());
+            }
+            postbox.outputComplete();
+        } finally {
+            postbox.outputRelease();
+        }
+
+        producer.join();
+    }
+}
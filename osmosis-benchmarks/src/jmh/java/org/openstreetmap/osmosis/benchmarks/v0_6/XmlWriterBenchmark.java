@@ -0,0 +1,67 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.benchmarks.v0_6;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.xml.v0_6.XmlWriter;
+
+/**
+ * Measures the writing of entities as OSM XML. Output is UTF-8 encoded then
+ * discarded so that character encoding is included in the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlWriterBenchmark {
+    @Param({"100000"})
+    private int nodeCount;
+
+    private List<EntityContainer> entities;
+
+    /**
+     * Generates the entities to be written.
+     */
+    @Setup
+    public void setup() {
+        entities = EntityFixtures.createEntities(nodeCount);
+    }
+
+    /**
+     * Writes all entities.
+     */
+    @Benchmark
+    public void write() {
+        XmlWriter writer = new XmlWriter(
+                new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8)));
+
+        try {
+            writer.initialize(Collections.<String, Object>emptyMap());
+            for (EntityContainer entity : entities) {
+                writer.process(entity);
+            }
+            writer.complete();
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -1,12 +1,16 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core;
 
+import java.io.File;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.cli.CommandLineParser;
+import org.openstreetmap.osmosis.core.metrics.MetricsFileWriter;
+import org.openstreetmap.osmosis.core.metrics.PipelineMetrics;
 import org.openstreetmap.osmosis.core.pipeline.common.Pipeline;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * The main entry point for the command line application.
@@ -55,6 +59,8 @@ public final class Osmosis {
         CommandLineParser commandLineParser;
         TaskRegistrar taskRegistrar;
         Pipeline pipeline;
+        PipelineMetrics metrics;
+        MetricsFileWriter metricsWriter;
         long startTime;
         long finishTime;
 
@@ -74,16 +80,40 @@ public final class Osmosis {
         taskRegistrar = new TaskRegistrar();
         taskRegistrar.initialize(commandLineParser.getPlugins());
 
-        pipeline = new Pipeline(taskRegistrar.getFactoryRegister());
+        metrics = new PipelineMetrics();
+        pipeline = new Pipeline(taskRegistrar.getFactoryRegister(), metrics);
 
-        LOG.info("Preparing pipeline.");
-        pipeline.prepare(commandLineParser.getTaskInfoList());
-
-        LOG.info("Launching pipeline execution.");
-        pipeline.execute();
+        if (commandLineParser.getInternCapacity() > 0) {
+            StringDictionary.enable(commandLineParser.getInternCapacity());
+        }
 
-        LOG.info("Pipeline executing, waiting for completion.");
-        pipeline.waitForCompletion();
+        metricsWriter = null;
+        try {
+            LOG.info("Preparing pipeline.");
+            pipeline.prepare(commandLineParser.getTaskInfoList());
+
+            if (commandLineParser.getMetricsFile() != null) {
+                metricsWriter = new MetricsFileWriter(
+                        metrics, new File(commandLineParser.getMetricsFile()), commandLineParser.getMetricsInterval());
+                metricsWriter.start();
+            }
+
+            LOG.info("Launching pipeline execution.");
+            pipeline.execute();
+
+            LOG.info("Pipeline executing, waiting for completion.");
+            pipeline.waitForCompletion();
+
+        } finally {
+            if (metricsWriter != null) {
+                metricsWriter.close();
+            }
+
+            if (commandLineParser.getInternCapacity() > 0) {
+                LOG.info(StringDictionary.getGlobalDictionary().getSummary());
+                StringDictionary.disable();
+            }
+        }
 
         LOG.info("Pipeline complete.");
 
@@ -0,0 +1,55 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.buffer.v0_6;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.store.Postbox;
+import org.openstreetmap.osmosis.core.store.RingBufferPostbox;
+import org.openstreetmap.osmosis.core.store.WaitStrategy;
+
+/**
+ * Extends the basic task manager factory functionality with buffer task
+ * specific common methods.
+ */
+public abstract class BufferTaskManagerFactory extends TaskManagerFactory {
+    private static final String ARG_BUFFER_CAPACITY = "bufferCapacity";
+    private static final String ARG_BUFFER_TYPE = "bufferType";
+    private static final String ARG_WAIT_STRATEGY = "waitStrategy";
+    private static final int DEFAULT_BUFFER_CAPACITY = 20;
+    private static final String DEFAULT_BUFFER_TYPE = "blocking";
+    private static final String DEFAULT_WAIT_STRATEGY = "park";
+
+    /**
+     * Creates the postbox to be used for passing data between the input and
+     * output threads of a buffer task based on the task arguments.
+     *
+     * @param <T>
+     *            The type of data held in the postbox.
+     * @param taskConfig
+     *            Contains all information required to instantiate and configure
+     *            the task.
+     * @return The postbox.
+     */
+    protected <T> Postbox<T> createPostbox(TaskConfiguration taskConfig) {
+        int bufferCapacity;
+        String bufferType;
+
+        bufferCapacity = getIntegerArgument(
+                taskConfig, ARG_BUFFER_CAPACITY, getDefaultIntegerArgument(taskConfig, DEFAULT_BUFFER_CAPACITY));
+        bufferType = getStringArgument(taskConfig, ARG_BUFFER_TYPE, DEFAULT_BUFFER_TYPE).toLowerCase();
+
+        if ("blocking".equals(bufferType)) {
+            return new DataPostbox<T>(bufferCapacity);
+        } else if ("ring".equals(bufferType)) {
+            WaitStrategy waitStrategy = WaitStrategy.fromString(
+                    getStringArgument(taskConfig, ARG_WAIT_STRATEGY, DEFAULT_WAIT_STRATEGY));
+
+            return new RingBufferPostbox<T>(bufferCapacity, waitStrategy);
+        } else {
+            throw new OsmosisRuntimeException("Argument " + ARG_BUFFER_TYPE + " for task " + taskConfig.getId()
+                    + " must be one of blocking or ring.");
+        }
+    }
+}
@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.core.buffer.v0_6;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
 import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.store.Postbox;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkRunnableChangeSource;
 
@@ -17,7 +18,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkRunnableChangeSource;
  */
 public class ChangeBuffer implements ChangeSinkRunnableChangeSource {
     private ChangeSink changeSink;
-    private DataPostbox<ChangeContainer> buffer;
+    private Postbox<ChangeContainer> buffer;
 
     /**
      * Creates a new instance.
@@ -29,6 +30,17 @@ public class ChangeBuffer implements ChangeSinkRunnableChangeSource {
         buffer = new DataPostbox<ChangeContainer>(bufferCapacity);
     }
 
+    /**
+     * Creates a new instance using the specified postbox to pass data between
+     * threads.
+     *
+     * @param buffer
+     *            The postbox to use for passing data between threads.
+     */
+    public ChangeBuffer(Postbox<ChangeContainer> buffer) {
+        this.buffer = buffer;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.core.buffer.v0_6;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.store.DataPostbox;
+import org.openstreetmap.osmosis.core.store.Postbox;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkRunnableSource;
 
@@ -17,7 +18,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkRunnableSource;
  */
 public class EntityBuffer implements SinkRunnableSource {
     private Sink sink;
-    private DataPostbox<EntityContainer> buffer;
+    private Postbox<EntityContainer> buffer;
 
     /**
      * Creates a new instance.
@@ -29,6 +30,17 @@ public class EntityBuffer implements SinkRunnableSource {
         buffer = new DataPostbox<EntityContainer>(bufferCapacity);
     }
 
+    /**
+     * Creates a new instance using the specified postbox to pass data between
+     * threads.
+     *
+     * @param buffer
+     *            The postbox to use for passing data between threads.
+     */
+    public EntityBuffer(Postbox<EntityContainer> buffer) {
+        this.buffer = buffer;
+    }
+
     /**
      * {@inheritDoc}
      */
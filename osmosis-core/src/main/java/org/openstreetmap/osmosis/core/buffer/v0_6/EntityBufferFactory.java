@@ -1,9 +1,9 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.buffer.v0_6;
 
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
-import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkRunnableSourceManager;
 
 /**
@@ -11,22 +11,16 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkRunnableSourceManager;
  *
  * @author Brett Henderson
  */
-public class EntityBufferFactory extends TaskManagerFactory {
-    private static final String ARG_BUFFER_CAPACITY = "bufferCapacity";
-    private static final int DEFAULT_BUFFER_CAPACITY = 20;
+public class EntityBufferFactory extends BufferTaskManagerFactory {
 
     /**
      * {@inheritDoc}
      */
     @Override
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
-        int bufferCapacity;
-
-        // Get the task arguments.
-        bufferCapacity = getIntegerArgument(
-                taskConfig, ARG_BUFFER_CAPACITY, getDefaultIntegerArgument(taskConfig, DEFAULT_BUFFER_CAPACITY));
-
         return new SinkRunnableSourceManager(
-                taskConfig.getId(), new EntityBuffer(bufferCapacity), taskConfig.getPipeArgs());
+                taskConfig.getId(),
+                new EntityBuffer(this.<EntityContainer>createPostbox(taskConfig)),
+                taskConfig.getPipeArgs());
     }
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.pipeline.common.PipelineConstants;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * Parses command line arguments into a form that can be consumed by the rest of
@@ -25,16 +26,28 @@ public class CommandLineParser {
     private static final String OPTION_VERBOSE_LONG = "verbose";
     private static final String OPTION_PLUGIN_SHORT = "p";
     private static final String OPTION_PLUGIN_LONG = "plugin";
+    private static final String OPTION_METRICS_SHORT = "m";
+    private static final String OPTION_METRICS_LONG = "metrics";
+    private static final String OPTION_INTERN_SHORT = "i";
+    private static final String OPTION_INTERN_LONG = "intern";
 
     /**
      * The index into the LOG_LEVELS array for the default log level.
      */
     private static final int DEFAULT_LOG_LEVEL_INDEX = 3;
 
+    /**
+     * The default number of seconds between metrics file updates.
+     */
+    private static final int DEFAULT_METRICS_INTERVAL = 10;
+
     private List<TaskConfiguration> taskConfigList;
     private int quietValue;
     private int verboseValue;
     private List<String> plugins;
+    private String metricsFile;
+    private int metricsInterval;
+    private int internCapacity;
 
     /**
      * Creates a new instance.
@@ -45,6 +58,7 @@ public class CommandLineParser {
         quietValue = 0;
         verboseValue = 0;
         plugins = new ArrayList<String>();
+        metricsInterval = DEFAULT_METRICS_INTERVAL;
     }
 
     /**
@@ -82,6 +96,14 @@ public class CommandLineParser {
                 verboseValue = parseOptionIntegerWithDefault(globalOption, 0) + 1;
             } else if (isArgumentForOption(OPTION_PLUGIN_SHORT, OPTION_PLUGIN_LONG, globalOption.name)) {
                 plugins.add(parseOptionString(globalOption));
+            } else if (isArgumentForOption(OPTION_METRICS_SHORT, OPTION_METRICS_LONG, globalOption.name)) {
+                parseMetricsOption(globalOption);
+            } else if (isArgumentForOption(OPTION_INTERN_SHORT, OPTION_INTERN_LONG, globalOption.name)) {
+                internCapacity = parseOptionIntegerWithDefault(globalOption, StringDictionary.DEFAULT_CAPACITY);
+                if (internCapacity < 1) {
+                    throw new OsmosisRuntimeException(
+                            "Expected argument " + (globalOption.offset + 2) + " to be at least 1.");
+                }
             } else {
                 throw new OsmosisRuntimeException("Argument " + (globalOption.offset + 1)
                         + " specifies an unrecognised option \"" + GLOBAL_ARGUMENT_PREFIX + globalOption.name
@@ -179,6 +201,37 @@ public class CommandLineParser {
         return globalOption.parameters.get(0);
     }
 
+    /**
+     * Parses the metrics option which consists of a file name and an optional
+     * update interval in seconds.
+     *
+     * @param globalOption
+     *            The global option to be parsed.
+     */
+    private void parseMetricsOption(GlobalOptionConfiguration globalOption) {
+        if (globalOption.parameters.size() < 1 || globalOption.parameters.size() > 2) {
+            throw new OsmosisRuntimeException(
+                    "Expected argument " + (globalOption.offset + 1) + " to have one or two parameters.");
+        }
+
+        metricsFile = globalOption.parameters.get(0);
+
+        if (globalOption.parameters.size() > 1) {
+            try {
+                metricsInterval = Integer.parseInt(globalOption.parameters.get(1));
+
+            } catch (NumberFormatException e) {
+                throw new OsmosisRuntimeException(
+                        "Expected argument " + (globalOption.offset + 3) + " to contain an integer value.");
+            }
+
+            if (metricsInterval < 1) {
+                throw new OsmosisRuntimeException(
+                        "Expected argument " + (globalOption.offset + 3) + " to be at least 1.");
+            }
+        }
+    }
+
     /**
      * Parses the details of a single option.
      *
@@ -336,6 +389,34 @@ public class CommandLineParser {
         return plugins;
     }
 
+    /**
+     * Returns the file to periodically write pipeline metrics to.
+     *
+     * @return The metrics file name, or null if metrics are not to be written.
+     */
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * Returns the number of seconds between updates of the metrics file.
+     *
+     * @return The metrics update interval.
+     */
+    public int getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    /**
+     * Returns the capacity of the global string dictionary used to share
+     * repeated tag and user name strings.
+     *
+     * @return The dictionary capacity, or 0 if strings are not to be interned.
+     */
+    public int getInternCapacity() {
+        return internCapacity;
+    }
+
     /**
      * A data storage class holding information relating to a global option
      * during parsing.
@@ -112,7 +112,9 @@ public class CommonEntityData implements Storeable {
      * @param changesetId
      *            The id of the changeset that this version of the entity was created by.
      * @param tags
-     *            The tags to apply to the object.
+     *            The tags to apply to the object. A
+     *            {@link StringTableTagCollection} is copied without creating
+     *            tag objects.
      */
     public CommonEntityData(
             long id,
@@ -122,7 +124,11 @@ public class CommonEntityData implements Storeable {
             long changesetId,
             Collection<Tag> tags) {
         init(id, timestampContainer, user, version, changesetId);
-        this.tags = new TagCollectionImpl(tags);
+        if (tags instanceof StringTableTagCollection) {
+            this.tags = ((StringTableTagCollection) tags).copy();
+        } else {
+            this.tags = new TagCollectionImpl(tags);
+        }
         metaTags = new LazyHashMap<String, Object>();
     }
 
@@ -466,7 +472,11 @@ public class CommonEntityData implements Storeable {
      */
     public void makeReadOnly() {
         if (!readOnly) {
-            tags = new UnmodifiableTagCollection(tags);
+            if (tags instanceof StringTableTagCollection) {
+                ((StringTableTagCollection) tags).makeReadOnly();
+            } else {
+                tags = new UnmodifiableTagCollection(tags);
+            }
             metaTags = Collections.unmodifiableMap(metaTags);
 
             readOnly = true;
@@ -6,6 +6,7 @@ import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
 import org.openstreetmap.osmosis.core.store.Storeable;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * A value class representing a single OSM user, comprised of user name and id.
@@ -64,7 +65,7 @@ public class OsmUser implements Storeable {
      *            within the store.
      */
     public OsmUser(StoreReader sr, StoreClassRegister scr) {
-        name = sr.readString();
+        name = StringDictionary.intern(sr.readString());
         id = sr.readInteger();
     }
 
@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
 import org.openstreetmap.osmosis.core.store.Storeable;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * A data class representing a single member within a relation entity.
@@ -49,7 +50,7 @@ public class RelationMember implements Comparable<RelationMember>, Storeable {
      *            within the store.
      */
     public RelationMember(StoreReader sr, StoreClassRegister scr) {
-        this(sr.readLong(), EntityType.valueOf(sr.readString()), sr.readString());
+        this(sr.readLong(), EntityType.valueOf(sr.readString()), StringDictionary.intern(sr.readString()));
     }
 
     /**
@@ -0,0 +1,249 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.v0_6;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.openstreetmap.osmosis.core.store.StoreClassRegister;
+import org.openstreetmap.osmosis.core.store.StoreWriter;
+import org.openstreetmap.osmosis.core.util.IntAsChar;
+
+/**
+ * A tag collection backed by string table indexes rather than tag objects. This
+ * allows readers of formats containing a string table such as PBF to expose
+ * tags without allocating a tag object per tag, tag objects are only created
+ * as they are iterated. Writers able to use the key and value accessors
+ * directly avoid tag allocation altogether.
+ * <p>
+ * The string table and index array are shared between all collections created
+ * from a single block and are never modified. The first modification to a
+ * collection copies its tags into a private list which is used from then on.
+ */
+public class StringTableTagCollection extends AbstractCollection<Tag> implements TagCollection {
+
+    private final String[] strings;
+    private final int[] keysValues;
+    private final int offset;
+    private final int tagCount;
+    private List<Tag> materializedTags;
+    private boolean readOnly;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param strings
+     *            The string table referenced by the key and value indexes.
+     * @param keysValues
+     *            The string table indexes of the tags. Each tag occupies two
+     *            consecutive elements, the key index followed by the value
+     *            index.
+     * @param offset
+     *            The index of the first key within the keysValues array.
+     * @param tagCount
+     *            The number of tags in the collection.
+     */
+    public StringTableTagCollection(String[] strings, int[] keysValues, int offset, int tagCount) {
+        this.strings = strings;
+        this.keysValues = keysValues;
+        this.offset = offset;
+        this.tagCount = tagCount;
+    }
+
+    /**
+     * Creates a new collection containing the same tags as this one. The string
+     * table and indexes are shared so no tags are copied unless this collection
+     * has been modified.
+     *
+     * @return The new collection.
+     */
+    public StringTableTagCollection copy() {
+        StringTableTagCollection result;
+
+        result = new StringTableTagCollection(strings, keysValues, offset, tagCount);
+        if (materializedTags != null) {
+            result.materializedTags = new ArrayList<Tag>(materializedTags);
+        }
+
+        return result;
+    }
+
+    /**
+     * Prevents any further modifications from being made to the collection.
+     * Once read-only, the collection is safe to be read by multiple threads
+     * concurrently.
+     */
+    public void makeReadOnly() {
+        readOnly = true;
+    }
+
+    private List<Tag> materialize() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("The tag collection is read-only.");
+        }
+
+        if (materializedTags == null) {
+            List<Tag> tags = new ArrayList<Tag>(tagCount + 1);
+
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(get(i));
+            }
+
+            materializedTags = tags;
+        }
+
+        return materializedTags;
+    }
+
+    /**
+     * Gets the key of the tag at the specified position without creating a tag
+     * object.
+     *
+     * @param index
+     *            The position of the tag within the collection.
+     * @return The tag key.
+     */
+    public String getKey(int index) {
+        if (materializedTags != null) {
+            return materializedTags.get(index).getKey();
+        }
+
+        return strings[keysValues[offset + index * 2]];
+    }
+
+    /**
+     * Gets the value of the tag at the specified position without creating a
+     * tag object.
+     *
+     * @param index
+     *            The position of the tag within the collection.
+     * @return The tag value.
+     */
+    public String getValue(int index) {
+        if (materializedTags != null) {
+            return materializedTags.get(index).getValue();
+        }
+
+        return strings[keysValues[offset + index * 2 + 1]];
+    }
+
+    /**
+     * Gets the tag at the specified position.
+     *
+     * @param index
+     *            The position of the tag within the collection.
+     * @return The tag.
+     */
+    public Tag get(int index) {
+        if (materializedTags != null) {
+            return materializedTags.get(index);
+        }
+
+        return new Tag(getKey(index), getValue(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        if (materializedTags != null) {
+            return materializedTags.size();
+        }
+
+        return tagCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Tag> iterator() {
+        return new TagIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(Tag tag) {
+        return materialize().add(tag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void store(StoreWriter sw, StoreClassRegister scr) {
+        int count = size();
+
+        sw.writeCharacter(IntAsChar.intToChar(count));
+        for (int i = 0; i < count; i++) {
+            sw.writeString(getKey(i));
+            sw.writeString(getValue(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> buildMap() {
+        int count = size();
+        Map<String, String> tagMap;
+
+        tagMap = new HashMap<String, String>(count);
+        for (int i = 0; i < count; i++) {
+            tagMap.put(getKey(i), getValue(i));
+        }
+
+        return tagMap;
+    }
+
+    /**
+     * Iterates over the tags by position so that it remains valid if removing
+     * a tag causes the collection to be materialized.
+     */
+    private class TagIterator implements Iterator<Tag> {
+        private int cursor;
+        private int lastReturned = -1;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size();
+        }
+
+        @Override
+        public Tag next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            lastReturned = cursor++;
+
+            return get(lastReturned);
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+
+            materialize().remove(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+        }
+    }
+}
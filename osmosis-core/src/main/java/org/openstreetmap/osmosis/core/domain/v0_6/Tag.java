@@ -5,6 +5,7 @@ import org.openstreetmap.osmosis.core.store.StoreClassRegister;
 import org.openstreetmap.osmosis.core.store.StoreReader;
 import org.openstreetmap.osmosis.core.store.StoreWriter;
 import org.openstreetmap.osmosis.core.store.Storeable;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * A data class representing a single OSM tag.
@@ -45,7 +46,7 @@ public class Tag implements Comparable<Tag>, Storeable {
      *            within the store.
      */
     public Tag(StoreReader sr, StoreClassRegister scr) {
-        this(sr.readString(), sr.readString());
+        this(StringDictionary.intern(sr.readString()), StringDictionary.intern(sr.readString()));
     }
 
     /**
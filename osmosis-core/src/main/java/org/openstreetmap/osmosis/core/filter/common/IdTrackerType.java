@@ -28,5 +28,10 @@ public enum IdTrackerType {
      * either one of the two other id list implementations depending on the number of ids to be
      * managed.
      */
-    Dynamic
+    Dynamic,
+    /**
+     * The roaring implementation stores each block of 65536 ids as an array, a list of runs or a
+     * bitmap, whichever is smallest. This should be used for very large and sparse datasets.
+     */
+    Roaring
 }
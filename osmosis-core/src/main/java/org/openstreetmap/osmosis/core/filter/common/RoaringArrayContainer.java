@@ -0,0 +1,167 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A roaring container for sparse blocks storing the set values in a sorted
+ * array. Once the array reaches its maximum size the container is replaced by
+ * a run or bitmap container.
+ */
+/* package */ class RoaringArrayContainer extends RoaringContainer {
+    /**
+     * The maximum number of values stored in an array. Beyond this point a
+     * bitmap is never larger than the array.
+     */
+    static final int MAX_SIZE = 4096;
+
+    private char[] values;
+    private int size;
+
+    /**
+     * Creates a new instance.
+     */
+    RoaringArrayContainer() {
+        values = new char[4];
+        size = 0;
+    }
+
+    private RoaringArrayContainer(char[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, (char) value) >= 0;
+    }
+
+    /**
+     * Counts the number of runs of consecutive values in this container.
+     */
+    private int countRuns() {
+        int runCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || values[i] != values[i - 1] + 1) {
+                runCount++;
+            }
+        }
+
+        return runCount;
+    }
+
+    /**
+     * Replaces this container with whichever of the run or bitmap containers
+     * is the more compact representation of the current values.
+     */
+    private RoaringContainer convert() {
+        RoaringContainer result;
+
+        if (countRuns() < RoaringRunContainer.MAX_RUNS) {
+            result = new RoaringRunContainer();
+        } else {
+            result = new RoaringBitmapContainer();
+        }
+        for (int i = 0; i < size; i++) {
+            result = result.add(values[i]);
+        }
+
+        return result;
+    }
+
+    @Override
+    RoaringContainer add(int value) {
+        int index;
+
+        // Ids are usually set in ascending order, so check for an append
+        // before searching.
+        if (size == 0 || value > values[size - 1]) {
+            index = size;
+        } else {
+            index = Arrays.binarySearch(values, 0, size, (char) value);
+            if (index >= 0) {
+                return this;
+            }
+            index = -(index + 1);
+        }
+
+        if (size == MAX_SIZE) {
+            return convert().add(value);
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_SIZE, values.length * 2));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = (char) value;
+        size++;
+
+        return this;
+    }
+
+    @Override
+    RoaringContainer addAll(RoaringContainer other) {
+        RoaringContainer result;
+
+        if (other instanceof RoaringArrayContainer) {
+            result = this;
+            for (PrimitiveIterator.OfInt i = other.iterator(); i.hasNext(); ) {
+                result = result.add(i.nextInt());
+            }
+        } else {
+            // The other container is dense so it makes more sense to add our
+            // values to a copy of it.
+            result = other.copy();
+            for (int i = 0; i < size; i++) {
+                result = result.add(values[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    void copyTo(RoaringBitmapContainer bitmap) {
+        for (int i = 0; i < size; i++) {
+            bitmap.add(values[i]);
+        }
+    }
+
+    @Override
+    RoaringContainer copy() {
+        return new RoaringArrayContainer(Arrays.copyOf(values, values.length), size);
+    }
+
+    @Override
+    int getCardinality() {
+        return size;
+    }
+
+    @Override
+    long getMemoryUsage() {
+        return 32 + values.length * 2L;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+}
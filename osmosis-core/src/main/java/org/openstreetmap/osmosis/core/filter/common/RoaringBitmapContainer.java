@@ -0,0 +1,159 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A roaring container for dense blocks storing one bit per possible value. If
+ * every value in the block becomes set the container is replaced by a single
+ * run.
+ */
+/* package */ class RoaringBitmapContainer extends RoaringContainer {
+    private static final int WORD_COUNT = CONTAINER_SIZE / 64;
+
+    private long[] words;
+    private int cardinality;
+
+    /**
+     * Creates a new instance.
+     */
+    RoaringBitmapContainer() {
+        words = new long[WORD_COUNT];
+        cardinality = 0;
+    }
+
+    private RoaringBitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    /**
+     * Replaces this container with a run container if it has become full.
+     */
+    private RoaringContainer compact() {
+        if (cardinality == CONTAINER_SIZE) {
+            return RoaringRunContainer.full();
+        }
+        return this;
+    }
+
+    @Override
+    RoaringContainer add(int value) {
+        int wordIndex = value >>> 6;
+        long word = words[wordIndex];
+        long newWord = word | (1L << value);
+
+        if (word != newWord) {
+            words[wordIndex] = newWord;
+            cardinality++;
+
+            return compact();
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets all values in the specified inclusive range.
+     *
+     * @param start
+     *            The first value to be set.
+     * @param end
+     *            The last value to be set.
+     */
+    void addRange(int start, int end) {
+        int firstWord = start >>> 6;
+        int lastWord = end >>> 6;
+
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+
+            if (i == firstWord) {
+                mask &= -1L << start;
+            }
+            if (i == lastWord) {
+                mask &= -1L >>> (63 - (end & 63));
+            }
+
+            cardinality += Long.bitCount(mask & ~words[i]);
+            words[i] |= mask;
+        }
+    }
+
+    @Override
+    RoaringContainer addAll(RoaringContainer other) {
+        if (other instanceof RoaringBitmapContainer) {
+            long[] otherWords = ((RoaringBitmapContainer) other).words;
+            int newCardinality = 0;
+
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] |= otherWords[i];
+                newCardinality += Long.bitCount(words[i]);
+            }
+            cardinality = newCardinality;
+        } else {
+            other.copyTo(this);
+        }
+
+        return compact();
+    }
+
+    @Override
+    void copyTo(RoaringBitmapContainer bitmap) {
+        bitmap.addAll(this);
+    }
+
+    @Override
+    RoaringContainer copy() {
+        return new RoaringBitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    int getCardinality() {
+        return cardinality;
+    }
+
+    @Override
+    long getMemoryUsage() {
+        return 32 + WORD_COUNT * 8L;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int wordIndex = 0;
+            private long word = words[0];
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (wordIndex + 1 >= WORD_COUNT) {
+                        return false;
+                    }
+                    word = words[++wordIndex];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                int value;
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                value = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Stores the set values for a single 64K block of ids within the roaring id
+ * tracker. Values are the low 16 bits of the id and are always in the range 0
+ * to 65535. Implementations are selected based on the density of the block and
+ * replace themselves with a more appropriate implementation as values are
+ * added.
+ */
+/* package */ abstract class RoaringContainer {
+    /**
+     * The number of values that may be stored in a single container.
+     */
+    static final int CONTAINER_SIZE = 1 << 16;
+
+    /**
+     * Checks whether the specified value is set.
+     *
+     * @param value
+     *            The value to be checked.
+     * @return True if the value is set.
+     */
+    abstract boolean contains(int value);
+
+    /**
+     * Sets the specified value.
+     *
+     * @param value
+     *            The value to be set.
+     * @return The container holding the result which will either be this
+     *         container or a replacement of a different type.
+     */
+    abstract RoaringContainer add(int value);
+
+    /**
+     * Sets all values within the specified container.
+     *
+     * @param other
+     *            The container containing the values to be set.
+     * @return The container holding the result which will either be this
+     *         container or a replacement of a different type.
+     */
+    abstract RoaringContainer addAll(RoaringContainer other);
+
+    /**
+     * Sets all values of this container in the specified bitmap container.
+     *
+     * @param bitmap
+     *            The bitmap to be updated.
+     */
+    abstract void copyTo(RoaringBitmapContainer bitmap);
+
+    /**
+     * Creates an independent copy of this container.
+     *
+     * @return The new container.
+     */
+    abstract RoaringContainer copy();
+
+    /**
+     * Gets the number of set values.
+     *
+     * @return The number of set values.
+     */
+    abstract int getCardinality();
+
+    /**
+     * Gets the approximate number of bytes of heap used by this container.
+     *
+     * @return The container size in bytes.
+     */
+    abstract long getMemoryUsage();
+
+    /**
+     * Returns an iterator over the set values in ascending order.
+     *
+     * @return The value iterator.
+     */
+    abstract PrimitiveIterator.OfInt iterator();
+}
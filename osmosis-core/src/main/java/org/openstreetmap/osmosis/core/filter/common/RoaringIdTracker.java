@@ -0,0 +1,222 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Implements the IdTracker interface using a compressed bitmap in the style of
+ * roaring bitmaps. The id space is divided into blocks of 65536 ids and each
+ * block containing at least one id is stored in a container chosen to suit the
+ * ids it holds. Sparse blocks use a sorted array, clustered blocks use a list
+ * of runs, and dense blocks use a bitmap. This supports the full 64-bit id
+ * range including negative ids and remains compact for the sparse and
+ * clustered id sets typical of planet-sized data.
+ */
+public class RoaringIdTracker implements IdTracker {
+    private static final int KEY_SHIFT = 16;
+    private static final int VALUE_MASK = RoaringContainer.CONTAINER_SIZE - 1;
+
+    private long[] keys;
+    private RoaringContainer[] containers;
+    private int containerCount;
+    private int lastIndex;
+
+    /**
+     * Creates a new instance.
+     */
+    public RoaringIdTracker() {
+        keys = new long[4];
+        containers = new RoaringContainer[4];
+        containerCount = 0;
+        lastIndex = 0;
+    }
+
+    /**
+     * Finds the index of the container for the specified key. If it doesn't
+     * exist the negative insertion point minus one is returned.
+     */
+    private int findContainer(long key) {
+        int index;
+
+        // Ids are usually processed in ascending order so the last used
+        // container or its successor are most likely.
+        if (lastIndex < containerCount) {
+            if (keys[lastIndex] == key) {
+                return lastIndex;
+            }
+            if (lastIndex + 1 < containerCount && keys[lastIndex + 1] == key) {
+                return ++lastIndex;
+            }
+        }
+
+        index = Arrays.binarySearch(keys, 0, containerCount, key);
+        if (index >= 0) {
+            lastIndex = index;
+        }
+
+        return index;
+    }
+
+    private void insertContainer(int index, long key, RoaringContainer container) {
+        if (containerCount == keys.length) {
+            int newLength = keys.length * 2;
+
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+        lastIndex = index;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(long id) {
+        long key = id >> KEY_SHIFT;
+        int index = findContainer(key);
+
+        if (index < 0) {
+            index = -(index + 1);
+            insertContainer(index, key, new RoaringArrayContainer());
+        }
+
+        containers[index] = containers[index].add((int) id & VALUE_MASK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean get(long id) {
+        int index = findContainer(id >> KEY_SHIFT);
+
+        return index >= 0 && containers[index].contains((int) id & VALUE_MASK);
+    }
+
+    /**
+     * Merges the containers of another roaring tracker into this one in a
+     * single pass over both sets of keys.
+     */
+    private void setAll(RoaringIdTracker other) {
+        long[] newKeys = new long[Math.max(4, containerCount + other.containerCount)];
+        RoaringContainer[] newContainers = new RoaringContainer[newKeys.length];
+        int newCount = 0;
+        int thisIndex = 0;
+        int otherIndex = 0;
+
+        while (thisIndex < containerCount || otherIndex < other.containerCount) {
+            if (otherIndex >= other.containerCount
+                    || (thisIndex < containerCount && keys[thisIndex] < other.keys[otherIndex])) {
+                newKeys[newCount] = keys[thisIndex];
+                newContainers[newCount] = containers[thisIndex];
+                thisIndex++;
+            } else if (thisIndex >= containerCount || other.keys[otherIndex] < keys[thisIndex]) {
+                newKeys[newCount] = other.keys[otherIndex];
+                newContainers[newCount] = other.containers[otherIndex].copy();
+                otherIndex++;
+            } else {
+                newKeys[newCount] = keys[thisIndex];
+                newContainers[newCount] = containers[thisIndex].addAll(other.containers[otherIndex]);
+                thisIndex++;
+                otherIndex++;
+            }
+            newCount++;
+        }
+
+        keys = newKeys;
+        containers = newContainers;
+        containerCount = newCount;
+        lastIndex = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAll(IdTracker idTracker) {
+        if (idTracker instanceof RoaringIdTracker) {
+            setAll((RoaringIdTracker) idTracker);
+        } else {
+            for (Long id : idTracker) {
+                set(id);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of ids that have been set.
+     *
+     * @return The number of set ids.
+     */
+    public long getCardinality() {
+        long cardinality = 0;
+
+        for (int i = 0; i < containerCount; i++) {
+            cardinality += containers[i].getCardinality();
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Gets the approximate number of bytes of heap used by this tracker. This
+     * is useful for monitoring the cost of tracking large id sets.
+     *
+     * @return The tracker size in bytes.
+     */
+    public long getMemoryUsage() {
+        long memoryUsage = 64 + keys.length * 8L + containers.length * 8L;
+
+        for (int i = 0; i < containerCount; i++) {
+            memoryUsage += containers[i].getMemoryUsage();
+        }
+
+        return memoryUsage;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned iterator supports retrieving ids as primitives via
+     * {@link PrimitiveIterator.OfLong#nextLong()} which avoids boxing each id.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = 0;
+            private long base = 0;
+            private PrimitiveIterator.OfInt containerIterator = null;
+
+            @Override
+            public boolean hasNext() {
+                while (containerIterator == null || !containerIterator.hasNext()) {
+                    if (index >= containerCount) {
+                        return false;
+                    }
+                    base = keys[index] << KEY_SHIFT;
+                    containerIterator = containers[index].iterator();
+                    index++;
+                }
+
+                return true;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return base | containerIterator.nextInt();
+            }
+        };
+    }
+}
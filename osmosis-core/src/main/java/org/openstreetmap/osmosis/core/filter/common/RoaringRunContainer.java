@@ -0,0 +1,231 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A roaring container for clustered blocks storing ranges of consecutive set
+ * values. OSM ids are allocated sequentially so the ids selected by a filter
+ * are frequently clustered into long runs. If the number of runs grows too
+ * large the container is replaced by a bitmap.
+ */
+/* package */ class RoaringRunContainer extends RoaringContainer {
+    /**
+     * The maximum number of runs stored. Each run requires 4 bytes so beyond
+     * this point a bitmap is smaller.
+     */
+    static final int MAX_RUNS = 2048;
+
+    // Each run is stored as a start value followed by the run length minus one.
+    private char[] runs;
+    private int runCount;
+    private int cardinality;
+
+    /**
+     * Creates a new instance.
+     */
+    RoaringRunContainer() {
+        runs = new char[8];
+        runCount = 0;
+        cardinality = 0;
+    }
+
+    private RoaringRunContainer(char[] runs, int runCount, int cardinality) {
+        this.runs = runs;
+        this.runCount = runCount;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Creates a container with every value set.
+     *
+     * @return The new container.
+     */
+    static RoaringRunContainer full() {
+        return new RoaringRunContainer(new char[] {0, (char) (CONTAINER_SIZE - 1)}, 1, CONTAINER_SIZE);
+    }
+
+    private int start(int runIndex) {
+        return runs[runIndex * 2];
+    }
+
+    private int end(int runIndex) {
+        return runs[runIndex * 2] + runs[runIndex * 2 + 1];
+    }
+
+    private void setRun(int runIndex, int start, int end) {
+        runs[runIndex * 2] = (char) start;
+        runs[runIndex * 2 + 1] = (char) (end - start);
+    }
+
+    /**
+     * Finds the index of the last run starting at or before the value, or -1
+     * if all runs start after the value.
+     */
+    private int findRun(int value) {
+        int low = 0;
+        int high = runCount - 1;
+
+        // Values are usually added in ascending order so check the last run
+        // before searching.
+        if (runCount > 0 && start(high) <= value) {
+            return high;
+        }
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (start(mid) <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return high;
+    }
+
+    private void insertRun(int runIndex, int start, int end) {
+        if (runCount * 2 == runs.length) {
+            runs = Arrays.copyOf(runs, runs.length * 2);
+        }
+        System.arraycopy(runs, runIndex * 2, runs, runIndex * 2 + 2, (runCount - runIndex) * 2);
+        runCount++;
+        setRun(runIndex, start, end);
+    }
+
+    private void removeRun(int runIndex) {
+        System.arraycopy(runs, runIndex * 2 + 2, runs, runIndex * 2, (runCount - runIndex - 1) * 2);
+        runCount--;
+    }
+
+    @Override
+    boolean contains(int value) {
+        int runIndex = findRun(value);
+
+        return runIndex >= 0 && value <= end(runIndex);
+    }
+
+    /**
+     * Replaces this container with a bitmap if it contains too many runs.
+     */
+    private RoaringContainer compact() {
+        if (runCount > MAX_RUNS) {
+            RoaringBitmapContainer bitmap = new RoaringBitmapContainer();
+
+            copyTo(bitmap);
+
+            return bitmap;
+        }
+
+        return this;
+    }
+
+    @Override
+    RoaringContainer add(int value) {
+        int runIndex = findRun(value);
+        boolean joinsPrevious = runIndex >= 0 && value == end(runIndex) + 1;
+        boolean joinsNext = runIndex + 1 < runCount && value == start(runIndex + 1) - 1;
+
+        if (runIndex >= 0 && value <= end(runIndex)) {
+            return this;
+        }
+
+        cardinality++;
+
+        if (joinsPrevious && joinsNext) {
+            setRun(runIndex, start(runIndex), end(runIndex + 1));
+            removeRun(runIndex + 1);
+        } else if (joinsPrevious) {
+            setRun(runIndex, start(runIndex), value);
+        } else if (joinsNext) {
+            setRun(runIndex + 1, value, end(runIndex + 1));
+        } else {
+            insertRun(runIndex + 1, value, value);
+        }
+
+        return compact();
+    }
+
+    @Override
+    RoaringContainer addAll(RoaringContainer other) {
+        RoaringBitmapContainer bitmap;
+
+        if (other instanceof RoaringArrayContainer) {
+            RoaringContainer result = this;
+
+            for (PrimitiveIterator.OfInt i = other.iterator(); i.hasNext(); ) {
+                result = result.add(i.nextInt());
+            }
+
+            return result;
+        }
+
+        if (cardinality == CONTAINER_SIZE) {
+            return this;
+        }
+
+        bitmap = new RoaringBitmapContainer();
+        copyTo(bitmap);
+
+        return bitmap.addAll(other);
+    }
+
+    @Override
+    void copyTo(RoaringBitmapContainer bitmap) {
+        for (int i = 0; i < runCount; i++) {
+            bitmap.addRange(start(i), end(i));
+        }
+    }
+
+    @Override
+    RoaringContainer copy() {
+        return new RoaringRunContainer(Arrays.copyOf(runs, runs.length), runCount, cardinality);
+    }
+
+    @Override
+    int getCardinality() {
+        return cardinality;
+    }
+
+    @Override
+    long getMemoryUsage() {
+        return 32 + runs.length * 2L;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int runIndex = 0;
+            private int next = runCount > 0 ? start(0) : 0;
+
+            @Override
+            public boolean hasNext() {
+                return runIndex < runCount;
+            }
+
+            @Override
+            public int nextInt() {
+                int value;
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                value = next;
+                if (value == end(runIndex)) {
+                    runIndex++;
+                    if (runIndex < runCount) {
+                        next = start(runIndex);
+                    }
+                } else {
+                    next++;
+                }
+
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.util.Map;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
+
+/**
+ * Counts the changes passed to a change sink before forwarding them.
+ */
+public class MeteredChangeSink implements ChangeSink {
+
+    private final ChangeSink changeSink;
+    private final PipeMetrics pipeMetrics;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param changeSink
+     *            The change sink to forward all data to.
+     * @param pipeMetrics
+     *            The metrics of the pipe connecting to the change sink.
+     */
+    public MeteredChangeSink(ChangeSink changeSink, PipeMetrics pipeMetrics) {
+        this.changeSink = changeSink;
+        this.pipeMetrics = pipeMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Map<String, Object> metaData) {
+        changeSink.initialize(metaData);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(ChangeContainer change) {
+        pipeMetrics.recordEntity();
+        changeSink.process(change);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        changeSink.complete();
+        pipeMetrics.recordComplete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        changeSink.close();
+    }
+}
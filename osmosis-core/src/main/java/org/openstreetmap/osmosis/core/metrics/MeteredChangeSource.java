@@ -0,0 +1,36 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
+import org.openstreetmap.osmosis.core.task.v0_6.ChangeSource;
+
+/**
+ * Wraps a change source so that the changes it produces are counted by the
+ * change sink it is connected to.
+ */
+public class MeteredChangeSource implements ChangeSource {
+
+    private final ChangeSource source;
+    private final PipeMetrics pipeMetrics;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param source
+     *            The change source to be metered.
+     * @param pipeMetrics
+     *            The metrics of the pipe the change source writes to.
+     */
+    public MeteredChangeSource(ChangeSource source, PipeMetrics pipeMetrics) {
+        this.source = source;
+        this.pipeMetrics = pipeMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setChangeSink(ChangeSink changeSink) {
+        source.setChangeSink(new MeteredChangeSink(changeSink, pipeMetrics));
+    }
+}
@@ -0,0 +1,105 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownSource;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSink;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+/**
+ * Counts the entities passed to a sink before forwarding them. Metering is
+ * transparent to sources offering multiple passes of their data or filter
+ * pushdown, requests made by the metered sink are passed on as if made by this
+ * sink. Only the first pass of a multi-pass read is counted so that the metrics
+ * reflect the size of the data rather than the number of passes.
+ */
+public class MeteredSink implements MultiPassSink {
+
+    private final Sink sink;
+    private final PipeMetrics pipeMetrics;
+    private boolean passCompleted;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sink
+     *            The sink to forward all data to.
+     * @param pipeMetrics
+     *            The metrics of the pipe connecting to the sink.
+     */
+    public MeteredSink(Sink sink, PipeMetrics pipeMetrics) {
+        this.sink = sink;
+        this.pipeMetrics = pipeMetrics;
+
+        passCompleted = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Map<String, Object> metaData) {
+        Map<String, Object> sinkMetaData = metaData;
+
+        if (metaData != null && metaData.containsKey(MultiPassSource.META_DATA_KEY)) {
+            MultiPassSource passSource = (MultiPassSource) metaData.get(MultiPassSource.META_DATA_KEY);
+
+            sinkMetaData = new HashMap<>(sinkMetaData);
+            sinkMetaData.put(
+                    MultiPassSource.META_DATA_KEY,
+                    (MultiPassSource) requestingSink -> requestingSink == sink && passSource.requestPass(this));
+        }
+        if (metaData != null && metaData.containsKey(FilterPushdownSource.META_DATA_KEY)) {
+            FilterPushdownSource pushdownSource =
+                    (FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY);
+
+            sinkMetaData = new HashMap<>(sinkMetaData);
+            sinkMetaData.put(
+                    FilterPushdownSource.META_DATA_KEY,
+                    (FilterPushdownSource) (pushingSink, specification) ->
+                            pushingSink == sink && pushdownSource.pushDown(this, specification));
+        }
+
+        sink.initialize(sinkMetaData);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(EntityContainer entityContainer) {
+        if (!passCompleted) {
+            pipeMetrics.recordEntity();
+        }
+        sink.process(entityContainer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void completePass() {
+        passCompleted = true;
+        ((MultiPassSink) sink).completePass();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        sink.complete();
+        pipeMetrics.recordComplete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        sink.close();
+    }
+}
@@ -0,0 +1,36 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+
+/**
+ * Wraps a source so that the entities it produces are counted by the
+ * sink it is connected to.
+ */
+public class MeteredSource implements Source {
+
+    private final Source source;
+    private final PipeMetrics pipeMetrics;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param source
+     *            The source to be metered.
+     * @param pipeMetrics
+     *            The metrics of the pipe the source writes to.
+     */
+    public MeteredSource(Source source, PipeMetrics pipeMetrics) {
+        this.source = source;
+        this.pipeMetrics = pipeMetrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSink(Sink sink) {
+        source.setSink(new MeteredSink(sink, pipeMetrics));
+    }
+}
@@ -0,0 +1,300 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.lifecycle.Closeable;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
+
+/**
+ * Periodically writes a snapshot of the pipeline metrics to a file. Files with
+ * a ".json" extension are written as JSON, all others are written in the
+ * Prometheus text exposition format suitable for the node exporter textfile
+ * collector. Each snapshot replaces the file atomically so readers never see
+ * a partially written file.
+ */
+public class MetricsFileWriter implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(MetricsFileWriter.class.getName());
+
+    private final PipelineMetrics metrics;
+    private final Path file;
+    private final int intervalSeconds;
+    private final boolean json;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param metrics
+     *            The metrics to be written.
+     * @param file
+     *            The file to write to.
+     * @param intervalSeconds
+     *            The number of seconds between snapshots.
+     */
+    public MetricsFileWriter(PipelineMetrics metrics, File file, int intervalSeconds) {
+        this.metrics = metrics;
+        this.file = file.toPath().toAbsolutePath();
+        this.intervalSeconds = intervalSeconds;
+
+        json = file.getName().toLowerCase().endsWith(".json");
+    }
+
+    /**
+     * Begins writing snapshots in a background thread.
+     */
+    public void start() {
+        if (executor != null) {
+            throw new OsmosisRuntimeException("The metrics writer is already running.");
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Thread-metrics");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::writeSnapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void writeSnapshotQuietly() {
+        try {
+            writeSnapshot();
+        } catch (RuntimeException e) {
+            // A failed snapshot must not stop subsequent snapshots.
+            LOG.log(Level.WARNING, "Unable to write metrics file " + file + ".", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current metrics to the file.
+     */
+    public void writeSnapshot() {
+        String content = json ? formatJson(metrics) : formatPrometheus(metrics);
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            Files.write(tmpFile, content.getBytes(StandardCharsets.UTF_8));
+
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write metrics file " + file + ".", e);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void appendJsonField(StringBuilder sb, String name, Object value, boolean last) {
+        sb.append("      \"").append(name).append("\": ").append(value).append(last ? "\n" : ",\n");
+    }
+
+    /**
+     * Formats the metrics as a JSON document.
+     *
+     * @param metrics
+     *            The metrics to be formatted.
+     * @return The JSON document.
+     */
+    static String formatJson(PipelineMetrics metrics) {
+        StringBuilder sb = new StringBuilder();
+        StringDictionary dictionary = StringDictionary.getGlobalDictionary();
+        boolean first = true;
+
+        sb.append("{\n");
+        sb.append("  \"gcCount\": ").append(metrics.getGcCount()).append(",\n");
+        sb.append("  \"gcTimeMillis\": ").append(metrics.getGcTimeMillis()).append(",\n");
+        if (dictionary != null) {
+            sb.append("  \"stringDictionary\": {\n");
+            appendJsonField(sb, "hits", dictionary.getHitCount(), false);
+            appendJsonField(sb, "misses", dictionary.getMissCount(), false);
+            appendJsonField(sb, "hitRate", dictionary.getHitRate(), false);
+            appendJsonField(sb, "bytesSaved", dictionary.getBytesSaved(), true);
+            sb.append("  },\n");
+        }
+        sb.append("  \"tasks\": [");
+        for (TaskMetrics task : metrics.getAllTaskMetrics()) {
+            long entitiesIn = task.getEntitiesIn();
+            long entitiesOut = task.getEntitiesOut();
+
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+
+            sb.append("    {\n");
+            sb.append("      \"id\": ");
+            appendJsonString(sb, task.getTaskId());
+            sb.append(",\n");
+            appendJsonField(sb, "finished", task.isFinished(), false);
+            appendJsonField(sb, "entitiesIn", entitiesIn, false);
+            appendJsonField(sb, "entitiesOut", entitiesOut, false);
+            appendJsonField(sb, "entitiesInPerSecond", metrics.getRate(task, entitiesIn), false);
+            appendJsonField(sb, "entitiesOutPerSecond", metrics.getRate(task, entitiesOut), false);
+            appendJsonField(sb, "putWaitMillis", task.getPutWaitNanos() / 1000000, false);
+            appendJsonField(sb, "getWaitMillis", task.getGetWaitNanos() / 1000000, false);
+            appendJsonField(sb, "meanBufferOccupancy", task.getMeanBufferOccupancy(), false);
+            appendJsonField(sb, "maxBufferOccupancy", task.getMaxBufferOccupancy(), false);
+            appendJsonField(sb, "tempFileBytes", task.getTempFileBytes(), false);
+            appendJsonField(sb, "allocatedBytes", task.getAllocatedBytes(), false);
+            appendJsonField(sb, "cpuMillis", task.getCpuNanos() / 1000000, true);
+            sb.append("    }");
+        }
+        sb.append(first ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    private static void appendPrometheusMetric(
+            StringBuilder sb, PipelineMetrics metrics, String name, String type, String help, TaskValue value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (TaskMetrics task : metrics.getAllTaskMetrics()) {
+            sb.append(name).append("{task=\"");
+            for (int i = 0; i < task.getTaskId().length(); i++) {
+                char c = task.getTaskId().charAt(i);
+
+                if (c == '"' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+            sb.append("\"} ").append(value.get(task)).append('\n');
+        }
+    }
+
+    private static void appendPrometheusMetric(StringBuilder sb, String name, String type, String help, Object value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format.
+     *
+     * @param metrics
+     *            The metrics to be formatted.
+     * @return The formatted metrics.
+     */
+    static String formatPrometheus(PipelineMetrics metrics) {
+        StringBuilder sb = new StringBuilder();
+        StringDictionary dictionary = StringDictionary.getGlobalDictionary();
+
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_entities_in_total", "counter", "Entities received by the task.",
+                TaskMetrics::getEntitiesIn);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_entities_out_total", "counter", "Entities sent by the task.",
+                TaskMetrics::getEntitiesOut);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_entities_in_per_second", "gauge",
+                "Average rate of entities received by the task.",
+                task -> metrics.getRate(task, task.getEntitiesIn()));
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_entities_out_per_second", "gauge",
+                "Average rate of entities sent by the task.",
+                task -> metrics.getRate(task, task.getEntitiesOut()));
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_put_wait_seconds_total", "counter",
+                "Time spent waiting for space in full buffers.",
+                task -> task.getPutWaitNanos() / 1e9);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_get_wait_seconds_total", "counter",
+                "Time spent waiting for data in empty buffers.",
+                task -> task.getGetWaitNanos() / 1e9);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_buffer_occupancy_mean", "gauge",
+                "Mean fraction of buffer capacity in use when data is added.",
+                TaskMetrics::getMeanBufferOccupancy);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_buffer_occupancy_max", "gauge",
+                "Maximum fraction of buffer capacity in use when data is added.",
+                TaskMetrics::getMaxBufferOccupancy);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_temp_file_bytes_total", "counter",
+                "Bytes written to temporary files.",
+                TaskMetrics::getTempFileBytes);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_allocated_bytes_total", "counter",
+                "Bytes allocated on the heap by the task threads.",
+                TaskMetrics::getAllocatedBytes);
+        appendPrometheusMetric(
+                sb, metrics, "osmosis_task_cpu_seconds_total", "counter",
+                "CPU time consumed by the task threads.",
+                task -> task.getCpuNanos() / 1e9);
+
+        sb.append("# HELP osmosis_gc_collections_total Garbage collections performed by the JVM.\n");
+        sb.append("# TYPE osmosis_gc_collections_total counter\n");
+        sb.append("osmosis_gc_collections_total ").append(metrics.getGcCount()).append('\n');
+        sb.append("# HELP osmosis_gc_seconds_total Time spent performing garbage collection.\n");
+        sb.append("# TYPE osmosis_gc_seconds_total counter\n");
+        sb.append("osmosis_gc_seconds_total ").append(metrics.getGcTimeMillis() / 1e3).append('\n');
+
+        if (dictionary != null) {
+            appendPrometheusMetric(sb, "osmosis_string_dictionary_hits_total", "counter",
+                    "Strings replaced by a shared instance from the string dictionary.", dictionary.getHitCount());
+            appendPrometheusMetric(sb, "osmosis_string_dictionary_misses_total", "counter",
+                    "Strings not found in the string dictionary.", dictionary.getMissCount());
+            appendPrometheusMetric(sb, "osmosis_string_dictionary_saved_bytes_total", "counter",
+                    "Approximate heap saved by sharing strings from the string dictionary.",
+                    dictionary.getBytesSaved());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Stops the background thread and writes a final snapshot.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+
+            writeSnapshotQuietly();
+        }
+    }
+
+    /**
+     * Extracts a single value from the metrics of a task.
+     */
+    private interface TaskValue {
+        Object get(TaskMetrics task);
+    }
+}
@@ -0,0 +1,70 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the entities flowing along a single pipe between two tasks.
+ */
+public class PipeMetrics {
+
+    private final TaskMetrics producer;
+    private final TaskMetrics consumer;
+    private final LongAdder entityCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param producer
+     *            The metrics of the task writing to the pipe.
+     * @param consumer
+     *            The metrics of the task reading from the pipe.
+     */
+    PipeMetrics(TaskMetrics producer, TaskMetrics consumer) {
+        this.producer = producer;
+        this.consumer = consumer;
+
+        entityCount = new LongAdder();
+    }
+
+    /**
+     * Records the passing of a single entity along the pipe.
+     */
+    public void recordEntity() {
+        entityCount.increment();
+    }
+
+    /**
+     * Records that the consumer has received all data from the pipe.
+     */
+    public void recordComplete() {
+        consumer.recordFinished();
+    }
+
+    /**
+     * Returns the number of entities that have passed along the pipe.
+     *
+     * @return The entity count.
+     */
+    public long getEntityCount() {
+        return entityCount.sum();
+    }
+
+    /**
+     * Returns the metrics of the task writing to the pipe.
+     *
+     * @return The producer metrics.
+     */
+    public TaskMetrics getProducer() {
+        return producer;
+    }
+
+    /**
+     * Returns the metrics of the task reading from the pipe.
+     *
+     * @return The consumer metrics.
+     */
+    public TaskMetrics getConsumer() {
+        return consumer;
+    }
+}
@@ -0,0 +1,195 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Maintains the metrics of all tasks within a pipeline. While the pipeline is
+ * running, the metrics of each task are published periodically as flight
+ * recorder events.
+ */
+public class PipelineMetrics {
+
+    private final Map<String, TaskMetrics> taskMetrics;
+    private final Runnable flightRecorderHook;
+    private volatile long startNanos;
+    private volatile long stopNanos;
+
+    /**
+     * Creates a new instance.
+     */
+    public PipelineMetrics() {
+        taskMetrics = new LinkedHashMap<String, TaskMetrics>();
+        flightRecorderHook = this::emitTaskStatistics;
+    }
+
+    /**
+     * Returns the metrics for the specified task, creating them if they don't
+     * already exist.
+     *
+     * @param taskId
+     *            The unique identifier of the task.
+     * @return The task metrics.
+     */
+    public synchronized TaskMetrics getTaskMetrics(String taskId) {
+        TaskMetrics metrics = taskMetrics.get(taskId);
+
+        if (metrics == null) {
+            metrics = new TaskMetrics(taskId);
+            taskMetrics.put(taskId, metrics);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of all tasks in the order they were created.
+     *
+     * @return The task metrics.
+     */
+    public synchronized List<TaskMetrics> getAllTaskMetrics() {
+        return new ArrayList<TaskMetrics>(taskMetrics.values());
+    }
+
+    /**
+     * Creates the metrics for a pipe connecting two tasks.
+     *
+     * @param producerTaskId
+     *            The unique identifier of the task writing to the pipe.
+     * @param consumerTaskId
+     *            The unique identifier of the task reading from the pipe.
+     * @return The pipe metrics.
+     */
+    public PipeMetrics createPipeMetrics(String producerTaskId, String consumerTaskId) {
+        TaskMetrics producer = getTaskMetrics(producerTaskId);
+        TaskMetrics consumer = getTaskMetrics(consumerTaskId);
+        PipeMetrics pipe = new PipeMetrics(producer, consumer);
+
+        producer.addOutputPipe(pipe);
+        consumer.addInputPipe(pipe);
+
+        return pipe;
+    }
+
+    /**
+     * Marks the beginning of pipeline execution and begins publishing flight
+     * recorder events.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        stopNanos = 0;
+
+        FlightRecorder.addPeriodicEvent(TaskStatisticsEvent.class, flightRecorderHook);
+    }
+
+    /**
+     * Marks the end of pipeline execution and stops publishing flight recorder
+     * events.
+     */
+    public void stop() {
+        stopNanos = System.nanoTime();
+
+        FlightRecorder.removePeriodicEvent(flightRecorderHook);
+    }
+
+    /**
+     * Returns the time the task has been running for, or ran for if it has
+     * finished.
+     *
+     * @param metrics
+     *            The task metrics.
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos(TaskMetrics metrics) {
+        long endNanos;
+
+        if (metrics.isFinished()) {
+            endNanos = metrics.getFinishNanos();
+        } else if (stopNanos != 0) {
+            endNanos = stopNanos;
+        } else {
+            endNanos = System.nanoTime();
+        }
+
+        return Math.max(endNanos - startNanos, 0);
+    }
+
+    /**
+     * Calculates a per second rate over the execution time of a task.
+     *
+     * @param metrics
+     *            The task metrics.
+     * @param count
+     *            The count to be converted to a rate.
+     * @return The rate per second.
+     */
+    public double getRate(TaskMetrics metrics, long count) {
+        long elapsedNanos = getElapsedNanos(metrics);
+
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+
+        return count * 1000000000.0 / elapsedNanos;
+    }
+
+    /**
+     * Returns the total number of garbage collections performed by the JVM.
+     * Garbage collection isn't attributable to individual tasks, the allocated
+     * bytes of each task indicate how much each task contributes to it.
+     *
+     * @return The collection count.
+     */
+    public long getGcCount() {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gcBean.getCollectionCount(), 0);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the total time spent performing garbage collection by the JVM.
+     *
+     * @return The collection time in milliseconds.
+     */
+    public long getGcTimeMillis() {
+        long time = 0;
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gcBean.getCollectionTime(), 0);
+        }
+
+        return time;
+    }
+
+    private void emitTaskStatistics() {
+        for (TaskMetrics metrics : getAllTaskMetrics()) {
+            TaskStatisticsEvent event = new TaskStatisticsEvent();
+            long entitiesIn = metrics.getEntitiesIn();
+            long entitiesOut = metrics.getEntitiesOut();
+
+            event.task = metrics.getTaskId();
+            event.entitiesIn = entitiesIn;
+            event.entitiesOut = entitiesOut;
+            event.entitiesInRate = getRate(metrics, entitiesIn);
+            event.entitiesOutRate = getRate(metrics, entitiesOut);
+            event.putWaitTime = metrics.getPutWaitNanos();
+            event.getWaitTime = metrics.getGetWaitNanos();
+            event.meanBufferOccupancy = metrics.getMeanBufferOccupancy();
+            event.maxBufferOccupancy = metrics.getMaxBufferOccupancy();
+            event.tempFileBytes = metrics.getTempFileBytes();
+            event.allocatedBytes = metrics.getAllocatedBytes();
+            event.cpuTime = metrics.getCpuNanos();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+/**
+ * Measures a single period of time a thread spends blocked on an inter-thread
+ * buffer. The time is attributed to the task owning the current thread and
+ * reported to the flight recorder. Instances should only be created once it is
+ * known that the thread must wait, so that the non-blocking path remains free
+ * of timing overhead.
+ */
+public final class PostboxWait {
+
+    private final boolean put;
+    private final long startNanos;
+    private final PostboxWaitEvent event;
+
+    private PostboxWait(boolean put) {
+        this.put = put;
+
+        event = new PostboxWaitEvent();
+        event.begin();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Begins measuring the time spent waiting for free space in a buffer.
+     *
+     * @return The wait measurement to be ended once the wait completes.
+     */
+    public static PostboxWait beginPut() {
+        return new PostboxWait(true);
+    }
+
+    /**
+     * Begins measuring the time spent waiting for data in a buffer.
+     *
+     * @return The wait measurement to be ended once the wait completes.
+     */
+    public static PostboxWait beginGet() {
+        return new PostboxWait(false);
+    }
+
+    /**
+     * Ends the wait measurement and records the result.
+     */
+    public void end() {
+        TaskMetrics.recordWait(put, System.nanoTime() - startNanos);
+
+        event.end();
+        if (event.shouldCommit()) {
+            TaskMetrics metrics = TaskMetrics.current();
+
+            event.task = metrics != null ? metrics.getTaskId() : null;
+            event.operation = put ? "put" : "get";
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A flight recorder event recording a thread blocked on an inter-thread
+ * buffer.
+ */
+@Name("org.openstreetmap.osmosis.PostboxWait")
+@Label("Postbox Wait")
+@Category("Osmosis")
+@Description("A task thread blocked waiting on an inter-thread buffer")
+@Threshold("10 ms")
+@StackTrace(false)
+class PostboxWaitEvent extends Event {
+
+    @Label("Task")
+    String task;
+
+    @Label("Operation")
+    @Description("put if waiting for free space, get if waiting for data")
+    String operation;
+}
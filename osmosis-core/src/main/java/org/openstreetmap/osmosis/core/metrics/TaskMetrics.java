@@ -0,0 +1,357 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the performance metrics of a single pipeline task.
+ * <p>
+ * Metrics that can't be attributed to a task through the pipeline structure,
+ * such as time spent blocked on buffers or temporary file usage, are attributed
+ * to the task owning the current thread. Threads created by the pipeline for a
+ * task, and any threads subsequently created by those threads, inherit the
+ * metrics of the task. Passive tasks run within the thread of an upstream
+ * active task and their activity is reported against that task.
+ */
+public class TaskMetrics {
+
+    private static final InheritableThreadLocal<TaskMetrics> CURRENT = new InheritableThreadLocal<TaskMetrics>();
+
+    private final String taskId;
+    private final List<PipeMetrics> inputPipes;
+    private final List<PipeMetrics> outputPipes;
+    private final List<Thread> activeThreads;
+    private final LongAdder putWaitNanos;
+    private final LongAdder getWaitNanos;
+    private final LongAdder occupancySamples;
+    private final LongAdder occupancyTotal;
+    private final LongAccumulator occupancyMax;
+    private final LongAdder tempFileBytes;
+    private final LongAdder finishedThreadAllocatedBytes;
+    private final LongAdder finishedThreadCpuNanos;
+    private volatile long finishNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param taskId
+     *            The unique identifier of the task.
+     */
+    public TaskMetrics(String taskId) {
+        this.taskId = taskId;
+
+        inputPipes = new CopyOnWriteArrayList<PipeMetrics>();
+        outputPipes = new CopyOnWriteArrayList<PipeMetrics>();
+        activeThreads = new CopyOnWriteArrayList<Thread>();
+        putWaitNanos = new LongAdder();
+        getWaitNanos = new LongAdder();
+        occupancySamples = new LongAdder();
+        occupancyTotal = new LongAdder();
+        occupancyMax = new LongAccumulator(Long::max, 0);
+        tempFileBytes = new LongAdder();
+        finishedThreadAllocatedBytes = new LongAdder();
+        finishedThreadCpuNanos = new LongAdder();
+    }
+
+    /**
+     * Returns the metrics of the task owning the current thread.
+     *
+     * @return The task metrics, or null if the thread isn't owned by a metered
+     *         task.
+     */
+    public static TaskMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the metrics of the task owning the current thread. Threads
+     * subsequently created by the current thread will inherit the value.
+     *
+     * @param metrics
+     *            The task metrics, or null to clear the current value.
+     */
+    public static void setCurrent(TaskMetrics metrics) {
+        if (metrics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(metrics);
+        }
+    }
+
+    /**
+     * Records the number of bytes written to a temporary file by the current
+     * thread.
+     *
+     * @param bytes
+     *            The number of bytes written.
+     */
+    public static void recordTempFileBytes(long bytes) {
+        TaskMetrics metrics = CURRENT.get();
+
+        if (metrics != null) {
+            metrics.tempFileBytes.add(bytes);
+        }
+    }
+
+    /**
+     * Records the number of objects held by a buffer at the time the current
+     * thread added data to it.
+     *
+     * @param size
+     *            The number of objects in the buffer.
+     * @param capacity
+     *            The maximum number of objects the buffer can hold.
+     */
+    public static void recordBufferOccupancy(long size, long capacity) {
+        TaskMetrics metrics = CURRENT.get();
+
+        if (metrics != null) {
+            long perMille = Math.min(size * 1000 / capacity, 1000);
+
+            metrics.occupancySamples.increment();
+            metrics.occupancyTotal.add(perMille);
+            metrics.occupancyMax.accumulate(perMille);
+        }
+    }
+
+    /**
+     * Records time spent by the current thread waiting on a buffer.
+     *
+     * @param put
+     *            True if waiting to add data, false if waiting to retrieve
+     *            data.
+     * @param nanos
+     *            The wait time in nanoseconds.
+     */
+    static void recordWait(boolean put, long nanos) {
+        TaskMetrics metrics = CURRENT.get();
+
+        if (metrics != null) {
+            if (put) {
+                metrics.putWaitNanos.add(nanos);
+            } else {
+                metrics.getWaitNanos.add(nanos);
+            }
+        }
+    }
+
+    /**
+     * Registers a thread executing the task so that its resource usage can be
+     * attributed to the task.
+     *
+     * @param thread
+     *            The thread.
+     */
+    public void threadStarted(Thread thread) {
+        activeThreads.add(thread);
+    }
+
+    /**
+     * Records the final resource usage of a thread executing the task. This
+     * must be called by the thread itself prior to exiting.
+     *
+     * @param thread
+     *            The thread.
+     */
+    public void threadFinished(Thread thread) {
+        com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+        if (threadBean != null) {
+            finishedThreadAllocatedBytes.add(Math.max(threadBean.getThreadAllocatedBytes(thread.getId()), 0));
+            finishedThreadCpuNanos.add(Math.max(threadBean.getThreadCpuTime(thread.getId()), 0));
+        }
+        activeThreads.remove(thread);
+
+        recordFinished();
+    }
+
+    /**
+     * Records that the task has finished processing.
+     */
+    void recordFinished() {
+        finishNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds a pipe providing data to the task.
+     *
+     * @param pipe
+     *            The pipe.
+     */
+    void addInputPipe(PipeMetrics pipe) {
+        inputPipes.add(pipe);
+    }
+
+    /**
+     * Adds a pipe receiving data from the task.
+     *
+     * @param pipe
+     *            The pipe.
+     */
+    void addOutputPipe(PipeMetrics pipe) {
+        outputPipes.add(pipe);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return (com.sun.management.ThreadMXBean) threadBean;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the unique identifier of the task.
+     *
+     * @return The task id.
+     */
+    public String getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * Returns the number of entities received by the task.
+     *
+     * @return The entity count.
+     */
+    public long getEntitiesIn() {
+        long count = 0;
+
+        for (PipeMetrics pipe : inputPipes) {
+            count += pipe.getEntityCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of entities sent by the task.
+     *
+     * @return The entity count.
+     */
+    public long getEntitiesOut() {
+        long count = 0;
+
+        for (PipeMetrics pipe : outputPipes) {
+            count += pipe.getEntityCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the time the task's threads have spent waiting for space in
+     * full buffers.
+     *
+     * @return The wait time in nanoseconds.
+     */
+    public long getPutWaitNanos() {
+        return putWaitNanos.sum();
+    }
+
+    /**
+     * Returns the time the task's threads have spent waiting for data in
+     * empty buffers.
+     *
+     * @return The wait time in nanoseconds.
+     */
+    public long getGetWaitNanos() {
+        return getWaitNanos.sum();
+    }
+
+    /**
+     * Returns the average occupancy of the buffers written to by the task.
+     *
+     * @return The occupancy as a fraction of buffer capacity between 0 and 1.
+     */
+    public double getMeanBufferOccupancy() {
+        long samples = occupancySamples.sum();
+
+        if (samples == 0) {
+            return 0;
+        }
+
+        return occupancyTotal.sum() / (samples * 1000.0);
+    }
+
+    /**
+     * Returns the maximum occupancy of the buffers written to by the task.
+     *
+     * @return The occupancy as a fraction of buffer capacity between 0 and 1.
+     */
+    public double getMaxBufferOccupancy() {
+        return occupancyMax.get() / 1000.0;
+    }
+
+    /**
+     * Returns the number of bytes written to temporary files by the task.
+     *
+     * @return The byte count.
+     */
+    public long getTempFileBytes() {
+        return tempFileBytes.sum();
+    }
+
+    /**
+     * Returns the number of bytes allocated on the heap by the task's threads.
+     *
+     * @return The byte count, zero if the JVM doesn't support allocation
+     *         measurement.
+     */
+    public long getAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadBean = getThreadBean();
+        long bytes = finishedThreadAllocatedBytes.sum();
+
+        if (threadBean != null) {
+            for (Thread thread : activeThreads) {
+                bytes += Math.max(threadBean.getThreadAllocatedBytes(thread.getId()), 0);
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns the CPU time consumed by the task's threads.
+     *
+     * @return The CPU time in nanoseconds, zero if the JVM doesn't support CPU
+     *         time measurement.
+     */
+    public long getCpuNanos() {
+        com.sun.management.ThreadMXBean threadBean = getThreadBean();
+        long nanos = finishedThreadCpuNanos.sum();
+
+        if (threadBean != null) {
+            for (Thread thread : activeThreads) {
+                nanos += Math.max(threadBean.getThreadCpuTime(thread.getId()), 0);
+            }
+        }
+
+        return nanos;
+    }
+
+    /**
+     * Indicates whether the task has finished processing.
+     *
+     * @return True if the task has finished.
+     */
+    public boolean isFinished() {
+        return finishNanos != 0 && activeThreads.isEmpty();
+    }
+
+    /**
+     * Returns the time at which the task most recently finished processing.
+     *
+     * @return The finish time as returned by System.nanoTime, or zero if the
+     *         task hasn't finished.
+     */
+    public long getFinishNanos() {
+        return finishNanos;
+    }
+}
@@ -0,0 +1,66 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A periodic flight recorder event containing the accumulated metrics of a
+ * single pipeline task.
+ */
+@Name("org.openstreetmap.osmosis.TaskStatistics")
+@Label("Task Statistics")
+@Category("Osmosis")
+@Description("Accumulated metrics of a pipeline task")
+@Period("1 s")
+@StackTrace(false)
+class TaskStatisticsEvent extends Event {
+
+    @Label("Task")
+    String task;
+
+    @Label("Entities In")
+    long entitiesIn;
+
+    @Label("Entities Out")
+    long entitiesOut;
+
+    @Label("Entities In Per Second")
+    double entitiesInRate;
+
+    @Label("Entities Out Per Second")
+    double entitiesOutRate;
+
+    @Label("Put Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long putWaitTime;
+
+    @Label("Get Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long getWaitTime;
+
+    @Label("Mean Buffer Occupancy")
+    double meanBufferOccupancy;
+
+    @Label("Max Buffer Occupancy")
+    double maxBufferOccupancy;
+
+    @Label("Temporary File Bytes")
+    @DataAmount
+    long tempFileBytes;
+
+    @Label("Allocated Bytes")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+}
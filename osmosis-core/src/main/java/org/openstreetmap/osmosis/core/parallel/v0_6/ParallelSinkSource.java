@@ -0,0 +1,272 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+
+/**
+ * Runs several replicas of a stateless task on a pool of worker threads. The
+ * input is divided into batches which are handed to the next idle replica, and
+ * the output of each batch is passed on in the order the batches were read so
+ * the downstream task sees the same stream as it would from a single replica.
+ * Downstream tasks are only ever invoked from the input thread.
+ */
+public class ParallelSinkSource implements SinkSource {
+    private Sink sink;
+    private List<Replica> replicas;
+    private BlockingQueue<Replica> idleReplicas;
+    private int batchSize;
+    private int maxPendingBatches;
+    private ExecutorService executor;
+    private List<EntityContainer> batch;
+    private Deque<Future<List<EntityContainer>>> pendingBatches;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param tasks
+     *            The task replicas, one per worker thread. Each must be
+     *            configured identically.
+     * @param batchSize
+     *            The number of entities to pass to a worker at a time.
+     */
+    public ParallelSinkSource(List<SinkSource> tasks, int batchSize) {
+        if (tasks.isEmpty()) {
+            throw new OsmosisRuntimeException("At least one task replica is required.");
+        }
+        if (batchSize < 1) {
+            throw new OsmosisRuntimeException("A batch size of " + batchSize + " is invalid.");
+        }
+
+        this.batchSize = batchSize;
+
+        replicas = new ArrayList<Replica>(tasks.size());
+        idleReplicas = new ArrayBlockingQueue<Replica>(tasks.size());
+        for (SinkSource task : tasks) {
+            Replica replica = new Replica(task);
+
+            replicas.add(replica);
+            idleReplicas.add(replica);
+        }
+
+        // Allow a second batch per worker to be queued so workers don't go
+        // idle while the oldest batch is being passed downstream.
+        maxPendingBatches = tasks.size() * 2;
+
+        batch = new ArrayList<EntityContainer>(batchSize);
+        pendingBatches = new ArrayDeque<Future<List<EntityContainer>>>();
+    }
+
+    /**
+     * Waits for a batch to be processed and returns its output.
+     */
+    private static List<EntityContainer> waitFor(Future<List<EntityContainer>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OsmosisRuntimeException("Unable to process a batch of entities.", e.getCause());
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(replicas.size(), runnable -> {
+                Thread thread = new Thread(runnable, "Thread-parallel");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    private void emit(List<EntityContainer> output) {
+        for (EntityContainer entityContainer : output) {
+            sink.process(entityContainer);
+        }
+    }
+
+    /**
+     * Passes the output of the oldest batch downstream once it is available.
+     */
+    private void completeOldestBatch() {
+        emit(waitFor(pendingBatches.removeFirst()));
+    }
+
+    /**
+     * Hands the current batch to a worker.
+     */
+    private void dispatchBatch() {
+        List<EntityContainer> input = batch;
+
+        if (pendingBatches.size() >= maxPendingBatches) {
+            completeOldestBatch();
+        }
+
+        pendingBatches.addLast(getExecutor().submit(() -> {
+            Replica replica = idleReplicas.take();
+
+            try {
+                return replica.processBatch(input);
+            } finally {
+                idleReplicas.add(replica);
+            }
+        }));
+
+        batch = new ArrayList<EntityContainer>(batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Map<String, Object> metaData) {
+        for (Replica replica : replicas) {
+            replica.task.initialize(metaData);
+        }
+
+        sink.initialize(metaData);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(EntityContainer entityContainer) {
+        batch.add(entityContainer);
+
+        if (batch.size() >= batchSize) {
+            dispatchBatch();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        if (!batch.isEmpty()) {
+            dispatchBatch();
+        }
+        while (!pendingBatches.isEmpty()) {
+            completeOldestBatch();
+        }
+
+        // All workers are idle so the replicas can be completed from this
+        // thread.
+        for (Replica replica : replicas) {
+            emit(replica.completeTask());
+        }
+
+        sink.complete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        pendingBatches.clear();
+
+        for (Replica replica : replicas) {
+            replica.task.close();
+        }
+
+        sink.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSink(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * A task replica along with the sink collecting its output. A replica is
+     * only used by one thread at a time.
+     */
+    private static class Replica implements Sink {
+        private SinkSource task;
+        private List<EntityContainer> output;
+
+        Replica(SinkSource task) {
+            this.task = task;
+
+            task.setSink(this);
+        }
+
+        List<EntityContainer> processBatch(List<EntityContainer> input) {
+            List<EntityContainer> result = new ArrayList<EntityContainer>(input.size());
+
+            output = result;
+            try {
+                for (EntityContainer entityContainer : input) {
+                    task.process(entityContainer);
+                }
+            } finally {
+                output = null;
+            }
+
+            return result;
+        }
+
+        List<EntityContainer> completeTask() {
+            List<EntityContainer> result = new ArrayList<EntityContainer>();
+
+            output = result;
+            try {
+                task.complete();
+            } finally {
+                output = null;
+            }
+
+            return result;
+        }
+
+        @Override
+        public void initialize(Map<String, Object> metaData) {
+            // The downstream sink is initialised once by the owning task.
+        }
+
+        @Override
+        public void process(EntityContainer entityContainer) {
+            output.add(entityContainer);
+        }
+
+        @Override
+        public void complete() {
+            // The downstream sink is completed once by the owning task.
+        }
+
+        @Override
+        public void close() {
+            // The downstream sink is closed once by the owning task.
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkSourceManager;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+
+/**
+ * The task manager factory for the parallel pseudo task. It is configured with
+ * the arguments of the parallel task and creates a task manager for the task
+ * that follows it, with that task replaced by a {@link ParallelSinkSource}
+ * running replicas created by the task's own factory.
+ */
+public class ParallelTaskManagerFactory extends TaskManagerFactory {
+    private static final String ARG_WORKERS = "workers";
+    private static final String ARG_BATCH_SIZE = "batchSize";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private TaskManagerFactory taskFactory;
+    private TaskConfiguration taskConfig;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param taskFactory
+     *            The factory for the task to be run in parallel.
+     * @param taskConfig
+     *            The configuration of the task to be run in parallel.
+     */
+    public ParallelTaskManagerFactory(TaskManagerFactory taskFactory, TaskConfiguration taskConfig) {
+        this.taskFactory = taskFactory;
+        this.taskConfig = taskConfig;
+    }
+
+    /**
+     * Creates a replica of the task to be run in parallel.
+     *
+     * @return The task.
+     */
+    private SinkSource createReplica() {
+        TaskManager taskManager;
+        SinkSource task;
+
+        taskManager = taskFactory.createTaskManager(taskConfig);
+        if (!(taskManager instanceof SinkSourceManager)) {
+            throw new OsmosisRuntimeException(
+                    "Task " + taskConfig.getId() + " cannot be run in parallel because it isn't a sink source task.");
+        }
+
+        task = ((SinkSourceManager) taskManager).getTask();
+        if (!(task instanceof StatelessTask)) {
+            throw new OsmosisRuntimeException(
+                    "Task " + taskConfig.getId() + " cannot be run in parallel because it isn't stateless.");
+        }
+
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TaskManager createTaskManagerImpl(TaskConfiguration parallelConfig) {
+        int workers;
+        int batchSize;
+        List<SinkSource> replicas;
+
+        workers = getIntegerArgument(
+                parallelConfig,
+                ARG_WORKERS,
+                getDefaultIntegerArgument(parallelConfig, Runtime.getRuntime().availableProcessors()));
+        batchSize = getIntegerArgument(parallelConfig, ARG_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+
+        if (workers < 1) {
+            throw new OsmosisRuntimeException(
+                    "Argument " + ARG_WORKERS + " for task " + parallelConfig.getId() + " must be at least 1.");
+        }
+        if (batchSize < 1) {
+            throw new OsmosisRuntimeException(
+                    "Argument " + ARG_BATCH_SIZE + " for task " + parallelConfig.getId() + " must be at least 1.");
+        }
+        if (!parallelConfig.getPipeArgs().isEmpty()) {
+            throw new OsmosisRuntimeException("Task " + parallelConfig.getId()
+                    + " doesn't accept pipe arguments, they must be supplied to the task it runs.");
+        }
+
+        replicas = new ArrayList<SinkSource>(workers);
+        for (int i = 0; i < workers; i++) {
+            replicas.add(createReplica());
+        }
+
+        return new SinkSourceManager(
+                taskConfig.getId(), new ParallelSinkSource(replicas, batchSize), taskConfig.getPipeArgs());
+    }
+}
@@ -4,12 +4,18 @@ package org.openstreetmap.osmosis.core.pipeline.common;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.metrics.MeteredChangeSource;
+import org.openstreetmap.osmosis.core.metrics.MeteredSource;
+import org.openstreetmap.osmosis.core.metrics.PipelineMetrics;
 import org.openstreetmap.osmosis.core.task.common.Task;
+import org.openstreetmap.osmosis.core.task.v0_6.ChangeSource;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
 
 /**
  * Maintains the tasks that have been registered as producing data during the
@@ -22,13 +28,30 @@ public class PipeTasks {
 
     private Map<String, Task> namedTasks;
     private Deque<Task> defaultTasks;
+    private Map<Task, String> producerTaskIds;
+    private PipelineMetrics metrics;
 
     /**
      * Creates a new instance.
      */
     public PipeTasks() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance that meters the data flowing through each
+     * connected pipe.
+     *
+     * @param metrics
+     *            The metrics to record pipe activity to, or null if pipes are
+     *            not to be metered.
+     */
+    public PipeTasks(PipelineMetrics metrics) {
+        this.metrics = metrics;
+
         namedTasks = new HashMap<String, Task>();
         defaultTasks = new ArrayDeque<Task>();
+        producerTaskIds = new IdentityHashMap<Task, String>();
     }
 
     /**
@@ -50,6 +73,7 @@ public class PipeTasks {
         }
 
         namedTasks.put(pipeName, task);
+        producerTaskIds.put(task, taskId);
 
         if (LOG.isLoggable(Level.FINE)) {
             LOG.fine("Task \"" + taskId + "\" produced pipe \"" + pipeName + "\"");
@@ -68,6 +92,7 @@ public class PipeTasks {
 
         // Push the new task onto the top of the default pipe stack.
         defaultTasks.push(task);
+        producerTaskIds.put(task, taskId);
 
         if (LOG.isLoggable(Level.FINE)) {
             LOG.fine("Task \"" + taskId + "\" produced unnamed pipe stored at level " + defaultTasks.size()
@@ -89,6 +114,35 @@ public class PipeTasks {
         return requiredTaskType.isInstance(task);
     }
 
+    /**
+     * Wraps an input task so that the data flowing from the producing task to
+     * the consuming task is recorded to the pipeline metrics. Datasets are
+     * accessed randomly rather than streamed and are not metered.
+     *
+     * @param taskId
+     *            The unique identifier of the consuming task.
+     * @param requiredTaskType
+     *            The type of task required by the consuming task.
+     * @param task
+     *            The task producing the data.
+     * @return The task to be connected to the consuming task.
+     */
+    private Task meterTask(String taskId, Class<? extends Task> requiredTaskType, Task task) {
+        if (metrics == null) {
+            return task;
+        }
+
+        if (Source.class.equals(requiredTaskType)) {
+            return new MeteredSource((Source) task, metrics.createPipeMetrics(producerTaskIds.get(task), taskId));
+        }
+        if (ChangeSource.class.equals(requiredTaskType)) {
+            return new MeteredChangeSource(
+                    (ChangeSource) task, metrics.createPipeMetrics(producerTaskIds.get(task), taskId));
+        }
+
+        return task;
+    }
+
     /**
      * Removes and returns the task registered under the specified name.
      *
@@ -120,7 +174,7 @@ public class PipeTasks {
             LOG.fine("Task \"" + taskId + "\" consumed pipe \"" + pipeName + "\"");
         }
 
-        return task;
+        return meterTask(taskId, requiredTaskType, task);
     }
 
     /**
@@ -156,7 +210,7 @@ public class PipeTasks {
                     + " in the default pipe stack.");
         }
 
-        return task;
+        return meterTask(taskId, requiredTaskType, task);
     }
 
     /**
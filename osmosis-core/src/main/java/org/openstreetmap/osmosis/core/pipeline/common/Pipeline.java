@@ -6,6 +6,9 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.metrics.PipelineMetrics;
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
+import org.openstreetmap.osmosis.core.parallel.v0_6.ParallelTaskManagerFactory;
 
 /**
  * Manages a processing pipeline from parsing of arguments, to creating and
@@ -19,6 +22,7 @@ public class Pipeline {
 
     private TaskManagerFactoryRegister factoryRegister;
     private List<TaskManager> taskManagers;
+    private PipelineMetrics metrics;
 
     /**
      * Creates a new instance.
@@ -27,7 +31,21 @@ public class Pipeline {
      *            The register containing all known task manager factories.
      */
     public Pipeline(TaskManagerFactoryRegister factoryRegister) {
+        this(factoryRegister, null);
+    }
+
+    /**
+     * Creates a new instance that records performance metrics for every task.
+     *
+     * @param factoryRegister
+     *            The register containing all known task manager factories.
+     * @param metrics
+     *            The metrics to record task activity to, or null if metrics
+     *            are not required.
+     */
+    public Pipeline(TaskManagerFactoryRegister factoryRegister, PipelineMetrics metrics) {
         this.factoryRegister = factoryRegister;
+        this.metrics = metrics;
 
         taskManagers = new ArrayList<TaskManager>();
     }
@@ -41,9 +59,27 @@ public class Pipeline {
      *            The list of task information objects.
      */
     private void buildTasks(List<TaskConfiguration> taskInfoList) {
-        for (TaskConfiguration taskConfig : taskInfoList) {
-            // Create the new task manager and add to the pipeline.
-            taskManagers.add(factoryRegister.getInstance(taskConfig.getType()).createTaskManager(taskConfig));
+        for (int i = 0; i < taskInfoList.size(); i++) {
+            TaskConfiguration taskConfig = taskInfoList.get(i);
+
+            if (PipelineConstants.PARALLEL_TASK_TYPE.equals(taskConfig.getType())) {
+                TaskConfiguration parallelConfig = taskConfig;
+
+                // The parallel task is replaced by the task following it run
+                // on multiple threads.
+                if (i + 1 >= taskInfoList.size()) {
+                    throw new OsmosisRuntimeException(
+                            "Task " + parallelConfig.getId() + " must be followed by the task to be run in parallel.");
+                }
+                taskConfig = taskInfoList.get(++i);
+
+                taskManagers.add(
+                        new ParallelTaskManagerFactory(factoryRegister.getInstance(taskConfig.getType()), taskConfig)
+                                .createTaskManager(parallelConfig));
+            } else {
+                // Create the new task manager and add to the pipeline.
+                taskManagers.add(factoryRegister.getInstance(taskConfig.getType()).createTaskManager(taskConfig));
+            }
 
             if (LOG.isLoggable(Level.FINE)) {
                 LOG.fine("Created task \"" + taskConfig.getId() + "\"");
@@ -59,7 +95,7 @@ public class Pipeline {
 
         // Create a container to map between the pipe name and the task that has
         // last written to it.
-        pipeTasks = new PipeTasks();
+        pipeTasks = new PipeTasks(metrics);
 
         // Request each node to perform connection, each node will update the
         // pipe tasks as it provides and consumes pipes.
@@ -110,9 +146,26 @@ public class Pipeline {
      * Launches the execution of the tasks within the pipeline.
      */
     public void execute() {
-        // Initiate execution of all nodes.
-        for (TaskManager taskManager : taskManagers) {
-            taskManager.execute();
+        if (metrics == null) {
+            // Initiate execution of all nodes.
+            for (TaskManager taskManager : taskManagers) {
+                taskManager.execute();
+            }
+
+            return;
+        }
+
+        metrics.start();
+
+        // Initiate execution of all nodes. Any threads launched by a task
+        // inherit the metrics of the task from this thread.
+        try {
+            for (TaskManager taskManager : taskManagers) {
+                TaskMetrics.setCurrent(metrics.getTaskMetrics(taskManager.getTaskId()));
+                taskManager.execute();
+            }
+        } finally {
+            TaskMetrics.setCurrent(null);
         }
     }
 
@@ -130,6 +183,10 @@ public class Pipeline {
             }
         }
 
+        if (metrics != null) {
+            metrics.stop();
+        }
+
         if (!successful) {
             throw new OsmosisRuntimeException("One or more tasks failed.");
         }
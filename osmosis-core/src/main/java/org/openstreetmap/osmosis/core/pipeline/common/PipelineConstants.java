@@ -28,4 +28,10 @@ public final class PipelineConstants {
      * specified.
      */
     public static final String DEFAULT_PIPE_PREFIX = "default";
+
+    /**
+     * Defines the pseudo task type that causes the task following it to be run
+     * by multiple worker threads.
+     */
+    public static final String PARALLEL_TASK_TYPE = "parallel";
 }
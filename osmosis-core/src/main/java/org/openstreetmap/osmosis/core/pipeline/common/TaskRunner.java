@@ -1,6 +1,8 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.core.pipeline.common;
 
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
+
 /**
  * A thread implementation for launching a runnable task.
  *
@@ -41,6 +43,27 @@ public class TaskRunner extends Thread {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        TaskMetrics metrics = TaskMetrics.current();
+
+        if (metrics == null) {
+            super.run();
+        } else {
+            // Register with the task metrics so that resource usage of the
+            // thread is attributed to the task.
+            metrics.threadStarted(this);
+            try {
+                super.run();
+            } finally {
+                metrics.threadFinished(this);
+            }
+        }
+    }
+
     /**
      * This can be called after the thread has completed to determine if the
      * thread terminated normally.
@@ -35,6 +35,15 @@ public class SinkSourceManager extends PassiveTaskManager {
         this.task = task;
     }
 
+    /**
+     * Returns the task instance being managed.
+     *
+     * @return The task.
+     */
+    public SinkSource getTask() {
+        return task;
+    }
+
     /**
      * {@inheritDoc}
      */
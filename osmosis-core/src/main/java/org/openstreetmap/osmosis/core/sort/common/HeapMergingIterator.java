@@ -0,0 +1,182 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.sort.common;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+
+/**
+ * This iterator examines a list of sorted input sources and merges them into a
+ * single sorted list. Unlike {@link MergingIterator} which performs a linear
+ * scan of all sources for every element, the current head of each source is
+ * maintained in a binary heap making it suitable for merging a large number of
+ * sources in a single pass. Where elements compare as equal, the element from
+ * the source appearing earliest in the source list is returned first which
+ * keeps the merge stable.
+ *
+ * @param <DataType>
+ *            The object type to be sorted.
+ */
+public class HeapMergingIterator<DataType> implements ReleasableIterator<DataType> {
+    private List<ReleasableIterator<DataType>> sources;
+    private Comparator<DataType> comparator;
+    private Object[] heads;
+    private int[] heap;
+    private int heapSize;
+    private boolean initialized;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sources
+     *            The list of data sources.
+     * @param comparator
+     *            The comparator to be used for sorting.
+     */
+    public HeapMergingIterator(List<ReleasableIterator<DataType>> sources, Comparator<DataType> comparator) {
+        this.sources = new ArrayList<ReleasableIterator<DataType>>(sources);
+        this.comparator = comparator;
+
+        heads = new Object[sources.size()];
+        heap = new int[sources.size()];
+        heapSize = 0;
+        initialized = false;
+    }
+
+    /**
+     * Compares the current head elements of two sources.
+     *
+     * @return True if the first source should be returned before the second.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean isLess(int sourceIndex1, int sourceIndex2) {
+        int result = comparator.compare((DataType) heads[sourceIndex1], (DataType) heads[sourceIndex2]);
+
+        if (result == 0) {
+            return sourceIndex1 < sourceIndex2;
+        }
+
+        return result < 0;
+    }
+
+    private void siftDown(int position) {
+        int sourceIndex = heap[position];
+
+        while (true) {
+            int child = (position << 1) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+
+            if (child + 1 < heapSize && isLess(heap[child + 1], heap[child])) {
+                child++;
+            }
+
+            if (!isLess(heap[child], sourceIndex)) {
+                break;
+            }
+
+            heap[position] = heap[child];
+            position = child;
+        }
+
+        heap[position] = sourceIndex;
+    }
+
+    /**
+     * Primes the heap with the first element of each source. Empty sources are
+     * released immediately.
+     */
+    private void initialize() {
+        if (!initialized) {
+            for (int i = 0; i < sources.size(); i++) {
+                ReleasableIterator<DataType> source = sources.get(i);
+
+                if (source.hasNext()) {
+                    heads[i] = source.next();
+                    heap[heapSize++] = i;
+                } else {
+                    source.close();
+                    sources.set(i, null);
+                }
+            }
+
+            for (int i = (heapSize >> 1) - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+
+            initialized = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        initialize();
+
+        return heapSize > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType next() {
+        int sourceIndex;
+        ReleasableIterator<DataType> source;
+        DataType result;
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        sourceIndex = heap[0];
+        result = (DataType) heads[sourceIndex];
+
+        // Replace the head of the minimum source, or remove the source from the
+        // heap if it is exhausted.
+        source = sources.get(sourceIndex);
+        if (source.hasNext()) {
+            heads[sourceIndex] = source.next();
+        } else {
+            heads[sourceIndex] = null;
+            source.close();
+            sources.set(sourceIndex, null);
+
+            heap[0] = heap[--heapSize];
+        }
+
+        if (heapSize > 0) {
+            siftDown(0);
+        }
+
+        return result;
+    }
+
+    /**
+     * Not supported. An UnsupportedOperationException is always thrown.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        for (ReleasableIterator<DataType> source : sources) {
+            if (source != null) {
+                source.close();
+            }
+        }
+        sources.clear();
+        heapSize = 0;
+    }
+}
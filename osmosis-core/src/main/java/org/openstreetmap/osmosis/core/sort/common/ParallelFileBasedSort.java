@@ -0,0 +1,454 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.sort.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.lifecycle.Closeable;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.ObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.ReleasableAdaptorForIterator;
+import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
+import org.openstreetmap.osmosis.core.store.Storeable;
+
+/**
+ * Allows a large number of objects to be sorted by writing them to disk in
+ * sorted runs then merging the runs back together. This is a drop-in
+ * alternative to {@link FileBasedSort} with the following differences:
+ * <ul>
+ * <li>The run size is derived from a memory budget rather than being a small
+ * fixed count.</li>
+ * <li>Runs are sorted and written to their own temporary files on a fork-join
+ * pool while the calling thread continues to accept new objects.</li>
+ * <li>Runs are merged using a single k-way heap merge with large read buffers.
+ * Only if the number of runs exceeds the maximum number of open files are
+ * intermediate merges performed, and those are also performed in
+ * parallel.</li>
+ * <li>If all objects fit within a single run no files are written at all.</li>
+ * </ul>
+ * The sort is stable, objects comparing as equal are returned in the order they
+ * were added.
+ *
+ * @param <T>
+ *            The object type to be sorted.
+ */
+public class ParallelFileBasedSort<T extends Storeable> implements Closeable {
+    /**
+     * A rough estimate of the heap consumed by a single object awaiting
+     * sorting. This is used to convert the memory budget into a run size.
+     */
+    private static final int ESTIMATED_OBJECT_SIZE = 512;
+
+    /**
+     * The minimum number of objects in a run. This matches the fixed in-memory
+     * sort size of {@link FileBasedSort}.
+     */
+    private static final int MIN_RUN_SIZE = 16384;
+
+    /**
+     * The maximum number of objects in a run, used to cap the size of the
+     * in-memory array.
+     */
+    private static final int MAX_RUN_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The maximum number of runs to merge at once. This limits the number of
+     * files that are open at any point in time.
+     */
+    private static final int MAX_MERGE_SOURCE_COUNT = 256;
+
+    /**
+     * The fraction of the memory budget allocated to the read buffers of each
+     * merge source.
+     */
+    private static final int MERGE_BUFFER_DIVISOR = 8;
+
+    private static final int MIN_BUFFER_SIZE = 65536;
+    private static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The fraction of the maximum heap size used as the memory budget if none
+     * is specified.
+     */
+    private static final int DEFAULT_MEMORY_DIVISOR = 8;
+
+    private static final String STORAGE_PREFIX = "emts";
+
+    private ObjectSerializationFactory serializationFactory;
+    private Comparator<T> comparator;
+    private boolean useCompression;
+    private int parallelism;
+    private int maxMergeSourceCount;
+    private int runSize;
+    private int bufferSize;
+    private ForkJoinPool pool;
+    private List<T> addBuffer;
+    private Deque<ForkJoinTask<SimpleObjectStore<T>>> pendingRuns;
+    private List<SimpleObjectStore<T>> runs;
+
+    /**
+     * Creates a new instance using a memory budget of one eighth of the maximum
+     * heap size and one thread per available processor.
+     *
+     * @param serializationFactory
+     *            The factory defining the object serialisation implementation.
+     * @param comparator
+     *            The comparator to be used for sorting the results.
+     * @param useCompression
+     *            If true, the storage files will be compressed.
+     */
+    public ParallelFileBasedSort(
+            ObjectSerializationFactory serializationFactory, Comparator<T> comparator, boolean useCompression) {
+        this(serializationFactory, comparator, useCompression, 0, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param serializationFactory
+     *            The factory defining the object serialisation implementation.
+     * @param comparator
+     *            The comparator to be used for sorting the results.
+     * @param useCompression
+     *            If true, the storage files will be compressed.
+     * @param memoryBudget
+     *            The approximate number of bytes of heap to use for holding
+     *            objects in memory. A value of 0 selects a default based on the
+     *            maximum heap size.
+     * @param parallelism
+     *            The number of threads to use for sorting and writing runs. A
+     *            value of 0 selects the number of available processors.
+     */
+    public ParallelFileBasedSort(
+            ObjectSerializationFactory serializationFactory,
+            Comparator<T> comparator,
+            boolean useCompression,
+            long memoryBudget,
+            int parallelism) {
+        this(serializationFactory, comparator, useCompression, memoryBudget, parallelism, MIN_RUN_SIZE,
+                MAX_MERGE_SOURCE_COUNT);
+    }
+
+    /**
+     * Creates a new instance with the run size and merge limits overridden.
+     * This allows intermediate merges to be exercised with small data sets.
+     *
+     * @param serializationFactory
+     *            The factory defining the object serialisation implementation.
+     * @param comparator
+     *            The comparator to be used for sorting the results.
+     * @param useCompression
+     *            If true, the storage files will be compressed.
+     * @param memoryBudget
+     *            The approximate number of bytes of heap to use for holding
+     *            objects in memory. A value of 0 selects a default based on the
+     *            maximum heap size.
+     * @param parallelism
+     *            The number of threads to use for sorting and writing runs. A
+     *            value of 0 selects the number of available processors.
+     * @param minRunSize
+     *            The minimum number of objects in a run.
+     * @param maxMergeSourceCount
+     *            The maximum number of runs to merge at once.
+     */
+    ParallelFileBasedSort(
+            ObjectSerializationFactory serializationFactory,
+            Comparator<T> comparator,
+            boolean useCompression,
+            long memoryBudget,
+            int parallelism,
+            int minRunSize,
+            int maxMergeSourceCount) {
+        long runSizeCandidate;
+
+        if (memoryBudget < 0) {
+            throw new OsmosisRuntimeException("A memory budget of " + memoryBudget + " is invalid.");
+        }
+        if (parallelism < 0) {
+            throw new OsmosisRuntimeException("A parallelism of " + parallelism + " is invalid.");
+        }
+        if (minRunSize < 1) {
+            throw new OsmosisRuntimeException("A minimum run size of " + minRunSize + " is invalid.");
+        }
+        if (maxMergeSourceCount < 2) {
+            throw new OsmosisRuntimeException("A merge source count of " + maxMergeSourceCount + " is invalid.");
+        }
+
+        this.serializationFactory = serializationFactory;
+        this.comparator = comparator;
+        this.useCompression = useCompression;
+
+        if (memoryBudget == 0) {
+            memoryBudget = Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_DIVISOR;
+        }
+        if (parallelism == 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        this.parallelism = parallelism;
+        this.maxMergeSourceCount = maxMergeSourceCount;
+
+        // One run is being filled while up to one run per thread is being
+        // sorted and written, so the budget is divided between all of them.
+        runSizeCandidate = memoryBudget / ESTIMATED_OBJECT_SIZE / (parallelism + 1);
+        runSize = (int) Math.max(minRunSize, Math.min(MAX_RUN_SIZE, runSizeCandidate));
+
+        // Each merge source uses two buffers, one for the file and one for
+        // decompression, so a full width merge uses a quarter of the budget.
+        bufferSize = (int) Math.max(
+                MIN_BUFFER_SIZE,
+                Math.min(MAX_BUFFER_SIZE, memoryBudget / MERGE_BUFFER_DIVISOR / maxMergeSourceCount));
+
+        addBuffer = new ArrayList<T>();
+        pendingRuns = new ArrayDeque<ForkJoinTask<SimpleObjectStore<T>>>();
+        runs = new ArrayList<SimpleObjectStore<T>>();
+    }
+
+    /**
+     * Waits for a background task to finish and returns its result.
+     */
+    private static <R> R waitFor(ForkJoinTask<R> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OsmosisRuntimeException("Unable to sort data.", e.getCause());
+        }
+    }
+
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Moves the oldest in-flight run to the completed run list once it has been
+     * written.
+     */
+    private void completeOldestRun() {
+        runs.add(waitFor(pendingRuns.removeFirst()));
+    }
+
+    /**
+     * Writes all objects provided by the iterator into a new temporary store.
+     */
+    private SimpleObjectStore<T> persist(Iterable<T> data) {
+        SimpleObjectStore<T> store =
+                new SimpleObjectStore<T>(serializationFactory, STORAGE_PREFIX, useCompression, bufferSize);
+
+        try {
+            for (T element : data) {
+                store.add(element);
+            }
+            store.complete();
+
+            SimpleObjectStore<T> result = store;
+            store = null;
+            return result;
+
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Hands the current add buffer to the pool to be sorted and written to
+     * file. This will block if the maximum number of runs are already in
+     * flight.
+     */
+    private void flushAddBuffer() {
+        final List<T> run = addBuffer;
+
+        if (run.isEmpty()) {
+            return;
+        }
+
+        // Bound the number of runs held in memory.
+        while (pendingRuns.size() >= parallelism) {
+            completeOldestRun();
+        }
+
+        pendingRuns.addLast(getPool().submit(() -> {
+            Collections.sort(run, comparator);
+
+            return persist(run);
+        }));
+
+        addBuffer = new ArrayList<T>();
+    }
+
+    /**
+     * Adds a new object to be sorted.
+     *
+     * @param value
+     *            The data object.
+     */
+    public void add(T value) {
+        addBuffer.add(value);
+
+        if (addBuffer.size() >= runSize) {
+            flushAddBuffer();
+        }
+    }
+
+    /**
+     * Merges groups of runs into larger runs until the number of runs is small
+     * enough to be merged in a single pass. Each merge holds read buffers for
+     * all of its sources, so the number of concurrent merges is limited to keep
+     * the total buffer size within the memory budget.
+     */
+    private void reduceRuns() {
+        int maxConcurrentMerges = Math.min(parallelism, MERGE_BUFFER_DIVISOR / 2);
+
+        while (runs.size() > maxMergeSourceCount) {
+            Deque<ForkJoinTask<SimpleObjectStore<T>>> mergeTasks = new ArrayDeque<ForkJoinTask<SimpleObjectStore<T>>>();
+            List<SimpleObjectStore<T>> mergedRuns = new ArrayList<SimpleObjectStore<T>>();
+            RuntimeException failure = null;
+
+            // Merge consecutive groups of runs to keep the sort stable.
+            for (int i = 0; i < runs.size() && failure == null; i += maxMergeSourceCount) {
+                final List<SimpleObjectStore<T>> group =
+                        runs.subList(i, Math.min(i + maxMergeSourceCount, runs.size()));
+
+                while (mergeTasks.size() >= maxConcurrentMerges && failure == null) {
+                    failure = collectMerge(mergeTasks.removeFirst(), mergedRuns, failure);
+                }
+
+                mergeTasks.addLast(getPool().submit(() -> {
+                    try (ReleasableIterator<T> merged = merge(group)) {
+                        return persist(() -> merged);
+                    }
+                }));
+            }
+
+            // Wait for all merges to finish, even if one fails, so that all
+            // stores can be released.
+            while (!mergeTasks.isEmpty()) {
+                failure = collectMerge(mergeTasks.removeFirst(), mergedRuns, failure);
+            }
+
+            for (SimpleObjectStore<T> run : runs) {
+                run.close();
+            }
+            runs = mergedRuns;
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Waits for a merge task to complete and adds its result to the merged run
+     * list.
+     *
+     * @return The first failure encountered so far, or null if no failure has
+     *         occurred.
+     */
+    private RuntimeException collectMerge(
+            ForkJoinTask<SimpleObjectStore<T>> mergeTask,
+            List<SimpleObjectStore<T>> mergedRuns,
+            RuntimeException failure) {
+        try {
+            mergedRuns.add(waitFor(mergeTask));
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                return e;
+            }
+        }
+
+        return failure;
+    }
+
+    /**
+     * Creates an iterator merging the contents of the specified runs.
+     */
+    private ReleasableIterator<T> merge(List<SimpleObjectStore<T>> runList) {
+        List<ReleasableIterator<T>> sources = new ArrayList<ReleasableIterator<T>>(runList.size());
+
+        try {
+            for (SimpleObjectStore<T> run : runList) {
+                sources.add(run.iterate());
+            }
+
+            ReleasableIterator<T> result = new HeapMergingIterator<T>(sources, comparator);
+            sources.clear();
+
+            return result;
+
+        } finally {
+            for (ReleasableIterator<T> source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Sorts and returns the contents of the sorter.
+     *
+     * @return An iterator providing access to the sorted entities.
+     */
+    public ReleasableIterator<T> iterate() {
+        // If nothing has been written to file, we can sort entirely in memory.
+        if (pendingRuns.isEmpty() && runs.isEmpty()) {
+            final List<T> run = addBuffer;
+            addBuffer = new ArrayList<T>();
+
+            Collections.sort(run, comparator);
+
+            return new ReleasableAdaptorForIterator<T>(run.iterator());
+        }
+
+        flushAddBuffer();
+        while (!pendingRuns.isEmpty()) {
+            completeOldestRun();
+        }
+
+        reduceRuns();
+
+        return merge(runs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            while (!pendingRuns.isEmpty()) {
+                try {
+                    runs.add(pendingRuns.removeFirst().join());
+                } catch (RuntimeException e) {
+                    // We are already closing so the run will never be used.
+                }
+            }
+
+            for (SimpleObjectStore<T> run : runs) {
+                run.close();
+            }
+            runs.clear();
+            addBuffer.clear();
+
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+                pool = null;
+            }
+        }
+    }
+}
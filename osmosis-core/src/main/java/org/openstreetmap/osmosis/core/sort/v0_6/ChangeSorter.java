@@ -5,8 +5,8 @@ import java.util.Comparator;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
-import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
-import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.sort.common.ParallelFileBasedSort;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkChangeSource;
 
@@ -17,7 +17,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.ChangeSinkChangeSource;
  * @author Brett Henderson
  */
 public class ChangeSorter implements ChangeSinkChangeSource {
-    private FileBasedSort<ChangeContainer> fileBasedSort;
+    private ParallelFileBasedSort<ChangeContainer> fileBasedSort;
     private ChangeSink changeSink;
 
     /**
@@ -27,8 +27,28 @@ public class ChangeSorter implements ChangeSinkChangeSource {
      *            The comparator to use for sorting.
      */
     public ChangeSorter(Comparator<ChangeContainer> comparator) {
-        fileBasedSort = new FileBasedSort<ChangeContainer>(
-                new SingleClassObjectSerializationFactory(ChangeContainer.class), comparator, true);
+        this(comparator, 0, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param comparator
+     *            The comparator to use for sorting.
+     * @param memoryBudget
+     *            The approximate number of bytes of heap to use for in-memory
+     *            sorting, or 0 to select a default based on the heap size.
+     * @param parallelism
+     *            The number of threads to use for sorting, or 0 to use one per
+     *            available processor.
+     */
+    public ChangeSorter(Comparator<ChangeContainer> comparator, long memoryBudget, int parallelism) {
+        fileBasedSort = new ParallelFileBasedSort<ChangeContainer>(
+                new CompactObjectSerializationFactory(ChangeContainer.class),
+                comparator,
+                true,
+                memoryBudget,
+                parallelism);
     }
 
     /**
@@ -18,6 +18,10 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.ChangeSinkChangeSourceManage
  */
 public class ChangeSorterFactory extends TaskManagerFactory {
     private static final String ARG_COMPARATOR_TYPE = "type";
+    private static final String ARG_MEMORY_BUDGET = "memoryBudget";
+    private static final String ARG_PARALLELISM = "parallelism";
+    private static final int DEFAULT_MEMORY_BUDGET = 0;
+    private static final int DEFAULT_PARALLELISM = 0;
 
     private Map<String, Comparator<ChangeContainer>> comparatorMap;
     private String defaultComparatorType;
@@ -74,12 +78,21 @@ public class ChangeSorterFactory extends TaskManagerFactory {
     @Override
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
         Comparator<ChangeContainer> comparator;
+        long memoryBudget;
+        int parallelism;
 
         // Get the comparator.
         comparator = getComparator(getStringArgument(
                 taskConfig, ARG_COMPARATOR_TYPE, getDefaultStringArgument(taskConfig, defaultComparatorType)));
 
+        // Get the sort resource arguments. The memory budget is specified in
+        // megabytes.
+        memoryBudget = getIntegerArgument(taskConfig, ARG_MEMORY_BUDGET, DEFAULT_MEMORY_BUDGET) * 1024L * 1024L;
+        parallelism = getIntegerArgument(taskConfig, ARG_PARALLELISM, DEFAULT_PARALLELISM);
+
         return new ChangeSinkChangeSourceManager(
-                taskConfig.getId(), new ChangeSorter(comparator), taskConfig.getPipeArgs());
+                taskConfig.getId(),
+                new ChangeSorter(comparator, memoryBudget, parallelism),
+                taskConfig.getPipeArgs());
     }
 }
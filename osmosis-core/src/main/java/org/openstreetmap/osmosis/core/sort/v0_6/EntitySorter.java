@@ -5,8 +5,8 @@ import java.util.Comparator;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
-import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
-import org.openstreetmap.osmosis.core.store.GenericObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.sort.common.ParallelFileBasedSort;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -17,7 +17,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * @author Brett Henderson
  */
 public class EntitySorter implements SinkSource {
-    private FileBasedSort<EntityContainer> fileBasedSort;
+    private ParallelFileBasedSort<EntityContainer> fileBasedSort;
     private Sink sink;
 
     /**
@@ -39,8 +39,27 @@ public class EntitySorter implements SinkSource {
      *            If true, the storage files will be compressed.
      */
     public EntitySorter(Comparator<EntityContainer> comparator, boolean useCompression) {
-        fileBasedSort =
-                new FileBasedSort<EntityContainer>(new GenericObjectSerializationFactory(), comparator, useCompression);
+        this(comparator, useCompression, 0, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param comparator
+     *            The comparator to use for sorting.
+     * @param useCompression
+     *            If true, the storage files will be compressed.
+     * @param memoryBudget
+     *            The approximate number of bytes of heap to use for in-memory
+     *            sorting, or 0 to select a default based on the heap size.
+     * @param parallelism
+     *            The number of threads to use for sorting, or 0 to use one per
+     *            available processor.
+     */
+    public EntitySorter(
+            Comparator<EntityContainer> comparator, boolean useCompression, long memoryBudget, int parallelism) {
+        fileBasedSort = new ParallelFileBasedSort<EntityContainer>(
+                new CompactObjectSerializationFactory(), comparator, useCompression, memoryBudget, parallelism);
     }
 
     /**
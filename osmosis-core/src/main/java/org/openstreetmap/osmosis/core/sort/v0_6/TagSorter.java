@@ -9,6 +9,7 @@ import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -18,7 +19,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  *
  * @author Brett Henderson
  */
-public class TagSorter implements SinkSource {
+public class TagSorter implements SinkSource, StatelessTask {
     private Sink sink;
 
     /**
@@ -0,0 +1,49 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+/**
+ * Provides functionality to deserialise a Storeable implementation from a
+ * store written by a {@link CompactObjectWriter}.
+ */
+public class CompactObjectReader extends BaseObjectReader {
+
+    private CompactStoreReader compactStoreReader;
+    private Class<?> storeableType;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param storeReader
+     *            The compact store reader to read all serialised data from.
+     * @param storeClassRegister
+     *            The register for class to identifier mappings.
+     * @param storeableType
+     *            The only class type to be supported, or null if any class may
+     *            be read.
+     */
+    protected CompactObjectReader(
+            CompactStoreReader storeReader, StoreClassRegister storeClassRegister, Class<?> storeableType) {
+        super(storeReader, storeClassRegister);
+
+        this.compactStoreReader = storeReader;
+        this.storeableType = storeableType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Class<?> readClassFromIdentifier(StoreReader sr, StoreClassRegister scr) {
+        Class<?> clazz;
+
+        if (storeableType == null) {
+            clazz = scr.getClassFromIdentifier(sr);
+        } else {
+            clazz = storeableType;
+        }
+
+        compactStoreReader.beginObject(clazz);
+
+        return clazz;
+    }
+}
@@ -0,0 +1,51 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+/**
+ * An object reader and writer factory storing objects in a compact variable
+ * length encoding with delta encoded numbers and repeated strings replaced by
+ * references. This typically reduces temporary files to a fraction of the size
+ * produced by the other factories and makes them cheaper to compress.
+ * <p>
+ * The encoding is stateful so it may only be used with stores that read each
+ * stream sequentially from the point it was written, such as
+ * {@link SimpleObjectStore}, {@link ChunkedObjectStore} and the file based
+ * sorts. It is not suitable for random access stores.
+ */
+public class CompactObjectSerializationFactory implements ObjectSerializationFactory {
+
+    private Class<?> storeableType;
+
+    /**
+     * Creates a new instance supporting any Storeable class.
+     */
+    public CompactObjectSerializationFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance supporting a single class type.
+     *
+     * @param storeableType
+     *            The class type to be supported, or null to support any class.
+     */
+    public CompactObjectSerializationFactory(Class<?> storeableType) {
+        this.storeableType = storeableType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ObjectReader createObjectReader(StoreReader storeReader, StoreClassRegister storeClassRegister) {
+        return new CompactObjectReader(new CompactStoreReader(storeReader), storeClassRegister, storeableType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ObjectWriter createObjectWriter(StoreWriter storeWriter, StoreClassRegister storeClassRegister) {
+        return new CompactObjectWriter(new CompactStoreWriter(storeWriter), storeClassRegister, storeableType);
+    }
+}
@@ -0,0 +1,49 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Provides functionality to serialise a Storeable implementation to a store
+ * using the compact encoding of a {@link CompactStoreWriter}.
+ */
+public class CompactObjectWriter extends BaseObjectWriter {
+
+    private CompactStoreWriter compactStoreWriter;
+    private Class<?> storeableType;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param storeWriter
+     *            The compact store writer to write all serialised data to.
+     * @param storeClassRegister
+     *            The register for class to identifier mappings.
+     * @param storeableType
+     *            The only class type to be supported, or null if any class may
+     *            be written.
+     */
+    protected CompactObjectWriter(
+            CompactStoreWriter storeWriter, StoreClassRegister storeClassRegister, Class<?> storeableType) {
+        super(storeWriter, storeClassRegister);
+
+        this.compactStoreWriter = storeWriter;
+        this.storeableType = storeableType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeClassIdentifier(StoreWriter sw, StoreClassRegister scr, Class<?> clazz) {
+        // The class only needs to be written if multiple classes are supported.
+        if (storeableType == null) {
+            scr.storeIdentifierForClass(sw, clazz);
+        } else if (!storeableType.equals(clazz)) {
+            throw new OsmosisRuntimeException(
+                    "Received class " + clazz.getName() + ", expected class " + storeableType.getName() + ".");
+        }
+
+        compactStoreWriter.beginObject(clazz);
+    }
+}
@@ -0,0 +1,170 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.store.CompactStoreWriter.FieldHistory;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+/**
+ * A store reader decoding data written by a {@link CompactStoreWriter} on top
+ * of another store reader. The data must be read sequentially from the start
+ * of the stream it was written to.
+ */
+public class CompactStoreReader implements StoreReader {
+
+    private StoreReader input;
+    private String[] stringTable;
+    private Map<Class<?>, FieldHistory> classHistories;
+    private FieldHistory history;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param input
+     *            The store reader to read the encoded data from.
+     */
+    public CompactStoreReader(StoreReader input) {
+        this.input = input;
+
+        stringTable = new String[CompactStoreWriter.STRING_TABLE_SIZE];
+        classHistories = new HashMap<Class<?>, FieldHistory>();
+        history = new FieldHistory();
+    }
+
+    /**
+     * Indicates that an object of the specified class is about to be read.
+     * This must mirror the calls made to the writer.
+     *
+     * @param clazz
+     *            The class of the object.
+     */
+    public void beginObject(Class<?> clazz) {
+        history = CompactStoreWriter.getHistory(classHistories, clazz);
+    }
+
+    private long readVarLong() {
+        long result = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte value = input.readByte();
+
+            result |= (long) (value & 0x7F) << shift;
+            if (value >= 0) {
+                return result;
+            }
+        }
+
+        throw new OsmosisRuntimeException("Variable length value in the store is too long.");
+    }
+
+    private long readSignedVarLong() {
+        long value = readVarLong();
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean readBoolean() {
+        return input.readBoolean();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte readByte() {
+        return input.readByte();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public char readCharacter() {
+        return (char) readVarLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readInteger() {
+        int field = history.nextIntegerField();
+        int value;
+
+        value = (int) (history.getInteger(field) + readSignedVarLong());
+        history.setInteger(field, value);
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long readLong() {
+        int field = history.nextLongField();
+        long value;
+
+        value = history.getLong(field) + readSignedVarLong();
+        history.setLong(field, value);
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double readDouble() {
+        int field = history.nextDoubleField();
+        long encoded;
+        long delta;
+        int fixedValue;
+
+        encoded = readVarLong();
+        if ((encoded & 1) != 0) {
+            return input.readDouble();
+        }
+
+        delta = ((encoded >>> 1) >>> 1) ^ -((encoded >>> 1) & 1);
+        fixedValue = (int) (history.getDouble(field) + delta);
+        history.setDouble(field, fixedValue);
+
+        return FixedPrecisionCoordinateConvertor.convertToDouble(fixedValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String readString() {
+        int reference;
+        char[] characters;
+        String value;
+
+        reference = (int) readVarLong();
+        if (reference > 0) {
+            value = stringTable[reference - 1];
+            if (value == null) {
+                throw new OsmosisRuntimeException("String reference " + reference + " in the store is not defined.");
+            }
+
+            return value;
+        }
+
+        characters = new char[(int) readVarLong()];
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = (char) readVarLong();
+        }
+        value = new String(characters);
+        stringTable[CompactStoreWriter.getStringSlot(value)] = value;
+
+        return value;
+    }
+}
@@ -0,0 +1,276 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+/**
+ * A store writer producing a compact variable length encoding on top of another
+ * store writer. It must be paired with a {@link CompactStoreReader}.
+ * <p>
+ * Integers and longs are delta encoded against the value written at the same
+ * position of the previous object of the same class, then written as zig-zag
+ * variable length values. Sorted identifiers, coordinates, timestamps and
+ * changeset identifiers typically shrink to one or two bytes. Doubles holding
+ * fixed precision coordinates are encoded the same way. Strings are written
+ * in full the first time they are seen and as a reference into a small table
+ * of recently written strings afterwards, which suits repetitive tag keys,
+ * tag values and user names.
+ * <p>
+ * The encoding is stateful so the data must be read back sequentially from the
+ * start of the stream it was written to.
+ */
+public class CompactStoreWriter implements StoreWriter {
+
+    /**
+     * The number of strings retained for back references. It must be a power
+     * of two.
+     */
+    static final int STRING_TABLE_SIZE = 4096;
+
+    /**
+     * The number of value positions tracked per class. Values beyond this
+     * position are delta encoded against the previous value within the object.
+     */
+    static final int MAX_FIELD_COUNT = 16;
+
+    private StoreWriter output;
+    private String[] stringTable;
+    private Map<Class<?>, FieldHistory> classHistories;
+    private FieldHistory history;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param output
+     *            The store writer to write the encoded data to.
+     */
+    public CompactStoreWriter(StoreWriter output) {
+        this.output = output;
+
+        stringTable = new String[STRING_TABLE_SIZE];
+        classHistories = new HashMap<Class<?>, FieldHistory>();
+        history = new FieldHistory();
+    }
+
+    /**
+     * Indicates that an object of the specified class is about to be written.
+     * Subsequent values are delta encoded against the previous object of the
+     * same class.
+     *
+     * @param clazz
+     *            The class of the object.
+     */
+    public void beginObject(Class<?> clazz) {
+        history = getHistory(classHistories, clazz);
+    }
+
+    /**
+     * Returns the field history for a class, creating it if necessary.
+     *
+     * @param histories
+     *            The existing histories.
+     * @param clazz
+     *            The class of the object.
+     * @return The history of the class ready for a new object.
+     */
+    static FieldHistory getHistory(Map<Class<?>, FieldHistory> histories, Class<?> clazz) {
+        FieldHistory result;
+
+        result = histories.get(clazz);
+        if (result == null) {
+            result = new FieldHistory();
+            histories.put(clazz, result);
+        }
+        result.reset();
+
+        return result;
+    }
+
+    /**
+     * Returns the string table slot used for the specified string.
+     *
+     * @param value
+     *            The string.
+     * @return The slot index.
+     */
+    static int getStringSlot(String value) {
+        int hash = value.hashCode();
+
+        return (hash ^ (hash >>> 16)) & (STRING_TABLE_SIZE - 1);
+    }
+
+    private void writeVarLong(long value) {
+        long remaining = value;
+
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        output.writeByte((byte) remaining);
+    }
+
+    private void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeBoolean(boolean value) {
+        output.writeBoolean(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeByte(byte value) {
+        output.writeByte(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeCharacter(char value) {
+        writeVarLong(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeInteger(int value) {
+        int field = history.nextIntegerField();
+
+        writeSignedVarLong(value - history.getInteger(field));
+        history.setInteger(field, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeLong(long value) {
+        int field = history.nextLongField();
+
+        writeSignedVarLong(value - history.getLong(field));
+        history.setLong(field, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeDouble(double value) {
+        int field = history.nextDoubleField();
+        int fixedValue;
+
+        // Values that survive a round trip through the fixed precision
+        // coordinate representation are delta encoded with the low bit clear,
+        // anything else is flagged and written in full.
+        fixedValue = FixedPrecisionCoordinateConvertor.convertToFixed(value);
+        if (Double.doubleToRawLongBits(FixedPrecisionCoordinateConvertor.convertToDouble(fixedValue))
+                == Double.doubleToRawLongBits(value)) {
+            long delta = (long) fixedValue - history.getDouble(field);
+
+            writeVarLong(((delta << 1) ^ (delta >> 63)) << 1);
+            history.setDouble(field, fixedValue);
+        } else {
+            writeVarLong(1);
+            output.writeDouble(value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeString(String value) {
+        int slot = getStringSlot(value);
+
+        if (value.equals(stringTable[slot])) {
+            writeVarLong(slot + 1);
+        } else {
+            writeVarLong(0);
+            writeVarLong(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                writeVarLong(value.charAt(i));
+            }
+            stringTable[slot] = value;
+        }
+    }
+
+    /**
+     * Tracks the values most recently written to each position of a class.
+     */
+    static class FieldHistory {
+        private int[] integers;
+        private long[] longs;
+        private int[] doubles;
+        private int integerCount;
+        private int longCount;
+        private int doubleCount;
+
+        /**
+         * Creates a new instance.
+         */
+        FieldHistory() {
+            integers = new int[MAX_FIELD_COUNT];
+            longs = new long[MAX_FIELD_COUNT];
+            doubles = new int[MAX_FIELD_COUNT];
+        }
+
+        /**
+         * Prepares for the values of a new object.
+         */
+        void reset() {
+            integerCount = 0;
+            longCount = 0;
+            doubleCount = 0;
+        }
+
+        private static int nextField(int count) {
+            return count < MAX_FIELD_COUNT ? count : MAX_FIELD_COUNT - 1;
+        }
+
+        int nextIntegerField() {
+            return nextField(integerCount++);
+        }
+
+        int nextLongField() {
+            return nextField(longCount++);
+        }
+
+        int nextDoubleField() {
+            return nextField(doubleCount++);
+        }
+
+        int getInteger(int field) {
+            return integers[field];
+        }
+
+        void setInteger(int field, int value) {
+            integers[field] = value;
+        }
+
+        long getLong(int field) {
+            return longs[field];
+        }
+
+        void setLong(int field, long value) {
+            longs[field] = value;
+        }
+
+        int getDouble(int field) {
+            return doubles[field];
+        }
+
+        void setDouble(int field, int value) {
+            doubles[field] = value;
+        }
+    }
+}
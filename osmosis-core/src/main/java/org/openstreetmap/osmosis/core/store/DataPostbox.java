@@ -10,7 +10,8 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
-import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
+import org.openstreetmap.osmosis.core.metrics.PostboxWait;
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
 
 /**
  * <p>
@@ -76,7 +77,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
  * @param <T>
  *            The type of data held in the postbox.
  */
-public class DataPostbox<T> implements Initializable {
+public class DataPostbox<T> implements Postbox<T> {
     private int bufferCapacity;
     private int chunkSize;
     private Lock lock;
@@ -204,11 +205,21 @@ public class DataPostbox<T> implements Initializable {
             checkForOutputErrors();
 
             // Wait until the currently posted data is cleared.
-            while (centralQueue.size() >= bufferCapacity) {
-                waitForUpdate();
-                checkForOutputErrors();
+            if (centralQueue.size() >= bufferCapacity) {
+                PostboxWait wait = PostboxWait.beginPut();
+
+                try {
+                    while (centralQueue.size() >= bufferCapacity) {
+                        waitForUpdate();
+                        checkForOutputErrors();
+                    }
+                } finally {
+                    wait.end();
+                }
             }
 
+            TaskMetrics.recordBufferOccupancy(centralQueue.size(), bufferCapacity);
+
             // Post the new data.
             centralQueue.addAll(inboundQueue);
             inboundQueue.clear();
@@ -229,9 +240,17 @@ public class DataPostbox<T> implements Initializable {
             checkForInputErrors();
 
             // Wait until data is available.
-            while (!((centralQueue.size() > 0) || inputComplete)) {
-                waitForUpdate();
-                checkForInputErrors();
+            if (!((centralQueue.size() > 0) || inputComplete)) {
+                PostboxWait wait = PostboxWait.beginGet();
+
+                try {
+                    while (!((centralQueue.size() > 0) || inputComplete)) {
+                        waitForUpdate();
+                        checkForInputErrors();
+                    }
+                } finally {
+                    wait.end();
+                }
             }
 
             outboundQueue.addAll(centralQueue);
@@ -282,6 +301,7 @@ public class DataPostbox<T> implements Initializable {
      * @param o
      *            The object to be added.
      */
+    @Override
     public void put(T o) {
         if (!inputInitialized) {
             throw new OsmosisRuntimeException("initialize has not been called");
@@ -378,6 +398,7 @@ public class DataPostbox<T> implements Initializable {
      *
      * @return The initialization data.
      */
+    @Override
     public Map<String, Object> outputInitialize() {
         if (outputInitialized) {
             throw new OsmosisRuntimeException("outputInitialize has already been called");
@@ -412,6 +433,7 @@ public class DataPostbox<T> implements Initializable {
      *
      * @return True if data is available.
      */
+    @Override
     public boolean hasNext() {
         int queueSize;
 
@@ -435,6 +457,7 @@ public class DataPostbox<T> implements Initializable {
      *
      * @return The next available object.
      */
+    @Override
     public T getNext() {
         if (hasNext()) {
             T result;
@@ -453,6 +476,7 @@ public class DataPostbox<T> implements Initializable {
      * until either the input thread has called complete, or an input error
      * occurs.
      */
+    @Override
     public void outputComplete() {
         if (!outputInitialized) {
             throw new OsmosisRuntimeException("outputInitialize has not been called");
@@ -482,6 +506,7 @@ public class DataPostbox<T> implements Initializable {
      * Notifies that the output thread has released. This will block until the
      * input thread has also released and the object has been reset.
      */
+    @Override
     public void outputRelease() {
         lock.lock();
 
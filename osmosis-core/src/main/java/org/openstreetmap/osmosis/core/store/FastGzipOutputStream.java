@@ -0,0 +1,32 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A GZIP output stream using the fastest compression level. Temporary files
+ * are written and read once so compression speed matters far more than the
+ * last few percent of size, and the output remains readable by a standard
+ * GZIP input stream.
+ */
+class FastGzipOutputStream extends GZIPOutputStream {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param out
+     *            The stream to write compressed data to.
+     * @param size
+     *            The output buffer size.
+     * @throws IOException
+     *             if the header cannot be written.
+     */
+    FastGzipOutputStream(OutputStream out, int size) throws IOException {
+        super(out, size);
+
+        def.setLevel(Deflater.BEST_SPEED);
+    }
+}
@@ -7,7 +7,7 @@ import java.util.Iterator;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Completable;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
-import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
+import org.openstreetmap.osmosis.core.sort.common.ParallelFileBasedSort;
 
 /**
  * Writes data into an index file and sorts it if input data is unordered. The
@@ -21,6 +21,7 @@ import org.openstreetmap.osmosis.core.sort.common.FileBasedSort;
  */
 public class IndexStore<K, T extends IndexElement<K>> implements Completable {
 
+    private Class<T> elementType;
     private ObjectSerializationFactory serializationFactory;
     private RandomAccessObjectStore<T> indexStore;
     private Comparator<K> ordering;
@@ -44,6 +45,7 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
      *            The file to use for storing the index.
      */
     public IndexStore(Class<T> elementType, Comparator<K> ordering, File indexFile) {
+        this.elementType = elementType;
         this.ordering = ordering;
         this.indexFile = indexFile;
 
@@ -70,6 +72,7 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
      *            The prefix of the temporary file.
      */
     public IndexStore(Class<T> elementType, Comparator<K> ordering, String tempFilePrefix) {
+        this.elementType = elementType;
         this.ordering = ordering;
         this.tempFilePrefix = tempFilePrefix;
 
@@ -139,7 +142,14 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
      *
      * @return A store reader.
      */
+    @SuppressWarnings("unchecked")
     public IndexStoreReader<K, T> createReader() {
+        // Long indexes in natural order have a fixed layout that can be mapped
+        // and searched directly.
+        if (LongLongIndexElement.class.equals(elementType) && ordering instanceof ComparableComparator) {
+            return (IndexStoreReader<K, T>) new MappedLongIndexStoreReader(indexStore.getStorageFile());
+        }
+
         return new IndexStoreReader<K, T>(indexStore.createReader(), ordering);
     }
 
@@ -155,7 +165,7 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
 
                 // Create a new file based sort instance ordering elements by their
                 // identifiers.
-                try (FileBasedSort<T> fileSort = new FileBasedSort<T>(
+                try (ParallelFileBasedSort<T> fileSort = new ParallelFileBasedSort<T>(
                         serializationFactory,
                         new Comparator<T>() {
                             private Comparator<K> elementKeyOrdering = keyOrdering;
@@ -191,6 +201,7 @@ public class IndexStore<K, T extends IndexElement<K>> implements Completable {
                             indexStore.add(sortIterator.next());
                         }
                     }
+                    indexStore.complete();
                 }
             }
 
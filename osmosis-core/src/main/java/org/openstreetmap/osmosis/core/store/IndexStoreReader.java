@@ -46,6 +46,18 @@ public class IndexStoreReader<K, T extends IndexElement<K>> implements Closeable
         elementDetailsInitialized = false;
     }
 
+    /**
+     * Creates a new instance for sub-classes providing their own access to the
+     * index data. Sub-classes must override all data access methods.
+     *
+     * @param ordering
+     *            A comparator that sorts index elements desired index key
+     *            ordering.
+     */
+    protected IndexStoreReader(Comparator<K> ordering) {
+        this(null, ordering);
+    }
+
     /**
      * Initialises the element count and element size required for performing
      * binary searches within the index.
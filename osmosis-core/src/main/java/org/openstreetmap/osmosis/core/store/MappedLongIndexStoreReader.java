@@ -0,0 +1,240 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Provides read-only access to a long keyed index store by memory mapping the
+ * index file. The index file contains fixed width records each holding a key
+ * and value as big-endian longs, which is exactly the layout written by an
+ * {@link IndexStore} of {@link LongLongIndexElement} objects.
+ * <p>
+ * Keys are located by interpolation search directly on the mapped data. OSM
+ * ids are dense and increasing so the first estimate is usually exact and a
+ * lookup touches only a couple of records regardless of index size. Searches
+ * fall back to binary search if the keys are unevenly distributed. No objects
+ * are created while searching.
+ */
+public class MappedLongIndexStoreReader extends IndexStoreReader<Long, LongLongIndexElement> {
+
+    /**
+     * The number of bytes occupied by each index element.
+     */
+    static final int ELEMENT_SIZE = 16;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    // Interpolation gives no benefit on small intervals, and is abandoned after
+    // this many steps to bound the cost of badly distributed keys.
+    private static final long MIN_INTERPOLATION_INTERVAL = 8;
+    private static final int MAX_INTERPOLATION_STEPS = 4;
+
+    private MappedByteBuffer[] segments;
+    private long elementCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param indexFile
+     *            The index file to be read.
+     */
+    public MappedLongIndexStoreReader(File indexFile) {
+        super(new ComparableComparator<Long>());
+
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            long fileLength;
+
+            fileLength = channel.size();
+            if (fileLength % ELEMENT_SIZE != 0) {
+                throw new OsmosisRuntimeException("Index file " + indexFile + " has length " + fileLength
+                        + " which is not a multiple of the element size " + ELEMENT_SIZE + ".");
+            }
+            elementCount = fileLength / ELEMENT_SIZE;
+
+            // The segment size is a multiple of the element size so elements
+            // never span segments. The mappings remain valid after the channel
+            // is closed.
+            segments = new MappedByteBuffer[(int) ((fileLength + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long segmentOffset = i * SEGMENT_SIZE;
+
+                segments[i] = channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        segmentOffset,
+                        Math.min(SEGMENT_SIZE, fileLength - segmentOffset));
+            }
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to map index file " + indexFile + ".", e);
+        }
+    }
+
+    private long getElementKey(long elementIndex) {
+        long offset = elementIndex * ELEMENT_SIZE;
+
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_OFFSET_MASK));
+    }
+
+    private long getElementValue(long elementIndex) {
+        long offset = elementIndex * ELEMENT_SIZE + 8;
+
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_OFFSET_MASK));
+    }
+
+    /**
+     * Returns the index of the first index element with a key greater than or
+     * equal to the specified key.
+     *
+     * @param searchKey
+     *            The key to search for.
+     * @return The matching index, or the element count if all keys are lower.
+     */
+    private long getKeyIndex(long searchKey) {
+        long intervalBegin;
+        long intervalEnd;
+        int interpolationSteps;
+
+        // All elements before the interval are lower than the search key, and
+        // all elements from the end of the interval onwards are not.
+        intervalBegin = 0;
+        intervalEnd = elementCount;
+        interpolationSteps = 0;
+        while (intervalBegin < intervalEnd) {
+            long probe;
+
+            if (interpolationSteps < MAX_INTERPOLATION_STEPS
+                    && intervalEnd - intervalBegin >= MIN_INTERPOLATION_INTERVAL) {
+                long beginKey;
+                long lastKey;
+
+                beginKey = getElementKey(intervalBegin);
+                if (beginKey >= searchKey) {
+                    return intervalBegin;
+                }
+                lastKey = getElementKey(intervalEnd - 1);
+                if (lastKey < searchKey) {
+                    return intervalEnd;
+                }
+
+                // Estimate the position assuming keys are evenly distributed
+                // between the first and last keys of the interval. Doubles are
+                // used to avoid overflow on widely separated keys.
+                probe = intervalBegin
+                        + (long) (((double) searchKey - beginKey)
+                                / ((double) lastKey - beginKey)
+                                * (intervalEnd - 1 - intervalBegin));
+                probe = Math.max(intervalBegin + 1, Math.min(intervalEnd - 1, probe));
+
+                interpolationSteps++;
+            } else {
+                probe = (intervalBegin + intervalEnd) >>> 1;
+            }
+
+            if (getElementKey(probe) < searchKey) {
+                intervalBegin = probe + 1;
+            } else {
+                intervalEnd = probe;
+            }
+        }
+
+        return intervalEnd;
+    }
+
+    /**
+     * Returns the value of the index element identified by key.
+     *
+     * @param key
+     *            The identifier for the index element to be retrieved.
+     * @return The value of the index element.
+     */
+    public long getValue(long key) {
+        long keyIndex;
+
+        keyIndex = getKeyIndex(key);
+
+        if (keyIndex < elementCount && getElementKey(keyIndex) == key) {
+            return getElementValue(keyIndex);
+        }
+
+        throw new NoSuchIndexElementException("Requested key " + key + " does not exist.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LongLongIndexElement get(Long key) {
+        return new LongLongIndexElement(key, getValue(key.longValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<LongLongIndexElement> getRange(Long beginKey, Long endKey) {
+        return new IndexRangeIterator<Long, LongLongIndexElement>(
+                new ElementIterator(getKeyIndex(beginKey)), beginKey, endKey, new ComparableComparator<Long>());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Mapped buffers are released when they are garbage collected.
+        segments = new MappedByteBuffer[0];
+        elementCount = 0;
+    }
+
+    /**
+     * Iterates over the index elements from a starting position to the end of
+     * the index.
+     */
+    private class ElementIterator implements Iterator<LongLongIndexElement> {
+        private long elementIndex;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param elementIndex
+         *            The index of the first element to be returned.
+         */
+        ElementIterator(long elementIndex) {
+            this.elementIndex = elementIndex;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return elementIndex < elementCount;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public LongLongIndexElement next() {
+            LongLongIndexElement element;
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            element = new LongLongIndexElement(getElementKey(elementIndex), getElementValue(elementIndex));
+            elementIndex++;
+
+            return element;
+        }
+    }
+}
@@ -186,6 +186,22 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
         }
     }
 
+    /**
+     * Returns the file containing the store data. This allows specialised
+     * readers to access the data directly.
+     *
+     * @return The storage file.
+     */
+    File getStorageFile() {
+        initializeReadingStage();
+
+        if (storageFile == null) {
+            throw new OsmosisRuntimeException("No storage file exists, complete must be called first.");
+        }
+
+        return storageFile;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -226,8 +242,11 @@ public class RandomAccessObjectStore<T extends Storeable> implements Completable
 
         if (tempFile != null) {
             if (!tempFile.delete()) {
-                // We cannot throw an exception within a release statement.
+                // We cannot throw an exception within a release statement. The
+                // file may still be mapped by a reader on some platforms so try
+                // again when the JVM exits.
                 LOG.warning("Unable to delete file " + tempFile);
+                tempFile.deleteOnExit();
             }
             tempFile = null;
         }
@@ -0,0 +1,517 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.metrics.PostboxWait;
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
+
+/**
+ * <p>
+ * A {@link Postbox} implementation passing data between a single input thread
+ * and a single output thread through a fixed size ring buffer. Unlike
+ * {@link DataPostbox}, no lock is acquired while data is flowing. The input
+ * thread writes directly into ring slots and publishes its write position in
+ * batches, and the output thread reads directly from ring slots and publishes
+ * its read position in batches. When either thread must wait for the other it
+ * does so using the configured {@link WaitStrategy}.
+ * </p>
+ * <p>
+ * The lifecycle methods (initialize, complete, close and their output
+ * equivalents) follow exactly the same calling sequence, blocking behaviour and
+ * error propagation as {@link DataPostbox}. Because they are only called a
+ * handful of times per pipeline run they still synchronise using a lock.
+ * </p>
+ *
+ * @param <T>
+ *            The type of data held in the postbox.
+ */
+public class RingBufferPostbox<T> implements Postbox<T> {
+    private WaitStrategy waitStrategy;
+    private int bufferCapacity;
+    private int mask;
+    private int batchSize;
+    private Object[] ring;
+    private Lock lock;
+    private Condition lifecycleCondition;
+    private Map<String, Object> processingMetaData;
+
+    // Positions shared between threads. Each is only ever written by a single
+    // thread.
+    private AtomicLong publishedWritePosition;
+    private AtomicLong publishedReadPosition;
+
+    // Input thread local state.
+    private long writePosition;
+    private long cachedReadPosition;
+
+    // Output thread local state.
+    private long readPosition;
+    private long cachedWritePosition;
+
+    private boolean inputInitialized;
+    private boolean outputInitialized;
+    private volatile boolean inputComplete;
+    private boolean outputComplete;
+    private boolean inputReleased;
+    private boolean outputReleased;
+    private boolean inputExit;
+    private boolean outputExit;
+    private volatile boolean inputOkay;
+    private volatile boolean outputOkay;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity
+     *            The maximum number of objects to hold in the postbox before
+     *            blocking. This will be rounded up to the next power of two.
+     * @param waitStrategy
+     *            The strategy used by a thread when it must wait for the other
+     *            thread.
+     */
+    public RingBufferPostbox(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new OsmosisRuntimeException("A capacity of " + capacity + " is invalid, must be greater than 0.");
+        }
+        if (capacity > (1 << 30)) {
+            throw new OsmosisRuntimeException("A capacity of " + capacity + " is invalid, must be at most 2^30.");
+        }
+
+        this.waitStrategy = waitStrategy;
+
+        // A power of two capacity allows slot indexes to be calculated with a
+        // mask instead of a modulus.
+        bufferCapacity = Integer.highestOneBit(capacity);
+        if (bufferCapacity < capacity) {
+            bufferCapacity <<= 1;
+        }
+        mask = bufferCapacity - 1;
+
+        // Publish positions in batches of one quarter of the buffer size to
+        // match the chunking behaviour of DataPostbox.
+        batchSize = bufferCapacity / 4;
+        if (batchSize <= 0) {
+            batchSize = 1;
+        }
+
+        lock = new ReentrantLock();
+        lifecycleCondition = lock.newCondition();
+
+        inputInitialized = false;
+        outputInitialized = false;
+        inputComplete = false;
+        outputComplete = false;
+        inputReleased = false;
+        outputReleased = false;
+        inputExit = true;
+        outputExit = true;
+        inputOkay = true;
+        outputOkay = true;
+
+        publishedWritePosition = new AtomicLong();
+        publishedReadPosition = new AtomicLong();
+
+        initializeRing();
+    }
+
+    private void initializeRing() {
+        ring = new Object[bufferCapacity];
+        writePosition = 0;
+        cachedReadPosition = 0;
+        readPosition = 0;
+        cachedWritePosition = 0;
+        publishedWritePosition.set(0);
+        publishedReadPosition.set(0);
+    }
+
+    /**
+     * This is called by the input thread to validate that no errors have
+     * occurred on the output thread.
+     */
+    private void checkForOutputErrors() {
+        if (!outputOkay) {
+            throw new OsmosisRuntimeException("An output error has occurred, aborting.");
+        }
+    }
+
+    /**
+     * This is called by the output thread to validate that no errors have
+     * occurred on the input thread.
+     */
+    private void checkForInputErrors() {
+        if (!inputOkay) {
+            throw new OsmosisRuntimeException("An input error has occurred, aborting.");
+        }
+    }
+
+    /**
+     * Either thread can call this method while holding the lock when they wish
+     * to wait until a lifecycle update has been performed by the other thread.
+     */
+    private void waitForUpdate() {
+        try {
+            lifecycleCondition.await();
+
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        }
+    }
+
+    /**
+     * Either thread can call this method while holding the lock when they wish
+     * to signal the other thread that a lifecycle update has occurred.
+     */
+    private void signalUpdate() {
+        lifecycleCondition.signal();
+    }
+
+    /**
+     * Makes all objects written so far visible to the output thread.
+     */
+    private void publishWrites() {
+        publishedWritePosition.lazySet(writePosition);
+    }
+
+    /**
+     * Makes all slots read so far available to the input thread.
+     */
+    private void publishReads() {
+        publishedReadPosition.lazySet(readPosition);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Map<String, Object> metaData) {
+        if (inputInitialized) {
+            throw new OsmosisRuntimeException("initialize has already been called");
+        }
+
+        lock.lock();
+
+        try {
+            checkForOutputErrors();
+
+            processingMetaData = metaData;
+            inputInitialized = true;
+
+            signalUpdate();
+
+            // Now we must wait until the output thread initializes or
+            // encounters an error.
+            while (!outputInitialized) {
+                waitForUpdate();
+                checkForOutputErrors();
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(T o) {
+        if (!inputInitialized) {
+            throw new OsmosisRuntimeException("initialize has not been called");
+        }
+
+        // Wait for a free slot if the ring is full.
+        if (writePosition - cachedReadPosition >= bufferCapacity) {
+            cachedReadPosition = publishedReadPosition.get();
+
+            if (writePosition - cachedReadPosition >= bufferCapacity) {
+                // Make sure the output thread can see everything we've written
+                // before we wait on it.
+                publishWrites();
+
+                PostboxWait wait = PostboxWait.beginPut();
+                try {
+                    do {
+                        checkForOutputErrors();
+                        waitStrategy.idle();
+                        cachedReadPosition = publishedReadPosition.get();
+                    } while (writePosition - cachedReadPosition >= bufferCapacity);
+                } finally {
+                    wait.end();
+                }
+            }
+        }
+
+        ring[(int) writePosition & mask] = o;
+        writePosition++;
+
+        if (writePosition - publishedWritePosition.get() >= batchSize) {
+            checkForOutputErrors();
+            publishWrites();
+            TaskMetrics.recordBufferOccupancy(writePosition - publishedReadPosition.get(), bufferCapacity);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        if (!inputInitialized) {
+            throw new OsmosisRuntimeException("initialize has not been called");
+        }
+
+        lock.lock();
+
+        try {
+            checkForOutputErrors();
+
+            // The final write position must be visible before the complete flag.
+            publishWrites();
+            inputComplete = true;
+
+            signalUpdate();
+
+            // Now we must wait until the output thread completes or
+            // encounters an error.
+            while (!outputComplete) {
+                waitForUpdate();
+                checkForOutputErrors();
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method conforms to the
+     * {@link org.openstreetmap.osmosis.core.lifecycle.Closeable} contract,
+     * however there are limitations around calling it multiple times. Each call
+     * to this method must be matched by a call to the outputRelease method in a
+     * separate thread or deadlock will occur.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            // If release is being called without having completed successfully,
+            // it is an error condition.
+            if (!inputComplete) {
+                inputOkay = false;
+            }
+
+            inputReleased = true;
+            inputExit = false;
+            signalUpdate();
+
+            // Wait until the output thread releases.
+            while (!outputReleased) {
+                waitForUpdate();
+            }
+
+            // At this point both threads have reached a release state so we can
+            // reset our state. The output thread is blocked on the lock so it
+            // is safe to reset its local state here.
+            initializeRing();
+            inputInitialized = false;
+            inputComplete = false;
+            inputReleased = false;
+            inputExit = true;
+            inputOkay = true;
+            signalUpdate();
+
+            // Wait for the output thread to exit.
+            while (!outputExit) {
+                waitForUpdate();
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> outputInitialize() {
+        if (outputInitialized) {
+            throw new OsmosisRuntimeException("outputInitialize has already been called");
+        }
+
+        lock.lock();
+
+        try {
+            checkForInputErrors();
+
+            // We must wait until the input thread initializes or
+            // encounters an error.
+            while (!inputInitialized) {
+                waitForUpdate();
+                checkForInputErrors();
+            }
+
+            outputInitialized = true;
+            signalUpdate();
+
+            return processingMetaData;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (!outputInitialized) {
+            throw new OsmosisRuntimeException("outputInitialize has not been called");
+        }
+
+        if (readPosition < cachedWritePosition) {
+            return true;
+        }
+
+        // We've consumed everything we know about so release the slots back to
+        // the input thread before looking for more.
+        publishReads();
+
+        cachedWritePosition = publishedWritePosition.get();
+        if (readPosition < cachedWritePosition) {
+            return true;
+        }
+
+        PostboxWait wait = PostboxWait.beginGet();
+        try {
+            while (readPosition >= cachedWritePosition) {
+                checkForInputErrors();
+
+                if (inputComplete) {
+                    // The write position is published prior to the complete
+                    // flag being set so a final check will pick up any
+                    // remaining data.
+                    cachedWritePosition = publishedWritePosition.get();
+
+                    return readPosition < cachedWritePosition;
+                }
+
+                waitStrategy.idle();
+                cachedWritePosition = publishedWritePosition.get();
+            }
+        } finally {
+            wait.end();
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getNext() {
+        if (hasNext()) {
+            int index = (int) readPosition & mask;
+
+            @SuppressWarnings("unchecked")
+            T result = (T) ring[index];
+
+            // Clear the slot so that the object can be garbage collected.
+            ring[index] = null;
+            readPosition++;
+
+            if (readPosition - publishedReadPosition.get() >= batchSize) {
+                publishReads();
+            }
+
+            return result;
+
+        } else {
+            throw new OsmosisRuntimeException("No data is available, should call hasNext first.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void outputComplete() {
+        if (!outputInitialized) {
+            throw new OsmosisRuntimeException("outputInitialize has not been called");
+        }
+
+        lock.lock();
+
+        try {
+            checkForInputErrors();
+
+            // We must wait until the input thread completes or encounters an
+            // error.
+            while (!inputComplete) {
+                waitForUpdate();
+                checkForInputErrors();
+            }
+
+            outputComplete = true;
+            signalUpdate();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void outputRelease() {
+        lock.lock();
+
+        try {
+            // If release is being called without having completed successfully,
+            // it is an error condition.
+            if (!outputComplete) {
+                outputOkay = false;
+                signalUpdate();
+            }
+
+            // Wait until the input thread is released.
+            while (!inputReleased) {
+                waitForUpdate();
+            }
+
+            // At this point both threads have reached a release state so we can
+            // set out state as released but waiting for exit.
+            outputInitialized = false;
+            outputComplete = false;
+            outputReleased = true;
+            outputExit = false;
+            outputOkay = true;
+            signalUpdate();
+
+            // Wait until the input thread has reached the exit point.
+            while (!inputExit) {
+                waitForUpdate();
+            }
+
+            // The input thread has reached exit, so now we can clear the
+            // release flag (required so that subsequent iterations if they
+            // exist must go through the same handshake sequence) and flag that
+            // we've reached exit.
+            outputReleased = false;
+            outputExit = true;
+            signalUpdate();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -13,10 +13,10 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Completable;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
 
 /**
  * Provides a store for writing objects to a file for later retrieval. The
@@ -105,8 +105,8 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
                 arrayOutStream = new ByteArrayOutputStream();
 
                 if (useCompression) {
-                    dataOutStream =
-                            new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(arrayOutStream), 65536));
+                    dataOutStream = new DataOutputStream(
+                            new BufferedOutputStream(new FastGzipOutputStream(arrayOutStream, 512), 65536));
                 } else {
                     dataOutStream = new DataOutputStream(new BufferedOutputStream(arrayOutStream, 65536));
                 }
@@ -205,6 +205,8 @@ public class SegmentedObjectStore<T extends Storeable> implements Completable {
                 fileOutStream = null;
             }
 
+            TaskMetrics.recordTempFileBytes(fileSize);
+
             stage = StorageStage.Reading;
         }
 
@@ -12,10 +12,10 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.lifecycle.Completable;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.metrics.TaskMetrics;
 
 /**
  * Provides a store for writing objects to a file for later retrieval. The
@@ -29,6 +29,8 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
 
     private static final Logger LOG = Logger.getLogger(SimpleObjectStore.class.getName());
 
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
     private ObjectSerializationFactory serializationFactory;
     private StorageStage stage;
     private String storageFilePrefix;
@@ -38,6 +40,7 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
     private StoreClassRegister storeClassRegister;
     private ObjectWriter objectWriter;
     private boolean useCompression;
+    private int bufferSize;
 
     /**
      * Creates a new instance.
@@ -51,9 +54,31 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
      */
     public SimpleObjectStore(
             ObjectSerializationFactory serializationFactory, String storageFilePrefix, boolean useCompression) {
+        this(serializationFactory, storageFilePrefix, useCompression, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param serializationFactory
+     *            The factory defining the object serialisation implementation.
+     * @param storageFilePrefix
+     *            The prefix of the storage file.
+     * @param useCompression
+     *            If true, the storage file will be compressed.
+     * @param bufferSize
+     *            The size in bytes of the buffers used when writing to and
+     *            reading from the storage file.
+     */
+    public SimpleObjectStore(
+            ObjectSerializationFactory serializationFactory,
+            String storageFilePrefix,
+            boolean useCompression,
+            int bufferSize) {
         this.serializationFactory = serializationFactory;
         this.storageFilePrefix = storageFilePrefix;
         this.useCompression = useCompression;
+        this.bufferSize = bufferSize;
 
         storeClassRegister = new DynamicStoreClassRegister();
 
@@ -80,10 +105,10 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
                 fileOutStream = new FileOutputStream(file);
 
                 if (useCompression) {
-                    dataOutStream =
-                            new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(fileOutStream), 65536));
+                    dataOutStream = new DataOutputStream(
+                            new BufferedOutputStream(new FastGzipOutputStream(fileOutStream, bufferSize), bufferSize));
                 } else {
-                    dataOutStream = new DataOutputStream(new BufferedOutputStream(fileOutStream, 65536));
+                    dataOutStream = new DataOutputStream(new BufferedOutputStream(fileOutStream, bufferSize));
                 }
 
                 objectWriter = serializationFactory.createObjectWriter(
@@ -132,6 +157,8 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
                 fileOutStream = null;
             }
 
+            TaskMetrics.recordTempFileBytes(file.length());
+
             stage = StorageStage.Reading;
         }
 
@@ -165,9 +192,10 @@ public class SimpleObjectStore<T extends Storeable> implements Completable {
             // Create the object input stream.
             try {
                 if (useCompression) {
-                    dataInStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileStream), 65536));
+                    dataInStream = new DataInputStream(
+                            new BufferedInputStream(new GZIPInputStream(fileStream, bufferSize), bufferSize));
                 } else {
-                    dataInStream = new DataInputStream(new BufferedInputStream(fileStream, 65536));
+                    dataInStream = new DataInputStream(new BufferedInputStream(fileStream, bufferSize));
                 }
 
             } catch (IOException e) {
@@ -0,0 +1,73 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import java.util.concurrent.locks.LockSupport;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Defines the ways a thread may wait for another thread when exchanging data
+ * through a {@link RingBufferPostbox}. The strategies trade CPU consumption for
+ * handoff latency.
+ */
+public enum WaitStrategy {
+    /**
+     * Busy spins on the CPU. This gives the lowest latency but consumes an
+     * entire core while waiting and should only be used when there are more
+     * cores available than busy threads.
+     */
+    Spin {
+        @Override
+        public void idle() {
+            Thread.onSpinWait();
+        }
+    },
+    /**
+     * Yields the CPU to other runnable threads between checks. This is a
+     * reasonable compromise when cores are plentiful but not dedicated.
+     */
+    Yield {
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+    },
+    /**
+     * Parks the thread for a short period between checks. This consumes almost
+     * no CPU while waiting at the cost of slightly higher handoff latency.
+     */
+    Park {
+        @Override
+        public void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+
+            if (Thread.interrupted()) {
+                throw new OsmosisRuntimeException("Thread was interrupted.");
+            }
+        }
+    };
+
+    private static final long PARK_NANOS = 50000;
+
+    /**
+     * Called repeatedly by a waiting thread between checks of the condition it
+     * is waiting on.
+     */
+    public abstract void idle();
+
+    /**
+     * Gets a wait strategy value based on a string name.
+     *
+     * @param name
+     *            The wait strategy string.
+     * @return The strongly typed wait strategy.
+     */
+    public static WaitStrategy fromString(String name) {
+        for (WaitStrategy strategy : values()) {
+            if (strategy.toString().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+
+        throw new OsmosisRuntimeException("The wait strategy name " + name + " is not recognized.");
+    }
+}
@@ -0,0 +1,13 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.common;
+
+/**
+ * Marks a task whose output for each input item depends only on that item and
+ * its own configuration. Such a task retains nothing between items and
+ * produces no output on completion, so several instances created from the
+ * same configuration may each process a share of a stream and their outputs
+ * be combined in input order.
+ */
+public interface StatelessTask extends Task {
+    // Interface only marks the task as being free of per-stream state.
+}
@@ -0,0 +1,160 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+
+/**
+ * Describes the entities a sink is interested in, allowing a source to avoid
+ * decoding entities that would be discarded immediately. A new instance
+ * accepts everything, restrictions are added by the sink before passing it to
+ * a {@link FilterPushdownSource}.
+ * <p>
+ * The specification only ever describes a superset of the entities the sink
+ * will keep. Sources may apply any part of it, so sinks must continue to apply
+ * their own filtering to all entities received.
+ */
+public class EntityFilterSpecification {
+    private Set<EntityType> entityTypes;
+    private Bound boundingBox;
+    private List<Bound> simpleBounds;
+    private Map<EntityType, Set<String>> requiredTagKeys;
+    private boolean metadataRequired;
+
+    /**
+     * Creates a new instance accepting all entities.
+     */
+    public EntityFilterSpecification() {
+        entityTypes = EnumSet.of(EntityType.Node, EntityType.Way, EntityType.Relation);
+        boundingBox = null;
+        simpleBounds = null;
+        requiredTagKeys = new EnumMap<>(EntityType.class);
+        metadataRequired = true;
+    }
+
+    /**
+     * Indicates that no entities of the specified type are required.
+     *
+     * @param entityType
+     *            The type of entity to be rejected.
+     */
+    public void rejectEntityType(EntityType entityType) {
+        entityTypes.remove(entityType);
+    }
+
+    /**
+     * Indicates if entities of the specified type are required. Bounds are
+     * always required.
+     *
+     * @param entityType
+     *            The type of entity.
+     * @return True if entities of this type must be sent to the sink.
+     */
+    public boolean isEntityTypeRequired(EntityType entityType) {
+        return EntityType.Bound.equals(entityType) || entityTypes.contains(entityType);
+    }
+
+    /**
+     * Restricts nodes to those lying within a bounding box. Nodes on the edge
+     * of the box are included. Ways and relations are unaffected.
+     *
+     * @param bound
+     *            The bounding box, it may cross the antimeridian.
+     */
+    public void setBoundingBox(Bound bound) {
+        boundingBox = bound;
+
+        simpleBounds = new ArrayList<>();
+        for (Bound simpleBound : bound.toSimpleBound()) {
+            simpleBounds.add(simpleBound);
+        }
+    }
+
+    /**
+     * Gets the bounding box nodes are restricted to.
+     *
+     * @return The bounding box, or null if nodes aren't restricted.
+     */
+    public Bound getBoundingBox() {
+        return boundingBox;
+    }
+
+    /**
+     * Indicates if a node at the specified location is required.
+     *
+     * @param latitude
+     *            The latitude of the node.
+     * @param longitude
+     *            The longitude of the node.
+     * @return True if the node lies within the bounding box, or if there is no
+     *         bounding box.
+     */
+    public boolean isNodeWithinBoundingBox(double latitude, double longitude) {
+        if (simpleBounds == null) {
+            return true;
+        }
+
+        for (Bound b : simpleBounds) {
+            if (b.getTop() >= latitude
+                    && b.getBottom() <= latitude
+                    && b.getLeft() <= longitude
+                    && b.getRight() >= longitude) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Restricts entities of the specified type to those having at least one
+     * tag with one of the specified keys.
+     *
+     * @param entityType
+     *            The type of entity being restricted.
+     * @param tagKeys
+     *            The tag keys, an entity must have at least one of them.
+     */
+    public void setRequiredTagKeys(EntityType entityType, Set<String> tagKeys) {
+        requiredTagKeys.put(entityType, tagKeys);
+    }
+
+    /**
+     * Gets the tag keys entities of the specified type are restricted to.
+     *
+     * @param entityType
+     *            The type of entity.
+     * @return The tag keys of which an entity must have at least one, or null
+     *         if entities aren't restricted by their tags.
+     */
+    public Set<String> getRequiredTagKeys(EntityType entityType) {
+        return requiredTagKeys.get(entityType);
+    }
+
+    /**
+     * Specifies whether entity metadata is required. If not required, sources
+     * may send entities with an empty version, timestamp, user and changeset.
+     *
+     * @param metadataRequired
+     *            True if entity metadata is required.
+     */
+    public void setMetadataRequired(boolean metadataRequired) {
+        this.metadataRequired = metadataRequired;
+    }
+
+    /**
+     * Indicates if entity metadata is required.
+     *
+     * @return True if the version, timestamp, user and changeset must be
+     *         provided.
+     */
+    public boolean isMetadataRequired() {
+        return metadataRequired;
+    }
+}
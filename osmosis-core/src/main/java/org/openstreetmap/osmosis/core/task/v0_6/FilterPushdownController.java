@@ -0,0 +1,62 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the filter pushed down to a source by its sink. Sources able to skip
+ * unwanted entities publish the controller in their meta data, initialize the
+ * sink, and then retrieve the specification to apply while reading.
+ */
+public class FilterPushdownController implements FilterPushdownSource {
+    private Sink sink;
+    private EntityFilterSpecification specification;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sink
+     *            The sink directly connected to the source.
+     */
+    public FilterPushdownController(Sink sink) {
+        this.sink = sink;
+
+        specification = null;
+    }
+
+    /**
+     * Creates a copy of the meta data including this controller.
+     *
+     * @param metaData
+     *            The meta data provided by the source.
+     * @return The meta data to be passed to the sink.
+     */
+    public Map<String, Object> addToMetaData(Map<String, Object> metaData) {
+        Map<String, Object> result = new HashMap<>(metaData);
+
+        result.put(META_DATA_KEY, this);
+
+        return result;
+    }
+
+    @Override
+    public boolean pushDown(Sink pushingSink, EntityFilterSpecification pushedSpecification) {
+        if (pushingSink != sink) {
+            return false;
+        }
+
+        specification = pushedSpecification;
+
+        return true;
+    }
+
+    /**
+     * Gets the filter pushed down by the sink.
+     *
+     * @return The specification, or null if the sink requires all entities.
+     */
+    public EntityFilterSpecification getSpecification() {
+        return specification;
+    }
+}
@@ -0,0 +1,36 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+/**
+ * A capability offered by sources that are able to skip the decoding of
+ * unwanted entities, such as readers of PBF files. A source supporting filter
+ * pushdown places an instance in the meta data passed to the initialize method
+ * of its sink under {@link #META_DATA_KEY}. Filtering sinks may then describe
+ * the entities they require during initialize, before any data is sent.
+ * <p>
+ * Only the sink directly connected to the source may push down a filter
+ * because any task in between may need the entities the sink discards.
+ */
+public interface FilterPushdownSource {
+
+    /**
+     * The meta data key holding the filter pushdown source.
+     */
+    String META_DATA_KEY = "filterPushdownSource";
+
+    /**
+     * Describes the entities required by the sink. Entities outside the
+     * specification may be omitted by the source, but the sink must still
+     * filter everything it receives. This must be called from the initialize
+     * method of the sink, later calls replace the specification of earlier
+     * calls.
+     *
+     * @param sink
+     *            The sink pushing down the filter.
+     * @param specification
+     *            The entities required by the sink.
+     * @return True if the source will apply the specification, false if the
+     *         sink isn't directly connected to the source.
+     */
+    boolean pushDown(Sink sink, EntityFilterSpecification specification);
+}
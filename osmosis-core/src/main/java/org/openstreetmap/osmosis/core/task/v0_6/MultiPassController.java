@@ -0,0 +1,72 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the passes requested of a source by its sink. Sources able to read
+ * their data more than once publish the controller in their meta data, read
+ * their data, and then call {@link #completePass()} to determine whether
+ * another pass is required.
+ */
+public class MultiPassController implements MultiPassSource {
+    private Sink sink;
+    private boolean passRequested;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sink
+     *            The sink directly connected to the source.
+     */
+    public MultiPassController(Sink sink) {
+        this.sink = sink;
+
+        passRequested = false;
+    }
+
+    /**
+     * Creates a copy of the meta data including this controller.
+     *
+     * @param metaData
+     *            The meta data provided by the source.
+     * @return The meta data to be passed to the sink.
+     */
+    public Map<String, Object> addToMetaData(Map<String, Object> metaData) {
+        Map<String, Object> result = new HashMap<>(metaData);
+
+        result.put(META_DATA_KEY, this);
+
+        return result;
+    }
+
+    @Override
+    public boolean requestPass(MultiPassSink requestingSink) {
+        if (requestingSink != sink) {
+            return false;
+        }
+
+        passRequested = true;
+
+        return true;
+    }
+
+    /**
+     * Ends the current pass. If another pass has been requested, the sink is
+     * notified that the pass is complete.
+     *
+     * @return True if the source must perform another pass, false if the sink
+     *         may now be completed.
+     */
+    public boolean completePass() {
+        if (!passRequested) {
+            return false;
+        }
+
+        passRequested = false;
+        ((MultiPassSink) sink).completePass();
+
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+/**
+ * A sink able to receive the data of a {@link MultiPassSource} more than once.
+ * Each pass contains the entire stream, including any bounds. When a further
+ * pass has been requested, the end of the current pass is signalled by
+ * {@link #completePass()} instead of complete, and complete is only called at
+ * the end of the final pass.
+ */
+public interface MultiPassSink extends Sink {
+
+    /**
+     * Notifies the sink that a pass has ended and another pass is about to
+     * begin.
+     */
+    void completePass();
+}
@@ -0,0 +1,38 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+/**
+ * A capability offered by sources that are able to read their data more than
+ * once, such as readers of local files. A source supporting additional passes
+ * places an instance in the meta data passed to the initialize method of its
+ * sink under {@link #META_DATA_KEY}. Sinks that would otherwise have to store
+ * the entire stream, for example to learn which entities are referenced
+ * before emitting them, may instead request a further pass of the data.
+ * <p>
+ * Passes are only granted to the sink directly connected to the source
+ * because any task in between would see the data more than once. Sinks
+ * forwarding the meta data to their own sinks should remove the capability.
+ */
+public interface MultiPassSource {
+
+    /**
+     * The meta data key holding the multi pass source.
+     */
+    String META_DATA_KEY = "multiPassSource";
+
+    /**
+     * Requests that the source send all of its data again once the current
+     * pass is complete. Requests may be made at any point up to and including
+     * the {@link MultiPassSink#completePass()} call ending the current pass,
+     * and multiple requests within a single pass result in a single
+     * additional pass. A source that has granted one request will grant all
+     * further requests from the same sink.
+     *
+     * @param sink
+     *            The sink requesting the pass.
+     * @return True if the pass will be performed, false if the sink isn't
+     *         directly connected to the source and must fall back to storing
+     *         the data itself.
+     */
+    boolean requestPass(MultiPassSink sink);
+}
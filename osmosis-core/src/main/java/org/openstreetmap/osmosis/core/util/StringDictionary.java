@@ -0,0 +1,205 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.util;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * A bounded, thread safe dictionary used to share a single instance of frequently repeated strings
+ * such as tag keys, tag values and user names. Entity readers and deserialisers pass strings
+ * through {@link #intern(String)} so that entities held in memory reference one copy of each
+ * common string rather than a copy per entity.
+ * <p>
+ * The dictionary is a fixed size hash table in which each string can only occupy a single slot. A
+ * string replaces whatever occupied its slot previously so memory use is bounded and lookups never
+ * block, at the cost of occasionally discarding a useful string. Long strings are rarely repeated
+ * and are never added.
+ * <p>
+ * Interning is disabled unless a global dictionary has been enabled, in which case
+ * {@link #intern(String)} returns its argument unchanged.
+ */
+public final class StringDictionary {
+
+    /**
+     * The default number of slots in the dictionary.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * Strings longer than this are passed through without being added.
+     */
+    static final int MAX_STRING_LENGTH = 64;
+
+    // Approximate heap usage of a string with compact Latin-1 storage,
+    // excluding its characters.
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    private static volatile StringDictionary globalDictionary;
+
+    private final String[] table;
+    private final int mask;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder bytesSaved;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity
+     *            The maximum number of strings held. It is rounded up to the next power of two.
+     */
+    public StringDictionary(int capacity) {
+        int tableSize;
+
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new OsmosisRuntimeException("String dictionary capacity " + capacity + " is out of range.");
+        }
+
+        tableSize = Integer.highestOneBit(capacity);
+        if (tableSize < capacity) {
+            tableSize <<= 1;
+        }
+
+        table = new String[tableSize];
+        mask = tableSize - 1;
+        hitCount = new LongAdder();
+        missCount = new LongAdder();
+        bytesSaved = new LongAdder();
+    }
+
+    /**
+     * Enables global interning with a new empty dictionary.
+     *
+     * @param capacity
+     *            The maximum number of strings held.
+     */
+    public static void enable(int capacity) {
+        globalDictionary = new StringDictionary(capacity);
+    }
+
+    /**
+     * Disables global interning and discards the current dictionary.
+     */
+    public static void disable() {
+        globalDictionary = null;
+    }
+
+    /**
+     * Returns the global dictionary.
+     *
+     * @return The dictionary, or null if interning is disabled.
+     */
+    public static StringDictionary getGlobalDictionary() {
+        return globalDictionary;
+    }
+
+    /**
+     * Returns the shared instance of a string from the global dictionary.
+     *
+     * @param value
+     *            The string to be interned, may be null.
+     * @return An equal string, or the original string if interning is disabled.
+     */
+    public static String intern(String value) {
+        StringDictionary dictionary = globalDictionary;
+
+        if (dictionary == null) {
+            return value;
+        }
+
+        return dictionary.get(value);
+    }
+
+    /**
+     * Returns the shared instance of a string, adding it to the dictionary if it isn't already
+     * present.
+     *
+     * @param value
+     *            The string to be interned, may be null.
+     * @return An equal string.
+     */
+    public String get(String value) {
+        int hash;
+        int slot;
+        String existing;
+
+        if (value == null || value.length() > MAX_STRING_LENGTH) {
+            return value;
+        }
+
+        hash = value.hashCode();
+        slot = (hash ^ (hash >>> 16)) & mask;
+
+        // Strings are immutable with final fields so they are safely published
+        // between threads even though the table is accessed without
+        // synchronisation. At worst a thread sees a stale slot and misses.
+        existing = table[slot];
+        if (existing != null && existing.equals(value)) {
+            if (existing != value) {
+                hitCount.increment();
+                bytesSaved.add(STRING_OVERHEAD + ((value.length() + 7) & ~7));
+            }
+
+            return existing;
+        }
+
+        missCount.increment();
+        table[slot] = value;
+
+        return value;
+    }
+
+    /**
+     * Returns the number of lookups that returned a shared string in place of a duplicate.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups of strings not present in the dictionary.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that returned a shared string.
+     *
+     * @return The hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * Returns the approximate heap usage of the duplicate strings replaced by shared strings. The
+     * duplicates are short lived, so this estimates the memory no longer retained by entities.
+     *
+     * @return The number of bytes saved.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Returns a single line summary of the dictionary statistics.
+     *
+     * @return The summary.
+     */
+    public String getSummary() {
+        return String.format(
+                "String dictionary: %d hits, %d misses, %.1f%% hit rate, approximately %d MB saved.",
+                getHitCount(),
+                getMissCount(),
+                getHitRate() * 100,
+                getBytesSaved() / (1024 * 1024));
+    }
+}
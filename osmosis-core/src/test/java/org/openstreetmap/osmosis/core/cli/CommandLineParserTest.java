@@ -8,6 +8,7 @@ import java.util.logging.Level;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.osmosis.core.LogLevels;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * Tests the CommandLineParser class.
@@ -142,6 +143,61 @@ public class CommandLineParserTest {
         assertEquals(Arrays.asList("plugin1", "plugin2"), commandLineParser.getPlugins(), "Incorrect plugin list.");
     }
 
+    /**
+     * Validates the metrics option.
+     */
+    @Test
+    public void testMetricsOption() {
+        CommandLineParser commandLineParser;
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {});
+        assertNull(commandLineParser.getMetricsFile(), "Metrics should be disabled by default.");
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {"-m", "metrics.prom"});
+        assertEquals("metrics.prom", commandLineParser.getMetricsFile(), "Incorrect metrics file.");
+        assertEquals(10, commandLineParser.getMetricsInterval(), "Incorrect default metrics interval.");
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {"-metrics", "metrics.json", "5"});
+        assertEquals("metrics.json", commandLineParser.getMetricsFile(), "Incorrect metrics file.");
+        assertEquals(5, commandLineParser.getMetricsInterval(), "Incorrect metrics interval.");
+
+        CommandLineParser invalidParser = new CommandLineParser();
+        assertThrows(OsmosisRuntimeException.class, () -> {
+            invalidParser.parse(new String[] {"-m", "metrics.json", "0"});
+        });
+    }
+
+    /**
+     * Validates the string interning option.
+     */
+    @Test
+    public void testInternOption() {
+        CommandLineParser commandLineParser;
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {});
+        assertEquals(0, commandLineParser.getInternCapacity(), "Interning should be disabled by default.");
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {"-i"});
+        assertEquals(
+                StringDictionary.DEFAULT_CAPACITY,
+                commandLineParser.getInternCapacity(),
+                "Incorrect default intern capacity.");
+
+        commandLineParser = new CommandLineParser();
+        commandLineParser.parse(new String[] {"-intern", "1000"});
+        assertEquals(1000, commandLineParser.getInternCapacity(), "Incorrect intern capacity.");
+
+        CommandLineParser invalidParser = new CommandLineParser();
+        assertThrows(OsmosisRuntimeException.class, () -> {
+            invalidParser.parse(new String[] {"-i", "0"});
+        });
+    }
+
     /**
      * Validates failure when an unknown option is specified.
      */
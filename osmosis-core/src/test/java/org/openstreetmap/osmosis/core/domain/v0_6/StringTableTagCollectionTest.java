@@ -0,0 +1,120 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.domain.v0_6;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.store.DataInputStoreReader;
+import org.openstreetmap.osmosis.core.store.DataOutputStoreWriter;
+import org.openstreetmap.osmosis.core.store.DynamicStoreClassRegister;
+import org.openstreetmap.osmosis.core.store.StoreClassRegister;
+
+/**
+ * Tests the StringTableTagCollection class.
+ */
+public class StringTableTagCollectionTest {
+
+    private static final String[] STRINGS = {"", "highway", "residential", "name", "Main Street", "surface"};
+
+    // Two tag sets, the first containing two tags and the second one tag.
+    private static final int[] KEYS_VALUES = {1, 2, 3, 4, 5, 2};
+
+    private static List<Tag> toList(Iterable<Tag> tags) {
+        List<Tag> result = new ArrayList<Tag>();
+
+        for (Tag tag : tags) {
+            result.add(tag);
+        }
+
+        return result;
+    }
+
+    private static void assertTags(List<Tag> expected, Iterable<Tag> actual) {
+        List<Tag> actualList = toList(actual);
+
+        assertEquals(expected.size(), actualList.size(), "Incorrect number of tags.");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(0, expected.get(i).compareTo(actualList.get(i)), "Incorrect tag at position " + i + ".");
+        }
+    }
+
+    /**
+     * Verifies that tags are read from the string table.
+     */
+    @Test
+    public void testRead() {
+        StringTableTagCollection tags = new StringTableTagCollection(STRINGS, KEYS_VALUES, 0, 2);
+        StringTableTagCollection otherTags = new StringTableTagCollection(STRINGS, KEYS_VALUES, 4, 1);
+
+        assertEquals(2, tags.size());
+        assertEquals("name", tags.getKey(1));
+        assertEquals("Main Street", tags.getValue(1));
+        assertTags(Arrays.asList(new Tag("highway", "residential"), new Tag("name", "Main Street")), tags);
+        assertTags(Arrays.asList(new Tag("surface", "residential")), otherTags);
+        assertEquals("Main Street", tags.buildMap().get("name"));
+    }
+
+    /**
+     * Verifies that modifications are isolated to the modified collection.
+     */
+    @Test
+    public void testModify() {
+        StringTableTagCollection tags = new StringTableTagCollection(STRINGS, KEYS_VALUES, 0, 2);
+        StringTableTagCollection copy = tags.copy();
+
+        tags.add(new Tag("oneway", "yes"));
+        Iterator<Tag> iterator = tags.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertTags(Arrays.asList(new Tag("name", "Main Street"), new Tag("oneway", "yes")), tags);
+        assertEquals("oneway", tags.getKey(1));
+        assertTags(Arrays.asList(new Tag("highway", "residential"), new Tag("name", "Main Street")), copy);
+        assertEquals("residential", STRINGS[KEYS_VALUES[1]], "The string table must not be modified.");
+    }
+
+    /**
+     * Verifies that entities adopt the collection and make it read-only along
+     * with the entity.
+     */
+    @Test
+    public void testEntityReadOnly() {
+        StringTableTagCollection tags = new StringTableTagCollection(STRINGS, KEYS_VALUES, 0, 2);
+        Node node = new Node(new CommonEntityData(1, 1, new Date(0), OsmUser.NONE, 1, tags), 1, 1);
+
+        node.makeReadOnly();
+        assertThrows(UnsupportedOperationException.class, () -> node.getTags().clear());
+
+        Node writeableNode = node.getWriteableInstance();
+        writeableNode.getTags().clear();
+        assertEquals(0, writeableNode.getTags().size());
+        assertEquals(2, node.getTags().size());
+        assertEquals(2, tags.size(), "The original collection must not be modified.");
+    }
+
+    /**
+     * Verifies that the collection can be stored and read back.
+     */
+    @Test
+    public void testStoreAndRetrieve() {
+        StringTableTagCollection tags = new StringTableTagCollection(STRINGS, KEYS_VALUES, 0, 2);
+        StoreClassRegister scr = new DynamicStoreClassRegister();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        tags.store(new DataOutputStoreWriter(new DataOutputStream(out)), scr);
+
+        TagCollectionImpl retrieved = new TagCollectionImpl(
+                new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))), scr);
+        assertTags(toList(tags), retrieved);
+    }
+}
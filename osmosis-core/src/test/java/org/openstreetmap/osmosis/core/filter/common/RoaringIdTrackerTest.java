@@ -0,0 +1,135 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.filter.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the roaring id tracker implementation.
+ */
+public class RoaringIdTrackerTest extends IdTrackerBase {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IdTracker getImplementation() {
+        return new RoaringIdTracker();
+    }
+
+    private static void assertContents(TreeSet<Long> expected, RoaringIdTracker idTracker) {
+        List<Long> actual = new ArrayList<Long>();
+
+        for (PrimitiveIterator.OfLong i = idTracker.iterator(); i.hasNext(); ) {
+            actual.add(i.nextLong());
+        }
+
+        assertEquals(new ArrayList<Long>(expected), actual, "Iterated ids are incorrect.");
+        assertEquals(expected.size(), idTracker.getCardinality(), "Cardinality is incorrect.");
+        for (long id : expected) {
+            assertTrue(idTracker.get(id), "Id " + id + " should be set.");
+        }
+    }
+
+    /**
+     * Tests that sparse, clustered and dense id blocks are all stored and
+     * iterated correctly in any insertion order.
+     */
+    @Test
+    public void testContainerTypes() {
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<Long>();
+        RoaringIdTracker idTracker = new RoaringIdTracker();
+
+        // Sparse ids spread across many blocks including negative ids.
+        for (int i = 0; i < 1000; i++) {
+            expected.add(random.nextLong() >> 20);
+        }
+        // Long runs within a single block.
+        for (long id = 1000000; id < 1060000; id++) {
+            if (id % 1000 < 900) {
+                expected.add(id);
+            }
+        }
+        // A densely but randomly populated block.
+        for (int i = 0; i < 30000; i++) {
+            expected.add(12000000000L + random.nextInt(65536));
+        }
+        // A completely populated block.
+        for (long id = 0; id < 65536; id++) {
+            expected.add(-65536 + id);
+        }
+
+        List<Long> shuffled = new ArrayList<Long>(expected);
+        Collections.shuffle(shuffled, random);
+        for (long id : shuffled) {
+            idTracker.set(id);
+        }
+
+        assertContents(expected, idTracker);
+        assertFalse(idTracker.get(999999), "Id should not be set.");
+        assertFalse(idTracker.get(1000950), "Id should not be set.");
+    }
+
+    /**
+     * Tests merging roaring and non-roaring trackers.
+     */
+    @Test
+    public void testSetAllMerge() {
+        Random random = new Random(7);
+        TreeSet<Long> expected = new TreeSet<Long>();
+        RoaringIdTracker idTracker = new RoaringIdTracker();
+        RoaringIdTracker other = new RoaringIdTracker();
+        IdTracker listTracker = new ListIdTracker();
+
+        for (int i = 0; i < 20000; i++) {
+            long id = random.nextInt(500000);
+
+            idTracker.set(id);
+            expected.add(id);
+        }
+        for (long id = 100000; id < 300000; id++) {
+            other.set(id);
+            expected.add(id);
+        }
+        for (int i = 0; i < 1000; i++) {
+            long id = random.nextInt(Integer.MAX_VALUE);
+
+            other.set(id);
+            listTracker.set(id);
+            expected.add(id);
+        }
+
+        idTracker.setAll(other);
+        idTracker.setAll(listTracker);
+
+        assertContents(expected, idTracker);
+
+        // The source tracker must not be modified by the merge.
+        other.set(-1);
+        assertFalse(idTracker.get(-1), "Merged trackers should not share state.");
+    }
+
+    /**
+     * Tests that memory usage remains compact for clustered ids.
+     */
+    @Test
+    public void testMemoryUsage() {
+        RoaringIdTracker idTracker = new RoaringIdTracker();
+
+        for (long id = 0; id < 10000000; id++) {
+            idTracker.set(id);
+        }
+
+        assertTrue(idTracker.getMemoryUsage() < 100000, "Memory usage should be small for a contiguous id range.");
+    }
+}
@@ -0,0 +1,175 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.pipeline.common.PipeTasks;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSink;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.Source;
+
+/**
+ * Tests the collection of pipeline metrics.
+ */
+public class PipelineMetricsTest {
+
+    private static EntityContainer buildNode(long id) {
+        return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1));
+    }
+
+    /**
+     * Verifies that entities passing between tasks are counted against both
+     * tasks.
+     */
+    @Test
+    public void testPipeMetering() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        PipeTasks pipeTasks = new PipeTasks(metrics);
+        TestSource source = new TestSource();
+        TestSink sink = new TestSink();
+
+        pipeTasks.putTask("1-source", source);
+        ((Source) pipeTasks.retrieveTask("2-sink", Source.class)).setSink(sink);
+
+        source.sink.initialize(null);
+        for (int i = 0; i < 3; i++) {
+            source.sink.process(buildNode(i));
+        }
+        source.sink.complete();
+        source.sink.close();
+
+        assertEquals(3, sink.received.size(), "All entities must be passed to the sink.");
+        assertTrue(sink.completed, "The sink must be completed.");
+        assertEquals(0, metrics.getTaskMetrics("1-source").getEntitiesIn());
+        assertEquals(3, metrics.getTaskMetrics("1-source").getEntitiesOut());
+        assertEquals(3, metrics.getTaskMetrics("2-sink").getEntitiesIn());
+        assertEquals(0, metrics.getTaskMetrics("2-sink").getEntitiesOut());
+        assertTrue(metrics.getTaskMetrics("2-sink").isFinished(), "The sink task must be finished.");
+    }
+
+    /**
+     * Verifies that entities are only counted once when read in multiple
+     * passes.
+     */
+    @Test
+    public void testMultiPassMetering() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        PipeMetrics pipe = metrics.createPipeMetrics("1-source", "2-sink");
+        TestSink sink = new TestSink();
+        MeteredSink meteredSink = new MeteredSink(sink, pipe);
+
+        meteredSink.initialize(null);
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass > 0) {
+                meteredSink.completePass();
+            }
+            for (int i = 0; i < 3; i++) {
+                meteredSink.process(buildNode(i));
+            }
+        }
+        meteredSink.complete();
+        meteredSink.close();
+
+        assertEquals(6, sink.received.size(), "All passes must be passed to the sink.");
+        assertEquals(3, pipe.getEntityCount(), "Entities must only be counted in the first pass.");
+        assertEquals(3, metrics.getTaskMetrics("2-sink").getEntitiesIn());
+    }
+
+    /**
+     * Verifies that store activity is attributed to the task owning the
+     * current thread.
+     */
+    @Test
+    public void testThreadAttribution() throws InterruptedException {
+        PipelineMetrics metrics = new PipelineMetrics();
+        TaskMetrics taskMetrics = metrics.getTaskMetrics("1-task");
+
+        // Activity on threads without a task is ignored.
+        TaskMetrics.recordTempFileBytes(100);
+
+        TaskMetrics.setCurrent(taskMetrics);
+        try {
+            TaskMetrics.recordTempFileBytes(10);
+            TaskMetrics.recordBufferOccupancy(50, 100);
+
+            // Threads created by the task inherit its metrics.
+            Thread thread = new Thread(() -> TaskMetrics.recordTempFileBytes(5));
+            thread.start();
+            thread.join();
+
+        } finally {
+            TaskMetrics.setCurrent(null);
+        }
+
+        assertEquals(15, taskMetrics.getTempFileBytes(), "Incorrect temporary file bytes.");
+        assertEquals(0.5, taskMetrics.getMaxBufferOccupancy(), 0.001, "Incorrect buffer occupancy.");
+    }
+
+    /**
+     * Verifies the formatting of metrics snapshots.
+     */
+    @Test
+    public void testFormat() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        PipeMetrics pipe = metrics.createPipeMetrics("1-read-xml", "2-write-xml");
+
+        pipe.recordEntity();
+        pipe.recordEntity();
+
+        String prometheus = MetricsFileWriter.formatPrometheus(metrics);
+        assertTrue(
+                prometheus.contains("osmosis_task_entities_out_total{task=\"1-read-xml\"} 2\n"),
+                "Missing entities out metric.");
+        assertTrue(
+                prometheus.contains("osmosis_task_entities_in_total{task=\"2-write-xml\"} 2\n"),
+                "Missing entities in metric.");
+
+        String json = MetricsFileWriter.formatJson(metrics);
+        assertTrue(json.contains("\"id\": \"2-write-xml\""), "Missing task id.");
+        assertTrue(json.contains("\"entitiesIn\": 2"), "Missing entities in value.");
+    }
+
+    private static class TestSource implements Source {
+        private Sink sink;
+
+        @Override
+        public void setSink(Sink sink) {
+            this.sink = sink;
+        }
+    }
+
+    private static class TestSink implements MultiPassSink {
+        private List<EntityContainer> received = new ArrayList<EntityContainer>();
+        private boolean completed;
+
+        @Override
+        public void initialize(Map<String, Object> metaData) {}
+
+        @Override
+        public void process(EntityContainer entityContainer) {
+            received.add(entityContainer);
+        }
+
+        @Override
+        public void completePass() {}
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,235 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.parallel.v0_6;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkSourceManager;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+
+/**
+ * Tests the parallel execution of stateless tasks.
+ */
+public class ParallelSinkSourceTest {
+
+    private static EntityContainer buildNode(long id) {
+        return new NodeContainer(new Node(new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1), 1, 1));
+    }
+
+    private static List<Long> run(ParallelSinkSource parallel, int count) {
+        SinkEntityInspector inspector = new SinkEntityInspector();
+        List<Long> ids = new ArrayList<Long>();
+
+        parallel.setSink(inspector);
+        try {
+            parallel.initialize(Collections.<String, Object>emptyMap());
+            for (int i = 0; i < count; i++) {
+                parallel.process(buildNode(i));
+            }
+            parallel.complete();
+        } finally {
+            parallel.close();
+        }
+
+        for (EntityContainer entityContainer : inspector.getProcessedEntities()) {
+            ids.add(entityContainer.getEntity().getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Verifies that the output is in input order regardless of which worker
+     * processed each batch.
+     */
+    @Test
+    public void testOrderPreserved() {
+        List<SinkSource> replicas = new ArrayList<SinkSource>();
+        List<Long> expected = new ArrayList<Long>();
+
+        for (int i = 0; i < 4; i++) {
+            replicas.add(new OddFilter(-1));
+        }
+        for (long i = 1; i < 10000; i += 2) {
+            expected.add(i);
+        }
+
+        assertEquals(expected, run(new ParallelSinkSource(replicas, 7), 10000));
+
+        for (SinkSource replica : replicas) {
+            OddFilter filter = (OddFilter) replica;
+
+            assertTrue(filter.initialized && filter.completed && filter.closed, "Replica lifecycle incomplete.");
+        }
+    }
+
+    /**
+     * Verifies that a failure within a worker is raised on the input thread.
+     */
+    @Test
+    public void testWorkerFailure() {
+        List<SinkSource> replicas = new ArrayList<SinkSource>();
+
+        for (int i = 0; i < 2; i++) {
+            replicas.add(new OddFilter(500));
+        }
+
+        assertThrows(OsmosisRuntimeException.class, () -> run(new ParallelSinkSource(replicas, 10), 1000));
+    }
+
+    /**
+     * Verifies that the factory creates one replica per worker and only accepts
+     * stateless tasks.
+     */
+    @Test
+    public void testFactory() {
+        TaskConfiguration parallelConfig = new TaskConfiguration(
+                "1-parallel",
+                "parallel",
+                new HashMap<String, String>(),
+                Collections.singletonMap("workers", "3"),
+                null);
+        TaskConfiguration taskConfig = new TaskConfiguration(
+                "2-test", "test", new HashMap<String, String>(), new HashMap<String, String>(), null);
+        TestTaskFactory statelessFactory = new TestTaskFactory(true);
+        TaskManager taskManager;
+
+        taskManager = new ParallelTaskManagerFactory(statelessFactory, taskConfig).createTaskManager(parallelConfig);
+        assertTrue(((SinkSourceManager) taskManager).getTask() instanceof ParallelSinkSource);
+        assertEquals(3, statelessFactory.createdCount);
+
+        assertThrows(
+                OsmosisRuntimeException.class,
+                () -> new ParallelTaskManagerFactory(new TestTaskFactory(false), taskConfig)
+                        .createTaskManager(parallelConfig));
+    }
+
+    /**
+     * Passes on entities with odd identifiers.
+     */
+    private static class OddFilter implements SinkSource, StatelessTask {
+        private Sink sink;
+        private long failureId;
+        private boolean initialized;
+        private boolean completed;
+        private boolean closed;
+
+        OddFilter(long failureId) {
+            this.failureId = failureId;
+        }
+
+        @Override
+        public void initialize(Map<String, Object> metaData) {
+            initialized = true;
+            sink.initialize(metaData);
+        }
+
+        @Override
+        public void process(EntityContainer entityContainer) {
+            long id = entityContainer.getEntity().getId();
+
+            if (id == failureId) {
+                throw new OsmosisRuntimeException("Unable to process entity " + id + ".");
+            }
+
+            // Vary the processing time so that batches complete out of order.
+            if (id % 97 == 0) {
+                Thread.yield();
+            }
+
+            if (id % 2 == 1) {
+                sink.process(entityContainer);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            sink.complete();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            sink.close();
+        }
+
+        @Override
+        public void setSink(Sink sink) {
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Creates test tasks, optionally lacking the stateless marker.
+     */
+    private static class TestTaskFactory extends TaskManagerFactory {
+        private boolean stateless;
+        private int createdCount;
+
+        TestTaskFactory(boolean stateless) {
+            this.stateless = stateless;
+        }
+
+        @Override
+        protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+            SinkSource task;
+
+            createdCount++;
+            if (stateless) {
+                task = new OddFilter(-1);
+            } else {
+                task = new SinkSource() {
+                    private Sink sink;
+
+                    @Override
+                    public void initialize(Map<String, Object> metaData) {
+                        sink.initialize(metaData);
+                    }
+
+                    @Override
+                    public void process(EntityContainer entityContainer) {
+                        sink.process(entityContainer);
+                    }
+
+                    @Override
+                    public void complete() {
+                        sink.complete();
+                    }
+
+                    @Override
+                    public void close() {
+                        sink.close();
+                    }
+
+                    @Override
+                    public void setSink(Sink sink) {
+                        this.sink = sink;
+                    }
+                };
+            }
+
+            return new SinkSourceManager(taskConfig.getId(), task, taskConfig.getPipeArgs());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.sort.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+
+/**
+ * Tests the {@link ParallelFileBasedSort} class.
+ */
+public class ParallelFileBasedSortTest {
+    private static final int INDEX_BITS = 20;
+
+    /**
+     * Compares only the upper bits of each value, leaving the lower bits free
+     * to record insertion order.
+     */
+    private Comparator<SampleStoreable> comparator = new Comparator<SampleStoreable>() {
+        @Override
+        public int compare(SampleStoreable o1, SampleStoreable o2) {
+            return Integer.compare(o1.getValue() >> INDEX_BITS, o2.getValue() >> INDEX_BITS);
+        }
+    };
+
+    private void runSort(int itemCount, long memoryBudget, int parallelism) {
+        SingleClassObjectSerializationFactory objectFactory =
+                new SingleClassObjectSerializationFactory(SampleStoreable.class);
+
+        runSort(itemCount, new ParallelFileBasedSort<SampleStoreable>(
+                objectFactory, comparator, true, memoryBudget, parallelism));
+    }
+
+    private void runSort(int itemCount, ParallelFileBasedSort<SampleStoreable> sorter) {
+        try (ParallelFileBasedSort<SampleStoreable> sort = sorter) {
+            // Add values with a random sort key in the upper bits and the
+            // insertion index in the lower bits.
+            Random random = new Random(1);
+            for (int i = 0; i < itemCount; i++) {
+                sort.add(new SampleStoreable((random.nextInt(100) << INDEX_BITS) | i));
+            }
+
+            // Verify that the values are sorted and that values with equal keys
+            // are returned in insertion order.
+            try (ReleasableIterator<SampleStoreable> resultIterator = sort.iterate()) {
+                int lastValue = -1;
+                int count = 0;
+                while (resultIterator.hasNext()) {
+                    int currentValue = resultIterator.next().getValue();
+                    assertTrue(currentValue > lastValue, "Values are not sorted stably.");
+                    lastValue = currentValue;
+                    count++;
+                }
+                assertEquals(itemCount, count, "Incorrect number of values returned.");
+            }
+        }
+    }
+
+    /**
+     * Sorts data that fits entirely within memory.
+     */
+    @Test
+    public void testInMemory() {
+        runSort(1000, 0, 0);
+    }
+
+    /**
+     * Sorts data that must be split across multiple runs written in parallel.
+     * The minimal memory budget forces the smallest run size to be used.
+     */
+    @Test
+    public void testMultipleRuns() {
+        runSort(100000, 1, 3);
+    }
+
+    /**
+     * Sorts data across multiple runs using a single thread.
+     */
+    @Test
+    public void testSingleThread() {
+        runSort(50000, 1, 1);
+    }
+
+    /**
+     * Sorts data split into enough runs to require several rounds of
+     * intermediate merges. Small runs and a small merge fan-in produce 250 runs
+     * which are reduced to 63, 16 and then 4 before the final merge.
+     */
+    @Test
+    public void testIntermediateMerges() {
+        SingleClassObjectSerializationFactory objectFactory =
+                new SingleClassObjectSerializationFactory(SampleStoreable.class);
+
+        runSort(25000, new ParallelFileBasedSort<SampleStoreable>(
+                objectFactory, comparator, true, 1, 3, 100, 4));
+    }
+}
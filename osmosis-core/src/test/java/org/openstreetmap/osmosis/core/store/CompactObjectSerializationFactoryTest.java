@@ -0,0 +1,254 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+/**
+ * Tests the compact object serialisation implementation.
+ */
+public class CompactObjectSerializationFactoryTest {
+
+    private static CommonEntityData createEntityData(long id, int index) {
+        return new CommonEntityData(
+                id,
+                index % 5 + 1,
+                new Date(1500000000000L + index * 1000L),
+                new OsmUser(index % 3 + 1, "user" + (index % 3)),
+                100 + index / 10,
+                Arrays.asList(new Tag("highway", "residential"), new Tag("name", "Street " + index)));
+    }
+
+    private static List<EntityContainer> createEntities() {
+        List<EntityContainer> entities = new ArrayList<EntityContainer>();
+
+        for (int i = 0; i < 1000; i++) {
+            // Nodes store coordinates with fixed precision so only exactly representable values are used.
+            entities.add(new NodeContainer(new Node(
+                    createEntityData(i, i),
+                    FixedPrecisionCoordinateConvertor.convertToDouble(515000000 + i),
+                    FixedPrecisionCoordinateConvertor.convertToDouble(-1234567 + i * 100))));
+        }
+        for (int i = 0; i < 100; i++) {
+            List<WayNode> wayNodes = new ArrayList<WayNode>();
+
+            for (int j = 0; j < 30; j++) {
+                wayNodes.add(new WayNode(i * 10 + j));
+            }
+            entities.add(new WayContainer(new Way(createEntityData(i, i), wayNodes)));
+        }
+        entities.add(new RelationContainer(new Relation(
+                createEntityData(1, 0),
+                Arrays.asList(
+                        new RelationMember(5, EntityType.Node, "stop"),
+                        new RelationMember(Long.MAX_VALUE, EntityType.Way, "")))));
+
+        return entities;
+    }
+
+    private static byte[] write(
+            ObjectSerializationFactory factory, StoreClassRegister scr, List<? extends Storeable> objects) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectWriter writer;
+
+        writer = factory.createObjectWriter(new DataOutputStoreWriter(new DataOutputStream(out)), scr);
+        for (Storeable object : objects) {
+            writer.writeObject(object);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static ObjectReader createReader(ObjectSerializationFactory factory, StoreClassRegister scr, byte[] data) {
+        return factory.createObjectReader(
+                new DataInputStoreReader(new DataInputStream(new ByteArrayInputStream(data))), scr);
+    }
+
+    /**
+     * Verifies that a mix of entity types survives a round trip.
+     */
+    @Test
+    public void testEntityRoundTrip() {
+        ObjectSerializationFactory factory = new CompactObjectSerializationFactory();
+        StoreClassRegister scr = new DynamicStoreClassRegister();
+        List<EntityContainer> entities = createEntities();
+        ObjectReader reader;
+
+        reader = createReader(factory, scr, write(factory, scr, entities));
+        for (EntityContainer expected : entities) {
+            EntityContainer actual = (EntityContainer) reader.readObject();
+
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getEntity(), actual.getEntity());
+        }
+    }
+
+    /**
+     * Verifies that the compact encoding is considerably smaller than the
+     * generic encoding.
+     */
+    @Test
+    public void testEncodingSize() {
+        List<EntityContainer> entities = createEntities();
+        int genericSize;
+        int compactSize;
+
+        genericSize = write(new GenericObjectSerializationFactory(), new DynamicStoreClassRegister(), entities).length;
+        compactSize =
+                write(new CompactObjectSerializationFactory(), new DynamicStoreClassRegister(), entities).length;
+
+        assertTrue(compactSize * 3 < genericSize, "Compact size " + compactSize + ", generic size " + genericSize);
+    }
+
+    /**
+     * Verifies that extreme and unusual values survive a round trip.
+     */
+    @Test
+    public void testValueRoundTrip() {
+        ObjectSerializationFactory factory = new CompactObjectSerializationFactory(ValueHolder.class);
+        StoreClassRegister scr = new DynamicStoreClassRegister();
+        List<ValueHolder> values;
+        ObjectReader reader;
+
+        values = Arrays.asList(
+                new ValueHolder(0, 0, 0, ""),
+                new ValueHolder(Integer.MIN_VALUE, Long.MIN_VALUE, -0.0, "\uD800 unpaired surrogate"),
+                new ValueHolder(Integer.MAX_VALUE, Long.MAX_VALUE, Double.NaN, "\u4E2D\u6587"),
+                new ValueHolder(Integer.MIN_VALUE, Long.MIN_VALUE, 1e300, "\uD800 unpaired surrogate"),
+                new ValueHolder(-1, -1, -180, "Aa"),
+                // "BB" has the same hash code as "Aa" and so replaces it in the string table.
+                new ValueHolder(1, 1, 180, "BB"),
+                new ValueHolder(1, 1, 0.1 + 0.2, "Aa"),
+                new ValueHolder(1, 1, 1e-8, "BB"));
+
+        reader = createReader(factory, scr, write(factory, scr, values));
+        for (ValueHolder expected : values) {
+            ValueHolder actual = (ValueHolder) reader.readObject();
+
+            assertEquals(expected.integerValue, actual.integerValue);
+            assertEquals(expected.longValue, actual.longValue);
+            assertEquals(
+                    Double.doubleToRawLongBits(expected.doubleValue), Double.doubleToRawLongBits(actual.doubleValue));
+            assertEquals(expected.stringValue, actual.stringValue);
+            assertEquals('\u00E9', actual.characterValue);
+            assertFalse(actual.booleanValue);
+        }
+    }
+
+    /**
+     * Verifies that a compressed chunked store can be read back chunk by
+     * chunk.
+     */
+    @Test
+    public void testChunkedStore() {
+        List<EntityContainer> entities = createEntities();
+
+        try (ChunkedObjectStore<EntityContainer> store = new ChunkedObjectStore<EntityContainer>(
+                new CompactObjectSerializationFactory(), "cpt", "cpi", true)) {
+            for (int i = 0; i < entities.size(); i++) {
+                store.add(entities.get(i));
+                if (i % 100 == 99) {
+                    store.closeChunk();
+                }
+            }
+            store.closeChunk();
+
+            // Read the chunks in reverse to ensure each is independent of those before it.
+            for (long chunk = store.getChunkCount() - 1; chunk >= 0; chunk--) {
+                try (ReleasableIterator<EntityContainer> iterator = store.iterate(chunk)) {
+                    for (int i = (int) chunk * 100; iterator.hasNext(); i++) {
+                        assertEquals(entities.get(i).getEntity(), iterator.next().getEntity());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A storeable object exercising every value type.
+     */
+    public static class ValueHolder implements Storeable {
+        private int integerValue;
+        private long longValue;
+        private double doubleValue;
+        private String stringValue;
+        private char characterValue;
+        private boolean booleanValue;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param integerValue
+         *            The integer value.
+         * @param longValue
+         *            The long value.
+         * @param doubleValue
+         *            The double value.
+         * @param stringValue
+         *            The string value.
+         */
+        public ValueHolder(int integerValue, long longValue, double doubleValue, String stringValue) {
+            this.integerValue = integerValue;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.stringValue = stringValue;
+            characterValue = '\u00E9';
+        }
+
+        /**
+         * Creates a new instance from a store.
+         *
+         * @param sr
+         *            The store to read state from.
+         * @param scr
+         *            Maintains the mapping between classes and their identifiers within the store.
+         */
+        public ValueHolder(StoreReader sr, StoreClassRegister scr) {
+            integerValue = sr.readInteger();
+            longValue = sr.readLong();
+            doubleValue = sr.readDouble();
+            stringValue = sr.readString();
+            characterValue = sr.readCharacter();
+            booleanValue = sr.readBoolean();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void store(StoreWriter sw, StoreClassRegister scr) {
+            sw.writeInteger(integerValue);
+            sw.writeLong(longValue);
+            sw.writeDouble(doubleValue);
+            sw.writeString(stringValue);
+            sw.writeCharacter(characterValue);
+            sw.writeBoolean(booleanValue);
+        }
+    }
+}
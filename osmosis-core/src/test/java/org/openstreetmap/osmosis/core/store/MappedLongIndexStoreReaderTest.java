@@ -0,0 +1,126 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the memory mapped long index store reader.
+ */
+public class MappedLongIndexStoreReaderTest {
+
+    private static IndexStore<Long, LongLongIndexElement> createStore(List<Long> keys) {
+        IndexStore<Long, LongLongIndexElement> store = new IndexStore<Long, LongLongIndexElement>(
+                LongLongIndexElement.class, new ComparableComparator<Long>(), "mlit");
+
+        for (long key : keys) {
+            store.write(new LongLongIndexElement(key, key * 3));
+        }
+        store.complete();
+
+        return store;
+    }
+
+    private static void checkKeys(List<Long> keys) {
+        List<Long> sortedKeys = new ArrayList<Long>(keys);
+
+        Collections.sort(sortedKeys);
+
+        try (IndexStore<Long, LongLongIndexElement> store = createStore(keys);
+                IndexStoreReader<Long, LongLongIndexElement> reader = store.createReader()) {
+            assertTrue(reader instanceof MappedLongIndexStoreReader, "Long index should be memory mapped.");
+
+            for (long key : sortedKeys) {
+                assertEquals(key * 3, reader.get(key).getValue());
+
+                // Neighbouring keys are only present if they were written.
+                if (Collections.binarySearch(sortedKeys, key + 1) < 0) {
+                    final long missingKey = key + 1;
+                    assertThrows(NoSuchIndexElementException.class, () -> reader.get(missingKey));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests dense keys such as those found in OSM data.
+     */
+    @Test
+    public void testDenseKeys() {
+        List<Long> keys = new ArrayList<Long>();
+
+        for (long i = 1; i <= 10000; i++) {
+            keys.add(i);
+        }
+
+        checkKeys(keys);
+    }
+
+    /**
+     * Tests sparse and badly distributed keys written out of order.
+     */
+    @Test
+    public void testSkewedKeys() {
+        Random random = new Random(1);
+        List<Long> keys = new ArrayList<Long>();
+
+        for (int i = 0; i < 5000; i++) {
+            keys.add((long) random.nextInt(1000));
+        }
+        for (int i = 0; i < 100; i++) {
+            keys.add(random.nextLong());
+        }
+        keys.addAll(Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, -1L, 0L));
+        Collections.shuffle(keys, random);
+
+        checkKeys(keys);
+    }
+
+    /**
+     * Tests retrieving ranges containing duplicate keys.
+     */
+    @Test
+    public void testRange() {
+        List<Long> keys = new ArrayList<Long>();
+
+        for (long i = 0; i < 1000; i++) {
+            keys.add(i / 4 * 2);
+        }
+
+        try (IndexStore<Long, LongLongIndexElement> store = createStore(keys);
+                IndexStoreReader<Long, LongLongIndexElement> reader = store.createReader()) {
+            Iterator<LongLongIndexElement> range;
+
+            range = reader.getRange(99L, 102L);
+            for (long expected : new long[] {100, 100, 100, 100, 102, 102, 102, 102}) {
+                assertTrue(range.hasNext());
+                assertEquals(expected, range.next().getId());
+            }
+            assertFalse(range.hasNext());
+
+            assertFalse(reader.getRange(1000L, 2000L).hasNext());
+        }
+    }
+
+    /**
+     * Tests an index containing no elements.
+     */
+    @Test
+    public void testEmpty() {
+        try (IndexStore<Long, LongLongIndexElement> store = createStore(new ArrayList<Long>());
+                IndexStoreReader<Long, LongLongIndexElement> reader = store.createReader()) {
+            assertThrows(NoSuchIndexElementException.class, () -> reader.get(1L));
+            assertFalse(reader.getRange(Long.MIN_VALUE, Long.MAX_VALUE).hasNext());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Tests the {@link RingBufferPostbox} class.
+ */
+public class RingBufferPostboxTest {
+
+    private void runTransfer(final RingBufferPostbox<Integer> postbox, final int itemCount) throws Exception {
+        final AtomicReference<Throwable> inputError = new AtomicReference<Throwable>();
+        Thread inputThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    postbox.initialize(Collections.<String, Object>singletonMap("key", "value"));
+                    for (int i = 0; i < itemCount; i++) {
+                        postbox.put(i);
+                    }
+                    postbox.complete();
+                } catch (Throwable e) {
+                    inputError.set(e);
+                } finally {
+                    postbox.close();
+                }
+            }
+        });
+        inputThread.start();
+
+        try {
+            Map<String, Object> metaData = postbox.outputInitialize();
+            assertEquals("value", metaData.get("key"), "Incorrect metadata received.");
+
+            int expected = 0;
+            while (postbox.hasNext()) {
+                assertEquals(expected++, postbox.getNext().intValue(), "Items received out of order.");
+            }
+            assertEquals(itemCount, expected, "Incorrect number of items received.");
+
+            postbox.outputComplete();
+        } finally {
+            postbox.outputRelease();
+        }
+
+        inputThread.join();
+        if (inputError.get() != null) {
+            throw new AssertionError("Input thread failed.", inputError.get());
+        }
+    }
+
+    /**
+     * Verifies that all items are passed between threads in order for each wait
+     * strategy, and that the postbox can be re-used after a successful run.
+     *
+     * @throws Exception
+     *             if an error occurs during processing.
+     */
+    @Test
+    public void testTransfer() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferPostbox<Integer> postbox = new RingBufferPostbox<Integer>(10, waitStrategy);
+
+            runTransfer(postbox, 100000);
+            runTransfer(postbox, 3);
+        }
+    }
+
+    /**
+     * Verifies that a failure in the input thread is propagated to the output
+     * thread.
+     *
+     * @throws Exception
+     *             if an error occurs during processing.
+     */
+    @Test
+    public void testInputFailure() throws Exception {
+        final RingBufferPostbox<Integer> postbox = new RingBufferPostbox<Integer>(16, WaitStrategy.Yield);
+
+        Thread inputThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    postbox.initialize(Collections.<String, Object>emptyMap());
+                    for (int i = 0; i < 100; i++) {
+                        postbox.put(i);
+                    }
+                    // Exit without calling complete to simulate a failure.
+                } finally {
+                    postbox.close();
+                }
+            }
+        });
+        inputThread.start();
+
+        try {
+            assertNotNull(postbox.outputInitialize());
+            assertThrows(OsmosisRuntimeException.class, () -> {
+                while (postbox.hasNext()) {
+                    postbox.getNext();
+                }
+            });
+        } finally {
+            postbox.outputRelease();
+        }
+
+        inputThread.join();
+    }
+
+    /**
+     * Verifies that a failure in the output thread is propagated to a blocked
+     * input thread.
+     *
+     * @throws Exception
+     *             if an error occurs during processing.
+     */
+    @Test
+    public void testOutputFailure() throws Exception {
+        final RingBufferPostbox<Integer> postbox = new RingBufferPostbox<Integer>(4, WaitStrategy.Park);
+        final AtomicReference<Throwable> inputError = new AtomicReference<Throwable>();
+
+        Thread inputThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    postbox.initialize(Collections.<String, Object>emptyMap());
+                    for (int i = 0; i < 1000; i++) {
+                        postbox.put(i);
+                    }
+                    postbox.complete();
+                } catch (Throwable e) {
+                    inputError.set(e);
+                } finally {
+                    postbox.close();
+                }
+            }
+        });
+        inputThread.start();
+
+        try {
+            postbox.outputInitialize();
+            postbox.getNext();
+            // Exit without consuming all data or calling outputComplete.
+        } finally {
+            postbox.outputRelease();
+        }
+
+        inputThread.join();
+        assertNotNull(inputError.get(), "Input thread should have failed.");
+        assertFalse(inputThread.isAlive());
+    }
+}
@@ -0,0 +1,107 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.task.v0_6;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.metrics.MeteredSink;
+import org.openstreetmap.osmosis.core.metrics.PipelineMetrics;
+
+/**
+ * Tests the filter pushdown controller and entity filter specification.
+ */
+public class FilterPushdownControllerTest {
+
+    /**
+     * Verifies that a new specification accepts everything.
+     */
+    @Test
+    public void testDefaultSpecification() {
+        EntityFilterSpecification specification = new EntityFilterSpecification();
+
+        assertTrue(specification.isEntityTypeRequired(EntityType.Node));
+        assertTrue(specification.isEntityTypeRequired(EntityType.Way));
+        assertTrue(specification.isEntityTypeRequired(EntityType.Relation));
+        assertTrue(specification.isNodeWithinBoundingBox(89, 179));
+        assertNull(specification.getRequiredTagKeys(EntityType.Way));
+        assertTrue(specification.isMetadataRequired());
+    }
+
+    /**
+     * Verifies that a bounding box crossing the antimeridian is checked on both
+     * sides.
+     */
+    @Test
+    public void testAntimeridianBoundingBox() {
+        EntityFilterSpecification specification = new EntityFilterSpecification();
+
+        specification.setBoundingBox(new Bound(-170, 170, 10, -10, ""));
+        specification.rejectEntityType(EntityType.Way);
+
+        assertTrue(specification.isNodeWithinBoundingBox(10, 175));
+        assertTrue(specification.isNodeWithinBoundingBox(-10, -175));
+        assertFalse(specification.isNodeWithinBoundingBox(0, 0));
+        assertFalse(specification.isNodeWithinBoundingBox(11, 175));
+        assertFalse(specification.isEntityTypeRequired(EntityType.Way));
+        assertTrue(specification.isEntityTypeRequired(EntityType.Bound));
+    }
+
+    /**
+     * Verifies that only the directly connected sink may push down a filter,
+     * and that metering doesn't prevent it.
+     */
+    @Test
+    public void testDirectSinkOnly() {
+        EntityFilterSpecification specification = new EntityFilterSpecification();
+        PushingSink pushingSink = new PushingSink(specification);
+        MeteredSink meteredSink =
+                new MeteredSink(pushingSink, new PipelineMetrics().createPipeMetrics("source", "sink"));
+        FilterPushdownController controller = new FilterPushdownController(meteredSink);
+
+        assertFalse(controller.pushDown(pushingSink, specification));
+        assertNull(controller.getSpecification());
+
+        meteredSink.initialize(controller.addToMetaData(Collections.emptyMap()));
+
+        assertTrue(pushingSink.accepted);
+        assertSame(specification, controller.getSpecification());
+    }
+
+    private static class PushingSink implements Sink {
+        private EntityFilterSpecification specification;
+        private boolean accepted;
+
+        PushingSink(EntityFilterSpecification specification) {
+            this.specification = specification;
+        }
+
+        @Override
+        public void initialize(Map<String, Object> metaData) {
+            accepted = ((FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY))
+                    .pushDown(this, specification);
+        }
+
+        @Override
+        public void process(EntityContainer entityContainer) {
+            // Do nothing.
+        }
+
+        @Override
+        public void complete() {
+            // Do nothing.
+        }
+
+        @Override
+        public void close() {
+            // Do nothing.
+        }
+    }
+}
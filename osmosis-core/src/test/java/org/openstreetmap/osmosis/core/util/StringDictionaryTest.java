@@ -0,0 +1,111 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the string dictionary.
+ */
+public class StringDictionaryTest {
+
+    /**
+     * Verifies that equal strings are replaced by a single instance.
+     */
+    @Test
+    public void testSharing() {
+        StringDictionary dictionary = new StringDictionary(16);
+        String first = new String("highway");
+        String second = new String("highway");
+
+        assertSame(first, dictionary.get(first));
+        assertSame(first, dictionary.get(second));
+        assertNull(dictionary.get(null));
+
+        assertEquals(1, dictionary.getHitCount());
+        assertEquals(1, dictionary.getMissCount());
+        assertEquals(0.5, dictionary.getHitRate());
+        assertTrue(dictionary.getBytesSaved() > 0);
+    }
+
+    /**
+     * Verifies that colliding and long strings are never confused.
+     */
+    @Test
+    public void testBounded() {
+        StringDictionary dictionary = new StringDictionary(1);
+        String longString;
+
+        // "Aa" and "BB" share a hash code and so compete for the same slot.
+        assertEquals("Aa", dictionary.get("Aa"));
+        assertEquals("BB", dictionary.get(new String("BB")));
+        assertEquals("Aa", dictionary.get(new String("Aa")));
+
+        longString = "x".repeat(StringDictionary.MAX_STRING_LENGTH + 1);
+        assertSame(longString, dictionary.get(longString));
+        assertEquals(0, dictionary.getHitCount());
+    }
+
+    /**
+     * Verifies that the global dictionary is only used when enabled.
+     */
+    @Test
+    public void testGlobalDictionary() {
+        String first = new String("yes");
+        String second = new String("yes");
+
+        assertSame(second, StringDictionary.intern(second));
+
+        StringDictionary.enable(StringDictionary.DEFAULT_CAPACITY);
+        try {
+            assertSame(first, StringDictionary.intern(first));
+            assertSame(first, StringDictionary.intern(second));
+            assertEquals(1, StringDictionary.getGlobalDictionary().getHitCount());
+        } finally {
+            StringDictionary.disable();
+        }
+
+        assertNull(StringDictionary.getGlobalDictionary());
+    }
+
+    /**
+     * Verifies that concurrent lookups always return equal strings.
+     *
+     * @throws Exception
+     *             if a lookup thread fails.
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        StringDictionary dictionary = new StringDictionary(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try {
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100000; i++) {
+                        String value = Integer.toString(i % 200);
+
+                        assertEquals(value, dictionary.get(value));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(400000, dictionary.getHitCount() + dictionary.getMissCount());
+    }
+}
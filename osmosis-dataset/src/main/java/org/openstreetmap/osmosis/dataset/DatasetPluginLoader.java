@@ -7,6 +7,8 @@ import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 import org.openstreetmap.osmosis.core.plugin.PluginLoader;
 import org.openstreetmap.osmosis.dataset.v0_6.DatasetBoundingBoxFilterFactory;
 import org.openstreetmap.osmosis.dataset.v0_6.DumpDatasetFactory;
+import org.openstreetmap.osmosis.dataset.v0_6.FileDatasetReaderFactory;
+import org.openstreetmap.osmosis.dataset.v0_6.FileDatasetWriterFactory;
 
 /**
  * The plugin loader for the dataset tasks.
@@ -28,9 +30,15 @@ public class DatasetPluginLoader implements PluginLoader {
         factoryMap.put("dd", new DumpDatasetFactory());
         factoryMap.put("dataset-bounding-box", new DatasetBoundingBoxFilterFactory());
         factoryMap.put("dbb", new DatasetBoundingBoxFilterFactory());
+        factoryMap.put("write-dataset-file", new FileDatasetWriterFactory());
+        factoryMap.put("wdf", new FileDatasetWriterFactory());
+        factoryMap.put("read-dataset-file", new FileDatasetReaderFactory());
+        factoryMap.put("rdf", new FileDatasetReaderFactory());
 
         factoryMap.put("dataset-dump-0.6", new DumpDatasetFactory());
         factoryMap.put("dataset-bounding-box-0.6", new DatasetBoundingBoxFilterFactory());
+        factoryMap.put("write-dataset-file-0.6", new FileDatasetWriterFactory());
+        factoryMap.put("read-dataset-file-0.6", new FileDatasetReaderFactory());
 
         return factoryMap;
     }
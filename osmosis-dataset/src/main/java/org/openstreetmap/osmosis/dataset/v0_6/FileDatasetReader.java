@@ -0,0 +1,58 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6;
+
+import java.io.File;
+import org.openstreetmap.osmosis.core.container.v0_6.Dataset;
+import org.openstreetmap.osmosis.core.container.v0_6.DatasetContext;
+import org.openstreetmap.osmosis.core.task.v0_6.DatasetSink;
+import org.openstreetmap.osmosis.core.task.v0_6.RunnableDatasetSource;
+import org.openstreetmap.osmosis.dataset.v0_6.impl.DatasetFiles;
+import org.openstreetmap.osmosis.dataset.v0_6.impl.FileDatasetContext;
+
+/**
+ * An OSM dataset source exposing generic access to a file based dataset created
+ * by {@link FileDatasetWriter}.
+ */
+public class FileDatasetReader implements RunnableDatasetSource, Dataset {
+    private DatasetSink datasetSink;
+    private DatasetFiles files;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory
+     *            The directory containing the dataset.
+     */
+    public FileDatasetReader(File directory) {
+        files = new DatasetFiles(directory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDatasetSink(DatasetSink datasetSink) {
+        this.datasetSink = datasetSink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        try {
+            datasetSink.process(this);
+
+        } finally {
+            datasetSink.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DatasetContext createReader() {
+        return new FileDatasetContext(files);
+    }
+}
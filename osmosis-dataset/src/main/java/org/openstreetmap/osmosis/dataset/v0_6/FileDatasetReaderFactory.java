@@ -0,0 +1,31 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6;
+
+import java.io.File;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.RunnableDatasetSourceManager;
+
+/**
+ * The task manager factory for a file based dataset reader.
+ */
+public class FileDatasetReaderFactory extends TaskManagerFactory {
+    private static final String ARG_DIRECTORY = "directory";
+    private static final String DEFAULT_DIRECTORY = "dataset";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+        String directoryName;
+
+        // Get the task arguments.
+        directoryName = getStringArgument(
+                taskConfig, ARG_DIRECTORY, getDefaultStringArgument(taskConfig, DEFAULT_DIRECTORY));
+
+        return new RunnableDatasetSourceManager(
+                taskConfig.getId(), new FileDatasetReader(new File(directoryName)), taskConfig.getPipeArgs());
+    }
+}
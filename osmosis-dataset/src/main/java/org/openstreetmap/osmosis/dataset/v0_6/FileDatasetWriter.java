@@ -0,0 +1,220 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6;
+
+import java.io.File;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityProcessor;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.store.ComparableComparator;
+import org.openstreetmap.osmosis.core.store.IndexStore;
+import org.openstreetmap.osmosis.core.store.IndexedObjectStore;
+import org.openstreetmap.osmosis.core.store.IntegerLongIndexElement;
+import org.openstreetmap.osmosis.core.store.LongLongIndexElement;
+import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.UnsignedIntegerComparator;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.util.TileCalculator;
+import org.openstreetmap.osmosis.dataset.v0_6.impl.DatasetFiles;
+
+/**
+ * Writes entities to a file based dataset which can be read by
+ * {@link FileDatasetReader}. The dataset consists of id indexed entity files, a
+ * node tile index, and back-reference indexes allowing the ways and relations
+ * referencing an entity to be located. Any existing dataset in the directory
+ * is replaced.
+ */
+public class FileDatasetWriter implements Sink, EntityProcessor {
+
+    private static final Logger LOG = Logger.getLogger(FileDatasetWriter.class.getName());
+
+    private DatasetFiles files;
+    private TileCalculator tileCalculator;
+    private IndexedObjectStore<Node> nodeStore;
+    private IndexedObjectStore<Way> wayStore;
+    private IndexedObjectStore<Relation> relationStore;
+    private IndexStore<Integer, IntegerLongIndexElement> nodeTileIndex;
+    private IndexStore<Long, LongLongIndexElement> nodeWayIndex;
+    private IndexStore<Long, LongLongIndexElement> nodeRelationIndex;
+    private IndexStore<Long, LongLongIndexElement> wayRelationIndex;
+    private IndexStore<Long, LongLongIndexElement> relationRelationIndex;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory
+     *            The directory to write the dataset to. It will be created if
+     *            it doesn't exist.
+     */
+    public FileDatasetWriter(File directory) {
+        files = new DatasetFiles(directory);
+
+        tileCalculator = new TileCalculator();
+    }
+
+    private static IndexStore<Long, LongLongIndexElement> createBackReferenceIndex(File file) {
+        return new IndexStore<Long, LongLongIndexElement>(
+                LongLongIndexElement.class, new ComparableComparator<Long>(), file);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(Map<String, Object> metaData) {
+        File directory = files.getDirectory();
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new OsmosisRuntimeException("Unable to create dataset directory " + directory + ".");
+        }
+
+        nodeStore = new IndexedObjectStore<Node>(
+                new SingleClassObjectSerializationFactory(Node.class),
+                files.getNodeDataFile(),
+                files.getNodeIndexFile());
+        wayStore = new IndexedObjectStore<Way>(
+                new SingleClassObjectSerializationFactory(Way.class),
+                files.getWayDataFile(),
+                files.getWayIndexFile());
+        relationStore = new IndexedObjectStore<Relation>(
+                new SingleClassObjectSerializationFactory(Relation.class),
+                files.getRelationDataFile(),
+                files.getRelationIndexFile());
+
+        nodeTileIndex = new IndexStore<Integer, IntegerLongIndexElement>(
+                IntegerLongIndexElement.class, new UnsignedIntegerComparator(), files.getNodeTileIndexFile());
+        nodeWayIndex = createBackReferenceIndex(files.getNodeWayIndexFile());
+        nodeRelationIndex = createBackReferenceIndex(files.getNodeRelationIndexFile());
+        wayRelationIndex = createBackReferenceIndex(files.getWayRelationIndexFile());
+        relationRelationIndex = createBackReferenceIndex(files.getRelationRelationIndexFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(EntityContainer entityContainer) {
+        entityContainer.process(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(BoundContainer boundContainer) {
+        // Bounds aren't stored, the dataset reader generates bounds for the
+        // data it returns.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(NodeContainer nodeContainer) {
+        Node node = nodeContainer.getEntity();
+
+        nodeStore.add(node.getId(), node);
+        nodeTileIndex.write(new IntegerLongIndexElement(
+                (int) tileCalculator.calculateTile(node.getLatitude(), node.getLongitude()), node.getId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(WayContainer wayContainer) {
+        Way way = wayContainer.getEntity();
+        long previousNodeId = Long.MIN_VALUE;
+
+        wayStore.add(way.getId(), way);
+
+        for (WayNode wayNode : way.getWayNodes()) {
+            long nodeId = wayNode.getNodeId();
+
+            // Skip the duplicate reference created by closed ways, other
+            // duplicates are rare and are tolerated by readers.
+            if (nodeId != previousNodeId) {
+                nodeWayIndex.write(new LongLongIndexElement(nodeId, way.getId()));
+            }
+            previousNodeId = nodeId;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(RelationContainer relationContainer) {
+        Relation relation = relationContainer.getEntity();
+
+        relationStore.add(relation.getId(), relation);
+
+        for (RelationMember member : relation.getMembers()) {
+            LongLongIndexElement element = new LongLongIndexElement(member.getMemberId(), relation.getId());
+
+            switch (member.getMemberType()) {
+                case Node:
+                    nodeRelationIndex.write(element);
+                    break;
+                case Way:
+                    wayRelationIndex.write(element);
+                    break;
+                case Relation:
+                    relationRelationIndex.write(element);
+                    break;
+                default:
+                    // Other member types can't be queried for.
+                    break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        LOG.fine("Completing entity stores.");
+        nodeStore.complete();
+        wayStore.complete();
+        relationStore.complete();
+
+        // Completing the indexes sorts them by key if they weren't written in
+        // key order.
+        LOG.fine("Completing indexes.");
+        nodeTileIndex.complete();
+        nodeWayIndex.complete();
+        nodeRelationIndex.complete();
+        wayRelationIndex.complete();
+        relationRelationIndex.complete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (nodeStore != null) {
+            nodeStore.close();
+            wayStore.close();
+            relationStore.close();
+            nodeTileIndex.close();
+            nodeWayIndex.close();
+            nodeRelationIndex.close();
+            wayRelationIndex.close();
+            relationRelationIndex.close();
+
+            nodeStore = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6;
+
+import java.io.File;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
+import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
+import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
+
+/**
+ * The task manager factory for a file based dataset writer.
+ */
+public class FileDatasetWriterFactory extends TaskManagerFactory {
+    private static final String ARG_DIRECTORY = "directory";
+    private static final String DEFAULT_DIRECTORY = "dataset";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
+        String directoryName;
+
+        // Get the task arguments.
+        directoryName = getStringArgument(
+                taskConfig, ARG_DIRECTORY, getDefaultStringArgument(taskConfig, DEFAULT_DIRECTORY));
+
+        return new SinkManager(
+                taskConfig.getId(), new FileDatasetWriter(new File(directoryName)), taskConfig.getPipeArgs());
+    }
+}
@@ -0,0 +1,140 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6.impl;
+
+import java.io.File;
+
+/**
+ * Identifies the files making up a file based dataset within its directory.
+ * <p>
+ * Each entity type is stored in a data file holding the serialised entities,
+ * and an index file mapping entity ids to data file offsets. Nodes are also
+ * indexed by tile, and back-reference indexes map each node, way and relation
+ * to the ways and relations referencing them. All index files are ordered by
+ * key and use the {@link org.openstreetmap.osmosis.core.store.IndexStore}
+ * format.
+ */
+public class DatasetFiles {
+
+    private File directory;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory
+     *            The directory containing the dataset.
+     */
+    public DatasetFiles(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory containing the dataset.
+     *
+     * @return The directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the file holding the serialised nodes.
+     *
+     * @return The file.
+     */
+    public File getNodeDataFile() {
+        return new File(directory, "nodes.dat");
+    }
+
+    /**
+     * Returns the file mapping node ids to node data offsets.
+     *
+     * @return The file.
+     */
+    public File getNodeIndexFile() {
+        return new File(directory, "nodes.idx");
+    }
+
+    /**
+     * Returns the file holding the serialised ways.
+     *
+     * @return The file.
+     */
+    public File getWayDataFile() {
+        return new File(directory, "ways.dat");
+    }
+
+    /**
+     * Returns the file mapping way ids to way data offsets.
+     *
+     * @return The file.
+     */
+    public File getWayIndexFile() {
+        return new File(directory, "ways.idx");
+    }
+
+    /**
+     * Returns the file holding the serialised relations.
+     *
+     * @return The file.
+     */
+    public File getRelationDataFile() {
+        return new File(directory, "relations.dat");
+    }
+
+    /**
+     * Returns the file mapping relation ids to relation data offsets.
+     *
+     * @return The file.
+     */
+    public File getRelationIndexFile() {
+        return new File(directory, "relations.idx");
+    }
+
+    /**
+     * Returns the file mapping tiles to the ids of the nodes within them.
+     *
+     * @return The file.
+     */
+    public File getNodeTileIndexFile() {
+        return new File(directory, "node-tiles.idx");
+    }
+
+    /**
+     * Returns the file mapping node ids to the ids of the ways containing them.
+     *
+     * @return The file.
+     */
+    public File getNodeWayIndexFile() {
+        return new File(directory, "node-ways.idx");
+    }
+
+    /**
+     * Returns the file mapping node ids to the ids of the relations containing
+     * them.
+     *
+     * @return The file.
+     */
+    public File getNodeRelationIndexFile() {
+        return new File(directory, "node-relations.idx");
+    }
+
+    /**
+     * Returns the file mapping way ids to the ids of the relations containing
+     * them.
+     *
+     * @return The file.
+     */
+    public File getWayRelationIndexFile() {
+        return new File(directory, "way-relations.idx");
+    }
+
+    /**
+     * Returns the file mapping relation ids to the ids of the relations
+     * containing them.
+     *
+     * @return The file.
+     */
+    public File getRelationRelationIndexFile() {
+        return new File(directory, "relation-relations.idx");
+    }
+}
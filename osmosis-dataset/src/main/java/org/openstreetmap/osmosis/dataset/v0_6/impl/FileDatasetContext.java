@@ -0,0 +1,365 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisConstants;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainerIterator;
+import org.openstreetmap.osmosis.core.container.v0_6.DatasetContext;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityManager;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainerIterator;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainerIterator;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainerIterator;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.filter.common.IdTracker;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerFactory;
+import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.ComparableComparator;
+import org.openstreetmap.osmosis.core.store.IndexStore;
+import org.openstreetmap.osmosis.core.store.IndexStoreReader;
+import org.openstreetmap.osmosis.core.store.IndexedObjectStoreReader;
+import org.openstreetmap.osmosis.core.store.IntegerLongIndexElement;
+import org.openstreetmap.osmosis.core.store.LongLongIndexElement;
+import org.openstreetmap.osmosis.core.store.MultipleSourceIterator;
+import org.openstreetmap.osmosis.core.store.RandomAccessObjectStore;
+import org.openstreetmap.osmosis.core.store.ReleasableAdaptorForIterator;
+import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.store.Storeable;
+import org.openstreetmap.osmosis.core.store.UnsignedIntegerComparator;
+import org.openstreetmap.osmosis.core.store.UpcastIterator;
+import org.openstreetmap.osmosis.dataset.v0_6.impl.TileRangeCalculator.TileRange;
+
+/**
+ * Provides read-only access to a dataset created by
+ * {@link org.openstreetmap.osmosis.dataset.v0_6.FileDatasetWriter}. Bounding box
+ * queries are answered using the node tile index and the back-reference
+ * indexes so only the entities being returned are read from the data files.
+ */
+public class FileDatasetContext implements DatasetContext {
+
+    private static final Logger LOG = Logger.getLogger(FileDatasetContext.class.getName());
+
+    private List<RandomAccessObjectStore<?>> objectStores;
+    private List<IndexStore<?, ?>> indexStores;
+    private FileEntityManager<Node> nodeManager;
+    private FileEntityManager<Way> wayManager;
+    private FileEntityManager<Relation> relationManager;
+    private IndexedObjectStoreReader<Node> nodeReader;
+    private IndexedObjectStoreReader<Way> wayReader;
+    private IndexedObjectStoreReader<Relation> relationReader;
+    private IndexStoreReader<Integer, IntegerLongIndexElement> nodeTileReader;
+    private IndexStoreReader<Long, LongLongIndexElement> nodeWayReader;
+    private IndexStoreReader<Long, LongLongIndexElement> nodeRelationReader;
+    private IndexStoreReader<Long, LongLongIndexElement> wayRelationReader;
+    private IndexStoreReader<Long, LongLongIndexElement> relationRelationReader;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param files
+     *            The files making up the dataset.
+     */
+    public FileDatasetContext(DatasetFiles files) {
+        if (!files.getNodeIndexFile().exists()) {
+            throw new OsmosisRuntimeException("No dataset exists in directory " + files.getDirectory() + ".");
+        }
+
+        objectStores = new ArrayList<RandomAccessObjectStore<?>>();
+        indexStores = new ArrayList<IndexStore<?, ?>>();
+
+        // The stores are opened against existing files and never completed so
+        // that the files are read in place without being truncated.
+        RandomAccessObjectStore<Node> nodeStore = openObjectStore(Node.class, files.getNodeDataFile());
+        RandomAccessObjectStore<Way> wayStore = openObjectStore(Way.class, files.getWayDataFile());
+        RandomAccessObjectStore<Relation> relationStore =
+                openObjectStore(Relation.class, files.getRelationDataFile());
+
+        nodeReader = new IndexedObjectStoreReader<Node>(
+                nodeStore.createReader(), openLongIndex(files.getNodeIndexFile()));
+        wayReader = new IndexedObjectStoreReader<Way>(
+                wayStore.createReader(), openLongIndex(files.getWayIndexFile()));
+        relationReader = new IndexedObjectStoreReader<Relation>(
+                relationStore.createReader(), openLongIndex(files.getRelationIndexFile()));
+
+        nodeManager = new FileEntityManager<Node>(nodeStore, nodeReader);
+        wayManager = new FileEntityManager<Way>(wayStore, wayReader);
+        relationManager = new FileEntityManager<Relation>(relationStore, relationReader);
+
+        IndexStore<Integer, IntegerLongIndexElement> nodeTileIndex = new IndexStore<Integer, IntegerLongIndexElement>(
+                IntegerLongIndexElement.class, new UnsignedIntegerComparator(), files.getNodeTileIndexFile());
+        indexStores.add(nodeTileIndex);
+        nodeTileReader = nodeTileIndex.createReader();
+        nodeWayReader = openLongIndex(files.getNodeWayIndexFile());
+        nodeRelationReader = openLongIndex(files.getNodeRelationIndexFile());
+        wayRelationReader = openLongIndex(files.getWayRelationIndexFile());
+        relationRelationReader = openLongIndex(files.getRelationRelationIndexFile());
+    }
+
+    private <T extends Storeable> RandomAccessObjectStore<T> openObjectStore(Class<T> entityClass, File file) {
+        RandomAccessObjectStore<T> store =
+                new RandomAccessObjectStore<T>(new SingleClassObjectSerializationFactory(entityClass), file);
+
+        objectStores.add(store);
+
+        return store;
+    }
+
+    private IndexStoreReader<Long, LongLongIndexElement> openLongIndex(File file) {
+        IndexStore<Long, LongLongIndexElement> store = new IndexStore<Long, LongLongIndexElement>(
+                LongLongIndexElement.class, new ComparableComparator<Long>(), file);
+
+        indexStores.add(store);
+
+        return store.createReader();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Deprecated
+    public Node getNode(long id) {
+        return nodeManager.getEntity(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Deprecated
+    public Way getWay(long id) {
+        return wayManager.getEntity(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Deprecated
+    public Relation getRelation(long id) {
+        return relationManager.getEntity(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EntityManager<Node> getNodeManager() {
+        return nodeManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EntityManager<Way> getWayManager() {
+        return wayManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EntityManager<Relation> getRelationManager() {
+        return relationManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReleasableIterator<EntityContainer> iterate() {
+        List<Bound> bounds;
+        List<ReleasableIterator<EntityContainer>> sources;
+
+        bounds = new ArrayList<Bound>();
+        bounds.add(new Bound("Osmosis " + OsmosisConstants.VERSION));
+
+        sources = new ArrayList<ReleasableIterator<EntityContainer>>();
+        sources.add(new UpcastIterator<EntityContainer, BoundContainer>(
+                new BoundContainerIterator(new ReleasableAdaptorForIterator<Bound>(
+                        bounds.iterator()))));
+        sources.add(new UpcastIterator<EntityContainer, NodeContainer>(
+                new NodeContainerIterator(nodeManager.iterate())));
+        sources.add(new UpcastIterator<EntityContainer, WayContainer>(
+                new WayContainerIterator(wayManager.iterate())));
+        sources.add(
+                new UpcastIterator<EntityContainer, RelationContainer>(
+                        new RelationContainerIterator(relationManager.iterate())));
+
+        return new MultipleSourceIterator<EntityContainer>(sources);
+    }
+
+    private static boolean isInside(Node node, double left, double right, double top, double bottom) {
+        double latitude = node.getLatitude();
+        double longitude = node.getLongitude();
+        boolean longitudeInside;
+
+        if (left > right) {
+            longitudeInside = longitude >= left || longitude <= right;
+        } else {
+            longitudeInside = longitude >= left && longitude <= right;
+        }
+
+        return longitudeInside && latitude <= top && latitude >= bottom;
+    }
+
+    private static void addReferences(
+            IndexStoreReader<Long, LongLongIndexElement> index, long id, IdTracker target, IdTracker added) {
+        Iterator<LongLongIndexElement> references = index.getRange(id, id);
+
+        while (references.hasNext()) {
+            long referencingId = references.next().getValue();
+
+            if (!target.get(referencingId)) {
+                target.set(referencingId);
+                if (added != null) {
+                    added.set(referencingId);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReleasableIterator<EntityContainer> iterateBoundingBox(
+            double left, double right, double top, double bottom, boolean completeWays) {
+        IdTracker nodeIds;
+        IdTracker wayIds;
+        IdTracker relationIds;
+        IdTracker pendingRelationIds;
+        List<Bound> bounds;
+        List<ReleasableIterator<EntityContainer>> sources;
+
+        nodeIds = IdTrackerFactory.createInstance(IdTrackerType.Dynamic);
+        wayIds = IdTrackerFactory.createInstance(IdTrackerType.Dynamic);
+        relationIds = IdTrackerFactory.createInstance(IdTrackerType.Dynamic);
+
+        // Select all nodes inside the box. Only nodes in tiles on the edge of
+        // the box need their coordinates checked.
+        LOG.finer("Selecting nodes inside the bounding box.");
+        for (TileRange range : new TileRangeCalculator().calculateRanges(left, right, top, bottom)) {
+            Iterator<IntegerLongIndexElement> tileElements =
+                    nodeTileReader.getRange((int) range.getBegin(), (int) range.getEnd());
+
+            while (tileElements.hasNext()) {
+                long nodeId = tileElements.next().getValue();
+
+                if (!range.isBoundary() || isInside(nodeManager.getEntity(nodeId), left, right, top, bottom)) {
+                    nodeIds.set(nodeId);
+                }
+            }
+        }
+
+        // Select all ways and relations referencing the selected nodes, and
+        // all relations referencing the selected ways.
+        LOG.finer("Selecting ways and relations referencing the selected nodes.");
+        for (long nodeId : nodeIds) {
+            addReferences(nodeWayReader, nodeId, wayIds, null);
+            addReferences(nodeRelationReader, nodeId, relationIds, null);
+        }
+        for (long wayId : wayIds) {
+            addReferences(wayRelationReader, wayId, relationIds, null);
+        }
+
+        // Select parent relations until no new relations are found.
+        LOG.finer("Selecting parent relations.");
+        pendingRelationIds = relationIds;
+        do {
+            IdTracker addedRelationIds = IdTrackerFactory.createInstance(IdTrackerType.Dynamic);
+            List<Long> currentIds = new ArrayList<Long>();
+
+            for (long relationId : pendingRelationIds) {
+                currentIds.add(relationId);
+            }
+            for (long relationId : currentIds) {
+                addReferences(relationRelationReader, relationId, relationIds, addedRelationIds);
+            }
+
+            pendingRelationIds = addedRelationIds;
+        } while (pendingRelationIds.iterator().hasNext());
+
+        // Add the nodes of selected ways that lie outside the box.
+        if (completeWays) {
+            LOG.finer("Selecting the missing nodes of selected ways.");
+            for (long wayId : wayIds) {
+                Way way = wayManager.getEntityIfExists(wayId);
+
+                if (way != null) {
+                    for (WayNode wayNode : way.getWayNodes()) {
+                        nodeIds.set(wayNode.getNodeId());
+                    }
+                }
+            }
+        }
+
+        bounds = new ArrayList<Bound>();
+        bounds.add(new Bound(right, left, top, bottom, "Osmosis " + OsmosisConstants.VERSION));
+
+        // Entities are loaded lazily in id order as they are iterated.
+        sources = new ArrayList<ReleasableIterator<EntityContainer>>();
+        sources.add(new UpcastIterator<EntityContainer, BoundContainer>(
+                new BoundContainerIterator(new ReleasableAdaptorForIterator<Bound>(
+                        bounds.iterator()))));
+        sources.add(new UpcastIterator<EntityContainer, NodeContainer>(
+                new NodeContainerIterator(new IdEntityIterator<Node>(nodeIds.iterator(), nodeManager))));
+        sources.add(new UpcastIterator<EntityContainer, WayContainer>(
+                new WayContainerIterator(new IdEntityIterator<Way>(wayIds.iterator(), wayManager))));
+        sources.add(
+                new UpcastIterator<EntityContainer, RelationContainer>(
+                        new RelationContainerIterator(
+                                new IdEntityIterator<Relation>(relationIds.iterator(), relationManager))));
+
+        return new MultipleSourceIterator<EntityContainer>(sources);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete() {
+        // Nothing to do, the dataset is read-only.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (nodeReader != null) {
+            nodeReader.close();
+            wayReader.close();
+            relationReader.close();
+            nodeTileReader.close();
+            nodeWayReader.close();
+            nodeRelationReader.close();
+            wayRelationReader.close();
+            relationRelationReader.close();
+
+            for (IndexStore<?, ?> indexStore : indexStores) {
+                indexStore.close();
+            }
+            for (RandomAccessObjectStore<?> objectStore : objectStores) {
+                objectStore.close();
+            }
+
+            nodeReader = null;
+        }
+    }
+}
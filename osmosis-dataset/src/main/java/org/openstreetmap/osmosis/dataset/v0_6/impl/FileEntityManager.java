@@ -0,0 +1,105 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6.impl;
+
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityManager;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.IndexedObjectStoreReader;
+import org.openstreetmap.osmosis.core.store.NoSuchIndexElementException;
+import org.openstreetmap.osmosis.core.store.RandomAccessObjectStore;
+import org.openstreetmap.osmosis.core.store.RandomAccessObjectStoreReader;
+import org.openstreetmap.osmosis.core.store.ReleasableAdaptorForIterator;
+import org.openstreetmap.osmosis.core.store.StoreReleasingIterator;
+
+/**
+ * Provides read-only access to the entities of a single type within a file
+ * based dataset.
+ *
+ * @param <T>
+ *            The entity type to be supported.
+ */
+public class FileEntityManager<T extends Entity> implements EntityManager<T> {
+
+    private RandomAccessObjectStore<T> objectStore;
+    private IndexedObjectStoreReader<T> indexedReader;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param objectStore
+     *            The store holding the entity data.
+     * @param indexedReader
+     *            The reader providing access to entities by id.
+     */
+    public FileEntityManager(RandomAccessObjectStore<T> objectStore, IndexedObjectStoreReader<T> indexedReader) {
+        this.objectStore = objectStore;
+        this.indexedReader = indexedReader;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getEntity(long id) {
+        return indexedReader.get(id);
+    }
+
+    /**
+     * Returns the entity with the specified id if it exists.
+     *
+     * @param id
+     *            The entity id.
+     * @return The entity, or null if it doesn't exist.
+     */
+    public T getEntityIfExists(long id) {
+        try {
+            return indexedReader.get(id);
+        } catch (NoSuchIndexElementException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReleasableIterator<T> iterate() {
+        RandomAccessObjectStoreReader<T> reader = objectStore.createReader();
+
+        // The reader is released along with the iterator.
+        return new StoreReleasingIterator<T>(new ReleasableAdaptorForIterator<T>(reader.iterate()), reader);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists(long id) {
+        return getEntityIfExists(id) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntity(T entity) {
+        throw new OsmosisRuntimeException("File datasets are read-only.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modifyEntity(T entity) {
+        throw new OsmosisRuntimeException("File datasets are read-only.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntity(long entityId) {
+        throw new OsmosisRuntimeException("File datasets are read-only.");
+    }
+}
@@ -0,0 +1,79 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+
+/**
+ * Loads the entities identified by a sequence of ids. Ids that don't exist in
+ * the dataset are skipped.
+ *
+ * @param <T>
+ *            The type of entity to be returned.
+ */
+public class IdEntityIterator<T extends Entity> implements ReleasableIterator<T> {
+
+    private Iterator<Long> ids;
+    private FileEntityManager<T> entityManager;
+    private T nextEntity;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param ids
+     *            The ids of the entities to be returned.
+     * @param entityManager
+     *            The manager to load entities from.
+     */
+    public IdEntityIterator(Iterator<Long> ids, FileEntityManager<T> entityManager) {
+        this.ids = ids;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (nextEntity == null && ids.hasNext()) {
+            nextEntity = entityManager.getEntityIfExists(ids.next());
+        }
+
+        return nextEntity != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next() {
+        T result;
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        result = nextEntity;
+        nextEntity = null;
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // The entity manager is owned by the dataset context.
+    }
+}
@@ -0,0 +1,212 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculates the ranges of tile values produced by
+ * {@link org.openstreetmap.osmosis.core.util.TileCalculator} that cover a
+ * bounding box. Tiles interleave the bits of the x and y tile coordinates so a
+ * bounding box doesn't map to a single contiguous range of tiles. The box is
+ * recursively divided into aligned square cells, each of which is a contiguous
+ * tile range.
+ * <p>
+ * Cells are only divided down to a size relative to the box dimensions so that
+ * the number of ranges remains small. Ranges that may contain points outside
+ * the box are flagged so that callers can check the coordinates of the points
+ * they contain, points within all other ranges are guaranteed to be inside the
+ * box.
+ */
+public class TileRangeCalculator {
+
+    private static final int TILE_BITS = 16;
+    private static final int MAX_TILE_COORDINATE = (1 << TILE_BITS) - 1;
+
+    /**
+     * The number of cells to divide the smallest box dimension into before
+     * cells are no longer divided.
+     */
+    private static final int CELLS_PER_DIMENSION = 16;
+
+    private int outerMinX;
+    private int outerMaxX;
+    private int outerMinY;
+    private int outerMaxY;
+    private int minLevel;
+    private List<TileRange> ranges;
+
+    private static int calculateX(double longitude) {
+        return (int) Math.round((longitude + 180) * MAX_TILE_COORDINATE / 360);
+    }
+
+    private static int calculateY(double latitude) {
+        return (int) Math.round((latitude + 90) * MAX_TILE_COORDINATE / 180);
+    }
+
+    private static long interleave(int x, int y) {
+        long tile = 0;
+
+        for (int i = TILE_BITS - 1; i >= 0; i--) {
+            tile = (tile << 1) | ((x >> i) & 1);
+            tile = (tile << 1) | ((y >> i) & 1);
+        }
+
+        return tile;
+    }
+
+    /**
+     * Calculates the tile ranges covering a bounding box. The box is inclusive
+     * of all edges. The left edge may be greater than the right edge in which
+     * case the box crosses the anti-meridian.
+     *
+     * @param left
+     *            The longitude marking the left edge of the bounding box.
+     * @param right
+     *            The longitude marking the right edge of the bounding box.
+     * @param top
+     *            The latitude marking the top edge of the bounding box.
+     * @param bottom
+     *            The latitude marking the bottom edge of the bounding box.
+     * @return The tile ranges ordered by tile.
+     */
+    public List<TileRange> calculateRanges(double left, double right, double top, double bottom) {
+        ranges = new ArrayList<TileRange>();
+
+        if (bottom > top) {
+            return ranges;
+        }
+
+        if (left > right) {
+            addRanges(left, 180, top, bottom);
+            addRanges(-180, right, top, bottom);
+            ranges.sort((r1, r2) -> Long.compare(r1.getBegin(), r2.getBegin()));
+        } else {
+            addRanges(left, right, top, bottom);
+        }
+
+        return mergeRanges(ranges);
+    }
+
+    private void addRanges(double left, double right, double top, double bottom) {
+        int minDimension;
+
+        outerMinX = calculateX(Math.max(left, -180));
+        outerMaxX = calculateX(Math.min(right, 180));
+        outerMinY = calculateY(Math.max(bottom, -90));
+        outerMaxY = calculateY(Math.min(top, 90));
+
+        minDimension = Math.min(outerMaxX - outerMinX, outerMaxY - outerMinY) + 1;
+        minLevel = 0;
+        while ((1 << (minLevel + 1)) <= minDimension / CELLS_PER_DIMENSION) {
+            minLevel++;
+        }
+
+        addCellRanges(0, 0, TILE_BITS);
+    }
+
+    private void addCellRanges(int cellX, int cellY, int level) {
+        int size = 1 << level;
+        int cellMaxX = cellX + size - 1;
+        int cellMaxY = cellY + size - 1;
+
+        // Ignore cells outside the box.
+        if (cellMaxX < outerMinX || cellX > outerMaxX || cellMaxY < outerMinY || cellY > outerMaxY) {
+            return;
+        }
+
+        // Points can only lie outside the box if they are in the outermost
+        // tiles because tiles are calculated by rounding coordinates.
+        boolean inside = cellX > outerMinX && cellMaxX < outerMaxX && cellY > outerMinY && cellMaxY < outerMaxY;
+
+        if (inside || level <= minLevel) {
+            long begin = interleave(cellX, cellY);
+
+            ranges.add(new TileRange(begin, begin + (1L << (2 * level)) - 1, !inside));
+        } else {
+            int halfSize = size / 2;
+
+            // Visit the quadrants in tile order, x is the more significant bit.
+            addCellRanges(cellX, cellY, level - 1);
+            addCellRanges(cellX, cellY + halfSize, level - 1);
+            addCellRanges(cellX + halfSize, cellY, level - 1);
+            addCellRanges(cellX + halfSize, cellY + halfSize, level - 1);
+        }
+    }
+
+    private static List<TileRange> mergeRanges(List<TileRange> sortedRanges) {
+        List<TileRange> result = new ArrayList<TileRange>();
+        TileRange current = null;
+
+        for (TileRange range : sortedRanges) {
+            if (current != null
+                    && current.getEnd() + 1 >= range.getBegin()
+                    && current.isBoundary() == range.isBoundary()) {
+                current = new TileRange(
+                        current.getBegin(), Math.max(current.getEnd(), range.getEnd()), current.isBoundary());
+            } else {
+                if (current != null) {
+                    result.add(current);
+                }
+                current = range;
+            }
+        }
+        if (current != null) {
+            result.add(current);
+        }
+
+        return result;
+    }
+
+    /**
+     * A contiguous range of tiles.
+     */
+    public static class TileRange {
+        private final long begin;
+        private final long end;
+        private final boolean boundary;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param begin
+         *            The first tile in the range.
+         * @param end
+         *            The last tile in the range, inclusive.
+         * @param boundary
+         *            True if the range may contain points outside the box.
+         */
+        public TileRange(long begin, long end, boolean boundary) {
+            this.begin = begin;
+            this.end = end;
+            this.boundary = boundary;
+        }
+
+        /**
+         * Returns the first tile in the range.
+         *
+         * @return The unsigned tile value.
+         */
+        public long getBegin() {
+            return begin;
+        }
+
+        /**
+         * Returns the last tile in the range.
+         *
+         * @return The unsigned tile value.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Indicates if the range may contain points outside the box.
+         *
+         * @return True if point coordinates must be checked.
+         */
+        public boolean isBoundary() {
+            return boundary;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.dataset.v0_6;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.DatasetContext;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
+import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+
+/**
+ * Tests the file based dataset writer and reader.
+ */
+public class FileDatasetTest {
+    @TempDir
+    private Path tempDir;
+
+    private static CommonEntityData createEntityData(long id) {
+        return new CommonEntityData(id, 1, new Date(0), OsmUser.NONE, 1);
+    }
+
+    private static NodeContainer createNode(long id, double latitude, double longitude) {
+        return new NodeContainer(new Node(createEntityData(id), latitude, longitude));
+    }
+
+    private static WayContainer createWay(long id, long... nodeIds) {
+        List<WayNode> wayNodes = new ArrayList<WayNode>();
+
+        for (long nodeId : nodeIds) {
+            wayNodes.add(new WayNode(nodeId));
+        }
+
+        return new WayContainer(new Way(createEntityData(id), wayNodes));
+    }
+
+    private static RelationContainer createRelation(long id, EntityType memberType, long memberId) {
+        return new RelationContainer(new Relation(
+                createEntityData(id), Arrays.asList(new RelationMember(memberId, memberType, "role"))));
+    }
+
+    private File writeDataset() {
+        File directory = new File(tempDir.toFile(), "dataset");
+        FileDatasetWriter writer = new FileDatasetWriter(directory);
+
+        try {
+            writer.initialize(Collections.<String, Object>emptyMap());
+            writer.process(createNode(1, 1, 1));
+            writer.process(createNode(2, 10, 10));
+            writer.process(createNode(3, 1.5, 1.5));
+            writer.process(createNode(4, -0.5, 1));
+            writer.process(createNode(5, 2, 2));
+            writer.process(createNode(6, 1, 179.5));
+            writer.process(createWay(10, 1, 2, 1));
+            writer.process(createWay(11, 2, 4));
+            writer.process(createRelation(20, EntityType.Way, 10));
+            writer.process(createRelation(21, EntityType.Relation, 20));
+            writer.process(createRelation(22, EntityType.Node, 2));
+            writer.complete();
+        } finally {
+            writer.close();
+        }
+
+        return directory;
+    }
+
+    private static List<String> readAll(ReleasableIterator<EntityContainer> iterator) {
+        List<String> result = new ArrayList<String>();
+
+        try {
+            while (iterator.hasNext()) {
+                EntityContainer container = iterator.next();
+
+                if (container instanceof BoundContainer) {
+                    Bound bound = ((BoundContainer) container).getEntity();
+                    result.add("b" + bound.getLeft() + "," + bound.getRight());
+                } else {
+                    result.add(container.getEntity().getType().name().substring(0, 1).toLowerCase()
+                            + container.getEntity().getId());
+                }
+            }
+        } finally {
+            iterator.close();
+        }
+
+        return result;
+    }
+
+    private List<String> queryDataset(double left, double right, double top, double bottom, boolean completeWays) {
+        FileDatasetReader reader = new FileDatasetReader(writeDataset());
+        DatasetContext context = reader.createReader();
+
+        try {
+            return readAll(context.iterateBoundingBox(left, right, top, bottom, completeWays));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Tests that the full contents of a dataset can be read back.
+     */
+    @Test
+    public void testIterate() {
+        FileDatasetReader reader = new FileDatasetReader(writeDataset());
+        DatasetContext context = reader.createReader();
+
+        try {
+            List<String> entities = readAll(context.iterate());
+
+            Assertions.assertEquals(
+                    Arrays.asList("n1", "n2", "n3", "n4", "n5", "n6", "w10", "w11", "r20", "r21", "r22"),
+                    entities.subList(1, entities.size()));
+            Assertions.assertEquals(10.0, context.getNodeManager().getEntity(2).getLatitude(), 0);
+            Assertions.assertFalse(context.getWayManager().exists(12));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Tests a bounding box query selecting nodes, ways and parent relations.
+     */
+    @Test
+    public void testBoundingBox() {
+        Assertions.assertEquals(
+                Arrays.asList("b0.0,2.0", "n1", "n3", "n5", "w10", "r20", "r21"), queryDataset(0, 2, 2, 0, false));
+    }
+
+    /**
+     * Tests a bounding box query including the nodes of ways crossing the box.
+     */
+    @Test
+    public void testBoundingBoxCompleteWays() {
+        Assertions.assertEquals(
+                Arrays.asList("b0.0,2.0", "n1", "n2", "n3", "n5", "w10", "r20", "r21"),
+                queryDataset(0, 2, 2, 0, true));
+    }
+
+    /**
+     * Tests a bounding box query crossing the anti-meridian.
+     */
+    @Test
+    public void testBoundingBoxAntiMeridian() {
+        Assertions.assertEquals(Arrays.asList("b179.0,-179.0", "n6"), queryDataset(179, -179, 2, 0, false));
+    }
+}
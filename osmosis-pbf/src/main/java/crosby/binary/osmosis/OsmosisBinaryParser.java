@@ -22,6 +22,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassController;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
 /** Class that reads and parses binary files and sends the contained entities to the sink. */
@@ -29,7 +30,32 @@ public class OsmosisBinaryParser extends BinaryParser {
 
     @Override
     public void complete() {
-        sink.complete();
+        // The sink is only completed at the end of the final pass.
+        passRequired = passController != null && passController.completePass();
+        if (!passRequired) {
+            sink.complete();
+        }
+    }
+
+    /**
+     * Sets the controller tracking passes requested by the sink. If not set,
+     * the sink is completed at the end of the first pass.
+     *
+     * @param passController
+     *            The pass controller.
+     */
+    public void setPassController(MultiPassController passController) {
+        this.passController = passController;
+    }
+
+    /**
+     * Indicates whether the sink requested another pass of the data when the
+     * last pass completed.
+     *
+     * @return True if the data must be parsed again.
+     */
+    public boolean isPassRequired() {
+        return passRequired;
     }
 
     /** Get the osmosis object representing a the user in a given Info protobuf.
@@ -276,4 +302,6 @@ public class OsmosisBinaryParser extends BinaryParser {
     }
 
     private Sink sink;
+    private MultiPassController passController;
+    private boolean passRequired;
 }
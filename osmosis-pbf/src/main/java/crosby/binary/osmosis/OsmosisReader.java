@@ -6,7 +6,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Map;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassController;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
@@ -38,13 +40,25 @@ public class OsmosisReader implements RunnableSource {
 
     @Override
     public void run() {
+        Map<String, Object> metaData = Collections.emptyMap();
+
         try {
-            sink.initialize(Collections.<String, Object>emptyMap());
+            // Regular files may be read again if the sink requests it.
+            if (pbfFile.isFile()) {
+                MultiPassController passController = new MultiPassController(sink);
 
-            try (BlockInputStream blockInputStream = new BlockInputStream(new FileInputStream(pbfFile), parser)) {
-                blockInputStream.process();
+                parser.setPassController(passController);
+                metaData = passController.addToMetaData(metaData);
             }
 
+            sink.initialize(metaData);
+
+            do {
+                try (BlockInputStream blockInputStream = new BlockInputStream(new FileInputStream(pbfFile), parser)) {
+                    blockInputStream.process();
+                }
+            } while (parser.isPassRequired());
+
         } catch (IOException e) {
             throw new OsmosisRuntimeException("Unable to process PBF stream", e);
         } finally {
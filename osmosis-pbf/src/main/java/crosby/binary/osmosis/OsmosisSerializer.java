@@ -7,10 +7,18 @@ import crosby.binary.StringTable;
 import crosby.binary.file.BlockOutputStream;
 import crosby.binary.file.FileBlock;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisConstants;
@@ -28,9 +36,12 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 import org.openstreetmap.osmosis.core.domain.v0_6.Relation;
 import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
+import org.openstreetmap.osmosis.core.domain.v0_6.StringTableTagCollection;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
 /**
@@ -50,6 +61,20 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
      */
     static int warncount = 0;
 
+    /**
+     * The string table that groups in the current batch are written against.
+     * When blocks are encoded serially this is the single shared string table,
+     * otherwise each batch gets its own.
+     */
+    private StringTable batchStringTable;
+
+    // The following are only used when encoding blocks on worker threads.
+    private OutputStream rawOutput;
+    private boolean compress;
+    private int maxPendingBlocks;
+    private ExecutorService executorService;
+    private Deque<Future<byte[]>> pendingBlocks;
+
     /**
      * Construct a serializer that writes to the target BlockOutputStream.
      *
@@ -58,6 +83,41 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
      */
     public OsmosisSerializer(BlockOutputStream output) {
         super(output);
+
+        batchStringTable = getStringTable();
+    }
+
+    /**
+     * Construct a serializer that builds and compresses data blocks on a pool
+     * of worker threads. Blocks are written in the order they were created so
+     * the output is identical regardless of the number of workers. At most
+     * two blocks per worker are held in memory awaiting output.
+     *
+     * @param output
+     *            The stream to write the PBF file to.
+     * @param compress
+     *            If true, blocks are deflate compressed, otherwise they are
+     *            stored raw.
+     * @param workers
+     *            The number of worker threads used to encode blocks. Must be
+     *            greater than 0.
+     */
+    public OsmosisSerializer(OutputStream output, boolean compress, int workers) {
+        super(new BlockOutputStream(output));
+
+        if (workers <= 0) {
+            throw new OsmosisRuntimeException("A worker count of " + workers + " is invalid, must be greater than 0.");
+        }
+
+        this.output.setCompress(compress ? "deflate" : "none");
+
+        rawOutput = output;
+        this.compress = compress;
+        maxPendingBlocks = workers * 2;
+        executorService = Executors.newFixedThreadPool(workers);
+        pendingBlocks = new ArrayDeque<Future<byte[]>>();
+
+        batchStringTable = new StringTable();
     }
 
     /**
@@ -75,6 +135,9 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
         /** Queue that tracks the list of all primitives. */
         ArrayList<T> contents = new ArrayList<T>();
 
+        /** The string table for the batch this group belongs to. */
+        StringTable stable = batchStringTable;
+
         /** Add to the queue.
          * @param item The entity to add */
         public void add(T item) {
@@ -83,12 +146,20 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
 
         /** Add all of the tags of all entities in the queue to the stringtable. */
         public void addStringsToStringtable() {
-            StringTable stable = getStringTable();
             for (T i : contents) {
                 Collection<Tag> tags = i.getTags();
-                for (Tag tag : tags) {
-                    stable.incr(tag.getKey());
-                    stable.incr(tag.getValue());
+                if (tags instanceof StringTableTagCollection) {
+                    // Avoid creating tag objects for tags read from a string table.
+                    StringTableTagCollection tableTags = (StringTableTagCollection) tags;
+                    for (int j = 0; j < tableTags.size(); j++) {
+                        stable.incr(tableTags.getKey(j));
+                        stable.incr(tableTags.getValue(j));
+                    }
+                } else {
+                    for (Tag tag : tags) {
+                        stable.incr(tag.getKey());
+                        stable.incr(tag.getValue());
+                    }
                 }
                 if (!omit_metadata) {
                     stable.incr(i.getUser().getName());
@@ -96,6 +167,26 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
             }
         }
 
+        /** Serialize the stringtable indexes of the tags of an entity.
+         * @param tags The tags to serialize
+         * @param keys Receives the index of each key
+         * @param values Receives the index of each value, immediately after its key */
+        public void serializeTags(Collection<Tag> tags, IntConsumer keys, IntConsumer values) {
+            if (tags instanceof StringTableTagCollection) {
+                // Avoid creating tag objects for tags read from a string table.
+                StringTableTagCollection tableTags = (StringTableTagCollection) tags;
+                for (int j = 0; j < tableTags.size(); j++) {
+                    keys.accept(stable.getIndex(tableTags.getKey(j)));
+                    values.accept(stable.getIndex(tableTags.getValue(j)));
+                }
+            } else {
+                for (Tag t : tags) {
+                    keys.accept(stable.getIndex(t.getKey()));
+                    values.accept(stable.getIndex(t.getValue()));
+                }
+            }
+        }
+
         private static final int MAXWARN = 100;
 
         public void serializeMetadataDense(Osmformat.DenseInfo.Builder b, List<? extends Entity> entities) {
@@ -105,7 +196,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
 
             long lasttimestamp = 0, lastchangeset = 0;
             int lastuserSid = 0, lastuid = 0;
-            StringTable stable = getStringTable();
             for (Entity e : entities) {
 
                 if (e.getUser() == OsmUser.NONE && warncount < MAXWARN) {
@@ -131,7 +221,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
         }
 
         public Osmformat.Info.Builder serializeMetadata(Entity e) {
-            StringTable stable = getStringTable();
             Osmformat.Info.Builder b = Osmformat.Info.newBuilder();
             if (!omit_metadata) {
                 if (e.getUser() == OsmUser.NONE && warncount < MAXWARN) {
@@ -169,7 +258,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
             }
             // System.out.format("%d Dense   ",nodes.size());
             Osmformat.PrimitiveGroup.Builder builder = Osmformat.PrimitiveGroup.newBuilder();
-            StringTable stable = getStringTable();
 
             long lastlat = 0, lastlon = 0, lastid = 0;
             Osmformat.DenseNodes.Builder bi = Osmformat.DenseNodes.newBuilder();
@@ -197,10 +285,7 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
 
                 // Then we must include tag information.
                 if (doesBlockHaveTags) {
-                    for (Tag t : i.getTags()) {
-                        bi.addKeysVals(stable.getIndex(t.getKey()));
-                        bi.addKeysVals(stable.getIndex(t.getValue()));
-                    }
+                    serializeTags(i.getTags(), bi::addKeysVals, bi::addKeysVals);
                     bi.addKeysVals(0); // Add delimiter.
                 }
             }
@@ -216,7 +301,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
                 return null;
             }
             // System.out.format("%d Nodes   ",nodes.size());
-            StringTable stable = getStringTable();
             Osmformat.PrimitiveGroup.Builder builder = Osmformat.PrimitiveGroup.newBuilder();
             for (Node i : contents) {
                 long id = i.getId();
@@ -226,10 +310,7 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
                 bi.setId(id);
                 bi.setLon(lon);
                 bi.setLat(lat);
-                for (Tag t : i.getTags()) {
-                    bi.addKeys(stable.getIndex(t.getKey()));
-                    bi.addVals(stable.getIndex(t.getValue()));
-                }
+                serializeTags(i.getTags(), bi::addKeys, bi::addVals);
                 if (!omit_metadata) {
                     bi.setInfo(serializeMetadata(i));
                 }
@@ -246,7 +327,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
             }
 
             // System.out.format("%d Ways  ",contents.size());
-            StringTable stable = getStringTable();
             Osmformat.PrimitiveGroup.Builder builder = Osmformat.PrimitiveGroup.newBuilder();
             for (Way i : contents) {
                 Osmformat.Way.Builder bi = Osmformat.Way.newBuilder();
@@ -257,10 +337,7 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
                     bi.addRefs(id - lastid);
                     lastid = id;
                 }
-                for (Tag t : i.getTags()) {
-                    bi.addKeys(stable.getIndex(t.getKey()));
-                    bi.addVals(stable.getIndex(t.getValue()));
-                }
+                serializeTags(i.getTags(), bi::addKeys, bi::addVals);
                 if (!omit_metadata) {
                     bi.setInfo(serializeMetadata(i));
                 }
@@ -272,7 +349,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
 
     private class RelationGroup extends Prim<Relation> implements PrimGroupWriterInterface {
         public void addStringsToStringtable() {
-            StringTable stable = getStringTable();
             super.addStringsToStringtable();
             for (Relation i : contents) {
                 for (RelationMember j : i.getMembers()) {
@@ -287,7 +363,6 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
             }
 
             // System.out.format("%d Relations  ",contents.size());
-            StringTable stable = getStringTable();
             Osmformat.PrimitiveGroup.Builder builder = Osmformat.PrimitiveGroup.newBuilder();
             for (Relation i : contents) {
                 Osmformat.Relation.Builder bi = Osmformat.Relation.newBuilder();
@@ -311,10 +386,7 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
                     bi.addRolesSid(stable.getIndex(j.getMemberRole()));
                 }
 
-                for (Tag t : i.getTags()) {
-                    bi.addKeys(stable.getIndex(t.getKey()));
-                    bi.addVals(stable.getIndex(t.getValue()));
-                }
+                serializeTags(i.getTags(), bi::addKeys, bi::addVals);
                 if (!omit_metadata) {
                     bi.setInfo(serializeMetadata(i));
                 }
@@ -441,6 +513,11 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
      * @param headerblock Incomplete builder to complete and write.
      * */
     public void finishHeader(Osmformat.HeaderBlock.Builder headerblock) {
+        // The header must follow any data blocks still being encoded.
+        if (executorService != null) {
+            writePendingBlocks(0);
+        }
+
         headerblock.setWritingprogram(OsmosisConstants.VERSION);
         headerblock.addRequiredFeatures("OsmSchema-V0.6");
         if (useDense) {
@@ -455,11 +532,118 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
         headerWritten = true;
     }
 
+    /**
+     * Writes encoded blocks to the output until no more than the specified
+     * number remain pending. Blocks are written in the order they were
+     * submitted, waiting for each to be encoded if necessary.
+     *
+     * @param maxRemaining
+     *            The maximum number of blocks to leave pending.
+     */
+    private void writePendingBlocks(int maxRemaining) {
+        while (pendingBlocks.size() > maxRemaining) {
+            byte[] blockData;
+
+            try {
+                blockData = pendingBlocks.removeFirst().get();
+            } catch (InterruptedException e) {
+                throw new OsmosisRuntimeException("Thread was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new OsmosisRuntimeException("Unable to encode PBF block.", e.getCause());
+            }
+
+            try {
+                rawOutput.write(blockData);
+            } catch (IOException e) {
+                throw new OsmosisRuntimeException("Unable to write PBF block.", e);
+            }
+        }
+    }
+
+    /**
+     * Builds a data block from a batch of groups. This is equivalent to the
+     * serial block building in processBatch but uses the string table
+     * belonging to the batch so that it may be run on any thread.
+     */
+    private Osmformat.PrimitiveBlock buildBlock(List<PrimGroupWriterInterface> batchGroups, StringTable stringTable) {
+        Osmformat.PrimitiveBlock.Builder blockBuilder = Osmformat.PrimitiveBlock.newBuilder();
+
+        // The string table must be complete before any group can be serialized.
+        stringTable.clear();
+        for (PrimGroupWriterInterface group : batchGroups) {
+            group.addStringsToStringtable();
+        }
+        stringTable.finish();
+
+        for (PrimGroupWriterInterface group : batchGroups) {
+            Osmformat.PrimitiveGroup primitiveGroup = group.serialize();
+            if (primitiveGroup != null) {
+                blockBuilder.addPrimitivegroup(primitiveGroup);
+            }
+        }
+
+        blockBuilder.setStringtable(stringTable.serialize());
+        blockBuilder.setGranularity(granularity);
+        blockBuilder.setDateGranularity(date_granularity);
+
+        return blockBuilder.build();
+    }
+
+    /**
+     * Sends the current batch to a worker thread for encoding if workers are
+     * in use, otherwise encodes and writes it immediately.
+     */
+    @Override
+    public void processBatch() {
+        PbfBlockEncoder encoder;
+
+        if (executorService == null) {
+            super.processBatch();
+            return;
+        }
+
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        // Hand the batch and its string table to the encoder, and start a new
+        // batch with a fresh string table.
+        final List<PrimGroupWriterInterface> batchGroups = new ArrayList<PrimGroupWriterInterface>(groups);
+        final StringTable stringTable = batchStringTable;
+        encoder = new PbfBlockEncoder(() -> buildBlock(batchGroups, stringTable), compress);
+        groups.clear();
+        batch_size = 0;
+        batchStringTable = new StringTable();
+
+        pendingBlocks.addLast(executorService.submit(encoder));
+
+        // Bound the number of blocks held in memory.
+        writePendingBlocks(maxPendingBlocks);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (executorService != null) {
+            processBatch();
+            writePendingBlocks(0);
+        }
+
+        super.flush();
+    }
+
     /**
      * {@inheritDoc}
      */
     public void initialize(Map<String, Object> metaData) {
-        // Do nothing.
+        FilterPushdownSource pushdownSource = (FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY);
+
+        // Metadata that won't be written doesn't need to be decoded.
+        if (omit_metadata && pushdownSource != null) {
+            EntityFilterSpecification specification = new EntityFilterSpecification();
+
+            specification.setMetadataRequired(false);
+            pushdownSource.pushDown(this, specification);
+        }
     }
 
     /**
@@ -482,6 +666,15 @@ public class OsmosisSerializer extends BinarySerializer implements Sink {
 
     @Override
     public void close() {
+        if (executorService != null) {
+            // Anything not yet written is discarded because complete has not
+            // been called.
+            executorService.shutdownNow();
+            executorService = null;
+            pendingBlocks.clear();
+            groups.clear();
+        }
+
         try {
             super.close();
         } catch (IOException e) {
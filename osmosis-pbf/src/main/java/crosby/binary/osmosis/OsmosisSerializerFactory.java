@@ -2,6 +2,7 @@
 package crosby.binary.osmosis;
 
 import crosby.binary.file.BlockOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -17,32 +18,54 @@ import org.openstreetmap.osmosis.core.pipeline.v0_6.SinkManager;
 public class OsmosisSerializerFactory extends TaskManagerFactory {
     private static final String ARG_FILE_NAME = "file";
     private static final String DEFAULT_FILE_NAME = "dump.osm.pbf";
+    private static final String ARG_COMPRESS = "compress";
+    private static final String DEFAULT_COMPRESS = "deflate";
+    private static final String ARG_WORKERS = "workers";
+    private static final int DEFAULT_WORKERS = 0;
 
     @Override
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
         // TODO Auto-generated method stub
         String fileName;
         File file;
+        String compress;
+        int workers;
         OsmosisSerializer task = null;
 
         // Get the task arguments.
         fileName =
                 getStringArgument(taskConfig, ARG_FILE_NAME, getDefaultStringArgument(taskConfig, DEFAULT_FILE_NAME));
+        compress = this.getStringArgument(taskConfig, ARG_COMPRESS, DEFAULT_COMPRESS);
+        workers = this.getIntegerArgument(taskConfig, ARG_WORKERS, DEFAULT_WORKERS);
 
         // Create a file object from the file name provided.
         file = new File(fileName);
 
         // Build the task object.
         try {
-            BlockOutputStream output = new BlockOutputStream(new FileOutputStream(file));
-            task = new OsmosisSerializer(output);
+            if (workers > 0) {
+                boolean compressBlocks;
+
+                if ("deflate".equals(compress)) {
+                    compressBlocks = true;
+                } else if ("none".equals(compress)) {
+                    compressBlocks = false;
+                } else {
+                    throw new OsmosisRuntimeException("Compression type " + compress + " is not recognised.");
+                }
+
+                task = new OsmosisSerializer(
+                        new BufferedOutputStream(new FileOutputStream(file)), compressBlocks, workers);
+            } else {
+                BlockOutputStream output = new BlockOutputStream(new FileOutputStream(file));
+                output.setCompress(compress);
+                task = new OsmosisSerializer(output);
+            }
             task.configBatchLimit(this.getIntegerArgument(taskConfig, "batchlimit", 8000));
             task.configOmit(this.getBooleanArgument(taskConfig, "omitmetadata", false));
             task.setUseDense(this.getBooleanArgument(taskConfig, "usedense", true));
             task.configGranularity(this.getIntegerArgument(taskConfig, "granularity", 100));
 
-            output.setCompress(this.getStringArgument(taskConfig, "compress", "deflate"));
-
         } catch (FileNotFoundException e) {
             throw new OsmosisRuntimeException("Failed to initialize Osmosis pbf serializer.", e);
         }
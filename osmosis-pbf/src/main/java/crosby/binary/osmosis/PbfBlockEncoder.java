@@ -0,0 +1,60 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package crosby.binary.osmosis;
+
+import crosby.binary.Osmformat;
+import crosby.binary.file.BlockOutputStream;
+import crosby.binary.file.FileBlock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Builds a single PBF data block, compresses it, and frames it with its blob
+ * header. The result is the exact byte sequence to be appended to the PBF file,
+ * framed by the same classes as the serial writer so that the output doesn't
+ * depend on the number of workers. All work is performed by the call method so
+ * that many blocks can be encoded concurrently on worker threads.
+ */
+public class PbfBlockEncoder implements Callable<byte[]> {
+    private Supplier<Osmformat.PrimitiveBlock> blockBuilder;
+    private boolean compress;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param blockBuilder
+     *            Builds the block to be encoded. This is invoked on the thread
+     *            encoding the block.
+     * @param compress
+     *            If true, the block is compressed with deflate, otherwise it is
+     *            stored raw.
+     */
+    public PbfBlockEncoder(Supplier<Osmformat.PrimitiveBlock> blockBuilder, boolean compress) {
+        this.blockBuilder = blockBuilder;
+        this.compress = compress;
+    }
+
+    /**
+     * Encodes the block.
+     *
+     * @return The framed block data.
+     */
+    @Override
+    public byte[] call() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BlockOutputStream blockOutput = new BlockOutputStream(out);
+
+        blockOutput.setCompress(compress ? "deflate" : "none");
+
+        try {
+            blockOutput.write(FileBlock.newInstance("OSMData", blockBuilder.get().toByteString(), null));
+            blockOutput.flush();
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to encode PBF block.", e);
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -1,7 +1,13 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package crosby.binary.osmosis;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.osmosis.core.Osmosis;
 import org.openstreetmap.osmosis.testutil.AbstractDataTest;
@@ -33,4 +39,52 @@ public class OsmosisReaderAndSerializerTest extends AbstractDataTest {
         // Validate that the output file matches the input file.
         dataUtils.compareFiles(inputXmlFile, outputXmlFile);
     }
+
+    private void writePbf(File inputXmlFile, File pbfFile, String... options) {
+        List<String> args = new ArrayList<String>();
+
+        // A small batch limit ensures many blocks are encoded concurrently.
+        args.addAll(List.of("-q", "--read-xml-0.6", inputXmlFile.getPath(), "--write-pbf-0.6", pbfFile.getPath()));
+        args.add("batchlimit=10");
+        args.addAll(List.of(options));
+
+        Osmosis.run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Tests writing PBF files using worker threads. Output must be readable and
+     * identical to the output written without workers.
+     *
+     * @throws IOException
+     *             if the files cannot be read.
+     */
+    @Test
+    public void testParallelWriteAndRead() throws IOException {
+        // Generate data files.
+        File inputXmlFile = dataUtils.createDataFile("v0_6/data-snapshot.osm");
+
+        for (String compress : new String[] {"deflate", "none"}) {
+            File serialPbfFile = dataUtils.newFile();
+            File parallelPbfFile = dataUtils.newFile();
+            File outputXmlFile = dataUtils.newFile();
+
+            // Read the XML and write to PBF with and without workers.
+            writePbf(inputXmlFile, serialPbfFile, "compress=" + compress);
+            writePbf(inputXmlFile, parallelPbfFile, "compress=" + compress, "workers=4");
+
+            // Validate that the output doesn't depend on the use of workers.
+            assertArrayEquals(
+                    Files.readAllBytes(serialPbfFile.toPath()),
+                    Files.readAllBytes(parallelPbfFile.toPath()),
+                    "PBF files written with " + compress + " compression and workers should match serial output.");
+
+            // Read the PBF and write to XML.
+            Osmosis.run(new String[] {
+                "-q", "--read-pbf-0.6", parallelPbfFile.getPath(), "--write-xml-0.6", outputXmlFile.getPath()
+            });
+
+            // Validate that the output file matches the input file.
+            dataUtils.compareFiles(inputXmlFile, outputXmlFile);
+        }
+    }
 }
@@ -14,21 +14,31 @@ import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownController;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassController;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.BlobSplitter;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.HeaderBoundReader;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.HeaderMetadataReader;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.HeaderSeeker;
+import org.openstreetmap.osmosis.pbf2.v0_6.impl.MappedFileSplitter;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.PbfDecoder;
 import org.openstreetmap.osmosis.pbf2.v0_6.impl.StreamSplitter;
 
 /**
  * An OSM data source reading from a PBF file. The entire contents of the file
- * are read.
+ * are read. Regular files are memory mapped and blobs are passed to the
+ * decoders without being copied, other sources such as stdin are streamed.
+ * <p>
+ * Filtering sinks may push down a specification of the entities they require,
+ * unwanted entities are then discarded before being decoded.
  *
  * @author Brett Henderson
  */
 public class PbfReader implements RunnableSource {
+    private final File file;
     private final Supplier<InputStream> supplier;
     private Sink sink;
     private int workers;
@@ -54,6 +64,7 @@ public class PbfReader implements RunnableSource {
                         throw new OsmosisRuntimeException("Unable to read PBF file " + file + ".", e);
                     }
                 },
+                file,
                 workers);
     }
 
@@ -66,10 +77,27 @@ public class PbfReader implements RunnableSource {
      *            The number of worker threads for decoding PBF blocks.
      */
     public PbfReader(Supplier<InputStream> supplier, int workers) {
+        this(supplier, null, workers);
+    }
+
+    private PbfReader(Supplier<InputStream> supplier, File file, int workers) {
         this.supplier = supplier;
+        this.file = file;
         this.workers = workers;
     }
 
+    private boolean isLocalFile() {
+        return file != null && !file.getName().equals("-") && file.isFile();
+    }
+
+    private BlobSplitter createBlobSplitter() {
+        if (isLocalFile()) {
+            return new MappedFileSplitter(file);
+        } else {
+            return new StreamSplitter(new DataInputStream(supplier.get()));
+        }
+    }
+
     @Override
     public void setSink(Sink sink) {
         this.sink = sink;
@@ -77,7 +105,10 @@ public class PbfReader implements RunnableSource {
 
     @Override
     public void run() {
-        StreamSplitter streamSplitter = null;
+        BlobSplitter blobSplitter = null;
+        MultiPassController passController = null;
+        FilterPushdownController pushdownController;
+        EntityFilterSpecification filterSpecification;
 
         ExecutorService executorService;
 
@@ -88,31 +119,55 @@ public class PbfReader implements RunnableSource {
         }
 
         try {
-            InputStream inputStream = supplier.get();
-
-            // Create a stream splitter to break the PBF stream into blobs.
-            streamSplitter = new StreamSplitter(new DataInputStream(inputStream));
+            // Create a blob splitter to break the PBF data into blobs.
+            blobSplitter = createBlobSplitter();
 
             // Obtain the header block.
-            Osmformat.HeaderBlock header = new HeaderSeeker().apply(streamSplitter);
+            Osmformat.HeaderBlock header = new HeaderSeeker().apply(blobSplitter);
 
             // Get the pipeline metadata (e.g. do ways include location information) from header.
             Map<String, Object> metadata = new HeaderMetadataReader().apply(header);
 
+            // Local files may be read again if the sink requests it.
+            if (isLocalFile()) {
+                passController = new MultiPassController(sink);
+                metadata = passController.addToMetaData(metadata);
+            }
+
+            // Allow the sink to describe the entities it requires.
+            pushdownController = new FilterPushdownController(sink);
+            metadata = pushdownController.addToMetaData(metadata);
+
             sink.initialize(metadata);
 
+            filterSpecification = pushdownController.getSpecification();
+
             // Get Bound information from the header.
             BoundContainer bound = new HeaderBoundReader().apply(header);
-            sink.process(bound);
 
-            // Process all blobs of data in the stream using threads from the
-            // executor service. We allow the decoder to issue an extra blob
-            // than there are workers to ensure there is another blob
-            // immediately ready for processing when a worker thread completes.
-            // The main thread is responsible for splitting blobs from the
-            // request stream, and sending decoded entities to the sink.
-            PbfDecoder pbfDecoder = new PbfDecoder(streamSplitter, executorService, workers + 1, sink);
-            pbfDecoder.run();
+            while (true) {
+                sink.process(bound);
+
+                // Process all blobs of data in the stream using threads from the
+                // executor service. We allow the decoder to issue an extra blob
+                // than there are workers to ensure there is another blob
+                // immediately ready for processing when a worker thread completes.
+                // The main thread is responsible for splitting blobs from the
+                // request stream, and sending decoded entities to the sink.
+                PbfDecoder pbfDecoder =
+                        new PbfDecoder(blobSplitter, executorService, workers + 1, filterSpecification, sink);
+                pbfDecoder.run();
+
+                if (passController == null || !passController.completePass()) {
+                    break;
+                }
+
+                // Start another pass from the beginning of the file.
+                blobSplitter.close();
+                blobSplitter = null;
+                blobSplitter = createBlobSplitter();
+                new HeaderSeeker().apply(blobSplitter);
+            }
 
             sink.complete();
         } finally {
@@ -120,8 +175,8 @@ public class PbfReader implements RunnableSource {
 
             executorService.shutdownNow();
 
-            if (streamSplitter != null) {
-                streamSplitter.close();
+            if (blobSplitter != null) {
+                blobSplitter.close();
             }
         }
     }
@@ -19,15 +19,17 @@ public class BlobDecompressor implements Function<Fileformat.Blob, byte[]> {
             blobData = blob.getRaw().toByteArray();
         } else if (blob.hasZlibData()) {
             Inflater inflater = new Inflater();
-            inflater.setInput(blob.getZlibData().toByteArray());
+            inflater.setInput(blob.getZlibData().asReadOnlyByteBuffer());
             blobData = new byte[blob.getRawSize()];
             try {
                 inflater.inflate(blobData);
+                if (!inflater.finished()) {
+                    throw new OsmosisRuntimeException("PBF blob contains incomplete compressed data.");
+                }
             } catch (DataFormatException e) {
                 throw new OsmosisRuntimeException("Unable to decompress PBF blob.", e);
-            }
-            if (!inflater.finished()) {
-                throw new OsmosisRuntimeException("PBF blob contains incomplete compressed data.");
+            } finally {
+                inflater.end();
             }
         } else {
             throw new OsmosisRuntimeException("PBF blob uses unsupported compression, only raw or zlib may be used.");
@@ -0,0 +1,10 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import java.util.Iterator;
+import org.openstreetmap.osmosis.core.lifecycle.Closeable;
+
+/**
+ * Extracts the raw data of each blob in sequence from a PBF data source.
+ */
+public interface BlobSplitter extends Iterator<RawBlob>, Closeable {}
@@ -1,9 +1,12 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import crosby.binary.Fileformat;
 import crosby.binary.Osmformat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 
@@ -18,7 +21,7 @@ public class BlobToBlockMapper implements Function<RawBlob, PbfBlock> {
 
     @Override
     public PbfBlock apply(RawBlob rawBlob) {
-        Fileformat.Blob pbfBlob = parseBlob(rawBlob.getData());
+        Fileformat.Blob pbfBlob = parseBlob(rawBlob.getDataBuffer());
         byte[] data = decompressor.apply(pbfBlob);
 
         if (HEADER_TYPE.equals(rawBlob.getType())) {
@@ -30,10 +33,16 @@ public class BlobToBlockMapper implements Function<RawBlob, PbfBlock> {
         }
     }
 
-    private Fileformat.Blob parseBlob(byte[] data) {
+    private Fileformat.Blob parseBlob(ByteBuffer data) {
         try {
-            return Fileformat.Blob.parseFrom(data);
-        } catch (InvalidProtocolBufferException e) {
+            // Aliasing allows the compressed data to reference the source
+            // buffer rather than being copied. When the source is a memory
+            // mapped file the data is read directly from the mapping.
+            CodedInputStream input = CodedInputStream.newInstance(data);
+            input.enableAliasing(true);
+
+            return Fileformat.Blob.parseFrom(input);
+        } catch (IOException e) {
             throw new OsmosisRuntimeException("Unable to parse PBF blob", e);
         }
     }
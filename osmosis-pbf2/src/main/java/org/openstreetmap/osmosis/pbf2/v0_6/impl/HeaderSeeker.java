@@ -8,17 +8,17 @@ import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 
 /**
  * Finds the first header in the stream.  It validates that a header occurs first.  This function has side effects in
- * that it moves the stream splitter iterator forward.
+ * that it moves the blob splitter iterator forward.
  */
-public class HeaderSeeker implements Function<StreamSplitter, Osmformat.HeaderBlock> {
+public class HeaderSeeker implements Function<BlobSplitter, Osmformat.HeaderBlock> {
     private BlobToBlockMapper blobToBlockMapper = new BlobToBlockMapper();
 
     @Override
-    public Osmformat.HeaderBlock apply(StreamSplitter streamSplitter) {
-        if (!streamSplitter.hasNext()) {
+    public Osmformat.HeaderBlock apply(BlobSplitter blobSplitter) {
+        if (!blobSplitter.hasNext()) {
             throw new OsmosisRuntimeException("PBF stream ended before a header could be found.");
         }
-        RawBlob rawBlob = streamSplitter.next();
+        RawBlob rawBlob = blobSplitter.next();
         PbfBlock block = blobToBlockMapper.apply(rawBlob);
         Optional<Osmformat.HeaderBlock> optionalHeaderBlock = block.getHeaderBlock();
         if (!optionalHeaderBlock.isPresent()) {
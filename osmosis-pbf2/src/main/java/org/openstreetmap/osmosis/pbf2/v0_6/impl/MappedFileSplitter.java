@@ -0,0 +1,179 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import crosby.binary.Fileformat;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Splits a PBF file into blobs by memory mapping the file. Only the small blob
+ * headers are parsed while scanning the file, and each blob is returned as a
+ * slice of the mapped file rather than a copy on the heap. Decoders therefore
+ * read the compressed data directly from the operating system page cache, and
+ * because each slice is independent the blobs may be decoded in any order.
+ * <p>
+ * Files larger than the maximum size of a single mapping are mapped in a
+ * series of windows. The window is moved forward whenever a blob doesn't fit
+ * within the current window, and blobs from previous windows remain valid for
+ * as long as they are referenced.
+ */
+public class MappedFileSplitter implements BlobSplitter {
+    private static final Logger LOG = Logger.getLogger(MappedFileSplitter.class.getName());
+
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private File file;
+    private int windowSize;
+    private FileChannel channel;
+    private long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private int blobCount;
+    private RawBlob nextBlob;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            The PBF file to be split.
+     */
+    public MappedFileSplitter(File file) {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            The PBF file to be split.
+     * @param windowSize
+     *            The size of each region of the file to be mapped. Windows
+     *            are enlarged if a single blob exceeds this size.
+     */
+    public MappedFileSplitter(File file, int windowSize) {
+        this.file = file;
+        this.windowSize = windowSize;
+
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to read PBF file " + file + ".", e);
+        }
+
+        position = 0;
+        blobCount = 0;
+    }
+
+    /**
+     * Gets a buffer containing the specified region of the file, moving the
+     * mapped window if the region is not already mapped.
+     */
+    private ByteBuffer getRegion(long offset, int length) {
+        if (length < 0 || offset + length > fileSize) {
+            throw new OsmosisRuntimeException(
+                    "PBF file " + file + " is truncated or corrupt, a region of " + length + " bytes at offset "
+                            + offset + " lies outside the file.");
+        }
+
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            long mappingSize = Math.min(Math.max(windowSize, length), fileSize - offset);
+
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, mappingSize);
+            } catch (IOException e) {
+                throw new OsmosisRuntimeException("Unable to map PBF file " + file + ".", e);
+            }
+            windowStart = offset;
+
+            if (LOG.isLoggable(Level.FINER)) {
+                LOG.finer("Mapped " + mappingSize + " bytes of PBF file at offset " + offset + ".");
+            }
+        }
+
+        return window.slice((int) (offset - windowStart), length);
+    }
+
+    private void getNextBlob() {
+        int headerLength;
+        Fileformat.BlobHeader blobHeader;
+        long dataOffset;
+
+        // A blob may only start at the end of the file when all blobs have
+        // been read.
+        if (position >= fileSize) {
+            return;
+        }
+
+        if (LOG.isLoggable(Level.FINER)) {
+            LOG.finer("Reading header for blob " + blobCount++);
+        }
+        headerLength = getRegion(position, 4).getInt();
+
+        try {
+            blobHeader = Fileformat.BlobHeader.parseFrom(getRegion(position + 4, headerLength));
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to parse PBF blob header at offset " + position + ".", e);
+        }
+
+        if (LOG.isLoggable(Level.FINER)) {
+            LOG.finer("Processing blob of type " + blobHeader.getType() + ".");
+        }
+        dataOffset = position + 4 + headerLength;
+        nextBlob = new RawBlob(blobHeader.getType(), getRegion(dataOffset, blobHeader.getDatasize()));
+
+        position = dataOffset + blobHeader.getDatasize();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextBlob == null && channel != null) {
+            getNextBlob();
+        }
+
+        return nextBlob != null;
+    }
+
+    @Override
+    public RawBlob next() {
+        RawBlob result;
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        result = nextBlob;
+        nextBlob = null;
+
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        // Mapped buffers are released when they are garbage collected.
+        window = null;
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Unable to close PBF file " + file + ".", e);
+            }
+        }
+        channel = null;
+    }
+}
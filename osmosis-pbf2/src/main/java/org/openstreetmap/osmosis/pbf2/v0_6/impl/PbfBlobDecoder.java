@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
@@ -19,11 +20,16 @@ import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
 import org.openstreetmap.osmosis.core.domain.v0_6.RelationMember;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
 
 /**
  * Converts PBF block data into decoded entities ready to be passed into an
  * Osmosis pipeline. This class is designed to be passed into a pool of worker
  * threads to allow multi-threaded decoding.
+ * <p>
+ * If a filter specification is provided, entities it doesn't require are
+ * skipped before any objects are created for them. Entities it does require
+ * may still be rejected later by the sink.
  *
  * @author Brett Henderson
  */
@@ -38,6 +44,7 @@ public class PbfBlobDecoder implements Runnable {
     private BlobToBlockMapper blobToBlockMapper;
 
     private RawBlob rawBlob;
+    private EntityFilterSpecification filterSpecification;
     private PbfBlobDecoderListener listener;
     private List<EntityContainer> decodedEntities;
 
@@ -50,30 +57,100 @@ public class PbfBlobDecoder implements Runnable {
      *            The listener for receiving decoding results.
      */
     public PbfBlobDecoder(RawBlob rawBlob, PbfBlobDecoderListener listener) {
+        this(rawBlob, null, listener);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rawBlob
+     *            The raw data of the blob.
+     * @param filterSpecification
+     *            The entities required by the sink, or null if all entities
+     *            are required.
+     * @param listener
+     *            The listener for receiving decoding results.
+     */
+    public PbfBlobDecoder(
+            RawBlob rawBlob, EntityFilterSpecification filterSpecification, PbfBlobDecoderListener listener) {
         this.blobToBlockMapper = new BlobToBlockMapper();
 
         this.rawBlob = rawBlob;
+        this.filterSpecification = filterSpecification;
         this.listener = listener;
     }
 
-    private void buildTags(
-            CommonEntityData entityData, List<Integer> keys, List<Integer> values, PbfFieldDecoder fieldDecoder) {
-        Collection<Tag> tags = entityData.getTags();
+    private boolean isEntityTypeRequired(EntityType entityType) {
+        return filterSpecification == null || filterSpecification.isEntityTypeRequired(entityType);
+    }
+
+    private boolean isMetadataRequired() {
+        return filterSpecification == null || filterSpecification.isMetadataRequired();
+    }
+
+    private boolean isNodeWithinBoundingBox(double latitude, double longitude) {
+        return filterSpecification == null || filterSpecification.isNodeWithinBoundingBox(latitude, longitude);
+    }
+
+    private Set<String> getRequiredTagKeys(EntityType entityType) {
+        if (filterSpecification == null) {
+            return null;
+        }
+
+        return filterSpecification.getRequiredTagKeys(entityType);
+    }
+
+    /**
+     * Checks the raw tag keys of an entity against the required keys without
+     * creating any tag objects.
+     */
+    private boolean hasRequiredTagKey(Set<String> requiredKeys, List<Integer> keys, PbfFieldDecoder fieldDecoder) {
+        if (requiredKeys == null) {
+            return true;
+        }
+
+        for (Integer key : keys) {
+            if (requiredKeys.contains(fieldDecoder.decodeString(key))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasRequiredTagKey(
+            Set<String> requiredKeys, int[] keysValues, int offset, int tagCount, PbfFieldDecoder fieldDecoder) {
+        if (requiredKeys == null) {
+            return true;
+        }
+
+        for (int i = 0; i < tagCount; i++) {
+            if (requiredKeys.contains(fieldDecoder.decodeString(keysValues[offset + i * 2]))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 
+    private Collection<Tag> buildTags(List<Integer> keys, List<Integer> values, PbfFieldDecoder fieldDecoder) {
         // Ensure parallel lists are of equal size.
         if (keys.size() != values.size()) {
             throw new OsmosisRuntimeException(
                     "Number of tag keys (" + keys.size() + ") and tag values (" + values.size() + ") don't match");
         }
 
+        // Interleave the keys and values so that the tags can be represented
+        // by string table indexes without creating tag objects.
+        int[] keysValues = new int[keys.size() * 2];
         Iterator<Integer> keyIterator = keys.iterator();
         Iterator<Integer> valueIterator = values.iterator();
-        while (keyIterator.hasNext()) {
-            String key = fieldDecoder.decodeString(keyIterator.next());
-            String value = fieldDecoder.decodeString(valueIterator.next());
-            Tag tag = new Tag(key, value);
-            tags.add(tag);
+        for (int i = 0; keyIterator.hasNext(); i += 2) {
+            keysValues[i] = keyIterator.next();
+            keysValues[i + 1] = valueIterator.next();
         }
+
+        return fieldDecoder.decodeTags(keysValues, 0, keys.size());
     }
 
     private CommonEntityData buildCommonEntityData(
@@ -83,44 +160,51 @@ public class PbfBlobDecoder implements Runnable {
             Osmformat.Info info,
             PbfFieldDecoder fieldDecoder) {
         OsmUser user;
-        CommonEntityData entityData;
 
         // Build the user, but only if one exists.
         if (info.hasUid() && info.getUid() >= 0 && info.hasUserSid()) {
-            user = new OsmUser(info.getUid(), fieldDecoder.decodeString(info.getUserSid()));
+            user = fieldDecoder.decodeUser(info.getUid(), info.getUserSid());
         } else {
             user = OsmUser.NONE;
         }
 
-        entityData = new CommonEntityData(
+        return new CommonEntityData(
                 entityId,
                 info.getVersion(),
                 fieldDecoder.decodeTimestamp(info.getTimestamp()),
                 user,
-                info.getChangeset());
-
-        buildTags(entityData, keys, values, fieldDecoder);
-
-        return entityData;
+                info.getChangeset(),
+                buildTags(keys, values, fieldDecoder));
     }
 
     private CommonEntityData buildCommonEntityData(
             long entityId, List<Integer> keys, List<Integer> values, PbfFieldDecoder fieldDecoder) {
-        CommonEntityData entityData;
-
-        entityData = new CommonEntityData(entityId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE, EMPTY_CHANGESET);
-
-        buildTags(entityData, keys, values, fieldDecoder);
-
-        return entityData;
+        return new CommonEntityData(
+                entityId,
+                EMPTY_VERSION,
+                EMPTY_TIMESTAMP,
+                OsmUser.NONE,
+                EMPTY_CHANGESET,
+                buildTags(keys, values, fieldDecoder));
     }
 
     private void processNodes(List<Osmformat.Node> nodes, PbfFieldDecoder fieldDecoder) {
+        Set<String> requiredKeys = getRequiredTagKeys(EntityType.Node);
+        boolean metadataRequired = isMetadataRequired();
+
         for (Osmformat.Node node : nodes) {
             org.openstreetmap.osmosis.core.domain.v0_6.Node osmNode;
             CommonEntityData entityData;
+            double latitude = fieldDecoder.decodeLatitude(node.getLat());
+            double longitude = fieldDecoder.decodeLongitude(node.getLon());
+
+            // Skip nodes the sink would discard.
+            if (!isNodeWithinBoundingBox(latitude, longitude)
+                    || !hasRequiredTagKey(requiredKeys, node.getKeysList(), fieldDecoder)) {
+                continue;
+            }
 
-            if (node.hasInfo()) {
+            if (metadataRequired && node.hasInfo()) {
                 entityData = buildCommonEntityData(
                         node.getId(), node.getKeysList(), node.getValsList(), node.getInfo(), fieldDecoder);
 
@@ -128,10 +212,7 @@ public class PbfBlobDecoder implements Runnable {
                 entityData = buildCommonEntityData(node.getId(), node.getKeysList(), node.getValsList(), fieldDecoder);
             }
 
-            osmNode = new org.openstreetmap.osmosis.core.domain.v0_6.Node(
-                    entityData,
-                    fieldDecoder.decodeLatitude(node.getLat()),
-                    fieldDecoder.decodeLongitude(node.getLon()));
+            osmNode = new org.openstreetmap.osmosis.core.domain.v0_6.Node(entityData, latitude, longitude);
 
             // Add the bound object to the results.
             decodedEntities.add(new NodeContainer(osmNode));
@@ -149,10 +230,20 @@ public class PbfBlobDecoder implements Runnable {
                     + "), and longitudes (" + lonList.size() + ") don't match");
         }
 
-        Iterator<Integer> keysValuesIterator = nodes.getKeysValsList().iterator();
+        // The key and value string indexes of all nodes are copied once so
+        // that each node's tags can reference them without creating tag
+        // objects.
+        int[] keysValues = new int[nodes.getKeysValsCount()];
+        for (int i = 0; i < keysValues.length; i++) {
+            keysValues[i] = nodes.getKeysVals(i);
+        }
+        int keysValuesIndex = 0;
+
+        Set<String> requiredKeys = getRequiredTagKeys(EntityType.Node);
 
+        // Metadata is only delta decoded if the sink requires it.
         Osmformat.DenseInfo denseInfo;
-        if (nodes.hasDenseinfo()) {
+        if (isMetadataRequired() && nodes.hasDenseinfo()) {
             denseInfo = nodes.getDenseinfo();
         } else {
             denseInfo = null;
@@ -166,7 +257,6 @@ public class PbfBlobDecoder implements Runnable {
         long timestamp = 0;
         long changesetId = 0;
         for (int i = 0; i < idList.size(); i++) {
-            CommonEntityData entityData;
             org.openstreetmap.osmosis.core.domain.v0_6.Node node;
 
             // Delta decode node fields.
@@ -174,49 +264,66 @@ public class PbfBlobDecoder implements Runnable {
             latitude += latList.get(i);
             longitude += lonList.get(i);
 
+            // Build the tags. The key and value string indexes are sequential
+            // in the same PBF array. Each set of tags is delimited by an index
+            // with a value of 0.
+            int tagOffset = keysValuesIndex;
+            int tagCount = 0;
+            while (keysValuesIndex < keysValues.length) {
+                int keyIndex = keysValues[keysValuesIndex++];
+                if (keyIndex == 0) {
+                    break;
+                }
+                if (keysValuesIndex == keysValues.length) {
+                    throw new OsmosisRuntimeException(
+                            "The PBF DenseInfo keys/values list contains a key with no corresponding value.");
+                }
+                keysValuesIndex++;
+                tagCount++;
+            }
+
+            // Delta decode dense info fields.
             if (denseInfo != null) {
-                // Delta decode dense info fields.
                 userId += denseInfo.getUid(i);
                 userSid += denseInfo.getUserSid(i);
                 timestamp += denseInfo.getTimestamp(i);
                 changesetId += denseInfo.getChangeset(i);
+            }
 
+            // Skip nodes the sink would discard. All delta encoded fields
+            // have already been decoded so the following nodes are unaffected.
+            double nodeLatitude = fieldDecoder.decodeLatitude(latitude);
+            double nodeLongitude = fieldDecoder.decodeLongitude(longitude);
+            if (!isNodeWithinBoundingBox(nodeLatitude, nodeLongitude)
+                    || !hasRequiredTagKey(requiredKeys, keysValues, tagOffset, tagCount, fieldDecoder)) {
+                continue;
+            }
+
+            Collection<Tag> tags = fieldDecoder.decodeTags(keysValues, tagOffset, tagCount);
+
+            CommonEntityData entityData;
+            if (denseInfo != null) {
                 // Build the user, but only if one exists.
                 OsmUser user;
                 if (userId >= 0) {
-                    user = new OsmUser(userId, fieldDecoder.decodeString(userSid));
+                    user = fieldDecoder.decodeUser(userId, userSid);
                 } else {
                     user = OsmUser.NONE;
                 }
 
                 entityData = new CommonEntityData(
-                        nodeId, denseInfo.getVersion(i), fieldDecoder.decodeTimestamp(timestamp), user, changesetId);
+                        nodeId,
+                        denseInfo.getVersion(i),
+                        fieldDecoder.decodeTimestamp(timestamp),
+                        user,
+                        changesetId,
+                        tags);
             } else {
-                entityData =
-                        new CommonEntityData(nodeId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE, EMPTY_CHANGESET);
-            }
-
-            // Build the tags. The key and value string indexes are sequential
-            // in the same PBF array. Each set of tags is delimited by an index
-            // with a value of 0.
-            Collection<Tag> tags = entityData.getTags();
-            while (keysValuesIterator.hasNext()) {
-                int keyIndex = keysValuesIterator.next();
-                if (keyIndex == 0) {
-                    break;
-                }
-                if (!keysValuesIterator.hasNext()) {
-                    throw new OsmosisRuntimeException(
-                            "The PBF DenseInfo keys/values list contains a key with no corresponding value.");
-                }
-                int valueIndex = keysValuesIterator.next();
-
-                Tag tag = new Tag(fieldDecoder.decodeString(keyIndex), fieldDecoder.decodeString(valueIndex));
-                tags.add(tag);
+                entityData = new CommonEntityData(
+                        nodeId, EMPTY_VERSION, EMPTY_TIMESTAMP, OsmUser.NONE, EMPTY_CHANGESET, tags);
             }
 
-            node = new org.openstreetmap.osmosis.core.domain.v0_6.Node(
-                    entityData, fieldDecoder.decodeLatitude(latitude), fieldDecoder.decodeLongitude(longitude));
+            node = new org.openstreetmap.osmosis.core.domain.v0_6.Node(entityData, nodeLatitude, nodeLongitude);
 
             // Add the bound object to the results.
             decodedEntities.add(new NodeContainer(node));
@@ -224,11 +331,18 @@ public class PbfBlobDecoder implements Runnable {
     }
 
     private void processWays(List<Osmformat.Way> ways, PbfFieldDecoder fieldDecoder) {
+        Set<String> requiredKeys = getRequiredTagKeys(EntityType.Way);
+        boolean metadataRequired = isMetadataRequired();
+
         for (Osmformat.Way way : ways) {
             org.openstreetmap.osmosis.core.domain.v0_6.Way osmWay;
             CommonEntityData entityData;
 
-            if (way.hasInfo()) {
+            if (!hasRequiredTagKey(requiredKeys, way.getKeysList(), fieldDecoder)) {
+                continue;
+            }
+
+            if (metadataRequired && way.hasInfo()) {
                 entityData = buildCommonEntityData(
                         way.getId(), way.getKeysList(), way.getValsList(), way.getInfo(), fieldDecoder);
 
@@ -309,11 +423,18 @@ public class PbfBlobDecoder implements Runnable {
     }
 
     private void processRelations(List<Osmformat.Relation> relations, PbfFieldDecoder fieldDecoder) {
+        Set<String> requiredKeys = getRequiredTagKeys(EntityType.Relation);
+        boolean metadataRequired = isMetadataRequired();
+
         for (Osmformat.Relation relation : relations) {
             org.openstreetmap.osmosis.core.domain.v0_6.Relation osmRelation;
             CommonEntityData entityData;
 
-            if (relation.hasInfo()) {
+            if (!hasRequiredTagKey(requiredKeys, relation.getKeysList(), fieldDecoder)) {
+                continue;
+            }
+
+            if (metadataRequired && relation.hasInfo()) {
                 entityData = buildCommonEntityData(
                         relation.getId(),
                         relation.getKeysList(),
@@ -340,15 +461,46 @@ public class PbfBlobDecoder implements Runnable {
         }
     }
 
+    /**
+     * Indicates if a primitive group contains any entities of a type required
+     * by the sink. Blocks usually contain a single entity type so most blocks
+     * of unwanted types are skipped entirely.
+     */
+    private boolean isGroupRequired(Osmformat.PrimitiveGroup primitiveGroup) {
+        return ((primitiveGroup.hasDense() || primitiveGroup.getNodesCount() > 0)
+                        && isEntityTypeRequired(EntityType.Node))
+                || (primitiveGroup.getWaysCount() > 0 && isEntityTypeRequired(EntityType.Way))
+                || (primitiveGroup.getRelationsCount() > 0 && isEntityTypeRequired(EntityType.Relation));
+    }
+
     private void processOsmPrimitives(Osmformat.PrimitiveBlock block) {
-        PbfFieldDecoder fieldDecoder = new PbfFieldDecoder(block);
+        PbfFieldDecoder fieldDecoder;
+        boolean blockRequired = false;
+
+        // Avoid decoding the string table of blocks containing no required
+        // entities.
+        for (Osmformat.PrimitiveGroup primitiveGroup : block.getPrimitivegroupList()) {
+            blockRequired = blockRequired || isGroupRequired(primitiveGroup);
+        }
+        if (!blockRequired) {
+            log.finer("Skipping OSM primitive block containing no required entities.");
+            return;
+        }
+
+        fieldDecoder = new PbfFieldDecoder(block);
 
         for (Osmformat.PrimitiveGroup primitiveGroup : block.getPrimitivegroupList()) {
             log.finer("Processing OSM primitive group.");
-            processNodes(primitiveGroup.getDense(), fieldDecoder);
-            processNodes(primitiveGroup.getNodesList(), fieldDecoder);
-            processWays(primitiveGroup.getWaysList(), fieldDecoder);
-            processRelations(primitiveGroup.getRelationsList(), fieldDecoder);
+            if (isEntityTypeRequired(EntityType.Node)) {
+                processNodes(primitiveGroup.getDense(), fieldDecoder);
+                processNodes(primitiveGroup.getNodesList(), fieldDecoder);
+            }
+            if (isEntityTypeRequired(EntityType.Way)) {
+                processWays(primitiveGroup.getWaysList(), fieldDecoder);
+            }
+            if (isEntityTypeRequired(EntityType.Relation)) {
+                processRelations(primitiveGroup.getRelationsList(), fieldDecoder);
+            }
         }
     }
 
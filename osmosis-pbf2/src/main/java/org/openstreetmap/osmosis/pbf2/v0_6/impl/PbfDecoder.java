@@ -10,6 +10,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 
 /**
@@ -19,9 +20,10 @@ import org.openstreetmap.osmosis.core.task.v0_6.Sink;
  * @author Brett Henderson
  */
 public class PbfDecoder implements Runnable {
-    private StreamSplitter streamSplitter;
+    private BlobSplitter blobSplitter;
     private Executor executor;
     private int maxPendingBlobs;
+    private EntityFilterSpecification filterSpecification;
     private Sink sink;
     private Lock lock;
     private Condition dataWaitCondition;
@@ -30,8 +32,8 @@ public class PbfDecoder implements Runnable {
     /**
      * Creates a new instance.
      *
-     * @param streamSplitter
-     *            The PBF stream splitter providing the source of blobs to be
+     * @param blobSplitter
+     *            The PBF blob splitter providing the source of blobs to be
      *            decoded.
      * @param executor
      *            The executor service managing the thread pool.
@@ -41,10 +43,37 @@ public class PbfDecoder implements Runnable {
      * @param sink
      *            The sink to send all decoded entities to.
      */
-    public PbfDecoder(StreamSplitter streamSplitter, Executor executor, int maxPendingBlobs, Sink sink) {
-        this.streamSplitter = streamSplitter;
+    public PbfDecoder(BlobSplitter blobSplitter, Executor executor, int maxPendingBlobs, Sink sink) {
+        this(blobSplitter, executor, maxPendingBlobs, null, sink);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param blobSplitter
+     *            The PBF blob splitter providing the source of blobs to be
+     *            decoded.
+     * @param executor
+     *            The executor service managing the thread pool.
+     * @param maxPendingBlobs
+     *            The maximum number of blobs to have in progress at any point
+     *            in time.
+     * @param filterSpecification
+     *            The entities required by the sink, or null if all entities
+     *            are required.
+     * @param sink
+     *            The sink to send all decoded entities to.
+     */
+    public PbfDecoder(
+            BlobSplitter blobSplitter,
+            Executor executor,
+            int maxPendingBlobs,
+            EntityFilterSpecification filterSpecification,
+            Sink sink) {
+        this.blobSplitter = blobSplitter;
         this.executor = executor;
         this.maxPendingBlobs = maxPendingBlobs;
+        this.filterSpecification = filterSpecification;
         this.sink = sink;
 
         // Create the thread synchronisation primitives.
@@ -106,9 +135,9 @@ public class PbfDecoder implements Runnable {
 
     private void processBlobs() {
         // Process until the PBF stream is exhausted.
-        while (streamSplitter.hasNext()) {
+        while (blobSplitter.hasNext()) {
             // Obtain the next raw blob from the PBF stream.
-            RawBlob rawBlob = streamSplitter.next();
+            RawBlob rawBlob = blobSplitter.next();
 
             // Create the result object to capture the results of the decoded
             // blob and add it to the blob results queue.
@@ -145,7 +174,7 @@ public class PbfDecoder implements Runnable {
             };
 
             // Create the blob decoder itself and execute it on a worker thread.
-            PbfBlobDecoder blobDecoder = new PbfBlobDecoder(rawBlob, decoderListener);
+            PbfBlobDecoder blobDecoder = new PbfBlobDecoder(rawBlob, filterSpecification, decoderListener);
             executor.execute(blobDecoder);
 
             // If the number of pending blobs has reached capacity we must begin
@@ -3,6 +3,9 @@ package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 
 import crosby.binary.Osmformat;
 import java.util.Date;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.StringTableTagCollection;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 
 /**
  * Manages decoding of the lower level PBF data structures.
@@ -14,6 +17,7 @@ public class PbfFieldDecoder {
     private static final double COORDINATE_SCALING_FACTOR = 0.000000001;
 
     private String[] strings;
+    private OsmUser[] users;
     private int coordGranularity;
     private long coordLatitudeOffset;
     private long coordLongitudeOffset;
@@ -31,11 +35,14 @@ public class PbfFieldDecoder {
         this.coordLongitudeOffset = primitiveBlock.getLonOffset();
         this.dateGranularity = primitiveBlock.getDateGranularity();
 
+        // Each block has its own string table, interning shares the common
+        // strings between blocks.
         Osmformat.StringTable stringTable = primitiveBlock.getStringtable();
         strings = new String[stringTable.getSCount()];
         for (int i = 0; i < strings.length; i++) {
-            strings[i] = stringTable.getS(i).toStringUtf8();
+            strings[i] = StringDictionary.intern(stringTable.getS(i).toStringUtf8());
         }
+        users = new OsmUser[strings.length];
     }
 
     /**
@@ -81,4 +88,42 @@ public class PbfFieldDecoder {
     public String decodeString(int rawString) {
         return strings[rawString];
     }
+
+    /**
+     * Decodes a raw user into an OsmUser. Users are shared between all entities
+     * in the block edited by the same user.
+     *
+     * @param userId
+     *            The user id.
+     * @param rawUserName
+     *            The raw user name.
+     * @return The user.
+     */
+    public OsmUser decodeUser(int userId, int rawUserName) {
+        OsmUser user = users[rawUserName];
+
+        if (user == null || user.getId() != userId) {
+            user = new OsmUser(userId, strings[rawUserName]);
+            users[rawUserName] = user;
+        }
+
+        return user;
+    }
+
+    /**
+     * Decodes raw tags into a tag collection referencing the string table of
+     * the block. No tag objects are created until the tags are iterated.
+     *
+     * @param rawKeysValues
+     *            The raw keys and values, each key is immediately followed by
+     *            its value.
+     * @param offset
+     *            The index of the first key.
+     * @param tagCount
+     *            The number of tags.
+     * @return The tags.
+     */
+    public StringTableTagCollection decodeTags(int[] rawKeysValues, int offset, int tagCount) {
+        return new StringTableTagCollection(strings, rawKeysValues, offset, tagCount);
+    }
 }
@@ -1,6 +1,8 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pbf2.v0_6.impl;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a single piece of raw blob data extracted from the PBF stream. It has not yet been decoded into a
  * {@link crosby.binary.Fileformat.Blob} object. We delay this additional parsing until later when
@@ -10,7 +12,7 @@ package org.openstreetmap.osmosis.pbf2.v0_6.impl;
  */
 public class RawBlob {
     private String type;
-    private byte[] data;
+    private ByteBuffer data;
 
     /**
      * Creates a new instance.
@@ -22,6 +24,22 @@ public class RawBlob {
      *            The raw contents of the blob in binary undecoded form.
      */
     public RawBlob(String type, byte[] data) {
+        this(type, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Creates a new instance referencing existing data without copying it.
+     * This is used to pass slices of a memory mapped file directly to the
+     * decoders.
+     *
+     * @param type
+     *            The type of data represented by this blob. This corresponds to
+     *            the type field in the blob header.
+     * @param data
+     *            The raw contents of the blob in binary undecoded form. The
+     *            remaining bytes of the buffer are the blob contents.
+     */
+    public RawBlob(String type, ByteBuffer data) {
         this.type = type;
         this.data = data;
     }
@@ -37,11 +55,34 @@ public class RawBlob {
     }
 
     /**
-     * Gets the raw contents of the blob in binary undecoded form.
+     * Gets the raw contents of the blob in binary undecoded form. If the blob
+     * references a memory mapped file this creates a copy of the data, use
+     * {@link #getDataBuffer()} to avoid this.
      *
      * @return The raw blob data.
      */
     public byte[] getData() {
-        return data;
+        if (data.hasArray()
+                && data.arrayOffset() == 0
+                && data.position() == 0
+                && data.remaining() == data.array().length) {
+            return data.array();
+        }
+
+        byte[] result = new byte[data.remaining()];
+        data.duplicate().get(result);
+
+        return result;
+    }
+
+    /**
+     * Gets the raw contents of the blob in binary undecoded form without
+     * copying. The returned buffer is independent of any other callers and may
+     * be read freely.
+     *
+     * @return The raw blob data.
+     */
+    public ByteBuffer getDataBuffer() {
+        return data.duplicate();
     }
 }
@@ -5,11 +5,9 @@ import crosby.binary.Fileformat;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
-import org.openstreetmap.osmosis.core.lifecycle.Closeable;
 
 /**
  * Parses a PBF data stream and extracts the raw data of each blob in sequence
@@ -17,7 +15,7 @@ import org.openstreetmap.osmosis.core.lifecycle.Closeable;
  *
  * @author Brett Henderson
  */
-public class StreamSplitter implements Iterator<RawBlob>, Closeable {
+public class StreamSplitter implements BlobSplitter {
 
     private static Logger log = Logger.getLogger(StreamSplitter.class.getName());
 
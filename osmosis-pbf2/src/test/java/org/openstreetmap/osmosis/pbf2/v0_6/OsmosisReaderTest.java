@@ -1,10 +1,29 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pbf2.v0_6;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Bound;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownSource;
 import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkEntityInspector;
+import org.openstreetmap.osmosis.xml.common.CompressionMethod;
+import org.openstreetmap.osmosis.xml.v0_6.XmlWriter;
 
 /**
  * Tests the OsmosisReader and OsmosisSerializer classes.
@@ -34,4 +53,90 @@ public class OsmosisReaderTest extends AbstractDataTest {
         // Validate that the output file matches the input file.
         dataUtils.compareFiles(inputXmlFile, outputXmlFile);
     }
+
+    /**
+     * Tests that memory mapped files and streams produce identical results
+     * when reading a file containing many blobs.
+     */
+    @Test
+    public void testMappedAndStreamedRead() {
+        // Generate data files.
+        File inputXmlFile = dataUtils.createDataFile("v0_6/data-snapshot.osm");
+        File pbfFile = dataUtils.newFile();
+        File mappedXmlFile = dataUtils.newFile();
+        File streamedXmlFile = dataUtils.newFile();
+
+        // Write a PBF file with a small batch limit to create many blobs.
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", inputXmlFile.getPath(), "--write-pbf-0.6", pbfFile.getPath(), "batchlimit=10"
+        });
+
+        // Read the file using a memory mapping.
+        Osmosis.run(new String[] {
+            "-q", "--read-pbf-fast-0.6", pbfFile.getPath(), "workers=2", "--write-xml-0.6", mappedXmlFile.getPath()
+        });
+
+        // Read the file as a stream.
+        PbfReader reader = new PbfReader(
+                () -> {
+                    try {
+                        return new FileInputStream(pbfFile);
+                    } catch (IOException e) {
+                        throw new OsmosisRuntimeException("Unable to read PBF file " + pbfFile + ".", e);
+                    }
+                },
+                2);
+        reader.setSink(new XmlWriter(streamedXmlFile, CompressionMethod.None));
+        reader.run();
+
+        // Validate that both output files match the input file.
+        dataUtils.compareFiles(inputXmlFile, mappedXmlFile);
+        dataUtils.compareFiles(inputXmlFile, streamedXmlFile);
+    }
+
+    /**
+     * Tests that entities outside a pushed down filter are skipped by the
+     * reader.
+     */
+    @Test
+    public void testFilterPushdown() {
+        // Generate data files.
+        File inputXmlFile = dataUtils.createDataFile("v0_6/data-snapshot.osm");
+        File pbfFile = dataUtils.newFile();
+
+        Osmosis.run(
+                new String[] {"-q", "--read-xml-0.6", inputXmlFile.getPath(), "--write-pbf-0.6", pbfFile.getPath()});
+
+        // Request nodes within a box, no ways, and relations having a type.
+        EntityFilterSpecification specification = new EntityFilterSpecification();
+        specification.setBoundingBox(new Bound(-3, -9, -2, -8, ""));
+        specification.rejectEntityType(EntityType.Way);
+        specification.setRequiredTagKeys(EntityType.Relation, Collections.singleton("type"));
+        specification.setMetadataRequired(false);
+
+        SinkEntityInspector inspector = new SinkEntityInspector() {
+            @Override
+            public void initialize(Map<String, Object> metaData) {
+                assertTrue(((FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY))
+                        .pushDown(this, specification));
+                super.initialize(metaData);
+            }
+        };
+
+        PbfReader reader = new PbfReader(pbfFile, 0);
+        reader.setSink(inspector);
+        reader.run();
+
+        List<String> entities = new ArrayList<>();
+        for (EntityContainer container : inspector.getProcessedEntities()) {
+            Entity entity = container.getEntity();
+
+            entities.add(entity.getType() + " " + entity.getId());
+            if (!EntityType.Bound.equals(entity.getType())) {
+                assertEquals(-1, entity.getVersion(), "Metadata should not have been decoded.");
+            }
+        }
+
+        assertEquals(List.of("Bound 0", "Node 2", "Node 3", "Node 4", "Relation 1"), entities);
+    }
 }
@@ -0,0 +1,69 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pbf2.v0_6.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+
+/**
+ * Tests the memory mapped blob splitter.
+ */
+public class MappedFileSplitterTest extends AbstractDataTest {
+
+    private static List<RawBlob> readAll(BlobSplitter splitter) {
+        List<RawBlob> blobs = new ArrayList<RawBlob>();
+
+        try {
+            while (splitter.hasNext()) {
+                blobs.add(splitter.next());
+            }
+        } finally {
+            splitter.close();
+        }
+
+        return blobs;
+    }
+
+    /**
+     * Verifies that a window much smaller than the blobs produces the same
+     * blobs as a stream, and that blobs from earlier windows remain valid
+     * after the window has moved on.
+     *
+     * @throws IOException
+     *             if the PBF file can't be read.
+     */
+    @Test
+    public void testSmallWindow() throws IOException {
+        File inputXmlFile = dataUtils.createDataFile("v0_6/data-snapshot.osm");
+        File pbfFile = dataUtils.newFile();
+
+        // Write a PBF file with a small batch limit to create many blobs.
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", inputXmlFile.getPath(), "--write-pbf-0.6", pbfFile.getPath(), "batchlimit=10"
+        });
+
+        // Headers and blobs straddle the boundaries of a 64 byte window, and
+        // all blobs are read before any are compared.
+        List<RawBlob> mappedBlobs = readAll(new MappedFileSplitter(pbfFile, 64));
+        List<RawBlob> streamedBlobs = readAll(
+                new StreamSplitter(new DataInputStream(new BufferedInputStream(new FileInputStream(pbfFile)))));
+
+        assertTrue(streamedBlobs.size() > 2, "The file must contain several blobs.");
+        assertEquals(streamedBlobs.size(), mappedBlobs.size(), "Incorrect number of blobs.");
+        for (int i = 0; i < streamedBlobs.size(); i++) {
+            assertEquals(streamedBlobs.get(i).getType(), mappedBlobs.get(i).getType(), "Incorrect blob type.");
+            assertArrayEquals(streamedBlobs.get(i).getData(), mappedBlobs.get(i).getData(), "Incorrect blob data.");
+        }
+    }
+}
@@ -0,0 +1,308 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.common;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import net.postgis.jdbc.geometry.Geometry;
+import net.postgis.jdbc.geometry.binary.BinaryWriter;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.hstore.PGHStore;
+import org.postgresql.util.PGobject;
+
+/**
+ * Writes the rows of a single table to a stream using the PostgreSQL binary
+ * COPY format. Compared to the text format no escaping or date formatting is
+ * required, and the database doesn't need to parse the values.
+ * <p>
+ * Timestamps are written as local time in the default time zone, matching the
+ * values loaded from text COPY files into "timestamp without time zone"
+ * columns.
+ */
+public class BinaryCopyWriter implements CopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+    private static final int INT8_OID = 20;
+
+    private DataOutputStream out;
+    private ByteArrayOutputStream rowBuffer;
+    private DataOutputStream row;
+    private int fieldCount;
+    private boolean initialized;
+    private TimeZone timeZone;
+    private BinaryWriter postgisBinaryWriter;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param out
+     *            The stream to write to. It will be closed when the writer is
+     *            completed.
+     */
+    public BinaryCopyWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 65536));
+
+        rowBuffer = new ByteArrayOutputStream();
+        row = new DataOutputStream(rowBuffer);
+        timeZone = TimeZone.getDefault();
+        postgisBinaryWriter = new BinaryWriter();
+    }
+
+    private void initialize() {
+        if (!initialized) {
+            try {
+                // Write the header, there are no flags and no header extension.
+                out.write(SIGNATURE);
+                out.writeInt(0);
+                out.writeInt(0);
+
+            } catch (IOException e) {
+                throw new OsmosisRuntimeException("Unable to write the COPY header.", e);
+            }
+
+            initialized = true;
+        }
+    }
+
+    private void writeNull() throws IOException {
+        row.writeInt(-1);
+        fieldCount++;
+    }
+
+    private void writeBytes(byte[] data) throws IOException {
+        row.writeInt(data.length);
+        row.write(data);
+        fieldCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(boolean data) {
+        try {
+            row.writeInt(1);
+            row.writeBoolean(data);
+            fieldCount++;
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(int data) {
+        try {
+            row.writeInt(4);
+            row.writeInt(data);
+            fieldCount++;
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(long data) {
+        try {
+            row.writeInt(8);
+            row.writeLong(data);
+            fieldCount++;
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(String data) {
+        try {
+            if (data == null) {
+                writeNull();
+            } else {
+                writeBytes(data.getBytes(StandardCharsets.UTF_8));
+            }
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(Date data) {
+        try {
+            long millis = data.getTime();
+            long localMillis = millis + timeZone.getOffset(millis);
+
+            // Timestamps are microseconds since the PostgreSQL epoch.
+            row.writeInt(8);
+            row.writeLong((localMillis - POSTGRES_EPOCH_MILLIS) * 1000);
+            fieldCount++;
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeField(Geometry data) {
+        try {
+            if (data == null) {
+                writeNull();
+            } else {
+                // PostGIS accepts (E)WKB as its binary representation.
+                writeBytes(postgisBinaryWriter.writeBinary(data));
+            }
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * Writes an hstore field in the hstore binary format. Other object types
+     * have no binary representation available and are not supported.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    @Override
+    public void writeField(PGobject data) {
+        if (!(data instanceof PGHStore)) {
+            throw new OsmosisRuntimeException(
+                    "Type " + data.getType() + " is not supported by the binary COPY writer.");
+        }
+
+        try {
+            ByteArrayOutputStream hstoreBuffer = new ByteArrayOutputStream();
+            DataOutputStream hstore = new DataOutputStream(hstoreBuffer);
+            PGHStore tags = (PGHStore) data;
+
+            hstore.writeInt(tags.size());
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                byte[] key = tag.getKey().getBytes(StandardCharsets.UTF_8);
+
+                hstore.writeInt(key.length);
+                hstore.write(key);
+                if (tag.getValue() == null) {
+                    hstore.writeInt(-1);
+                } else {
+                    byte[] value = tag.getValue().getBytes(StandardCharsets.UTF_8);
+
+                    hstore.writeInt(value.length);
+                    hstore.write(value);
+                }
+            }
+
+            writeBytes(hstoreBuffer.toByteArray());
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * Writes a bigint array field.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    @Override
+    public void writeField(List<Long> data) {
+        try {
+            if (data.isEmpty()) {
+                // An empty array has no dimensions.
+                row.writeInt(12);
+                row.writeInt(0);
+                row.writeInt(0);
+                row.writeInt(INT8_OID);
+            } else {
+                row.writeInt(20 + (data.size() * 12));
+                row.writeInt(1); // Number of dimensions.
+                row.writeInt(0); // No null elements.
+                row.writeInt(INT8_OID);
+                row.writeInt(data.size());
+                row.writeInt(1); // Lower bound.
+                for (Long element : data) {
+                    row.writeInt(8);
+                    row.writeLong(element);
+                }
+            }
+            fieldCount++;
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write value (" + data + ")", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void endRecord() {
+        initialize();
+
+        try {
+            out.writeShort(fieldCount);
+            rowBuffer.writeTo(out);
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to end record.", e);
+        } finally {
+            rowBuffer.reset();
+            fieldCount = 0;
+        }
+    }
+
+    /**
+     * Writes the COPY trailer and closes the stream.
+     */
+    @Override
+    public void complete() {
+        initialize();
+
+        try {
+            if (fieldCount > 0) {
+                throw new OsmosisRuntimeException("The current record has not been ended.");
+            }
+
+            out.writeShort(-1);
+            out.close();
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to complete writing to the COPY stream.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // The stream is owned by the caller which must abort it if the writer
+        // wasn't completed.
+    }
+}
@@ -15,7 +15,6 @@ import java.util.logging.Logger;
 import net.postgis.jdbc.geometry.Geometry;
 import net.postgis.jdbc.geometry.binary.BinaryWriter;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
-import org.openstreetmap.osmosis.core.lifecycle.Completable;
 import org.postgresql.util.PGobject;
 
 /**
@@ -24,7 +23,7 @@ import org.postgresql.util.PGobject;
  *
  * @author Brett Henderson
  */
-public class CopyFileWriter implements Completable {
+public class CopyFileWriter implements CopyWriter {
 
     private static Logger log = Logger.getLogger(CopyFileWriter.class.getName());
 
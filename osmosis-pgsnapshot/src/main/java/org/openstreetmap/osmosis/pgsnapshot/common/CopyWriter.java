@@ -0,0 +1,85 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.common;
+
+import java.util.Date;
+import java.util.List;
+import net.postgis.jdbc.geometry.Geometry;
+import org.openstreetmap.osmosis.core.lifecycle.Completable;
+import org.postgresql.util.PGobject;
+
+/**
+ * Writes the rows of a single table in a format suitable for a database COPY
+ * statement. Fields are written in table column order, and each row is
+ * terminated by a call to endRecord.
+ */
+public interface CopyWriter extends Completable {
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(boolean data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(int data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(long data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written, null values are supported.
+     */
+    void writeField(String data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(Date data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written, null values are supported.
+     */
+    void writeField(Geometry data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(PGobject data);
+
+    /**
+     * Writes a field to the current row.
+     *
+     * @param data
+     *            The data to be written.
+     */
+    void writeField(List<Long> data);
+
+    /**
+     * Ends the current row.
+     */
+    void endRecord();
+}
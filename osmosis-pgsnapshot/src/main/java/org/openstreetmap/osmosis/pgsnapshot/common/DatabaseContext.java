@@ -13,6 +13,7 @@ import javax.sql.DataSource;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
 import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.postgresql.core.BaseConnection;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
@@ -39,6 +40,7 @@ public class DatabaseContext implements AutoCloseable {
     private TransactionTemplate txnTemplate;
     private TransactionStatus transaction;
     private JdbcTemplate jdbcTemplate;
+    private Connection copyConnection;
 
     /**
      * Creates a new instance.
@@ -129,6 +131,11 @@ public class DatabaseContext implements AutoCloseable {
             }
         }
 
+        if (copyConnection != null) {
+            DataSourceUtils.releaseConnection(copyConnection, dataSource);
+            copyConnection = null;
+        }
+
         dataSourceManager.close();
     }
 
@@ -186,7 +193,54 @@ public class DatabaseContext implements AutoCloseable {
      */
     public void loadCopyFile(File copyFile, String tableName, String... columns) {
         CopyManager copyManager;
+        StringBuilder copyStatement = buildCopyStatement(tableName, columns);
+
+        try (BufferedInputStream inStream = new BufferedInputStream(new FileInputStream(copyFile), 65536)) {
+            Connection conn = DataSourceUtils.getConnection(dataSource);
+            try {
+                copyManager = new CopyManager(conn.unwrap(BaseConnection.class));
+
+                copyManager.copyIn(copyStatement.toString(), inStream);
+            } catch (SQLException e) {
+                throw new OsmosisRuntimeException("Unable to process COPY file " + copyFile + ".", e);
+            } finally {
+                DataSourceUtils.releaseConnection(conn, dataSource);
+            }
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to process COPY file " + copyFile + ".", e);
+        }
+    }
 
+    /**
+     * Begins loading a table using the binary COPY format. The load occurs on a
+     * dedicated connection which is held until this context is closed, so only
+     * a single binary COPY may be active per context. Separate contexts must be
+     * used to load tables concurrently.
+     *
+     * @param tableName
+     *            The table to load the data into.
+     * @param columns
+     *            The columns to be loaded (optional).
+     * @return The stream to write the binary COPY data to. Closing the stream
+     *         completes the load.
+     */
+    public PGCopyOutputStream beginBinaryCopy(String tableName, String... columns) {
+        if (copyConnection != null) {
+            throw new OsmosisRuntimeException("A binary COPY has already been started.");
+        }
+
+        StringBuilder copyStatement = buildCopyStatement(tableName, columns);
+        copyStatement.append(" (FORMAT binary)");
+
+        copyConnection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return new PGCopyOutputStream(copyConnection.unwrap(BaseConnection.class), copyStatement.toString());
+        } catch (SQLException e) {
+            throw new OsmosisRuntimeException("Unable to begin binary COPY into table " + tableName + ".", e);
+        }
+    }
+
+    private StringBuilder buildCopyStatement(String tableName, String... columns) {
         StringBuilder copyStatement = new StringBuilder();
         copyStatement.append("COPY ");
         copyStatement.append(tableName);
@@ -202,19 +256,6 @@ public class DatabaseContext implements AutoCloseable {
         }
         copyStatement.append(" FROM STDIN");
 
-        try (BufferedInputStream inStream = new BufferedInputStream(new FileInputStream(copyFile), 65536)) {
-            Connection conn = DataSourceUtils.getConnection(dataSource);
-            try {
-                copyManager = new CopyManager(conn.unwrap(BaseConnection.class));
-
-                copyManager.copyIn(copyStatement.toString(), inStream);
-            } catch (SQLException e) {
-                throw new OsmosisRuntimeException("Unable to process COPY file " + copyFile + ".", e);
-            } finally {
-                DataSourceUtils.releaseConnection(conn, dataSource);
-            }
-        } catch (IOException e) {
-            throw new OsmosisRuntimeException("Unable to process COPY file " + copyFile + ".", e);
-        }
+        return copyStatement;
     }
 }
@@ -0,0 +1,208 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
+
+/**
+ * A node location store implementation backed by a sparse memory-mapped
+ * temporary file. Each node occupies a fixed 8 byte slot at an offset derived
+ * from its id, so both writes and reads are a single access to mapped memory
+ * with no heap allocation beyond the returned location. The file is mapped in
+ * fixed size segments which are created on demand, and regions of the id space
+ * that contain no nodes are never written and therefore consume no disk space
+ * on file systems supporting sparse files. The operating system page cache
+ * holds as much of the file in memory as it can, so this is fast when memory
+ * is plentiful without requiring a large JVM heap.
+ * <p>
+ * Each slot holds the fixed precision longitude in the upper 32 bits and the
+ * fixed precision latitude in the lower 31 bits. The top bit is set to flag
+ * that the slot is populated. This restricts latitudes to approximately +/-107
+ * degrees which is well beyond the valid range.
+ */
+public class MappedNodeLocationStore implements NodeLocationStore {
+    private static final Logger LOG = Logger.getLogger(MappedNodeLocationStore.class.getName());
+
+    private static final int NODE_DATA_SHIFT = 3;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+    private static final long VALID_FLAG = 0x80000000L;
+    private static final int MIN_LATITUDE = -(1 << 30);
+    private static final int MAX_LATITUDE = (1 << 30) - 1;
+
+    private File nodeStorageFile;
+    private FileChannel channel;
+    private MappedByteBuffer[] segments;
+    private NodeLocation invalidNodeLocation;
+
+    /**
+     * Creates a new instance.
+     */
+    public MappedNodeLocationStore() {
+        segments = new MappedByteBuffer[0];
+
+        invalidNodeLocation = new NodeLocation();
+    }
+
+    private void initialize() {
+        if (channel == null) {
+            try {
+                nodeStorageFile = File.createTempFile("nodelatlon", null);
+
+                // The file must be re-created with the sparse option for the
+                // option to take effect.
+                if (!nodeStorageFile.delete()) {
+                    throw new OsmosisRuntimeException("Unable to prepare temporary file " + nodeStorageFile + ".");
+                }
+                channel = FileChannel.open(
+                        nodeStorageFile.toPath(),
+                        StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.SPARSE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+
+            } catch (IOException e) {
+                throw new OsmosisRuntimeException("Unable to create temporary file " + nodeStorageFile + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the segment containing the specified file offset, mapping it if it
+     * doesn't already exist.
+     */
+    private MappedByteBuffer getOrCreateSegment(int segmentIndex) {
+        MappedByteBuffer segment;
+
+        initialize();
+
+        if (segmentIndex >= segments.length) {
+            segments = Arrays.copyOf(segments, segmentIndex + 1);
+        }
+
+        segment = segments[segmentIndex];
+        if (segment == null) {
+            try {
+                // Mapping a region beyond the end of the file extends the file
+                // without writing any data.
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentIndex * SEGMENT_SIZE, SEGMENT_SIZE);
+                segment.order(ByteOrder.nativeOrder());
+
+            } catch (IOException e) {
+                throw new OsmosisRuntimeException("Unable to map node storage file " + nodeStorageFile + ".", e);
+            }
+
+            segments[segmentIndex] = segment;
+
+            if (LOG.isLoggable(Level.FINER)) {
+                LOG.finer("Mapped node location segment " + segmentIndex + " of " + (SEGMENT_SIZE / 1048576) + "MB.");
+            }
+        }
+
+        return segment;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addLocation(long nodeId, NodeLocation nodeLocation) {
+        long fileOffset;
+        int longitude;
+        int latitude;
+
+        if (nodeId < 0) {
+            throw new OsmosisRuntimeException("Node id " + nodeId + " is negative and cannot be stored.");
+        }
+
+        longitude = FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLongitude());
+        latitude = FixedPrecisionCoordinateConvertor.convertToFixed(nodeLocation.getLatitude());
+        if (latitude < MIN_LATITUDE || latitude > MAX_LATITUDE) {
+            throw new OsmosisRuntimeException(
+                    "Node " + nodeId + " has latitude " + nodeLocation.getLatitude() + " which cannot be stored.");
+        }
+
+        fileOffset = nodeId << NODE_DATA_SHIFT;
+
+        getOrCreateSegment((int) (fileOffset >>> SEGMENT_SHIFT))
+                .putLong(
+                        (int) (fileOffset & SEGMENT_OFFSET_MASK),
+                        (((long) longitude) << 32) | (latitude & 0x7FFFFFFFL) | VALID_FLAG);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NodeLocation getNodeLocation(long nodeId) {
+        long fileOffset;
+        int segmentIndex;
+        MappedByteBuffer segment;
+        long value;
+
+        if (nodeId < 0) {
+            return invalidNodeLocation;
+        }
+
+        fileOffset = nodeId << NODE_DATA_SHIFT;
+        segmentIndex = (int) (fileOffset >>> SEGMENT_SHIFT);
+
+        if (segmentIndex >= segments.length) {
+            return invalidNodeLocation;
+        }
+        segment = segments[segmentIndex];
+        if (segment == null) {
+            return invalidNodeLocation;
+        }
+
+        value = segment.getLong((int) (fileOffset & SEGMENT_OFFSET_MASK));
+        if ((value & VALID_FLAG) == 0) {
+            return invalidNodeLocation;
+        }
+
+        // Shift the latitude left then right to sign extend it from 31 bits.
+        return new NodeLocation(
+                FixedPrecisionCoordinateConvertor.convertToDouble((int) (value >> 32)),
+                FixedPrecisionCoordinateConvertor.convertToDouble(((int) value << 1) >> 1));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Mapped buffers are released when they are garbage collected.
+        segments = new MappedByteBuffer[0];
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // We cannot throw an exception within a release method.
+                LOG.log(Level.WARNING, "Unable to close node storage file channel.", e);
+            }
+            channel = null;
+        }
+
+        if (nodeStorageFile != null) {
+            if (!nodeStorageFile.delete()) {
+                // We cannot throw an exception within a release method. The
+                // file may still be mapped on some platforms so try again
+                // when the JVM exits.
+                LOG.warning("Unable to delete file " + nodeStorageFile);
+                nodeStorageFile.deleteOnExit();
+            }
+            nodeStorageFile = null;
+        }
+    }
+}
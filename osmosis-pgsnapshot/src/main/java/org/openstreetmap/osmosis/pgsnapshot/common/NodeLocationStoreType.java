@@ -23,5 +23,14 @@ public enum NodeLocationStoreType {
      * temporary file on disk. This is optimised for small datasets, and is less
      * efficient for large datasets.
      */
-    CompactTempFile
+    CompactTempFile,
+
+    /**
+     * A memory-mapped node location store holds all information in a sparse
+     * temporary file on disk which is accessed through the operating system
+     * page cache. This avoids the need for a large JVM heap while remaining
+     * close to in-memory performance where enough physical memory is
+     * available.
+     */
+    MappedFile
 }
@@ -63,8 +63,36 @@ public class PostgreSqlChangeWriter implements ChangeSink {
             DatabasePreferences preferences,
             boolean keepInvalidWays,
             boolean logging) {
+        this(loginCredentials, preferences, keepInvalidWays, logging, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param loginCredentials
+     *            Contains all information required to connect to the database.
+     * @param preferences
+     *            Contains preferences configuring database behaviour.
+     * @param keepInvalidWays
+     *            If true, zero and single node ways are kept. Otherwise they are
+     *            silently dropped to avoid putting invalid geometries into the
+     *            database which can cause problems with postgis functions.
+     * @param logging
+     * 			  If true, will log all sql queries to the database that was executed
+     * 			  from the change log
+     * @param batchSize
+     *            The maximum number of changes of a single entity type to apply
+     *            to the database in one batch. If 0, each change is applied
+     *            individually.
+     */
+    public PostgreSqlChangeWriter(
+            DatabaseLoginCredentials loginCredentials,
+            DatabasePreferences preferences,
+            boolean keepInvalidWays,
+            boolean logging,
+            int batchSize) {
         dbCtx = new DatabaseContext(loginCredentials);
-        changeWriter = new ChangeWriter(dbCtx, logging);
+        changeWriter = new ChangeWriter(dbCtx, logging, batchSize);
         actionWriterMap = new HashMap<ChangeAction, ActionChangeWriter>();
         actionWriterMap.put(
                 ChangeAction.Create, new ActionChangeWriter(changeWriter, ChangeAction.Create, keepInvalidWays));
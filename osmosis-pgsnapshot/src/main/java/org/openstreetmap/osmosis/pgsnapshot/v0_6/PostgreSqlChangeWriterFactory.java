@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pgsnapshot.v0_6;
 
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.database.DatabaseTaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
@@ -17,6 +18,8 @@ public class PostgreSqlChangeWriterFactory extends DatabaseTaskManagerFactory {
     private static final boolean DEFAULT_KEEP_INVALID_WAYS = true;
     private static final String ARG_LOGGING = "logging";
     private static final boolean DEFAULT_LOGGING = false;
+    private static final String ARG_BATCH_SIZE = "batchSize";
+    private static final int DEFAULT_BATCH_SIZE = 0;
 
     /**
      * {@inheritDoc}
@@ -25,6 +28,12 @@ public class PostgreSqlChangeWriterFactory extends DatabaseTaskManagerFactory {
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
         boolean keepInvalidWays = getBooleanArgument(taskConfig, ARG_KEEP_INVALID_WAYS, DEFAULT_KEEP_INVALID_WAYS);
         boolean logging = getBooleanArgument(taskConfig, ARG_LOGGING, DEFAULT_LOGGING);
+        int batchSize = getIntegerArgument(taskConfig, ARG_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+
+        if (batchSize < 0) {
+            throw new OsmosisRuntimeException(
+                    "Argument " + ARG_BATCH_SIZE + " for task " + taskConfig.getId() + " must not be negative.");
+        }
 
         return new ChangeSinkManager(
                 taskConfig.getId(),
@@ -32,7 +41,8 @@ public class PostgreSqlChangeWriterFactory extends DatabaseTaskManagerFactory {
                         getDatabaseLoginCredentials(taskConfig),
                         getDatabasePreferences(taskConfig),
                         keepInvalidWays,
-                        logging),
+                        logging,
+                        batchSize),
                 taskConfig.getPipeArgs());
     }
 }
@@ -12,6 +12,7 @@ import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsnapshot.v0_6.impl.CopyFilesetBuilder;
 import org.openstreetmap.osmosis.pgsnapshot.v0_6.impl.CopyFilesetLoader;
 import org.openstreetmap.osmosis.pgsnapshot.v0_6.impl.DatabaseCapabilityChecker;
+import org.openstreetmap.osmosis.pgsnapshot.v0_6.impl.StreamingCopyLoader;
 import org.openstreetmap.osmosis.pgsnapshot.v0_6.impl.TempCopyFileset;
 
 /**
@@ -26,6 +27,7 @@ public class PostgreSqlCopyWriter implements Sink {
 
     private CopyFilesetBuilder copyFilesetBuilder;
     private CopyFilesetLoader copyFilesetLoader;
+    private StreamingCopyLoader streamingCopyLoader;
     private TempCopyFileset copyFileset;
     private DatabaseLoginCredentials loginCredentials;
     private DatabasePreferences preferences;
@@ -34,6 +36,8 @@ public class PostgreSqlCopyWriter implements Sink {
     private boolean populateLinestring;
     private boolean enableKeepPartialLinestring;
     private boolean keepInvalidWays;
+    private boolean streamLoad;
+    private int indexWorkers;
     private boolean initialized;
 
     /**
@@ -59,11 +63,48 @@ public class PostgreSqlCopyWriter implements Sink {
             boolean enableKeepPartialLinestring,
             NodeLocationStoreType storeType,
             boolean keepInvalidWays) {
+        this(loginCredentials, preferences, enableKeepPartialLinestring, storeType, keepInvalidWays, false, 1);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param loginCredentials
+     *            Contains all information required to connect to the database.
+     * @param preferences
+     *            Contains preferences configuring database behaviour.
+     * @param storeType
+     *            The node location storage type used by the geometry builders.
+     * @param enableKeepPartialLinestring
+     *            If true, the way linestring is build even on invalid or missing
+     *            nodes.
+     * @param keepInvalidWays
+     *            If true, zero and single node ways are kept. Otherwise they are
+     *            silently dropped to avoid putting invalid geometries into the
+     *            database which can cause problems with postgis functions.
+     * @param streamLoad
+     *            If true, data is streamed directly into the database using a
+     *            binary COPY per table instead of being written to temporary
+     *            files and loaded within a single transaction.
+     * @param indexWorkers
+     *            The number of tables to build indexes for concurrently. This
+     *            only applies if streamLoad is true.
+     */
+    public PostgreSqlCopyWriter(
+            DatabaseLoginCredentials loginCredentials,
+            DatabasePreferences preferences,
+            boolean enableKeepPartialLinestring,
+            NodeLocationStoreType storeType,
+            boolean keepInvalidWays,
+            boolean streamLoad,
+            int indexWorkers) {
         this.loginCredentials = loginCredentials;
         this.preferences = preferences;
         this.storeType = storeType;
         this.enableKeepPartialLinestring = enableKeepPartialLinestring;
         this.keepInvalidWays = keepInvalidWays;
+        this.streamLoad = streamLoad;
+        this.indexWorkers = indexWorkers;
 
         copyFileset = new TempCopyFileset();
     }
@@ -79,17 +120,32 @@ public class PostgreSqlCopyWriter implements Sink {
                 populateLinestring = capabilityChecker.isWayLinestringSupported();
             }
 
-            copyFilesetBuilder = new CopyFilesetBuilder(
-                    copyFileset,
-                    populateBbox,
-                    populateLinestring,
-                    enableKeepPartialLinestring,
-                    storeType,
-                    keepInvalidWays);
+            if (streamLoad) {
+                streamingCopyLoader = new StreamingCopyLoader(loginCredentials, preferences, indexWorkers);
+
+                copyFilesetBuilder = new CopyFilesetBuilder(
+                        streamingCopyLoader,
+                        populateBbox,
+                        populateLinestring,
+                        enableKeepPartialLinestring,
+                        storeType,
+                        keepInvalidWays);
 
-            copyFilesetLoader = new CopyFilesetLoader(loginCredentials, preferences, copyFileset);
+                LOG.fine("Processing input data, building geometries and streaming it into the database.");
 
-            LOG.fine("Processing input data, building geometries and creating database load files.");
+            } else {
+                copyFilesetBuilder = new CopyFilesetBuilder(
+                        copyFileset,
+                        populateBbox,
+                        populateLinestring,
+                        enableKeepPartialLinestring,
+                        storeType,
+                        keepInvalidWays);
+
+                copyFilesetLoader = new CopyFilesetLoader(loginCredentials, preferences, copyFileset);
+
+                LOG.fine("Processing input data, building geometries and creating database load files.");
+            }
 
             initialized = true;
         }
@@ -119,8 +175,13 @@ public class PostgreSqlCopyWriter implements Sink {
 
         copyFilesetBuilder.complete();
 
-        LOG.fine("All data has been received, beginning database load.");
-        copyFilesetLoader.run();
+        if (streamLoad) {
+            LOG.fine("All data has been received, building indexes.");
+            streamingCopyLoader.complete();
+        } else {
+            LOG.fine("All data has been received, beginning database load.");
+            copyFilesetLoader.run();
+        }
 
         LOG.fine("Processing complete.");
     }
@@ -133,6 +194,10 @@ public class PostgreSqlCopyWriter implements Sink {
             copyFilesetBuilder.close();
             copyFilesetBuilder = null;
         }
+        if (streamingCopyLoader != null) {
+            streamingCopyLoader.close();
+            streamingCopyLoader = null;
+        }
         copyFileset.close();
 
         initialized = false;
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pgsnapshot.v0_6;
 
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.database.DatabaseTaskManagerFactory;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManager;
@@ -19,6 +20,10 @@ public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
     private static final boolean DEFAULT_ENABLE_KEEP_PARTIAL_LIENSTRING = false;
     private static final String ARG_KEEP_INVALID_WAYS = "keepInvalidWays";
     private static final boolean DEFAULT_KEEP_INVALID_WAYS = true;
+    private static final String ARG_STREAM_LOAD = "streamLoad";
+    private static final boolean DEFAULT_STREAM_LOAD = false;
+    private static final String ARG_INDEX_WORKERS = "indexWorkers";
+    private static final int DEFAULT_INDEX_WORKERS = 4;
 
     /**
      * {@inheritDoc}
@@ -28,6 +33,8 @@ public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
         boolean enableKeepPartialLinestring;
         NodeLocationStoreType storeType;
         boolean keepInvalidWays;
+        boolean streamLoad;
+        int indexWorkers;
 
         enableKeepPartialLinestring = getBooleanArgument(
                 taskConfig, ARG_ENABLE_KEEP_PARTIAL_LIENSTRING, DEFAULT_ENABLE_KEEP_PARTIAL_LIENSTRING);
@@ -35,6 +42,12 @@ public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
                 NodeLocationStoreType.class,
                 getStringArgument(taskConfig, ARG_NODE_LOCATION_STORE_TYPE, DEFAULT_NODE_LOCATION_STORE_TYPE));
         keepInvalidWays = getBooleanArgument(taskConfig, ARG_KEEP_INVALID_WAYS, DEFAULT_KEEP_INVALID_WAYS);
+        streamLoad = getBooleanArgument(taskConfig, ARG_STREAM_LOAD, DEFAULT_STREAM_LOAD);
+        indexWorkers = getIntegerArgument(taskConfig, ARG_INDEX_WORKERS, DEFAULT_INDEX_WORKERS);
+        if (indexWorkers < 1) {
+            throw new OsmosisRuntimeException(
+                    "Argument " + ARG_INDEX_WORKERS + " for task " + taskConfig.getId() + " must be at least 1.");
+        }
 
         return new SinkManager(
                 taskConfig.getId(),
@@ -43,7 +56,9 @@ public class PostgreSqlCopyWriterFactory extends DatabaseTaskManagerFactory {
                         getDatabasePreferences(taskConfig),
                         enableKeepPartialLinestring,
                         storeType,
-                        keepInvalidWays),
+                        keepInvalidWays,
+                        streamLoad,
+                        indexWorkers),
                 taskConfig.getPipeArgs());
     }
 }
@@ -1,6 +1,9 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import org.openstreetmap.osmosis.pgsnapshot.common.DatabaseContext;
 import org.springframework.jdbc.core.JdbcTemplate;
 
@@ -41,6 +44,26 @@ public class ActionDao {
         }
     }
 
+    /**
+     * Adds an action for each of the specified ids to the database in a single
+     * batch.
+     *
+     * @param dataType The type of data being represented by the actions.
+     * @param action The action being performed on the data.
+     * @param ids The identifiers of the data.
+     */
+    public void addActions(ActionDataType dataType, ChangesetAction action, Collection<Long> ids) {
+        if (capabilityChecker.isActionSupported() && !ids.isEmpty()) {
+            List<Object[]> batchArgs = new ArrayList<Object[]>(ids.size());
+
+            for (long id : ids) {
+                batchArgs.add(new Object[] {dataType.getDatabaseValue(), action.getDatabaseValue(), id});
+            }
+
+            jdbcTemplate.batchUpdate(SQL_INSERT, batchArgs);
+        }
+    }
+
     /**
      * Removes all action records.
      */
@@ -33,6 +33,11 @@ public class ChangeWriter {
     private WayDao wayDao;
     private RelationDao relationDao;
     private Set<Integer> userSet;
+    private int batchSize;
+    private EntityChangeBatch<Node> nodeBatch;
+    private EntityChangeBatch<Way> wayBatch;
+    private EntityChangeBatch<Relation> relationBatch;
+    private EntityChangeBatch<?> currentBatch;
 
     /**
      * Creates a new instance.
@@ -43,7 +48,23 @@ public class ChangeWriter {
      * 			  Verbose logging directly to the database
      */
     public ChangeWriter(DatabaseContext dbCtx, boolean logging) {
+        this(dbCtx, logging, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param dbCtx
+     *            The database context to use for accessing the database.
+     * @param logging
+     * 			  Verbose logging directly to the database
+     * @param batchSize
+     *            The maximum number of changes to apply to the database in a
+     *            single batch. If 0, each change is applied individually.
+     */
+    public ChangeWriter(DatabaseContext dbCtx, boolean logging, int batchSize) {
         this.dbCtx = dbCtx;
+        this.batchSize = batchSize;
 
         actionDao = new ActionDao(dbCtx);
         userDao = new UserDao(dbCtx, actionDao);
@@ -52,6 +73,10 @@ public class ChangeWriter {
         relationDao = new RelationDao(dbCtx, actionDao, logging);
 
         userSet = new HashSet<Integer>();
+
+        nodeBatch = new EntityChangeBatch<Node>(nodeDao);
+        wayBatch = new EntityChangeBatch<Way>(wayDao);
+        relationBatch = new EntityChangeBatch<Relation>(relationDao);
     }
 
     /**
@@ -101,6 +126,38 @@ public class ChangeWriter {
         writeUser(entity.getUser());
     }
 
+    /**
+     * Prepares the specified batch to receive a change to an entity. Changes
+     * are applied in their original order by flushing the current batch when
+     * the entity type changes, and flushing a batch if it is full or already
+     * contains a change to the same entity.
+     *
+     * @param batch
+     *            The batch to receive the change.
+     * @param entityId
+     *            The id of the entity being changed.
+     */
+    private void prepareBatch(EntityChangeBatch<?> batch, long entityId) {
+        if (currentBatch != batch) {
+            flushBatch();
+            currentBatch = batch;
+        }
+
+        if (batch.size() >= batchSize || batch.contains(entityId)) {
+            batch.flush();
+        }
+    }
+
+    /**
+     * Applies all batched changes to the database.
+     */
+    private void flushBatch() {
+        if (currentBatch != null) {
+            currentBatch.flush();
+            currentBatch = null;
+        }
+    }
+
     /**
      * Writes the specified node change to the database.
      *
@@ -112,6 +169,16 @@ public class ChangeWriter {
     public void write(Node node, ChangeAction action) {
         processEntityPrerequisites(node);
 
+        if (batchSize > 0) {
+            prepareBatch(nodeBatch, node.getId());
+            if (ChangeAction.Delete.equals(action)) {
+                nodeBatch.addRemove(node.getId());
+            } else {
+                nodeBatch.addWrite(node, true);
+            }
+            return;
+        }
+
         // If this is a create or modify, we must create or modify the records
         // in the database. Note that we don't use the input source to
         // distinguish between create and modify, we make this determination
@@ -144,6 +211,16 @@ public class ChangeWriter {
     public void write(Way way, ChangeAction action, boolean keepInvalidWays) {
         processEntityPrerequisites(way);
 
+        if (batchSize > 0) {
+            prepareBatch(wayBatch, way.getId());
+            if (ChangeAction.Delete.equals(action)) {
+                wayBatch.addRemove(way.getId());
+            } else {
+                wayBatch.addWrite(way, way.getWayNodes().size() >= 2 || keepInvalidWays);
+            }
+            return;
+        }
+
         // If this is a create or modify, we must create or modify the records
         // in the database. Note that we don't use the input source to
         // distinguish between create and modify, we make this determination
@@ -179,6 +256,16 @@ public class ChangeWriter {
     public void write(Relation relation, ChangeAction action) {
         processEntityPrerequisites(relation);
 
+        if (batchSize > 0) {
+            prepareBatch(relationBatch, relation.getId());
+            if (ChangeAction.Delete.equals(action)) {
+                relationBatch.addRemove(relation.getId());
+            } else {
+                relationBatch.addWrite(relation, true);
+            }
+            return;
+        }
+
         // If this is a create or modify, we must create or modify the records
         // in the database. Note that we don't use the input source to
         // distinguish between create and modify, we make this determination
@@ -200,6 +287,8 @@ public class ChangeWriter {
      * Performs post-change database updates.
      */
     public void complete() {
+        flushBatch();
+
         dbCtx.getJdbcTemplate()
                 .call(
                         new CallableStatementCreator() {
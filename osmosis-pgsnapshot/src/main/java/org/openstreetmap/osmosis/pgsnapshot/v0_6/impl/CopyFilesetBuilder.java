@@ -23,13 +23,14 @@ import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.lifecycle.CompletableContainer;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.hstore.PGHStore;
-import org.openstreetmap.osmosis.pgsnapshot.common.CopyFileWriter;
+import org.openstreetmap.osmosis.pgsnapshot.common.CopyWriter;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
 import org.openstreetmap.osmosis.pgsnapshot.common.PointBuilder;
 
 /**
  * An OSM data sink for storing all data to a set of database dump files. These
- * files can be used for populating an empty database.
+ * files can be used for populating an empty database. Alternatively the data
+ * can be sent to any other set of COPY writers such as database COPY streams.
  *
  * @author Brett Henderson
  */
@@ -42,12 +43,12 @@ public class CopyFilesetBuilder implements Sink, EntityProcessor {
     private WayGeometryBuilder wayGeometryBuilder;
     private CompletableContainer writerContainer;
     private MemberTypeValueMapper memberTypeValueMapper;
-    private CopyFileWriter userWriter;
-    private CopyFileWriter nodeWriter;
-    private CopyFileWriter wayWriter;
-    private CopyFileWriter wayNodeWriter;
-    private CopyFileWriter relationWriter;
-    private CopyFileWriter relationMemberWriter;
+    private CopyWriter userWriter;
+    private CopyWriter nodeWriter;
+    private CopyWriter wayWriter;
+    private CopyWriter wayNodeWriter;
+    private CopyWriter relationWriter;
+    private CopyWriter relationMemberWriter;
     private PointBuilder pointBuilder;
     private Set<Integer> userSet;
 
@@ -83,6 +84,47 @@ public class CopyFilesetBuilder implements Sink, EntityProcessor {
             boolean enableKeepPartialLinestring,
             NodeLocationStoreType storeType,
             boolean keepInvalidWays) {
+        this(
+                new FileCopyWriterFactory(copyFileset),
+                enableBboxBuilder,
+                enableLinestringBuilder,
+                enableKeepPartialLinestring,
+                storeType,
+                keepInvalidWays);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param copyWriterFactory
+     *            Creates the COPY writers for each table.
+     * @param enableBboxBuilder
+     *            If true, the way bbox geometry is built during processing
+     *            instead of relying on the database to build them after import.
+     *            This increases processing but is faster than relying on the
+     *            database.
+     * @param enableLinestringBuilder
+     *            If true, the way linestring geometry is built during
+     *            processing instead of relying on the database to build them
+     *            after import. This increases processing but is faster than
+     *            relying on the database.
+     * @param enableKeepPartialLinestring
+     *            If true, the way linestring is build even on invalid or missing
+     *            nodes.
+     * @param storeType
+     *            The node location storage type used by the geometry builders.
+     * @param keepInvalidWays
+     *            If true, zero and single node ways are kept. Otherwise they are
+     *            silently dropped to avoid putting invalid geometries into the
+     *            database which can cause problems with postgis functions.
+     */
+    public CopyFilesetBuilder(
+            CopyWriterFactory copyWriterFactory,
+            boolean enableBboxBuilder,
+            boolean enableLinestringBuilder,
+            boolean enableKeepPartialLinestring,
+            NodeLocationStoreType storeType,
+            boolean keepInvalidWays) {
         this.enableBboxBuilder = enableBboxBuilder;
         this.enableLinestringBuilder = enableLinestringBuilder;
         this.enableKeepPartialLinestring = enableKeepPartialLinestring;
@@ -90,12 +132,12 @@ public class CopyFilesetBuilder implements Sink, EntityProcessor {
 
         writerContainer = new CompletableContainer();
 
-        userWriter = writerContainer.add(new CopyFileWriter(copyFileset.getUserFile()));
-        nodeWriter = writerContainer.add(new CopyFileWriter(copyFileset.getNodeFile()));
-        wayWriter = writerContainer.add(new CopyFileWriter(copyFileset.getWayFile()));
-        wayNodeWriter = writerContainer.add(new CopyFileWriter(copyFileset.getWayNodeFile()));
-        relationWriter = writerContainer.add(new CopyFileWriter(copyFileset.getRelationFile()));
-        relationMemberWriter = writerContainer.add(new CopyFileWriter(copyFileset.getRelationMemberFile()));
+        userWriter = writerContainer.add(copyWriterFactory.createUserWriter());
+        nodeWriter = writerContainer.add(copyWriterFactory.createNodeWriter());
+        wayWriter = writerContainer.add(copyWriterFactory.createWayWriter());
+        wayNodeWriter = writerContainer.add(copyWriterFactory.createWayNodeWriter());
+        relationWriter = writerContainer.add(copyWriterFactory.createRelationWriter());
+        relationMemberWriter = writerContainer.add(copyWriterFactory.createRelationMemberWriter());
 
         pointBuilder = new PointBuilder();
         wayGeometryBuilder = new WayGeometryBuilder(storeType);
@@ -17,7 +17,7 @@ public class CopyFilesetLoader implements Runnable {
 
     private static final Logger LOG = Logger.getLogger(CopyFilesetLoader.class.getName());
 
-    private static String[] appendColumn(String[] columns, String newColumn) {
+    static String[] appendColumn(String[] columns, String newColumn) {
         String[] result;
 
         result = new String[columns.length + 1];
@@ -28,10 +28,32 @@ public class CopyFilesetLoader implements Runnable {
         return result;
     }
 
-    private static final String[] COMMON_COLUMNS = {"id", "version", "user_id", "tstamp", "changeset_id", "tags"};
-    private static final String[] NODE_COLUMNS = appendColumn(COMMON_COLUMNS, "geom");
-    private static final String[] WAY_COLUMNS = appendColumn(COMMON_COLUMNS, "nodes");
-    private static final String[] RELATION_COLUMNS = COMMON_COLUMNS;
+    static final String[] COMMON_COLUMNS = {"id", "version", "user_id", "tstamp", "changeset_id", "tags"};
+    static final String[] NODE_COLUMNS = appendColumn(COMMON_COLUMNS, "geom");
+    static final String[] WAY_COLUMNS = appendColumn(COMMON_COLUMNS, "nodes");
+    static final String[] RELATION_COLUMNS = COMMON_COLUMNS;
+
+    /**
+     * Gets the way table columns, including the optional geometry columns
+     * that exist in the database.
+     *
+     * @param capabilityChecker
+     *            Determines which optional columns exist.
+     * @return The way table columns.
+     */
+    static String[] getWayColumns(DatabaseCapabilityChecker capabilityChecker) {
+        String[] wayColumns;
+
+        wayColumns = WAY_COLUMNS;
+        if (capabilityChecker.isWayBboxSupported()) {
+            wayColumns = appendColumn(wayColumns, "bbox");
+        }
+        if (capabilityChecker.isWayLinestringSupported()) {
+            wayColumns = appendColumn(wayColumns, "linestring");
+        }
+
+        return wayColumns;
+    }
 
     private DatabaseLoginCredentials loginCredentials;
     private DatabasePreferences preferences;
@@ -69,13 +91,7 @@ public class CopyFilesetLoader implements Runnable {
             new SchemaVersionValidator(dbCtx.getJdbcTemplate(), preferences)
                     .validateVersion(PostgreSqlVersionConstants.SCHEMA_VERSION);
 
-            wayColumns = WAY_COLUMNS;
-            if (capabilityChecker.isWayBboxSupported()) {
-                wayColumns = appendColumn(wayColumns, "bbox");
-            }
-            if (capabilityChecker.isWayLinestringSupported()) {
-                wayColumns = appendColumn(wayColumns, "linestring");
-            }
+            wayColumns = getWayColumns(capabilityChecker);
 
             indexManager = new IndexManager(dbCtx, false, false);
 
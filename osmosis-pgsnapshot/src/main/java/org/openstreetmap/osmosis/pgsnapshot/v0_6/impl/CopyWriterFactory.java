@@ -0,0 +1,51 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
+
+import org.openstreetmap.osmosis.pgsnapshot.common.CopyWriter;
+
+/**
+ * Creates the COPY writers for each table populated during a bulk load.
+ */
+public interface CopyWriterFactory {
+    /**
+     * Creates the user table writer.
+     *
+     * @return The user table writer.
+     */
+    CopyWriter createUserWriter();
+
+    /**
+     * Creates the node table writer.
+     *
+     * @return The node table writer.
+     */
+    CopyWriter createNodeWriter();
+
+    /**
+     * Creates the way table writer.
+     *
+     * @return The way table writer.
+     */
+    CopyWriter createWayWriter();
+
+    /**
+     * Creates the way node table writer.
+     *
+     * @return The way node table writer.
+     */
+    CopyWriter createWayNodeWriter();
+
+    /**
+     * Creates the relation table writer.
+     *
+     * @return The relation table writer.
+     */
+    CopyWriter createRelationWriter();
+
+    /**
+     * Creates the relation member table writer.
+     *
+     * @return The relation member table writer.
+     */
+    CopyWriter createRelationMemberWriter();
+}
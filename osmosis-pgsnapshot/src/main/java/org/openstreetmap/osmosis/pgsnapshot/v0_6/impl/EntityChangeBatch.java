@@ -0,0 +1,147 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
+
+/**
+ * Accumulates changes to a single entity type so that they can be applied to
+ * the database in batches. Each entity may only appear once within a batch,
+ * callers must flush the batch before adding a second change to the same
+ * entity so that changes are applied in their original order.
+ *
+ * @param <T>
+ *            The entity type to be supported.
+ */
+public class EntityChangeBatch<T extends Entity> {
+
+    private EntityDao<T> entityDao;
+    private Set<Long> ids;
+    private List<T> writes;
+    private Set<Long> invalidIds;
+    private List<Long> removes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param entityDao
+     *            The dao to write changes with.
+     */
+    public EntityChangeBatch(EntityDao<T> entityDao) {
+        this.entityDao = entityDao;
+
+        ids = new HashSet<Long>();
+        writes = new ArrayList<T>();
+        invalidIds = new HashSet<Long>();
+        removes = new ArrayList<Long>();
+    }
+
+    /**
+     * Indicates if the batch already contains a change to the specified entity.
+     *
+     * @param entityId
+     *            The entity id.
+     * @return True if a change exists.
+     */
+    public boolean contains(long entityId) {
+        return ids.contains(entityId);
+    }
+
+    /**
+     * Returns the number of changes in the batch.
+     *
+     * @return The number of changes.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Adds a create or modify change to the batch. Whether the entity is
+     * inserted or updated is determined by the contents of the database when
+     * the batch is flushed.
+     *
+     * @param entity
+     *            The entity to write.
+     * @param valid
+     *            If false, the entity is not written and any existing version
+     *            of it is removed instead.
+     */
+    public void addWrite(T entity, boolean valid) {
+        ids.add(entity.getId());
+        writes.add(entity);
+        if (!valid) {
+            invalidIds.add(entity.getId());
+        }
+    }
+
+    /**
+     * Adds a delete change to the batch.
+     *
+     * @param entityId
+     *            The id of the entity to remove.
+     */
+    public void addRemove(long entityId) {
+        ids.add(entityId);
+        removes.add(entityId);
+    }
+
+    /**
+     * Applies all changes in the batch to the database and clears the batch.
+     */
+    public void flush() {
+        List<T> adds;
+        List<T> modifies;
+
+        adds = new ArrayList<T>();
+        modifies = new ArrayList<T>();
+
+        if (!writes.isEmpty()) {
+            List<Long> writeIds;
+            Set<Long> existingIds;
+
+            writeIds = new ArrayList<Long>(writes.size());
+            for (T entity : writes) {
+                writeIds.add(entity.getId());
+            }
+
+            // Determine which entities are inserts and which are updates with
+            // a single query instead of a query per entity.
+            existingIds = entityDao.getExistingIds(writeIds);
+
+            for (T entity : writes) {
+                boolean valid = !invalidIds.contains(entity.getId());
+
+                if (existingIds.contains(entity.getId())) {
+                    if (valid) {
+                        modifies.add(entity);
+                    } else {
+                        removes.add(entity.getId());
+                    }
+                } else if (valid) {
+                    adds.add(entity);
+                }
+            }
+        }
+
+        // Each entity appears only once within the batch so the order of
+        // these operations doesn't affect the result.
+        if (!removes.isEmpty()) {
+            entityDao.removeEntities(removes);
+        }
+        if (!modifies.isEmpty()) {
+            entityDao.modifyEntities(modifies);
+        }
+        if (!adds.isEmpty()) {
+            entityDao.addEntities(adds);
+        }
+
+        ids.clear();
+        writes.clear();
+        invalidIds.clear();
+        removes.clear();
+    }
+}
@@ -2,9 +2,13 @@
 package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.openstreetmap.osmosis.core.database.FeaturePopulator;
 import org.openstreetmap.osmosis.core.database.SortingStoreRowMapperListener;
@@ -31,6 +35,8 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
  */
 public abstract class EntityDao<T extends Entity> {
 
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private JdbcTemplate jdbcTemplate;
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private ActionDao actionDao;
@@ -154,6 +160,127 @@ public abstract class EntityDao<T extends Entity> {
         actionDao.addAction(entityMapper.getEntityType(), ChangesetAction.DELETE, entityId);
     }
 
+    /**
+     * Returns the subset of the specified entity ids that exist in the
+     * database.
+     *
+     * @param entityIds
+     *            The ids to check.
+     * @return The ids of the entities that exist.
+     */
+    public Set<Long> getExistingIds(Collection<Long> entityIds) {
+        Set<Long> existingIds;
+        List<Long> idList;
+
+        existingIds = new HashSet<Long>();
+        idList = new ArrayList<Long>(entityIds);
+
+        // Limit the number of bind variables in a single query.
+        for (int i = 0; i < idList.size(); i += MAX_IDS_PER_QUERY) {
+            Map<String, Object> args = new HashMap<String, Object>();
+
+            args.put("ids", idList.subList(i, Math.min(i + MAX_IDS_PER_QUERY, idList.size())));
+            existingIds.addAll(
+                    namedParameterJdbcTemplate.queryForList(entityMapper.getSqlSelectIds(), args, Long.class));
+        }
+
+        return existingIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object>[] buildEntityBatchArgs(List<T> entities) {
+        Map<String, Object>[] batchArgs;
+
+        batchArgs = new Map[entities.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            batchArgs[i] = new HashMap<String, Object>();
+            entityMapper.populateEntityParameters(batchArgs[i], entities.get(i));
+        }
+
+        return batchArgs;
+    }
+
+    private static List<Long> getIds(List<? extends Entity> entities) {
+        List<Long> ids;
+
+        ids = new ArrayList<Long>(entities.size());
+        for (Entity entity : entities) {
+            ids.add(entity.getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Adds the specified entities to the database in a single batch. This has
+     * the same effect as calling {@link #addEntity(Entity)} for each entity.
+     *
+     * @param entities
+     *            The entities to add.
+     */
+    public void addEntities(List<T> entities) {
+        Map<String, Object>[] batchArgs;
+
+        batchArgs = buildEntityBatchArgs(entities);
+
+        final String query = entityMapper.getSqlInsert(1);
+        namedParameterJdbcTemplate.batchUpdate(query, batchArgs);
+        for (Map<String, Object> args : batchArgs) {
+            this.updateLoggingTable(query, args, 0);
+        }
+
+        actionDao.addActions(entityMapper.getEntityType(), ChangesetAction.CREATE, getIds(entities));
+    }
+
+    /**
+     * Updates the specified entities in the database in a single batch. This
+     * has the same effect as calling {@link #modifyEntity(Entity)} for each
+     * entity.
+     *
+     * @param entities
+     *            The entities to update.
+     */
+    public void modifyEntities(List<T> entities) {
+        Map<String, Object>[] batchArgs;
+
+        batchArgs = buildEntityBatchArgs(entities);
+
+        final String query = entityMapper.getSqlUpdate(true);
+        namedParameterJdbcTemplate.batchUpdate(query, batchArgs);
+        for (Map<String, Object> args : batchArgs) {
+            this.updateLoggingTable(query, args, 1);
+        }
+
+        actionDao.addActions(entityMapper.getEntityType(), ChangesetAction.MODIFY, getIds(entities));
+    }
+
+    /**
+     * Removes the specified entities from the database in a single batch. This
+     * has the same effect as calling {@link #removeEntity(long)} for each
+     * entity.
+     *
+     * @param entityIds
+     *            The ids of the entities to remove.
+     */
+    @SuppressWarnings("unchecked")
+    public void removeEntities(List<Long> entityIds) {
+        Map<String, Object>[] batchArgs;
+
+        batchArgs = new Map[entityIds.size()];
+        for (int i = 0; i < entityIds.size(); i++) {
+            batchArgs[i] = new HashMap<String, Object>();
+            batchArgs[i].put("id", entityIds.get(i));
+        }
+
+        final String query = entityMapper.getSqlDelete(true);
+        namedParameterJdbcTemplate.batchUpdate(query, batchArgs);
+        for (Map<String, Object> args : batchArgs) {
+            this.updateLoggingTable(query, args, 2);
+        }
+
+        actionDao.addActions(entityMapper.getEntityType(), ChangesetAction.DELETE, entityIds);
+    }
+
     private void updateLoggingTable(final String query, final Map<String, Object> args, final int action) {
         if (this.logging) {
             final Map<String, Object> loggingMap = new HashMap<>(2);
@@ -4,6 +4,7 @@ package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.database.DbFeature;
 import org.openstreetmap.osmosis.core.store.Storeable;
@@ -77,17 +78,27 @@ public class EntityFeatureDao<Tef extends Storeable, Tdb extends DbFeature<Tef>>
      * @param features
      *            The features to add.
      */
+    @SuppressWarnings("unchecked")
     public void addAll(Collection<Tdb> features) {
-        Map<String, Object> args;
+        Map<String, Object>[] batchArgs;
+        int i;
 
-        args = new HashMap<String, Object>();
+        if (features.isEmpty()) {
+            return;
+        }
 
+        // Send all features to the database in a single batch rather than a
+        // round trip per feature.
+        batchArgs = new Map[features.size()];
+        i = 0;
         for (Tdb feature : features) {
-            args.clear();
-            entityFeatureMapper.populateParameters(args, feature);
+            Map<String, Object> args = new HashMap<String, Object>();
 
-            namedParameterJdbcTemplate.update(entityFeatureMapper.getSqlInsert(1), args);
+            entityFeatureMapper.populateParameters(args, feature);
+            batchArgs[i++] = args;
         }
+
+        namedParameterJdbcTemplate.batchUpdate(entityFeatureMapper.getSqlInsert(1), batchArgs);
     }
 
     /**
@@ -99,4 +110,26 @@ public class EntityFeatureDao<Tef extends Storeable, Tdb extends DbFeature<Tef>>
     public void removeList(long entityId) {
         jdbcTemplate.update(entityFeatureMapper.getSqlDelete(true), entityId);
     }
+
+    /**
+     * Removes the feature lists of the specified entities from the database in
+     * a single batch.
+     *
+     * @param entityIds
+     *            The ids of the entities to remove.
+     */
+    public void removeLists(Collection<Long> entityIds) {
+        List<Object[]> batchArgs;
+
+        if (entityIds.isEmpty()) {
+            return;
+        }
+
+        batchArgs = new ArrayList<Object[]>(entityIds.size());
+        for (long entityId : entityIds) {
+            batchArgs.add(new Object[] {entityId});
+        }
+
+        jdbcTemplate.batchUpdate(entityFeatureMapper.getSqlDelete(true), batchArgs);
+    }
 }
@@ -69,6 +69,16 @@ public abstract class EntityMapper<T extends Entity> {
         return resultSql.toString();
     }
 
+    /**
+     * The SQL SELECT statement for retrieving the ids of existing entities from
+     * a list of candidate ids provided in the "ids" parameter.
+     *
+     * @return The SQL string.
+     */
+    public String getSqlSelectIds() {
+        return "SELECT id FROM " + getEntityName() + "s WHERE id IN (:ids)";
+    }
+
     /**
      * Produces an array of additional column names specific to this entity type
      * to be returned by entity queries.
@@ -0,0 +1,71 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
+
+import org.openstreetmap.osmosis.pgsnapshot.common.CopyFileWriter;
+import org.openstreetmap.osmosis.pgsnapshot.common.CopyWriter;
+
+/**
+ * Creates COPY writers writing to the text format files of a COPY fileset.
+ */
+public class FileCopyWriterFactory implements CopyWriterFactory {
+
+    private CopyFileset copyFileset;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param copyFileset
+     *            The set of COPY files to be populated.
+     */
+    public FileCopyWriterFactory(CopyFileset copyFileset) {
+        this.copyFileset = copyFileset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createUserWriter() {
+        return new CopyFileWriter(copyFileset.getUserFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createNodeWriter() {
+        return new CopyFileWriter(copyFileset.getNodeFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createWayWriter() {
+        return new CopyFileWriter(copyFileset.getWayFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createWayNodeWriter() {
+        return new CopyFileWriter(copyFileset.getWayNodeFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createRelationWriter() {
+        return new CopyFileWriter(copyFileset.getRelationFile());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createRelationMemberWriter() {
+        return new CopyFileWriter(copyFileset.getRelationMemberFile());
+    }
+}
@@ -1,7 +1,15 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
 import org.openstreetmap.osmosis.pgsnapshot.common.DatabaseContext;
 import org.springframework.jdbc.core.JdbcTemplate;
 
@@ -28,16 +36,26 @@ public class IndexManager {
     private static final String[] PRE_LOAD_SQL_WAY_BBOX = {"DROP INDEX idx_ways_bbox"};
     private static final String[] PRE_LOAD_SQL_WAY_LINESTRING = {"DROP INDEX idx_ways_linestring"};
 
-    private static final String[] POST_LOAD_SQL = {
-        "ALTER TABLE ONLY users ADD CONSTRAINT pk_users PRIMARY KEY (id)",
-        "ALTER TABLE ONLY nodes ADD CONSTRAINT pk_nodes PRIMARY KEY (id)",
-        "ALTER TABLE ONLY ways ADD CONSTRAINT pk_ways PRIMARY KEY (id)",
-        "ALTER TABLE ONLY way_nodes ADD CONSTRAINT pk_way_nodes PRIMARY KEY (way_id, sequence_id)",
-        "ALTER TABLE ONLY relations ADD CONSTRAINT pk_relations PRIMARY KEY (id)",
-        "ALTER TABLE ONLY relation_members ADD CONSTRAINT pk_relation_members PRIMARY KEY (relation_id, sequence_id)",
-        "CREATE INDEX idx_nodes_geom ON nodes USING gist (geom)",
-        "CREATE INDEX idx_way_nodes_node_id ON way_nodes USING btree (node_id)",
-        "CREATE INDEX idx_relation_members_member_id_and_type ON relation_members USING btree (member_id, member_type)"
+    // Statements are grouped by table. Groups may be run concurrently, but the
+    // statements within a group must be run in order.
+    private static final String[][] POST_LOAD_SQL = {
+        {"ALTER TABLE ONLY users ADD CONSTRAINT pk_users PRIMARY KEY (id)"},
+        {
+            "ALTER TABLE ONLY nodes ADD CONSTRAINT pk_nodes PRIMARY KEY (id)",
+            "CREATE INDEX idx_nodes_geom ON nodes USING gist (geom)"
+        },
+        {"ALTER TABLE ONLY ways ADD CONSTRAINT pk_ways PRIMARY KEY (id)"},
+        {
+            "ALTER TABLE ONLY way_nodes ADD CONSTRAINT pk_way_nodes PRIMARY KEY (way_id, sequence_id)",
+            "CREATE INDEX idx_way_nodes_node_id ON way_nodes USING btree (node_id)"
+        },
+        {"ALTER TABLE ONLY relations ADD CONSTRAINT pk_relations PRIMARY KEY (id)"},
+        {
+            "ALTER TABLE ONLY relation_members ADD CONSTRAINT pk_relation_members"
+                    + " PRIMARY KEY (relation_id, sequence_id)",
+            "CREATE INDEX idx_relation_members_member_id_and_type ON relation_members"
+                    + " USING btree (member_id, member_type)"
+        }
     };
     private static final String[] POST_LOAD_SQL_WAY_BBOX = {"CREATE INDEX idx_ways_bbox ON ways USING gist (bbox)"};
     private static final String[] POST_LOAD_SQL_WAY_LINESTRING = {
@@ -111,9 +129,66 @@ public class IndexManager {
     public void completeAfterLoad() {
         LOG.fine("Running post-load SQL.");
         for (int i = 0; i < POST_LOAD_SQL.length; i++) {
-            LOG.finer("SQL: " + POST_LOAD_SQL[i]);
-            jdbcTemplate.update(POST_LOAD_SQL[i]);
+            for (int j = 0; j < POST_LOAD_SQL[i].length; j++) {
+                LOG.finer("SQL: " + POST_LOAD_SQL[i][j]);
+                jdbcTemplate.update(POST_LOAD_SQL[i][j]);
+            }
+        }
+        completeWaysAfterLoad();
+    }
+
+    /**
+     * Creates indexes in the database and populates derived columns, building
+     * the indexes of different tables concurrently. Each worker uses its own
+     * database connection so this must not be called while the caller has
+     * uncommitted changes.
+     *
+     * @param loginCredentials
+     *            Contains all information required to connect to the database.
+     * @param workers
+     *            The maximum number of tables to build indexes for
+     *            concurrently.
+     */
+    public void completeAfterLoad(DatabaseLoginCredentials loginCredentials, int workers) {
+        ExecutorService executor;
+        List<Future<?>> results;
+
+        LOG.fine("Running post-load SQL using " + workers + " workers.");
+        executor = Executors.newFixedThreadPool(workers);
+        try {
+            results = new ArrayList<>();
+            for (String[] tableSql : POST_LOAD_SQL) {
+                results.add(executor.submit(() -> {
+                    try (DatabaseContext dbCtx = new DatabaseContext(loginCredentials)) {
+                        for (String sql : tableSql) {
+                            LOG.finer("SQL: " + sql);
+                            dbCtx.getJdbcTemplate().update(sql);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OsmosisRuntimeException("Interrupted while waiting for post-load SQL.", e);
+                } catch (ExecutionException e) {
+                    throw new OsmosisRuntimeException("Unable to run post-load SQL.", e.getCause());
+                }
+            }
+
+        } finally {
+            executor.shutdownNow();
         }
+
+        // The way derived columns are populated using the node and way node
+        // indexes so they must be completed last.
+        completeWaysAfterLoad();
+    }
+
+    private void completeWaysAfterLoad() {
         if (capabilityChecker.isWayBboxSupported()) {
             LOG.fine("Running post-load bbox SQL statements.");
             if (populateBbox) {
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.openstreetmap.osmosis.core.database.FeaturePopulator;
@@ -68,6 +69,29 @@ public class NodeDao extends EntityDao<Node> {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modifyEntities(List<Node> entities) {
+        List<Object[]> batchArgs;
+
+        super.modifyEntities(entities);
+
+        batchArgs = new ArrayList<Object[]>(entities.size());
+        for (Node entity : entities) {
+            batchArgs.add(new Object[] {entity.getId()});
+        }
+
+        if (capabilityChecker.isWayBboxSupported()) {
+            jdbcTemplate.batchUpdate(SQL_UPDATE_WAY_BBOX, batchArgs);
+        }
+
+        if (capabilityChecker.isWayLinestringSupported()) {
+            jdbcTemplate.batchUpdate(SQL_UPDATE_WAY_LINESTRING, batchArgs);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -121,6 +121,66 @@ public class RelationDao extends EntityDao<Relation> {
         super.removeEntity(entityId);
     }
 
+    /**
+     * Adds the member lists of the specified relations to the database in a
+     * single batch.
+     *
+     * @param relations
+     *            The relations to add members for.
+     */
+    private void addMemberLists(List<Relation> relations) {
+        List<DbOrderedFeature<RelationMember>> dbList;
+
+        dbList = new ArrayList<DbOrderedFeature<RelationMember>>();
+
+        for (Relation relation : relations) {
+            List<RelationMember> memberList = relation.getMembers();
+
+            for (int i = 0; i < memberList.size(); i++) {
+                dbList.add(new DbOrderedFeature<RelationMember>(relation.getId(), memberList.get(i), i));
+            }
+        }
+
+        relationMemberDao.addAll(dbList);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntities(List<Relation> entities) {
+        super.addEntities(entities);
+
+        addMemberLists(entities);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modifyEntities(List<Relation> entities) {
+        List<Long> relationIds;
+
+        super.modifyEntities(entities);
+
+        relationIds = new ArrayList<Long>(entities.size());
+        for (Relation relation : entities) {
+            relationIds.add(relation.getId());
+        }
+        relationMemberDao.removeLists(relationIds);
+        addMemberLists(entities);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntities(List<Long> entityIds) {
+        relationMemberDao.removeLists(entityIds);
+
+        super.removeEntities(entityIds);
+    }
+
     private ReleasableIterator<DbOrderedFeature<RelationMember>> getRelationMembers(String tablePrefix) {
 
         FileBasedSort<DbOrderedFeature<RelationMember>> sortingStore =
@@ -0,0 +1,189 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.v0_6.impl;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openstreetmap.osmosis.core.database.DatabaseLoginCredentials;
+import org.openstreetmap.osmosis.core.database.DatabasePreferences;
+import org.openstreetmap.osmosis.core.lifecycle.Closeable;
+import org.openstreetmap.osmosis.pgsnapshot.common.BinaryCopyWriter;
+import org.openstreetmap.osmosis.pgsnapshot.common.CopyWriter;
+import org.openstreetmap.osmosis.pgsnapshot.common.DatabaseContext;
+import org.openstreetmap.osmosis.pgsnapshot.common.SchemaVersionValidator;
+import org.openstreetmap.osmosis.pgsnapshot.v0_6.PostgreSqlVersionConstants;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Loads data into a database by streaming rows directly into a binary COPY
+ * session per table. Each table is loaded on its own connection so the
+ * database processes all tables concurrently, and no intermediate files are
+ * written. Indexes and constraints are dropped before the load and rebuilt
+ * afterwards with the tables processed in parallel.
+ * <p>
+ * Unlike {@link CopyFilesetLoader} the load is not performed within a single
+ * transaction. If the load fails the database will be left partially
+ * populated without indexes and must be re-created.
+ */
+public class StreamingCopyLoader implements CopyWriterFactory, Closeable {
+
+    private static final Logger LOG = Logger.getLogger(StreamingCopyLoader.class.getName());
+
+    private DatabaseLoginCredentials loginCredentials;
+    private int indexWorkers;
+    private DatabaseContext dbCtx;
+    private DatabaseCapabilityChecker capabilityChecker;
+    private IndexManager indexManager;
+    private List<DatabaseContext> copyContexts;
+    private List<PGCopyOutputStream> copyStreams;
+
+    /**
+     * Creates a new instance. All indexes and constraints are dropped from the
+     * database.
+     *
+     * @param loginCredentials
+     *            Contains all information required to connect to the database.
+     * @param preferences
+     *            Contains preferences configuring database behaviour.
+     * @param indexWorkers
+     *            The maximum number of tables to build indexes for
+     *            concurrently after the load.
+     */
+    public StreamingCopyLoader(
+            DatabaseLoginCredentials loginCredentials, DatabasePreferences preferences, int indexWorkers) {
+        this.loginCredentials = loginCredentials;
+        this.indexWorkers = indexWorkers;
+
+        copyContexts = new ArrayList<>();
+        copyStreams = new ArrayList<>();
+
+        dbCtx = new DatabaseContext(loginCredentials);
+
+        capabilityChecker = new DatabaseCapabilityChecker(dbCtx);
+        new SchemaVersionValidator(dbCtx.getJdbcTemplate(), preferences)
+                .validateVersion(PostgreSqlVersionConstants.SCHEMA_VERSION);
+
+        indexManager = new IndexManager(dbCtx, false, false);
+
+        // Drop all constraints and indexes. These must be committed before the
+        // tables can be loaded on other connections.
+        indexManager.prepareForLoad();
+    }
+
+    private CopyWriter createWriter(String tableName, String... columns) {
+        DatabaseContext copyContext;
+        PGCopyOutputStream copyStream;
+
+        LOG.finer("Beginning load of " + tableName + ".");
+
+        copyContext = new DatabaseContext(loginCredentials);
+        copyContexts.add(copyContext);
+
+        copyStream = copyContext.beginBinaryCopy(tableName, columns);
+        copyStreams.add(copyStream);
+
+        return new BinaryCopyWriter(copyStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createUserWriter() {
+        return createWriter("users");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createNodeWriter() {
+        return createWriter("nodes", CopyFilesetLoader.NODE_COLUMNS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createWayWriter() {
+        return createWriter("ways", CopyFilesetLoader.getWayColumns(capabilityChecker));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createWayNodeWriter() {
+        return createWriter("way_nodes");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createRelationWriter() {
+        return createWriter("relations", CopyFilesetLoader.RELATION_COLUMNS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CopyWriter createRelationMemberWriter() {
+        return createWriter("relation_members");
+    }
+
+    /**
+     * Rebuilds indexes and optimises the database. This must be called after
+     * all COPY writers have been completed.
+     */
+    public void complete() {
+        LOG.fine("Data load complete.");
+
+        closeCopyContexts();
+
+        // Add all constraints and indexes.
+        indexManager.completeAfterLoad(loginCredentials, indexWorkers);
+
+        LOG.fine("Clustering database.");
+        dbCtx.getJdbcTemplate().update("CLUSTER");
+
+        LOG.fine("Vacuuming database.");
+        dbCtx.getJdbcTemplate().update("VACUUM ANALYZE");
+
+        LOG.fine("Complete.");
+    }
+
+    private void closeCopyContexts() {
+        for (PGCopyOutputStream copyStream : copyStreams) {
+            if (copyStream.isActive()) {
+                try {
+                    copyStream.cancelCopy();
+                } catch (SQLException | RuntimeException e) {
+                    // We cannot throw an exception within a release method.
+                    LOG.log(Level.WARNING, "Unable to cancel COPY.", e);
+                }
+            }
+        }
+        copyStreams.clear();
+
+        for (DatabaseContext copyContext : copyContexts) {
+            copyContext.close();
+        }
+        copyContexts.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        try {
+            closeCopyContexts();
+        } finally {
+            dbCtx.close();
+        }
+    }
+}
@@ -129,6 +129,92 @@ public class WayDao extends EntityDao<Way> {
         super.removeEntity(entityId);
     }
 
+    /**
+     * Adds the way node lists of the specified ways to the database in a
+     * single batch.
+     *
+     * @param ways
+     *            The ways to add way nodes for.
+     */
+    private void addWayNodeLists(List<Way> ways) {
+        List<DbOrderedFeature<WayNode>> dbList;
+
+        dbList = new ArrayList<DbOrderedFeature<WayNode>>();
+
+        for (Way way : ways) {
+            List<WayNode> wayNodeList = way.getWayNodes();
+
+            for (int i = 0; i < wayNodeList.size(); i++) {
+                dbList.add(new DbOrderedFeature<WayNode>(way.getId(), wayNodeList.get(i), i));
+            }
+        }
+
+        wayNodeDao.addAll(dbList);
+    }
+
+    /**
+     * Updates the geometry columns for the specified ways in a single batch.
+     *
+     * @param ways
+     *            The ways to update.
+     */
+    private void updateWayGeometries(List<Way> ways) {
+        List<Object[]> batchArgs;
+
+        batchArgs = new ArrayList<Object[]>(ways.size());
+        for (Way way : ways) {
+            batchArgs.add(new Object[] {way.getId()});
+        }
+
+        if (capabilityChecker.isWayBboxSupported()) {
+            jdbcTemplate.batchUpdate(SQL_UPDATE_WAY_BBOX, batchArgs);
+        }
+        if (capabilityChecker.isWayLinestringSupported()) {
+            jdbcTemplate.batchUpdate(SQL_UPDATE_WAY_LINESTRING, batchArgs);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntities(List<Way> entities) {
+        super.addEntities(entities);
+
+        addWayNodeLists(entities);
+
+        updateWayGeometries(entities);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modifyEntities(List<Way> entities) {
+        List<Long> wayIds;
+
+        super.modifyEntities(entities);
+
+        wayIds = new ArrayList<Long>(entities.size());
+        for (Way way : entities) {
+            wayIds.add(way.getId());
+        }
+        wayNodeDao.removeLists(wayIds);
+        addWayNodeLists(entities);
+
+        updateWayGeometries(entities);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntities(List<Long> entityIds) {
+        wayNodeDao.removeLists(entityIds);
+
+        super.removeEntities(entityIds);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -14,6 +14,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.lifecycle.Closeable;
 import org.openstreetmap.osmosis.pgsnapshot.common.CompactPersistentNodeLocationStore;
 import org.openstreetmap.osmosis.pgsnapshot.common.InMemoryNodeLocationStore;
+import org.openstreetmap.osmosis.pgsnapshot.common.MappedNodeLocationStore;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocation;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStore;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStoreType;
@@ -46,6 +47,8 @@ public class WayGeometryBuilder implements Closeable {
             locationStore = new PersistentNodeLocationStore();
         } else if (NodeLocationStoreType.CompactTempFile.equals(storeType)) {
             locationStore = new CompactPersistentNodeLocationStore();
+        } else if (NodeLocationStoreType.MappedFile.equals(storeType)) {
+            locationStore = new MappedNodeLocationStore();
         } else {
             throw new OsmosisRuntimeException("The store type " + storeType + " is not recognized.");
         }
@@ -0,0 +1,147 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.pgsnapshot.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.TimeZone;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.hstore.PGHStore;
+
+/**
+ * Tests the binary COPY writer.
+ */
+public class BinaryCopyWriterTest {
+
+    private static DataInputStream readHeader(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte[] signature = new byte[11];
+
+        in.readFully(signature);
+        assertArrayEquals(
+                new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0},
+                signature,
+                "Incorrect signature.");
+        assertEquals(0, in.readInt(), "Incorrect flags.");
+        assertEquals(0, in.readInt(), "Incorrect header extension length.");
+
+        return in;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+
+        in.readFully(data);
+
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verifies the encoding of scalar fields.
+     *
+     * @throws IOException
+     *             if the data cannot be read.
+     */
+    @Test
+    public void testScalarFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCopyWriter writer = new BinaryCopyWriter(out);
+        Date timestamp = new Date(1500000000000L);
+
+        writer.writeField(true);
+        writer.writeField(42);
+        writer.writeField(1234567890123L);
+        writer.writeField("Stra\u00dfe");
+        writer.writeField((String) null);
+        writer.writeField(timestamp);
+        writer.endRecord();
+        writer.complete();
+
+        DataInputStream in = readHeader(out.toByteArray());
+        assertEquals(6, in.readShort(), "Incorrect field count.");
+        assertEquals(1, in.readInt());
+        assertEquals(1, in.readByte());
+        assertEquals(4, in.readInt());
+        assertEquals(42, in.readInt());
+        assertEquals(8, in.readInt());
+        assertEquals(1234567890123L, in.readLong());
+        assertEquals("Stra\u00dfe", readString(in));
+        assertEquals(-1, in.readInt(), "Null string was not written as a null field.");
+        assertEquals(8, in.readInt());
+        long localMillis = timestamp.getTime() + TimeZone.getDefault().getOffset(timestamp.getTime());
+        assertEquals((localMillis - 946684800000L) * 1000, in.readLong(), "Incorrect timestamp.");
+        assertEquals(-1, in.readShort(), "Incorrect trailer.");
+        assertEquals(-1, in.read(), "Unexpected data after the trailer.");
+    }
+
+    /**
+     * Verifies the encoding of array and hstore fields.
+     *
+     * @throws IOException
+     *             if the data cannot be read.
+     */
+    @Test
+    public void testCompositeFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCopyWriter writer = new BinaryCopyWriter(out);
+        PGHStore tags = new PGHStore();
+
+        tags.put("highway", "residential");
+        writer.writeField(Arrays.asList(5L, 7L));
+        writer.writeField(Collections.<Long>emptyList());
+        writer.writeField(tags);
+        writer.endRecord();
+        writer.complete();
+
+        DataInputStream in = readHeader(out.toByteArray());
+        assertEquals(3, in.readShort(), "Incorrect field count.");
+
+        assertEquals(44, in.readInt(), "Incorrect array length.");
+        assertEquals(1, in.readInt(), "Incorrect array dimensions.");
+        assertEquals(0, in.readInt(), "Incorrect array null flag.");
+        assertEquals(20, in.readInt(), "Incorrect array element type.");
+        assertEquals(2, in.readInt(), "Incorrect array size.");
+        assertEquals(1, in.readInt(), "Incorrect array lower bound.");
+        assertEquals(8, in.readInt());
+        assertEquals(5L, in.readLong());
+        assertEquals(8, in.readInt());
+        assertEquals(7L, in.readLong());
+
+        assertEquals(12, in.readInt(), "Incorrect empty array length.");
+        assertEquals(0, in.readInt(), "Incorrect empty array dimensions.");
+        assertEquals(0, in.readInt());
+        assertEquals(20, in.readInt());
+
+        assertEquals(4 + 4 + 7 + 4 + 11, in.readInt(), "Incorrect hstore length.");
+        assertEquals(1, in.readInt(), "Incorrect hstore size.");
+        assertEquals("highway", readString(in));
+        assertEquals("residential", readString(in));
+
+        assertEquals(-1, in.readShort(), "Incorrect trailer.");
+    }
+
+    /**
+     * Verifies that a table with no rows contains only the header and trailer.
+     *
+     * @throws IOException
+     *             if the data cannot be read.
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new BinaryCopyWriter(out).complete();
+
+        DataInputStream in = readHeader(out.toByteArray());
+        assertEquals(-1, in.readShort(), "Incorrect trailer.");
+        assertEquals(-1, in.read(), "Unexpected data after the trailer.");
+    }
+}
@@ -107,6 +107,59 @@ public class PostgreSqlTest extends AbstractDataTest {
         dataUtils.compareFiles(expectedResultFile, actualResultFile);
     }
 
+    /**
+     * A test applying a changeset with batching enabled, verifying the result is identical to
+     * applying each change individually.
+     */
+    @Test
+    public void testChangesetBatched() {
+        File authFile;
+        File snapshotFile;
+        File changesetFile;
+        File expectedResultFile;
+        File actualResultFile;
+
+        // Generate input files.
+        authFile = getAuthFile("v0_6/pgsql-authfile.txt");
+        snapshotFile = dataUtils.createDataFile("v0_6/db-snapshot.osm");
+        changesetFile = dataUtils.createDataFile("v0_6/db-changeset.osc");
+        expectedResultFile = dataUtils.createDataFile("v0_6/db-changeset-expected.osm");
+        actualResultFile = dataUtils.newFile();
+
+        // Remove all existing data from the database.
+        Osmosis.run(new String[] {"-q", "--truncate-pgsql-0.6", "authFile=" + authFile.getPath()});
+
+        // Load the database with the snapshot file.
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", snapshotFile.getPath(), "--write-pgsql-0.6", "authFile=" + authFile.getPath()
+        });
+
+        // Apply the changeset file to the database using small batches.
+        Osmosis.run(new String[] {
+            "-q",
+            "--read-xml-change-0.6",
+            changesetFile.getPath(),
+            "--write-pgsql-change-0.6",
+            "keepInvalidWays=false",
+            "batchSize=2",
+            "authFile=" + authFile.getPath()
+        });
+
+        // Dump the database to an osm file.
+        Osmosis.run(new String[] {
+            "-q",
+            "--read-pgsql-0.6",
+            "authFile=" + authFile.getPath(),
+            "--dataset-dump-0.6",
+            "--tag-sort-0.6",
+            "--write-xml-0.6",
+            actualResultFile.getPath()
+        });
+
+        // Validate that the dumped file matches the expected result.
+        dataUtils.compareFiles(expectedResultFile, actualResultFile);
+    }
+
     /**
      * A test loading an osm file into a pgsql database, then making some modifications via the
      * dataset api, then dumping it again and verifying the output is as expected.
@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.osmosis.core.util.FixedPrecisionCoordinateConvertor;
 import org.openstreetmap.osmosis.pgsnapshot.common.InMemoryNodeLocationStore;
+import org.openstreetmap.osmosis.pgsnapshot.common.MappedNodeLocationStore;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocation;
 import org.openstreetmap.osmosis.pgsnapshot.common.NodeLocationStore;
 import org.openstreetmap.osmosis.pgsnapshot.common.PersistentNodeLocationStore;
@@ -74,4 +75,40 @@ public class NodeLocationStoreTest {
     public void testInMemory() {
         testStoreImplementation(new InMemoryNodeLocationStore());
     }
+
+    /**
+     * Tests the memory-mapped implementation. This store only supports valid
+     * latitudes so it uses a spread of real world coordinates instead of the
+     * full fixed precision range.
+     */
+    @Test
+    public void testMappedFile() {
+        NodeLocationStore store = new MappedNodeLocationStore();
+
+        for (int i = 0; i < 100000; i++) {
+            store.addLocation(i * 2, new NodeLocation(-180 + (i % 3600) * 0.1, -90 + (i % 1800) * 0.1));
+        }
+        // Add a node far beyond the others to ensure the id space is sparse.
+        store.addLocation(12000000000L, new NodeLocation(-0.0000001, 89.9999999));
+
+        for (int i = 0; i < 100000; i++) {
+            NodeLocation expected = new NodeLocation(-180 + (i % 3600) * 0.1, -90 + (i % 1800) * 0.1);
+            NodeLocation location;
+
+            location = store.getNodeLocation(i * 2);
+            assertTrue(location.isValid(), "The node location should be valid.");
+            assertEquals(expected.getLongitude(), location.getLongitude(), 0.0000001, "The longitude is incorrect.");
+            assertEquals(expected.getLatitude(), location.getLatitude(), 0.0000001, "The latitude is incorrect.");
+
+            location = store.getNodeLocation((i * 2) + 1);
+            assertFalse(location.isValid(), "The node location should be invalid.");
+        }
+
+        assertEquals(-0.0000001, store.getNodeLocation(12000000000L).getLongitude(), 0.00000001);
+        assertEquals(89.9999999, store.getNodeLocation(12000000000L).getLatitude(), 0.00000001);
+        assertFalse(store.getNodeLocation(11999999999L).isValid(), "The node location should be invalid.");
+        assertFalse(store.getNodeLocation(20000000000L).isValid(), "The node location should be invalid.");
+
+        store.close();
+    }
 }
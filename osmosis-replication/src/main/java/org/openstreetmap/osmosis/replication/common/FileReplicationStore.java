@@ -18,6 +18,7 @@ public class FileReplicationStore implements ReplicationStore {
     private PropertiesPersister currentStatePersister;
     private ReplicationFileSequenceFormatter sequenceFormatter;
     private boolean saveCurrentState;
+    private int compressionWorkers;
 
     /**
      * Creates a new instance.
@@ -30,9 +31,27 @@ public class FileReplicationStore implements ReplicationStore {
      *            sequenced state.
      */
     public FileReplicationStore(File storeDirectory, boolean saveCurrentState) {
+        this(storeDirectory, saveCurrentState, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param storeDirectory
+     *            The directory used to hold the contents of the store.
+     * @param saveCurrentState
+     *            If true, the current state will be updated by the
+     *            {@link #saveState(ReplicationState)} operation as well as the
+     *            sequenced state.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress data files. If
+     *            0, files are compressed on the writing thread.
+     */
+    public FileReplicationStore(File storeDirectory, boolean saveCurrentState, int compressionWorkers) {
         currentStatePersister = new PropertiesPersister(new File(storeDirectory, STATE_FILE));
         sequenceFormatter = new ReplicationFileSequenceFormatter(storeDirectory);
         this.saveCurrentState = saveCurrentState;
+        this.compressionWorkers = compressionWorkers;
     }
 
     @Override
@@ -67,6 +86,6 @@ public class FileReplicationStore implements ReplicationStore {
     @Override
     public XmlChangeWriter saveData(long sequence) {
         File changeFile = sequenceFormatter.getFormattedName(sequence, ".osc.gz");
-        return new XmlChangeWriter(changeFile, CompressionMethod.GZip);
+        return new XmlChangeWriter(changeFile, CompressionMethod.GZip, compressionWorkers);
     }
 }
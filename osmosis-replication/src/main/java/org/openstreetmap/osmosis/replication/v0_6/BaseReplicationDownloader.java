@@ -9,9 +9,17 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.openstreetmap.osmosis.core.OsmosisConstants;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
@@ -29,6 +37,10 @@ import org.openstreetmap.osmosis.xml.v0_6.XmlChangeReader;
  * This class downloads a set of replication files from a HTTP server and tracks the progress of
  * which files have already been processed. The actual processing of changeset files is performed by
  * sub-classes. This class forms the basis of a replication mechanism.
+ * <p>
+ * Upcoming replication files may be downloaded concurrently ahead of processing if enabled in the
+ * configuration, but files are always processed in sequence order and the local state only ever
+ * reflects files that have been fully processed.
  *
  * @author Brett Henderson
  */
@@ -131,9 +143,13 @@ public abstract class BaseReplicationDownloader implements RunnableTask {
             processChangeset(xmlReader, replicationState);
 
         } finally {
-            if (!replicationFile.delete()) {
-                LOG.warning("Unable to delete file " + replicationFile.getName());
-            }
+            deleteFile(replicationFile);
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete()) {
+            LOG.warning("Unable to delete file " + file.getName());
         }
     }
 
@@ -176,6 +192,7 @@ public abstract class BaseReplicationDownloader implements RunnableTask {
         URL baseUrl;
         ReplicationState localState;
         Date maximumDownloadTimestamp;
+        ReplicationPrefetcher prefetcher;
 
         localState = initialLocalState;
 
@@ -188,57 +205,65 @@ public abstract class BaseReplicationDownloader implements RunnableTask {
         LOG.fine("The maximum timestamp to be downloaded is " + maximumDownloadTimestamp + ".");
 
         // Download all files and send their contents to the sink.
-        while (localState.getSequenceNumber() < serverState.getSequenceNumber()) {
-            File replicationFile;
-            long sequenceNumber;
-            ReplicationState fileReplicationState;
-
-            // Check to see if our local state has already reached the maximum
-            // allowable timestamp. This will typically occur if a job is run
-            // again before new data becomes available, or if an implementation
-            // of this class (eg. ReplicationFileMerger) is waiting for a full
-            // time period of data to become available before processing.
-            if (localState.getTimestamp().compareTo(maximumDownloadTimestamp) >= 0) {
-                break;
-            }
-
-            // Calculate the next sequence number.
-            sequenceNumber = localState.getSequenceNumber() + 1;
-            LOG.finer("Processing replication sequence " + sequenceNumber + ".");
-
-            // Get the state associated with the next file.
-            fileReplicationState = serverStateReader.getServerState(baseUrl, sequenceNumber);
-
-            // Ensure that the next state is within the allowable timestamp
-            // range. We must stop if the next data takes us beyond the maximum
-            // timestamp. This will either occur if a maximum download time
-            // duration limit has been imposed, or if a time-aligned boundary
-            // has been reached.
-            if (fileReplicationState.getTimestamp().compareTo(maximumDownloadTimestamp) > 0) {
-                // We will always allow at least one replication interval
-                // through to deal with the case where a single interval exceeds
-                // the maximum duration. This can happen if the source data has
-                // a long time gap between two intervals due to system downtime.
-                if (localState.getSequenceNumber() != initialLocalState.getSequenceNumber()) {
+        prefetcher = new ReplicationPrefetcher(
+                baseUrl,
+                initialLocalState.getSequenceNumber() + 1,
+                serverState.getSequenceNumber(),
+                maximumDownloadTimestamp,
+                single ? 0 : configuration.getPrefetchCount());
+        try {
+            while (localState.getSequenceNumber() < serverState.getSequenceNumber()) {
+                DownloadedReplication downloadedReplication;
+                long sequenceNumber;
+                ReplicationState fileReplicationState;
+
+                // Check to see if our local state has already reached the maximum
+                // allowable timestamp. This will typically occur if a job is run
+                // again before new data becomes available, or if an implementation
+                // of this class (eg. ReplicationFileMerger) is waiting for a full
+                // time period of data to become available before processing.
+                if (localState.getTimestamp().compareTo(maximumDownloadTimestamp) >= 0) {
                     break;
                 }
-            }
 
-            // Download the next replication file to a temporary file.
-            replicationFile =
-                    downloadReplicationFile(sequenceFormatter.getFormattedName(sequenceNumber, ".osc.gz"), baseUrl);
+                // Calculate the next sequence number.
+                sequenceNumber = localState.getSequenceNumber() + 1;
+                LOG.finer("Processing replication sequence " + sequenceNumber + ".");
+
+                // Get the state associated with the next file, along with the file itself if it is
+                // within the allowable timestamp range.
+                downloadedReplication = prefetcher.getReplication(sequenceNumber);
+                fileReplicationState = downloadedReplication.getState();
+
+                // Ensure that the next state is within the allowable timestamp
+                // range. We must stop if the next data takes us beyond the maximum
+                // timestamp. This will either occur if a maximum download time
+                // duration limit has been imposed, or if a time-aligned boundary
+                // has been reached.
+                if (fileReplicationState.getTimestamp().compareTo(maximumDownloadTimestamp) > 0) {
+                    // We will always allow at least one replication interval
+                    // through to deal with the case where a single interval exceeds
+                    // the maximum duration. This can happen if the source data has
+                    // a long time gap between two intervals due to system downtime.
+                    if (localState.getSequenceNumber() != initialLocalState.getSequenceNumber()) {
+                        break;
+                    }
+                }
 
-            // Process the file and send its contents to the sink.
-            processReplicationFile(replicationFile, fileReplicationState);
+                // Process the file and send its contents to the sink.
+                processReplicationFile(downloadedReplication.getFile(), fileReplicationState);
 
-            // Update the local state to reflect the file state just processed.
-            localState = fileReplicationState;
+                // Update the local state to reflect the file state just processed.
+                localState = fileReplicationState;
 
-            // if single is set to true it means that we only want to get a single replication file
-            // and not up to the current one.
-            if (single) {
-                break;
+                // if single is set to true it means that we only want to get a single replication file
+                // and not up to the current one.
+                if (single) {
+                    break;
+                }
             }
+        } finally {
+            prefetcher.close();
         }
 
         return localState;
@@ -300,6 +325,199 @@ public abstract class BaseReplicationDownloader implements RunnableTask {
         }
     }
 
+    /**
+     * A replication state downloaded from the server along with its replication file.
+     */
+    private static class DownloadedReplication {
+        private ReplicationState state;
+        private File file;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param state
+         *            The replication state.
+         * @param file
+         *            The temporary file containing the replication data, or null if it wasn't
+         *            downloaded.
+         */
+        DownloadedReplication(ReplicationState state, File file) {
+            this.state = state;
+            this.file = file;
+        }
+
+        ReplicationState getState() {
+            return state;
+        }
+
+        File getFile() {
+            return file;
+        }
+    }
+
+    /**
+     * Downloads replication sequences ahead of the sequence currently being processed. Sequences
+     * are handed out strictly in order. Any downloaded files that are never handed out are deleted
+     * when the prefetcher is closed.
+     */
+    private class ReplicationPrefetcher {
+        private URL baseUrl;
+        private long firstSequenceNumber;
+        private long lastSequenceNumber;
+        private Date maximumTimestamp;
+        private int prefetchCount;
+        private ExecutorService executor;
+        private Map<Long, Future<DownloadedReplication>> pendingReplications;
+        private long nextSequenceNumber;
+        private List<File> unclaimedFiles;
+        private boolean closed;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param baseUrl
+         *            The url of the directory containing change files.
+         * @param firstSequenceNumber
+         *            The first sequence to be processed. It is always downloaded in full.
+         * @param lastSequenceNumber
+         *            The latest sequence available on the server.
+         * @param maximumTimestamp
+         *            Replication files of later sequences beyond this timestamp are not downloaded.
+         * @param prefetchCount
+         *            The number of sequences to download ahead of the one being processed. If 0,
+         *            sequences are downloaded on demand in the calling thread.
+         */
+        ReplicationPrefetcher(
+                URL baseUrl,
+                long firstSequenceNumber,
+                long lastSequenceNumber,
+                Date maximumTimestamp,
+                int prefetchCount) {
+            this.baseUrl = baseUrl;
+            this.firstSequenceNumber = firstSequenceNumber;
+            this.lastSequenceNumber = lastSequenceNumber;
+            this.maximumTimestamp = maximumTimestamp;
+            this.prefetchCount = prefetchCount;
+
+            pendingReplications = new HashMap<Long, Future<DownloadedReplication>>();
+            nextSequenceNumber = firstSequenceNumber;
+            unclaimedFiles = new ArrayList<File>();
+
+            if (prefetchCount > 0) {
+                AtomicInteger threadCount = new AtomicInteger();
+
+                executor = Executors.newFixedThreadPool(prefetchCount, runnable -> {
+                    Thread thread =
+                            new Thread(runnable, "Thread-replication-prefetch-" + threadCount.incrementAndGet());
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+            }
+        }
+
+        private DownloadedReplication downloadReplication(long sequenceNumber) {
+            ReplicationState state;
+            File file;
+
+            state = serverStateReader.getServerState(baseUrl, sequenceNumber);
+
+            // Don't waste a download on a file that will never be processed.
+            if (sequenceNumber != firstSequenceNumber && state.getTimestamp().compareTo(maximumTimestamp) > 0) {
+                return new DownloadedReplication(state, null);
+            }
+
+            file = downloadReplicationFile(sequenceFormatter.getFormattedName(sequenceNumber, ".osc.gz"), baseUrl);
+
+            // Track the file so that it can be deleted if it is never processed.
+            synchronized (unclaimedFiles) {
+                if (closed) {
+                    deleteFile(file);
+                    file = null;
+                } else {
+                    unclaimedFiles.add(file);
+                }
+            }
+
+            return new DownloadedReplication(state, file);
+        }
+
+        private DownloadedReplication waitForReplication(long sequenceNumber, Future<DownloadedReplication> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                throw new OsmosisRuntimeException(
+                        "Thread was interrupted waiting for replication sequence " + sequenceNumber + ".", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new OsmosisRuntimeException(
+                        "Unable to download replication sequence " + sequenceNumber + ".", cause);
+            }
+        }
+
+        /**
+         * Returns the specified sequence, waiting for its download to complete if necessary. The
+         * caller takes ownership of the returned file. Downloads of the following sequences are
+         * started before returning.
+         *
+         * @param sequenceNumber
+         *            The sequence to be retrieved. It must follow the previously retrieved sequence
+         *            and must not be later than the latest sequence available on the server.
+         * @return The downloaded sequence.
+         */
+        DownloadedReplication getReplication(long sequenceNumber) {
+            Future<DownloadedReplication> future;
+            DownloadedReplication replication;
+
+            if (executor == null) {
+                replication = downloadReplication(sequenceNumber);
+            } else {
+                nextSequenceNumber = Math.max(nextSequenceNumber, sequenceNumber);
+                while (nextSequenceNumber <= Math.min(sequenceNumber + prefetchCount, lastSequenceNumber)) {
+                    final long prefetchSequenceNumber = nextSequenceNumber++;
+
+                    pendingReplications.put(
+                            prefetchSequenceNumber, executor.submit(() -> downloadReplication(prefetchSequenceNumber)));
+                }
+
+                future = pendingReplications.remove(sequenceNumber);
+                replication = waitForReplication(sequenceNumber, future);
+            }
+
+            synchronized (unclaimedFiles) {
+                unclaimedFiles.remove(replication.getFile());
+            }
+
+            return replication;
+        }
+
+        /**
+         * Stops all outstanding downloads and deletes files that haven't been retrieved.
+         */
+        void close() {
+            synchronized (unclaimedFiles) {
+                closed = true;
+                for (File file : unclaimedFiles) {
+                    deleteFile(file);
+                }
+                unclaimedFiles.clear();
+            }
+
+            // Running downloads can't always be interrupted, but they will delete their own files
+            // when they complete.
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
     /**
      * This is called prior to any processing being performed. It allows any
      * setup activities to be performed.
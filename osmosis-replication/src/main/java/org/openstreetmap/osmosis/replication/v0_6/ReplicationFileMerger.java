@@ -43,9 +43,25 @@ public class ReplicationFileMerger extends BaseReplicationDownloader {
      * 			  Set to true if you want to only replicate a single diff file from the server
      */
     public ReplicationFileMerger(File workingDirectory, boolean single) {
+        this(workingDirectory, single, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param workingDirectory
+     *            The directory containing configuration and tracking files.
+     * @param single
+     * 			  Set to true if you want to only replicate a single diff file from the server
+     * @param compressionWorkers
+     *            The number of worker threads used to compress replication
+     *            files. If 0, files are compressed on the writing thread.
+     */
+    public ReplicationFileMerger(File workingDirectory, boolean single, int compressionWorkers) {
         super(workingDirectory, single);
 
-        replicationStore = new FileReplicationStore(new File(getWorkingDirectory(), DATA_DIRECTORY), true);
+        replicationStore = new FileReplicationStore(
+                new File(getWorkingDirectory(), DATA_DIRECTORY), true, compressionWorkers);
 
         sinkActive = false;
     }
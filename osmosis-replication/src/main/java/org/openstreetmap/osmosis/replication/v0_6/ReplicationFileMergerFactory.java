@@ -18,10 +18,11 @@ public class ReplicationFileMergerFactory extends WorkingTaskManagerFactory {
     @Override
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
         boolean single = getBooleanArgument(taskConfig, ARG_SINGLE, DEFAULT_SINGLE);
+        int compressionWorkers = getCompressionWorkers(taskConfig);
 
         return new RunnableTaskManager(
                 taskConfig.getId(),
-                new ReplicationFileMerger(this.getWorkingDirectory(taskConfig), single),
+                new ReplicationFileMerger(this.getWorkingDirectory(taskConfig), single, compressionWorkers),
                 taskConfig.getPipeArgs());
     }
 }
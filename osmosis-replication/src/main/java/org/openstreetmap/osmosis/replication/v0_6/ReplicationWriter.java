@@ -32,7 +32,20 @@ public class ReplicationWriter implements ChangeSink {
      *            The directory containing configuration and tracking files.
      */
     public ReplicationWriter(File workingDirectory) {
-        replicationStore = new FileReplicationStore(workingDirectory, false);
+        this(workingDirectory, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param workingDirectory
+     *            The directory containing configuration and tracking files.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress replication
+     *            files. If 0, files are compressed on the writing thread.
+     */
+    public ReplicationWriter(File workingDirectory, int compressionWorkers) {
+        replicationStore = new FileReplicationStore(workingDirectory, false, compressionWorkers);
         stateWriter = new ReplicationStateWriter(workingDirectory);
     }
 
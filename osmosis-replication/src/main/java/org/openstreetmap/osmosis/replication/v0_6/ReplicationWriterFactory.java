@@ -17,7 +17,7 @@ public class ReplicationWriterFactory extends WorkingTaskManagerFactory {
     protected TaskManager createTaskManagerImpl(TaskConfiguration taskConfig) {
         return new ChangeSinkManager(
                 taskConfig.getId(),
-                new ReplicationWriter(this.getWorkingDirectory(taskConfig)),
+                new ReplicationWriter(this.getWorkingDirectory(taskConfig), getCompressionWorkers(taskConfig)),
                 taskConfig.getPipeArgs());
     }
 }
@@ -2,6 +2,7 @@
 package org.openstreetmap.osmosis.replication.v0_6;
 
 import java.io.File;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskConfiguration;
 import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 
@@ -13,6 +14,8 @@ import org.openstreetmap.osmosis.core.pipeline.common.TaskManagerFactory;
 public abstract class WorkingTaskManagerFactory extends TaskManagerFactory {
     private static final String ARG_WORKING_DIRECTORY = "workingDirectory";
     private static final String DEFAULT_WORKING_DIRECTORY = "./";
+    private static final String ARG_COMPRESSION_WORKERS = "compressionWorkers";
+    private static final int DEFAULT_COMPRESSION_WORKERS = 0;
 
     /**
      * Gets the current working directory for the task.
@@ -24,4 +27,21 @@ public abstract class WorkingTaskManagerFactory extends TaskManagerFactory {
         return new File(this.getStringArgument(
                 taskConfig, ARG_WORKING_DIRECTORY, getDefaultStringArgument(taskConfig, DEFAULT_WORKING_DIRECTORY)));
     }
+
+    /**
+     * Gets the number of worker threads used to compress replication files.
+     *
+     * @param taskConfig {@link TaskConfiguration}
+     * @return The number of workers, 0 to compress on the writing thread.
+     */
+    protected int getCompressionWorkers(final TaskConfiguration taskConfig) {
+        int compressionWorkers = getIntegerArgument(taskConfig, ARG_COMPRESSION_WORKERS, DEFAULT_COMPRESSION_WORKERS);
+
+        if (compressionWorkers < 0) {
+            throw new OsmosisRuntimeException("Argument " + ARG_COMPRESSION_WORKERS + " for task "
+                    + taskConfig.getId() + " must not be negative.");
+        }
+
+        return compressionWorkers;
+    }
 }
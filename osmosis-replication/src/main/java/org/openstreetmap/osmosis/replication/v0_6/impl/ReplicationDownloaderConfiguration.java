@@ -16,6 +16,7 @@ import org.openstreetmap.osmosis.core.util.PropertiesPersister;
 public class ReplicationDownloaderConfiguration {
     private static final String KEY_BASE_URL = "baseUrl";
     private static final String KEY_MAX_INTERVAL = "maxInterval";
+    private static final String KEY_PREFETCH_COUNT = "prefetchCount";
 
     private Properties properties;
 
@@ -58,4 +59,22 @@ public class ReplicationDownloaderConfiguration {
     public int getMaxInterval() {
         return Integer.parseInt(properties.getProperty(KEY_MAX_INTERVAL)) * 1000;
     }
+
+    /**
+     * Returns the number of replication files to download ahead of the file
+     * currently being processed. Existing configuration files without this
+     * setting download files one at a time.
+     *
+     * @return The number of files to prefetch, 0 if prefetching is disabled.
+     */
+    public int getPrefetchCount() {
+        String prefetchCount;
+
+        prefetchCount = properties.getProperty(KEY_PREFETCH_COUNT);
+        if (prefetchCount == null) {
+            return 0;
+        }
+
+        return Integer.parseInt(prefetchCount.trim());
+    }
 }
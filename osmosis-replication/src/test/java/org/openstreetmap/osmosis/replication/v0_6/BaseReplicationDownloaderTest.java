@@ -0,0 +1,246 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.replication.v0_6;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
+import org.openstreetmap.osmosis.core.util.PropertiesPersister;
+import org.openstreetmap.osmosis.replication.common.ReplicationSequenceFormatter;
+import org.openstreetmap.osmosis.replication.common.ReplicationState;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+import org.openstreetmap.osmosis.testutil.v0_6.SinkChangeInspector;
+import org.openstreetmap.osmosis.xml.v0_6.XmlChangeReader;
+
+/**
+ * Tests the replication downloader against a file based replication server.
+ */
+public class BaseReplicationDownloaderTest extends AbstractDataTest {
+
+    private static final long BASE_TIME = 1500000000000L;
+    private static final long SERVER_SEQUENCE_NUMBER = 12;
+
+    private static Date getSequenceTimestamp(long sequenceNumber) {
+        return new Date(BASE_TIME + sequenceNumber * 60000);
+    }
+
+    private void writeChangeFile(File file, long sequenceNumber) throws IOException {
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version='1.0' encoding='UTF-8'?>\n");
+            writer.write("<osmChange version=\"0.6\" generator=\"test\">\n");
+            writer.write("  <create>\n");
+            writer.write("    <node id=\"" + sequenceNumber + "\" version=\"1\" timestamp=\"2017-07-14T02:40:00Z\""
+                    + " uid=\"1\" user=\"test\" changeset=\"1\" lat=\"1.0\" lon=\"2.0\"/>\n");
+            writer.write("  </create>\n");
+            writer.write("</osmChange>\n");
+        }
+    }
+
+    private File createServer() throws IOException {
+        ReplicationSequenceFormatter sequenceFormatter;
+        File serverDirectory;
+
+        sequenceFormatter = new ReplicationSequenceFormatter(9, 3);
+        serverDirectory = new File(dataUtils.getTempDir(), "server");
+
+        for (long sequenceNumber = 1; sequenceNumber <= SERVER_SEQUENCE_NUMBER; sequenceNumber++) {
+            ReplicationState state = new ReplicationState(getSequenceTimestamp(sequenceNumber), sequenceNumber);
+
+            writeChangeFile(
+                    new File(serverDirectory, sequenceFormatter.getFormattedName(sequenceNumber, ".osc.gz")),
+                    sequenceNumber);
+            new PropertiesPersister(
+                            new File(serverDirectory, sequenceFormatter.getFormattedName(sequenceNumber, ".state.txt")))
+                    .store(state.store());
+            if (sequenceNumber == SERVER_SEQUENCE_NUMBER) {
+                new PropertiesPersister(new File(serverDirectory, "state.txt")).store(state.store());
+            }
+        }
+
+        return serverDirectory;
+    }
+
+    private File createWorkingDirectory(File serverDirectory, String extraConfiguration) throws IOException {
+        File workingDirectory;
+
+        workingDirectory = new File(dataUtils.getTempDir(), "working");
+        workingDirectory.mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(new File(workingDirectory, "configuration.txt")), StandardCharsets.UTF_8)) {
+            writer.write("baseUrl=" + serverDirectory.toURI() + "\n");
+            writer.write(extraConfiguration);
+        }
+        new PropertiesPersister(new File(workingDirectory, "state.txt"))
+                .store(new ReplicationState(getSequenceTimestamp(1), 1).store());
+
+        return workingDirectory;
+    }
+
+    private static long getLocalSequenceNumber(File workingDirectory) {
+        return new ReplicationState(new PropertiesPersister(new File(workingDirectory, "state.txt")).loadMap())
+                .getSequenceNumber();
+    }
+
+    private List<Long> download(String extraConfiguration, long expectedSequenceNumber) throws IOException {
+        File workingDirectory;
+        RecordingDownloader downloader;
+
+        workingDirectory = createWorkingDirectory(createServer(), extraConfiguration);
+        downloader = new RecordingDownloader(workingDirectory);
+        downloader.run();
+
+        assertEquals(expectedSequenceNumber, getLocalSequenceNumber(workingDirectory));
+        assertEquals(downloader.getSequenceNumbers(), downloader.getEntityIds());
+
+        return downloader.getSequenceNumbers();
+    }
+
+    private static List<Long> getRange(long first, long last) {
+        List<Long> range = new ArrayList<Long>();
+
+        for (long i = first; i <= last; i++) {
+            range.add(i);
+        }
+
+        return range;
+    }
+
+    /**
+     * Tests downloading files one at a time.
+     *
+     * @throws IOException
+     *             if the test data can't be written.
+     */
+    @Test
+    public void testSequentialDownload() throws IOException {
+        assertEquals(getRange(2, SERVER_SEQUENCE_NUMBER), download("maxInterval=0\n", SERVER_SEQUENCE_NUMBER));
+    }
+
+    /**
+     * Tests that prefetched files are processed strictly in order.
+     *
+     * @throws IOException
+     *             if the test data can't be written.
+     */
+    @Test
+    public void testPrefetchDownload() throws IOException {
+        assertEquals(
+                getRange(2, SERVER_SEQUENCE_NUMBER),
+                download("maxInterval=0\nprefetchCount=4\n", SERVER_SEQUENCE_NUMBER));
+    }
+
+    /**
+     * Tests that prefetching stops at the maximum interval.
+     *
+     * @throws IOException
+     *             if the test data can't be written.
+     */
+    @Test
+    public void testPrefetchMaxInterval() throws IOException {
+        assertEquals(getRange(2, 4), download("maxInterval=180\nprefetchCount=8\n", 4));
+    }
+
+    /**
+     * Tests that the local state isn't updated if processing fails part way.
+     *
+     * @throws IOException
+     *             if the test data can't be written.
+     */
+    @Test
+    public void testFailedProcessing() throws IOException {
+        File workingDirectory;
+        RecordingDownloader downloader;
+
+        workingDirectory = createWorkingDirectory(createServer(), "maxInterval=0\nprefetchCount=4\n");
+        downloader = new RecordingDownloader(workingDirectory);
+        downloader.setFailingSequenceNumber(5);
+
+        assertThrows(OsmosisRuntimeException.class, downloader::run);
+
+        assertEquals(getRange(2, 4), downloader.getSequenceNumbers());
+        assertEquals(1, getLocalSequenceNumber(workingDirectory));
+    }
+
+    /**
+     * Records the changesets passed to it by the downloader.
+     */
+    private static class RecordingDownloader extends BaseReplicationDownloader {
+        private List<Long> sequenceNumbers;
+        private List<Long> entityIds;
+        private long failingSequenceNumber;
+
+        RecordingDownloader(File workingDirectory) {
+            super(workingDirectory, false);
+
+            sequenceNumbers = new ArrayList<Long>();
+            entityIds = new ArrayList<Long>();
+            failingSequenceNumber = -1;
+        }
+
+        void setFailingSequenceNumber(long failingSequenceNumber) {
+            this.failingSequenceNumber = failingSequenceNumber;
+        }
+
+        List<Long> getSequenceNumbers() {
+            return sequenceNumbers;
+        }
+
+        List<Long> getEntityIds() {
+            return entityIds;
+        }
+
+        @Override
+        protected void processInitialize(Map<String, Object> metaData) {
+            // Do nothing.
+        }
+
+        @Override
+        protected void processInitializeState(ReplicationState initialState) {
+            // Do nothing.
+        }
+
+        @Override
+        protected void processChangeset(XmlChangeReader xmlReader, ReplicationState replicationState) {
+            SinkChangeInspector inspector = new SinkChangeInspector();
+
+            if (replicationState.getSequenceNumber() == failingSequenceNumber) {
+                throw new OsmosisRuntimeException("Failing sequence " + failingSequenceNumber + ".");
+            }
+
+            xmlReader.setChangeSink(inspector);
+            xmlReader.run();
+
+            sequenceNumbers.add(replicationState.getSequenceNumber());
+            for (ChangeContainer change : inspector.getProcessedChanges()) {
+                entityIds.add(change.getEntityContainer().getEntity().getId());
+            }
+        }
+
+        @Override
+        protected void processComplete() {
+            // Do nothing.
+        }
+
+        @Override
+        protected void processRelease() {
+            // Do nothing.
+        }
+    }
+}
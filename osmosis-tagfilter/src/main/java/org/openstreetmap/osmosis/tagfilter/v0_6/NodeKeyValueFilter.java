@@ -15,6 +15,7 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Node;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
@@ -24,7 +25,7 @@ import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
  *
  * @author Aurelien Jacobs
  */
-public class NodeKeyValueFilter implements SinkSource, EntityProcessor {
+public class NodeKeyValueFilter implements SinkSource, StatelessTask, EntityProcessor {
     private Sink sink;
     private HashSet<String> allowedKeyValues;
 
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.tagfilter.v0_6;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -9,7 +10,11 @@ import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
+import org.openstreetmap.osmosis.core.task.v0_6.EntityFilterSpecification;
+import org.openstreetmap.osmosis.core.task.v0_6.FilterPushdownSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -18,11 +23,12 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  *
  * @author Andrew Byrd
  */
-public class TagFilter implements SinkSource {
+public class TagFilter implements SinkSource, StatelessTask {
     private Sink sink;
     private Set<String> tagKeys;
     private Map<String, Set<String>> tagKeyValues;
     private Class<? extends EntityContainer> filterClass;
+    private EntityType filterType;
     private boolean reject;
     private boolean matchesEverything;
     private static final Logger LOG = Logger.getLogger(TagFilter.class.getName());
@@ -65,10 +71,13 @@ public class TagFilter implements SinkSource {
         }
         if (entity.equals("node")) {
             filterClass = NodeContainer.class;
+            filterType = EntityType.Node;
         } else if (entity.equals("way")) {
             filterClass = WayContainer.class;
+            filterType = EntityType.Way;
         } else if (entity.equals("relation")) {
             filterClass = RelationContainer.class;
+            filterType = EntityType.Relation;
         } else {
             throw new OsmosisRuntimeException("The TagFilter entity type must be one of 'node', 'way', or 'relation'. '"
                     + entity + "' is not a supported entity type.");
@@ -116,10 +125,37 @@ public class TagFilter implements SinkSource {
         return matched;
     }
 
+    /**
+     * Describes the entities this filter may accept so that the source can skip
+     * those it would reject. Rejecting by tags can't be described because an
+     * entity may have other tags, so only entities without a matching tag key
+     * are skipped when accepting.
+     */
+    private EntityFilterSpecification createFilterSpecification() {
+        EntityFilterSpecification specification = new EntityFilterSpecification();
+
+        if (reject && matchesEverything) {
+            specification.rejectEntityType(filterType);
+        } else if (!reject && !matchesEverything) {
+            Set<String> requiredKeys = new HashSet<>(tagKeys);
+
+            requiredKeys.addAll(tagKeyValues.keySet());
+            specification.setRequiredTagKeys(filterType, requiredKeys);
+        }
+
+        return specification;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void initialize(Map<String, Object> metaData) {
+        FilterPushdownSource pushdownSource = (FilterPushdownSource) metaData.get(FilterPushdownSource.META_DATA_KEY);
+
+        if (pushdownSource != null) {
+            pushdownSource.pushDown(this, createFilterSpecification());
+        }
+
         sink.initialize(metaData);
     }
 
@@ -7,6 +7,7 @@ import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Entity;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -17,7 +18,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * @author Jochen Topf
  * @author Brett Henderson
  */
-public class TagRemover implements SinkSource {
+public class TagRemover implements SinkSource, StatelessTask {
     private Sink sink;
     private HashSet<String> keysToDrop;
     private String[] keyPrefixesToDrop;
@@ -1,6 +1,7 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.tagfilter.v0_6;
 
+import java.util.HashMap;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
@@ -15,8 +16,10 @@ import org.openstreetmap.osmosis.core.filter.common.IdTracker;
 import org.openstreetmap.osmosis.core.filter.common.IdTrackerFactory;
 import org.openstreetmap.osmosis.core.filter.common.IdTrackerType;
 import org.openstreetmap.osmosis.core.lifecycle.ReleasableIterator;
+import org.openstreetmap.osmosis.core.store.CompactObjectSerializationFactory;
 import org.openstreetmap.osmosis.core.store.SimpleObjectStore;
-import org.openstreetmap.osmosis.core.store.SingleClassObjectSerializationFactory;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSink;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -28,12 +31,14 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  * @author Christoph Sommer
  * @author Bartosz Fabianowski
  */
-public class UsedWayFilter implements SinkSource, EntityProcessor {
+public class UsedWayFilter implements SinkSource, EntityProcessor, MultiPassSink {
     private Sink sink;
     private SimpleObjectStore<NodeContainer> allNodes;
     private SimpleObjectStore<WayContainer> allWays;
     private SimpleObjectStore<RelationContainer> allRelations;
     private IdTracker requiredWays;
+    private boolean multiPass;
+    private boolean emitPass;
 
     /**
      * Creates a new instance.
@@ -43,11 +48,11 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
      */
     public UsedWayFilter(IdTrackerType idTrackerType) {
         allNodes = new SimpleObjectStore<NodeContainer>(
-                new SingleClassObjectSerializationFactory(NodeContainer.class), "afnd", true);
+                new CompactObjectSerializationFactory(NodeContainer.class), "afnd", true);
         allWays = new SimpleObjectStore<WayContainer>(
-                new SingleClassObjectSerializationFactory(WayContainer.class), "afwy", true);
+                new CompactObjectSerializationFactory(WayContainer.class), "afwy", true);
         allRelations = new SimpleObjectStore<RelationContainer>(
-                new SingleClassObjectSerializationFactory(RelationContainer.class), "afrl", true);
+                new CompactObjectSerializationFactory(RelationContainer.class), "afrl", true);
 
         requiredWays = IdTrackerFactory.createInstance(idTrackerType);
     }
@@ -56,7 +61,20 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
      * {@inheritDoc}
      */
     public void initialize(Map<String, Object> metaData) {
-        sink.initialize(metaData);
+        MultiPassSource passSource;
+        Map<String, Object> downstreamMetaData;
+
+        // If the source can be read again, the required ids are collected in
+        // the first pass and entities are emitted in a second pass instead of
+        // being stored.
+        passSource = (MultiPassSource) metaData.get(MultiPassSource.META_DATA_KEY);
+        multiPass = passSource != null && passSource.requestPass(this);
+        emitPass = false;
+
+        downstreamMetaData = new HashMap<>(metaData);
+        downstreamMetaData.remove(MultiPassSource.META_DATA_KEY);
+
+        sink.initialize(downstreamMetaData);
     }
 
     /**
@@ -72,22 +90,32 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
      * {@inheritDoc}
      */
     public void process(BoundContainer boundContainer) {
-        // By default, pass it on unchanged
-        sink.process(boundContainer);
+        // By default, pass it on unchanged, the bound is repeated in each pass
+        if (!emitPass) {
+            sink.process(boundContainer);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     public void process(NodeContainer container) {
-        allNodes.add(container);
+        if (!multiPass) {
+            allNodes.add(container);
+        } else if (emitPass) {
+            sink.process(container);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     public void process(WayContainer container) {
-        allWays.add(container);
+        if (!multiPass) {
+            allWays.add(container);
+        } else if (emitPass && requiredWays.get(container.getEntity().getId())) {
+            sink.process(container);
+        }
     }
 
     /**
@@ -96,6 +124,11 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
     public void process(RelationContainer container) {
         Relation relation;
 
+        if (emitPass) {
+            sink.process(container);
+            return;
+        }
+
         // mark all nodes as required
         relation = container.getEntity();
         for (RelationMember memberReference : relation.getMembers()) {
@@ -105,13 +138,28 @@ public class UsedWayFilter implements SinkSource, EntityProcessor {
             }
         }
 
-        allRelations.add(container);
+        if (!multiPass) {
+            allRelations.add(container);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void completePass() {
+        emitPass = true;
     }
 
     /**
      * {@inheritDoc}
      */
     public void complete() {
+        // Entities have already been sent during the second pass.
+        if (multiPass) {
+            sink.complete();
+            return;
+        }
+
         // send on all nodes
         ReleasableIterator<NodeContainer> nodeIterator = allNodes.iterate();
         while (nodeIterator.hasNext()) {
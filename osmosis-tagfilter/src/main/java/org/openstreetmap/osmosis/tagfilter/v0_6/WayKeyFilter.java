@@ -11,6 +11,7 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 
@@ -20,7 +21,7 @@ import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
  *
  * @author Andrew Byrd
  */
-public class WayKeyFilter implements SinkSource, EntityProcessor {
+public class WayKeyFilter implements SinkSource, StatelessTask, EntityProcessor {
     private Sink sink;
     private HashSet<String> allowedKeys;
 
@@ -15,6 +15,7 @@ import org.openstreetmap.osmosis.core.container.v0_6.RelationContainer;
 import org.openstreetmap.osmosis.core.container.v0_6.WayContainer;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+import org.openstreetmap.osmosis.core.task.common.StatelessTask;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.core.task.v0_6.SinkSource;
 import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
@@ -26,7 +27,7 @@ import org.openstreetmap.osmosis.tagfilter.common.KeyValueFileReader;
  * @author Karl Newman
  * @author Christoph Sommer
  */
-public class WayKeyValueFilter implements SinkSource, EntityProcessor {
+public class WayKeyValueFilter implements SinkSource, StatelessTask, EntityProcessor {
     private Sink sink;
     private HashSet<String> allowedKeyValues;
 
@@ -0,0 +1,67 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.tagfilter.v0_6;
+
+import java.io.File;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+
+/**
+ * Tests the used node and used way filters, both when reading the source a
+ * second time and when storing the data because the source isn't directly
+ * connected.
+ */
+public class UsedEntityFilterTest extends AbstractDataTest {
+
+    private void testFilter(String taskName, String expectedFileName, boolean buffered) {
+        File inputFile = dataUtils.createDataFile("v0_6/used-filter-snapshot.osm");
+        File expectedResultFile = dataUtils.createDataFile(expectedFileName);
+        File outputFile = dataUtils.newFile();
+
+        if (buffered) {
+            Osmosis.run(new String[] {
+                "-q", "--read-xml-0.6", inputFile.getPath(), "--buffer", taskName, "--write-xml-0.6",
+                outputFile.getPath()
+            });
+        } else {
+            Osmosis.run(new String[] {
+                "-q", "--read-xml-0.6", inputFile.getPath(), taskName, "--write-xml-0.6", outputFile.getPath()
+            });
+        }
+
+        // Validate that the output file matches the expected file
+        dataUtils.compareFiles(expectedResultFile, outputFile);
+    }
+
+    /**
+     * Tests the used node filter reading the source twice.
+     */
+    @Test
+    public final void testUsedNodeMultiPass() {
+        testFilter("--used-node", "v0_6/used-node-expected.osm", false);
+    }
+
+    /**
+     * Tests the used node filter storing the data.
+     */
+    @Test
+    public final void testUsedNodeStored() {
+        testFilter("--used-node", "v0_6/used-node-expected.osm", true);
+    }
+
+    /**
+     * Tests the used way filter reading the source twice.
+     */
+    @Test
+    public final void testUsedWayMultiPass() {
+        testFilter("--used-way", "v0_6/used-way-expected.osm", false);
+    }
+
+    /**
+     * Tests the used way filter storing the data.
+     */
+    @Test
+    public final void testUsedWayStored() {
+        testFilter("--used-way", "v0_6/used-way-expected.osm", true);
+    }
+}
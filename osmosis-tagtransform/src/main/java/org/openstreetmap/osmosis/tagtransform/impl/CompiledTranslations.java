@@ -0,0 +1,337 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.tagtransform.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+import org.openstreetmap.osmosis.tagtransform.Match;
+import org.openstreetmap.osmosis.tagtransform.Matcher;
+import org.openstreetmap.osmosis.tagtransform.Translation;
+
+/**
+ * An index over the tag matchers of a rule set allowing all of them to be evaluated in a single
+ * pass over an entity's tags.
+ * <p>
+ * Matchers with a literal key are found by hash lookup on the tag key. Matchers with a regular
+ * expression key are tested against each distinct key once and the result is remembered, so each
+ * tag is compared against only the matchers that accept its key. Translations that can't match
+ * unless one of their tag matchers matches are skipped entirely when none did. Translations
+ * containing a no-tag matcher are never skipped so that the match statistics are unchanged.
+ * Translations or matchers of an unrecognised type are always evaluated in the usual way.
+ */
+public class CompiledTranslations {
+
+    /**
+     * The maximum number of distinct tag keys to remember matching tag matchers for.
+     */
+    private static final int MAX_CACHED_KEYS = 10000;
+
+    private static final Leaf[] NO_LEAVES = new Leaf[0];
+
+    private List<Leaf> leaves;
+    private Map<String, List<Leaf>> literalKeyLeaves;
+    private List<Leaf> patternKeyLeaves;
+    private Map<String, Leaf[]> keyLeafCache;
+    private BitSet alwaysEvaluated;
+    private BitSet triggered;
+    private IndexedTags indexedTags;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param translations
+     *            The translations to be indexed, in the order they are applied.
+     */
+    public CompiledTranslations(List<Translation> translations) {
+        leaves = new ArrayList<Leaf>();
+        literalKeyLeaves = new HashMap<String, List<Leaf>>();
+        patternKeyLeaves = new ArrayList<Leaf>();
+        keyLeafCache = new HashMap<String, Leaf[]>();
+        alwaysEvaluated = new BitSet();
+        triggered = new BitSet();
+
+        for (int i = 0; i < translations.size(); i++) {
+            Translation translation = translations.get(i);
+
+            if (translation instanceof TranslationImpl) {
+                TranslationImpl translationImpl = (TranslationImpl) translation;
+
+                if (!compile(translationImpl.getMatcher(), i, true)
+                        || containsNoTagMatcher(translationImpl.getMatcher())) {
+                    alwaysEvaluated.set(i);
+                }
+                if (translationImpl.getFinder() != null) {
+                    compile(translationImpl.getFinder(), i, false);
+                }
+            } else {
+                alwaysEvaluated.set(i);
+            }
+        }
+
+        for (Leaf leaf : leaves) {
+            if (leaf.literalKey != null) {
+                literalKeyLeaves
+                        .computeIfAbsent(leaf.literalKey, key -> new ArrayList<Leaf>())
+                        .add(leaf);
+            } else {
+                patternKeyLeaves.add(leaf);
+            }
+        }
+
+        indexedTags = new IndexedTags(leaves.size());
+    }
+
+    /**
+     * Returns the pattern source if it matches only itself.
+     *
+     * @param pattern
+     *            The pattern.
+     * @return The literal string matched, or null if the pattern isn't a literal.
+     */
+    private static String getLiteral(Pattern pattern) {
+        String source = pattern.pattern();
+
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        for (int i = 0; i < source.length(); i++) {
+            if ("\\^$.|?*+()[]{}".indexOf(source.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+
+        return source;
+    }
+
+    /**
+     * Indicates if a matcher tree contains a no-tag matcher. Skipping such a translation would
+     * leave the no-tag match count short because no-tag matchers can succeed within a translation
+     * that fails.
+     *
+     * @param matcher
+     *            The matcher.
+     * @return True if a no-tag matcher exists within the tree.
+     */
+    private static boolean containsNoTagMatcher(Matcher matcher) {
+        Iterable<Matcher> children;
+
+        if (matcher instanceof NoTagMatcher) {
+            return true;
+        } else if (matcher instanceof AndMatcher) {
+            children = ((AndMatcher) matcher).getMatchers();
+        } else if (matcher instanceof OrMatcher) {
+            children = ((OrMatcher) matcher).getMatchers();
+        } else {
+            return false;
+        }
+
+        for (Matcher child : children) {
+            if (containsNoTagMatcher(child)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Assigns indexes to the tag matchers within a matcher tree.
+     *
+     * @param matcher
+     *            The matcher.
+     * @param translationIndex
+     *            The index of the translation owning the matcher.
+     * @param trigger
+     *            True if a match of tag matchers in this tree makes the translation a candidate.
+     * @return True if the matcher can only match when one of its tag matchers has matched.
+     */
+    private boolean compile(Matcher matcher, int translationIndex, boolean trigger) {
+        if (matcher instanceof TagMatcher) {
+            TagMatcher tagMatcher = (TagMatcher) matcher;
+
+            tagMatcher.setLeafId(leaves.size());
+            leaves.add(new Leaf(
+                    leaves.size(),
+                    tagMatcher.getMatchID(),
+                    tagMatcher.getKeyPattern(),
+                    tagMatcher.getValuePattern(),
+                    true,
+                    trigger ? translationIndex : -1));
+
+            return true;
+
+        } else if (matcher instanceof NoTagMatcher) {
+            NoTagMatcher noTagMatcher = (NoTagMatcher) matcher;
+
+            noTagMatcher.setLeafId(leaves.size());
+            leaves.add(new Leaf(
+                    leaves.size(), null, noTagMatcher.getKeyPattern(), noTagMatcher.getValuePattern(), false, -1));
+
+            return false;
+
+        } else if (matcher instanceof AndMatcher) {
+            boolean requiresTag = false;
+
+            // All children must match so one requiring a tag is sufficient.
+            for (Matcher child : ((AndMatcher) matcher).getMatchers()) {
+                requiresTag |= compile(child, translationIndex, trigger);
+            }
+
+            return requiresTag;
+
+        } else if (matcher instanceof OrMatcher) {
+            boolean requiresTag = true;
+
+            // Any child may match so all of them must require a tag. An empty
+            // matcher never matches.
+            for (Matcher child : ((OrMatcher) matcher).getMatchers()) {
+                requiresTag &= compile(child, translationIndex, trigger);
+            }
+
+            return requiresTag;
+        }
+
+        return false;
+    }
+
+    private Leaf[] getKeyLeaves(String key) {
+        Leaf[] keyLeaves = keyLeafCache.get(key);
+
+        if (keyLeaves == null) {
+            List<Leaf> keyLeafList = new ArrayList<Leaf>();
+            List<Leaf> literalLeaves = literalKeyLeaves.get(key);
+
+            if (literalLeaves != null) {
+                keyLeafList.addAll(literalLeaves);
+            }
+            for (Leaf leaf : patternKeyLeaves) {
+                if (leaf.keyPattern.matcher(key).matches()) {
+                    keyLeafList.add(leaf);
+                }
+            }
+
+            keyLeaves = keyLeafList.isEmpty() ? NO_LEAVES : keyLeafList.toArray(new Leaf[keyLeafList.size()]);
+
+            if (keyLeafCache.size() < MAX_CACHED_KEYS) {
+                keyLeafCache.put(key, keyLeaves);
+            }
+        }
+
+        return keyLeaves;
+    }
+
+    /**
+     * Evaluates all indexed tag matchers against a set of tags. The result replaces that of the
+     * previous invocation.
+     *
+     * @param tags
+     *            The tags to be evaluated.
+     * @return The tags and their match results, to be passed to the translations in place of the
+     *         original tags.
+     */
+    public Map<String, String> index(Map<String, String> tags) {
+        indexedTags.reset(tags);
+        triggered.clear();
+
+        for (Entry<String, String> tag : tags.entrySet()) {
+            for (Leaf leaf : getKeyLeaves(tag.getKey())) {
+                leaf.match(indexedTags, triggered, tag.getKey(), tag.getValue());
+            }
+        }
+
+        return indexedTags;
+    }
+
+    /**
+     * Returns the next translation that may match the most recently indexed tags.
+     *
+     * @param fromIndex
+     *            The index of the first translation to consider.
+     * @return The index of the translation, or -1 if no later translation can match.
+     */
+    public int nextCandidate(int fromIndex) {
+        int nextAlways = alwaysEvaluated.nextSetBit(fromIndex);
+        int nextTriggered = triggered.nextSetBit(fromIndex);
+
+        if (nextAlways < 0) {
+            return nextTriggered;
+        }
+        if (nextTriggered < 0) {
+            return nextAlways;
+        }
+
+        return Math.min(nextAlways, nextTriggered);
+    }
+
+    /**
+     * An indexed tag or no-tag matcher.
+     */
+    private static class Leaf {
+        private int leafId;
+        private String matchID;
+        private Pattern keyPattern;
+        private Pattern valuePattern;
+        private String literalKey;
+        private String literalValue;
+        private boolean capture;
+        private int triggerTranslation;
+
+        Leaf(
+                int leafId,
+                String matchID,
+                Pattern keyPattern,
+                Pattern valuePattern,
+                boolean capture,
+                int triggerTranslation) {
+            this.leafId = leafId;
+            this.matchID = matchID;
+            this.keyPattern = keyPattern;
+            this.valuePattern = valuePattern;
+            this.capture = capture;
+            this.triggerTranslation = triggerTranslation;
+
+            literalKey = getLiteral(keyPattern);
+            literalValue = getLiteral(valuePattern);
+        }
+
+        void match(IndexedTags indexedTags, BitSet triggered, String key, String value) {
+            java.util.regex.Matcher valueMatch;
+            java.util.regex.Matcher keyMatch;
+
+            // The key is already known to match.
+            if (literalValue != null) {
+                if (!literalValue.equals(value)) {
+                    return;
+                }
+                valueMatch = null;
+            } else {
+                valueMatch = valuePattern.matcher(value);
+                if (!valueMatch.matches()) {
+                    return;
+                }
+            }
+
+            if (capture) {
+                // Captured groups are only needed for successful matches.
+                keyMatch = keyPattern.matcher(key);
+                keyMatch.matches();
+                if (valueMatch == null) {
+                    valueMatch = valuePattern.matcher(value);
+                    valueMatch.matches();
+                }
+                indexedTags.addMatch(
+                        leafId, new MatchResultMatch(matchID, keyMatch.toMatchResult(), valueMatch.toMatchResult()));
+            } else {
+                indexedTags.addMatch(leafId, null);
+            }
+
+            if (triggerTranslation >= 0) {
+                triggered.set(triggerTranslation);
+            }
+        }
+    }
+}
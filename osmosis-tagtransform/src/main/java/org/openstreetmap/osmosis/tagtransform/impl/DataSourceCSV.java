@@ -73,6 +73,9 @@ public class DataSourceCSV implements DataSource {
 
     @Override
     public String[] transform(String[] matches) {
-        return data.getOrDefault(String.join("\0", matches), fallback);
+        // Single column lookups are keyed by the column value itself.
+        String key = matches.length == 1 ? String.valueOf(matches[0]) : String.join("\0", matches);
+
+        return data.getOrDefault(key, fallback);
     }
 }
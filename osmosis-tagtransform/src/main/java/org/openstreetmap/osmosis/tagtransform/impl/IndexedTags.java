@@ -0,0 +1,117 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.tagtransform.impl;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openstreetmap.osmosis.tagtransform.Match;
+
+/**
+ * A view of an entity's tags along with the results of every indexed tag matcher
+ * evaluated against them. Tag matchers recognise this map and look up their results rather than
+ * scanning the tags. Instances are created and reused by {@link CompiledTranslations}.
+ */
+class IndexedTags extends AbstractMap<String, String> {
+    private Map<String, String> tags;
+    private List<List<Match>> leafMatches;
+    private boolean[] leafMatched;
+    private int[] matchedLeaves;
+    private int matchedLeafCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param leafCount
+     *            The number of indexed tag matchers.
+     */
+    IndexedTags(int leafCount) {
+        leafMatches = new ArrayList<List<Match>>(leafCount);
+        for (int i = 0; i < leafCount; i++) {
+            leafMatches.add(new ArrayList<Match>());
+        }
+        leafMatched = new boolean[leafCount];
+        matchedLeaves = new int[leafCount];
+    }
+
+    /**
+     * Discards the results for the previous tags.
+     *
+     * @param newTags
+     *            The tags the new results apply to.
+     */
+    void reset(Map<String, String> newTags) {
+        // Only the leaves that matched need clearing so the cost doesn't depend
+        // on the size of the rule set.
+        for (int i = 0; i < matchedLeafCount; i++) {
+            int leafId = matchedLeaves[i];
+
+            leafMatched[leafId] = false;
+            leafMatches.get(leafId).clear();
+        }
+        matchedLeafCount = 0;
+
+        tags = newTags;
+    }
+
+    /**
+     * Records a successful match of a tag matcher.
+     *
+     * @param leafId
+     *            The index of the tag matcher.
+     * @param match
+     *            The match, or null if the matcher doesn't capture matches.
+     */
+    void addMatch(int leafId, Match match) {
+        if (!leafMatched[leafId]) {
+            leafMatched[leafId] = true;
+            matchedLeaves[matchedLeafCount++] = leafId;
+        }
+        if (match != null) {
+            leafMatches.get(leafId).add(match);
+        }
+    }
+
+    /**
+     * Indicates if a tag matcher matched any of the tags.
+     *
+     * @param leafId
+     *            The index of the tag matcher.
+     * @return True if at least one tag matched.
+     */
+    boolean isMatched(int leafId) {
+        return leafMatched[leafId];
+    }
+
+    /**
+     * Returns the matches of a tag matcher in tag iteration order.
+     *
+     * @param leafId
+     *            The index of the tag matcher.
+     * @return A new modifiable list of matches.
+     */
+    List<Match> getMatches(int leafId) {
+        return new ArrayList<Match>(leafMatches.get(leafId));
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return tags.entrySet();
+    }
+
+    @Override
+    public String get(Object key) {
+        return tags.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return tags.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return tags.size();
+    }
+}
@@ -15,14 +15,36 @@ public class NoTagMatcher implements Matcher {
     private Pattern keyPattern;
     private Pattern valuePattern;
     private long matchHits;
+    private int leafId = -1;
 
     public NoTagMatcher(String keyPattern, String valuePattern) {
         this.keyPattern = Pattern.compile(keyPattern);
         this.valuePattern = Pattern.compile(valuePattern);
     }
 
+    Pattern getKeyPattern() {
+        return keyPattern;
+    }
+
+    Pattern getValuePattern() {
+        return valuePattern;
+    }
+
+    void setLeafId(int leafId) {
+        this.leafId = leafId;
+    }
+
     @Override
     public Collection<Match> match(Map<String, String> tags, TTEntityType type, String uname, int uid) {
+        // use the result of the compiled index if available
+        if (leafId >= 0 && tags instanceof IndexedTags) {
+            if (((IndexedTags) tags).isMatched(leafId)) {
+                return null;
+            }
+            matchHits += 1;
+            return Collections.singleton(NULL_MATCH);
+        }
+
         // loop through the tags to find matches
         for (Entry<String, String> tag : tags.entrySet()) {
             java.util.regex.Matcher keyMatch = keyPattern.matcher(tag.getKey());
@@ -24,6 +24,10 @@ public class OrMatcher implements Matcher {
         this.uid = uid;
     }
 
+    Collection<Matcher> getMatchers() {
+        return matchers;
+    }
+
     @Override
     public Collection<Match> match(
             Map<String, String> tags, TTEntityType entityType, String entityUname, int entityUid) {
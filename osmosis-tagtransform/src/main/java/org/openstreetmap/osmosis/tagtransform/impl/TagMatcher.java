@@ -18,6 +18,7 @@ public class TagMatcher implements Matcher {
     private Pattern keyPattern;
     private Pattern valuePattern;
     private long matchHits = 0;
+    private int leafId = -1;
 
     public TagMatcher(String matchID, String keyPattern, String valuePattern) {
         this.matchID = matchID;
@@ -25,9 +26,34 @@ public class TagMatcher implements Matcher {
         this.valuePattern = Pattern.compile(valuePattern);
     }
 
+    String getMatchID() {
+        return matchID;
+    }
+
+    Pattern getKeyPattern() {
+        return keyPattern;
+    }
+
+    Pattern getValuePattern() {
+        return valuePattern;
+    }
+
+    void setLeafId(int leafId) {
+        this.leafId = leafId;
+    }
+
     @Override
     public Collection<Match> match(Map<String, String> tags, TTEntityType type, String uname, int uid) {
-        List<Match> matches = new ArrayList<Match>();
+        List<Match> matches;
+
+        // use the result of the compiled index if available
+        if (leafId >= 0 && tags instanceof IndexedTags) {
+            matches = ((IndexedTags) tags).getMatches(leafId);
+            matchHits += matches.size();
+            return matches;
+        }
+
+        matches = new ArrayList<Match>();
 
         // loop through the tags to find matches
         for (Entry<String, String> tag : tags.entrySet()) {
@@ -15,6 +15,8 @@ public class TagOutput implements Output {
     private String fromMatch;
     private String keyDataSource;
     private String valueDataSource;
+    private String fixedKey;
+    private String fixedValue;
 
     public TagOutput(String key, String value, String fromMatch, String keyDataSource, String valueDataSource) {
         keyFormat = new MessageFormat(santitise(key));
@@ -30,6 +32,12 @@ public class TagOutput implements Output {
         if (valueDataSource != null && valueDataSource.length() > 0) {
             this.valueDataSource = valueDataSource;
         }
+
+        // Tags not derived from a match are the same every time.
+        if (this.fromMatch == null) {
+            fixedKey = keyFormat.format(null);
+            fixedValue = valueFormat.format(null);
+        }
     }
 
     private String santitise(String str) {
@@ -81,7 +89,7 @@ public class TagOutput implements Output {
             }
         } else {
             // simple case
-            tags.put(keyFormat.format(null), valueFormat.format(null));
+            tags.put(fixedKey, fixedValue);
         }
     }
 }
@@ -19,6 +19,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.EntityType;
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.task.common.Task;
 import org.openstreetmap.osmosis.core.task.v0_6.Initializable;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 import org.openstreetmap.osmosis.tagtransform.Match;
 import org.openstreetmap.osmosis.tagtransform.Output;
 import org.openstreetmap.osmosis.tagtransform.StatsSaveException;
@@ -43,11 +44,13 @@ public abstract class TransformHelper<T extends Task & Initializable> implements
     protected String statsFile;
     protected String configFile;
     protected List<Translation> translations;
+    protected CompiledTranslations compiledTranslations;
     protected static TimestampFormat timestampFormat = new XmlTimestampFormat();
 
     public TransformHelper(String configFile, String statsFile) {
         logger.log(Level.FINE, "Transform configured with " + configFile + " and " + statsFile);
         translations = new TransformLoader().load(configFile);
+        compiledTranslations = new CompiledTranslations(translations);
         this.statsFile = statsFile;
         this.configFile = configFile;
     }
@@ -116,10 +119,13 @@ public abstract class TransformHelper<T extends Task & Initializable> implements
             tagMap.put(tag.getKey(), tag.getValue());
         }
 
-        // Apply tag transformations.
-        for (Translation translation : translations) {
+        // Apply tag transformations. Only translations that may match the
+        // current tags according to the compiled index are evaluated.
+        Map<String, String> indexedTagMap = compiledTranslations.index(tagMap);
+        for (int i = compiledTranslations.nextCandidate(0); i >= 0; i = compiledTranslations.nextCandidate(i + 1)) {
+            Translation translation = translations.get(i);
             Collection<Match> matches = translation.match(
-                    tagMap,
+                    indexedTagMap,
                     TTEntityType.fromEntityType06(entityType),
                     entity.getUser().getName(),
                     entity.getUser().getId());
@@ -135,12 +141,13 @@ public abstract class TransformHelper<T extends Task & Initializable> implements
                 output.apply(tagMap, newTags, matches, translation.getDataSources());
             }
             tagMap = newTags;
+            indexedTagMap = compiledTranslations.index(tagMap);
         }
 
         // Replace the entity tags with the transformed values.
         entityTags.clear();
         for (Entry<String, String> tag : tagMap.entrySet()) {
-            entityTags.add(new Tag(tag.getKey(), tag.getValue()));
+            entityTags.add(new Tag(StringDictionary.intern(tag.getKey()), StringDictionary.intern(tag.getValue())));
         }
 
         return writeableEntityContainer;
@@ -36,6 +36,14 @@ public class TranslationImpl implements Translation {
         this.output = output;
     }
 
+    Matcher getMatcher() {
+        return matcher;
+    }
+
+    Matcher getFinder() {
+        return finder;
+    }
+
     @Override
     public Collection<Output> getOutputs() {
         return output;
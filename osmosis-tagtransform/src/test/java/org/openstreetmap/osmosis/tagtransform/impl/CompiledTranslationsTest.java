@@ -0,0 +1,174 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.tagtransform.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.tagtransform.Match;
+import org.openstreetmap.osmosis.tagtransform.Matcher;
+import org.openstreetmap.osmosis.tagtransform.Output;
+import org.openstreetmap.osmosis.tagtransform.TTEntityType;
+import org.openstreetmap.osmosis.tagtransform.Translation;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+
+/**
+ * Tests the compiled translation index.
+ */
+public class CompiledTranslationsTest extends AbstractDataTest {
+
+    private static final String[][] TAG_CHOICES = {
+        {"highway", "path", "footway", "crossing", "traffic_signals", "primary"},
+        {"bicycle", "yes", "true", "0", "designated", "private"},
+        {"foot", "yes", "1", "permissive"},
+        {"motorcar", "yes", "false", "no"},
+        {"oneway", "reverse", "backwards", "1", "yes"},
+        {"crossing", "traffic_signals", "toucan"},
+        {"crossing_ref", "toucan", "zebra"},
+        {"route", "ncn", "bicycle;ncn", "lcn;rcn;hiking", "road"},
+        {"ncn_ref", "4"},
+        {"ncn", "yes"},
+        {"rcn_ref", "12"},
+        {"lcn_ref", "8"},
+        {"tiger:county", "Some County"},
+        {"created_by", "JOSM"},
+        {"piste:lift", "chair_lift"},
+        {"piste:lift:capacity", "4"},
+        {"piste_lift", "drag_lift"},
+        {"capacity", "2"},
+        {"name", "Main Street"}
+    };
+
+    private static Map<String, String> createTags(Random random) {
+        Map<String, String> tags = new HashMap<String, String>();
+
+        for (String[] choice : TAG_CHOICES) {
+            if (random.nextInt(3) == 0) {
+                tags.put(choice[0], choice[1 + random.nextInt(choice.length - 1)]);
+            }
+        }
+
+        return tags;
+    }
+
+    private static Map<String, String> apply(
+            Translation translation, Collection<Match> matches, Map<String, String> tags) {
+        Map<String, String> newTags = new HashMap<String, String>();
+
+        for (Output output : translation.getOutputs()) {
+            output.apply(tags, newTags, matches, translation.getDataSources());
+        }
+
+        return newTags;
+    }
+
+    private static Map<String, String> transform(List<Translation> translations, Map<String, String> tags) {
+        Map<String, String> tagMap = tags;
+
+        for (Translation translation : translations) {
+            Collection<Match> matches = translation.match(tagMap, TTEntityType.WAY, "user", 1);
+
+            if (matches != null && !matches.isEmpty()) {
+                if (translation.isDropOnMatch()) {
+                    return null;
+                }
+                tagMap = apply(translation, matches, tagMap);
+            }
+        }
+
+        return tagMap;
+    }
+
+    private static Map<String, String> transform(
+            List<Translation> translations, CompiledTranslations compiled, Map<String, String> tags) {
+        Map<String, String> tagMap = tags;
+        Map<String, String> indexedTagMap = compiled.index(tagMap);
+
+        for (int i = compiled.nextCandidate(0); i >= 0; i = compiled.nextCandidate(i + 1)) {
+            Translation translation = translations.get(i);
+            Collection<Match> matches = translation.match(indexedTagMap, TTEntityType.WAY, "user", 1);
+
+            if (matches != null && !matches.isEmpty()) {
+                if (translation.isDropOnMatch()) {
+                    return null;
+                }
+                tagMap = apply(translation, matches, tagMap);
+                indexedTagMap = compiled.index(tagMap);
+            }
+        }
+
+        return tagMap;
+    }
+
+    private static String getStats(List<Translation> translations) {
+        StringBuilder builder = new StringBuilder();
+
+        for (Translation translation : translations) {
+            translation.outputStats(builder, "");
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Verifies that the compiled index produces the same results and statistics as evaluating
+     * every translation against every tag.
+     */
+    @Test
+    public void testEquivalence() {
+        String configFile = dataUtils.createDataFile("v0_6/translation.xml").getPath();
+        List<Translation> scanned = new TransformLoader().load(configFile);
+        List<Translation> indexed = new TransformLoader().load(configFile);
+        CompiledTranslations compiled = new CompiledTranslations(indexed);
+        Random random = new Random(1);
+        List<Map<String, String>> inputs = new ArrayList<Map<String, String>>();
+
+        for (int i = 0; i < 5000; i++) {
+            inputs.add(createTags(random));
+        }
+
+        for (Map<String, String> tags : inputs) {
+            assertEquals(transform(scanned, tags), transform(indexed, compiled, tags), "Tags " + tags);
+        }
+
+        assertEquals(getStats(scanned), getStats(indexed));
+    }
+
+    private static List<Translation> createNoTagTranslations() {
+        List<Matcher> matchers = new ArrayList<Matcher>();
+
+        // The no-tag matcher is evaluated, and may match, before the tag matcher fails.
+        matchers.add(new NoTagMatcher("ncn", ".*"));
+        matchers.add(new TagMatcher(null, "highway", "primary"));
+
+        return List.of(new TranslationImpl(
+                "notag",
+                "",
+                new AndMatcher(matchers, null, null, 0),
+                null,
+                Collections.emptyMap(),
+                List.of(new CopyAll())));
+    }
+
+    /**
+     * Verifies that no-tag matchers are counted in translations that fail on a later tag matcher.
+     */
+    @Test
+    public void testNoTagStatistics() {
+        List<Translation> scanned = createNoTagTranslations();
+        List<Translation> indexed = createNoTagTranslations();
+        CompiledTranslations compiled = new CompiledTranslations(indexed);
+        Map<String, String> tags = new HashMap<String, String>();
+
+        tags.put("highway", "footway");
+
+        assertEquals(transform(scanned, tags), transform(indexed, compiled, tags));
+        assertEquals(getStats(scanned), getStats(indexed));
+    }
+}
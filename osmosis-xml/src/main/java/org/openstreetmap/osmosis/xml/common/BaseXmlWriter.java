@@ -6,7 +6,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -25,8 +25,9 @@ public abstract class BaseXmlWriter {
     private boolean writerProvided;
     private File file;
     private boolean initialized;
-    private BufferedWriter writer;
+    private Writer writer;
     private CompressionMethod compressionMethod;
+    private int compressionWorkers;
 
     /**
      * Creates a new instance to write to the provided writer.
@@ -49,8 +50,24 @@ public abstract class BaseXmlWriter {
      *            Specifies the compression method to employ.
      */
     public BaseXmlWriter(File file, CompressionMethod compressionMethod) {
+        this(file, compressionMethod, 0);
+    }
+
+    /**
+     * Creates a new instance to write to the specified file.
+     *
+     * @param file
+     *            The file to write.
+     * @param compressionMethod
+     *            Specifies the compression method to employ.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress the file. If 0,
+     *            the file is compressed on the writing thread.
+     */
+    public BaseXmlWriter(File file, CompressionMethod compressionMethod, int compressionWorkers) {
         this.file = file;
         this.compressionMethod = compressionMethod;
+        this.compressionWorkers = compressionWorkers;
 
         writerProvided = false;
         closeRequired = true;
@@ -62,7 +79,7 @@ public abstract class BaseXmlWriter {
      * @param resultWriter
      *            The writer receiving xml data.
      */
-    protected abstract void setWriterOnElementWriter(BufferedWriter resultWriter);
+    protected abstract void setWriterOnElementWriter(Writer resultWriter);
 
     /**
      * Calls the begin method of the element writer used for this implementation.
@@ -94,7 +111,7 @@ public abstract class BaseXmlWriter {
      */
     private void writeNewLine() {
         try {
-            writer.newLine();
+            writer.write(System.getProperty("line.separator"));
 
         } catch (IOException e) {
             throw new OsmosisRuntimeException("Unable to write data.", e);
@@ -123,8 +140,6 @@ public abstract class BaseXmlWriter {
                 OutputStream outStream = null;
 
                 try {
-                    OutputStreamWriter outStreamWriter;
-
                     // make "-" an alias for /dev/stdout
                     if (file.getName().equals("-")) {
                         outStream = System.out;
@@ -136,11 +151,12 @@ public abstract class BaseXmlWriter {
                         outStream = new FileOutputStream(file);
                     }
 
-                    outStream = new CompressionActivator(compressionMethod).createCompressionOutputStream(outStream);
-
-                    outStreamWriter = new OutputStreamWriter(outStream, "UTF-8");
+                    outStream = new CompressionActivator(compressionMethod, compressionWorkers)
+                            .createCompressionOutputStream(outStream);
 
-                    writer = new BufferedWriter(outStreamWriter);
+                    // Element writers encode directly into the byte buffer
+                    // of this writer.
+                    writer = new Utf8XmlWriter(outStream);
 
                     outStream = null;
 
@@ -19,6 +19,7 @@ import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
 public class CompressionActivator {
 
     private CompressionMethod compressionMethod;
+    private int compressionWorkers;
 
     /**
      * Creates a new instance.
@@ -27,7 +28,21 @@ public class CompressionActivator {
      *            The compression method to employ.
      */
     public CompressionActivator(CompressionMethod compressionMethod) {
+        this(compressionMethod, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param compressionMethod
+     *            The compression method to employ.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress output data. If
+     *            0, data is compressed on the writing thread.
+     */
+    public CompressionActivator(CompressionMethod compressionMethod, int compressionWorkers) {
         this.compressionMethod = compressionMethod;
+        this.compressionWorkers = compressionWorkers;
     }
 
     /**
@@ -46,6 +61,10 @@ public class CompressionActivator {
                 return destinationStream;
             }
 
+            if (compressionWorkers > 0) {
+                return new ParallelCompressionOutputStream(destinationStream, compressionMethod, compressionWorkers);
+            }
+
             if (CompressionMethod.GZip.equals(compressionMethod)) {
                 return new GZIPOutputStream(destinationStream);
             }
@@ -83,7 +102,7 @@ public class CompressionActivator {
             }
 
             if (CompressionMethod.BZip2.equals(compressionMethod)) {
-                return new BZip2CompressorInputStream(sourceStream);
+                return new BZip2CompressorInputStream(sourceStream, true);
             }
 
             throw new OsmosisRuntimeException("Compression method " + compressionMethod + " is not recognized.");
@@ -3,9 +3,13 @@ package org.openstreetmap.osmosis.xml.common;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
 import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
 import org.openstreetmap.osmosis.core.domain.common.TimestampFormat;
 
 /**
@@ -24,7 +28,7 @@ public class ElementWriter {
      * Defines the characters that must be replaced by
      * an encoded string when writing to XML.
      */
-    private static final Map<Character, String> XML_ENCODING;
+    static final Map<Character, String> XML_ENCODING;
 
     static {
         // Define all the characters and their encodings.
@@ -54,6 +58,11 @@ public class ElementWriter {
      */
     private Writer myWriter;
 
+    /**
+     * The output destination if it supports writing pre-encoded xml, otherwise null.
+     */
+    private Utf8XmlWriter myByteWriter;
+
     /**
      * The name of the element to be written.
      */
@@ -72,6 +81,15 @@ public class ElementWriter {
      */
     private String myLineSeparator;
 
+    /**
+     * The pre-encoded markup of the element for writing with a byte writer.
+     */
+    private final byte[] myOpenElementBytes;
+    private final byte[] myEndOpenElementBytes;
+    private final byte[] myEndClosedElementBytes;
+    private final byte[] myCloseElementBytes;
+    private final Map<String, byte[]> myAttributeStartBytes;
+
     /**
      * Creates a new instance.
      *
@@ -84,6 +102,17 @@ public class ElementWriter {
 
         myTimestampFormat = new XmlTimestampFormat();
         this.myLineSeparator = System.getProperty("line.separator");
+
+        String indent = " ".repeat(anIndentionLevel * INDENT_SPACES_PER_LEVEL);
+        myOpenElementBytes = encode(indent + "<" + anElementName);
+        myEndOpenElementBytes = encode(">" + myLineSeparator);
+        myEndClosedElementBytes = encode("/>" + myLineSeparator);
+        myCloseElementBytes = encode(indent + "</" + anElementName + ">" + myLineSeparator);
+        myAttributeStartBytes = new HashMap<String, byte[]>();
+    }
+
+    private static byte[] encode(String data) {
+        return data.getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -96,6 +125,12 @@ public class ElementWriter {
             throw new IllegalArgumentException("null writer given");
         }
         this.myWriter = aWriter;
+
+        if (aWriter instanceof Utf8XmlWriter) {
+            myByteWriter = (Utf8XmlWriter) aWriter;
+        } else {
+            myByteWriter = null;
+        }
     }
 
     /**
@@ -161,6 +196,11 @@ public class ElementWriter {
      */
     protected void beginOpenElement() {
         try {
+            if (myByteWriter != null) {
+                myByteWriter.writeBytes(myOpenElementBytes);
+                return;
+            }
+
             writeIndent();
 
             myWriter.append('<');
@@ -180,6 +220,11 @@ public class ElementWriter {
      */
     protected void endOpenElement(final boolean closeElement) {
         try {
+            if (myByteWriter != null) {
+                myByteWriter.writeBytes(closeElement ? myEndClosedElementBytes : myEndOpenElementBytes);
+                return;
+            }
+
             if (closeElement) {
                 myWriter.append('/');
             }
@@ -200,6 +245,13 @@ public class ElementWriter {
      */
     protected void addAttribute(final String name, final String value) {
         try {
+            if (myByteWriter != null) {
+                beginAttribute(name);
+                myByteWriter.writeEscaped(value);
+                myByteWriter.write('"');
+                return;
+            }
+
             myWriter.append(' ');
             myWriter.append(name);
             myWriter.append("=\"");
@@ -213,11 +265,107 @@ public class ElementWriter {
         }
     }
 
+    /**
+     * Adds an attribute with a numeric value to the element.
+     *
+     * @param name The name of the attribute.
+     * @param value The value of the attribute.
+     */
+    protected void addAttribute(final String name, final long value) {
+        if (myByteWriter == null) {
+            addAttribute(name, Long.toString(value));
+            return;
+        }
+
+        try {
+            beginAttribute(name);
+            myByteWriter.writeLong(value);
+            myByteWriter.write('"');
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write data.", e);
+        }
+    }
+
+    /**
+     * Adds an attribute with a decimal value to the element.
+     *
+     * @param name The name of the attribute.
+     * @param value The value of the attribute.
+     * @param maximumFractionDigits The number of decimal places written by the number format.
+     * @param numberFormat The format of the value. It must round to the specified number of
+     *        decimal places without grouping or trailing zeros.
+     */
+    protected void addAttribute(
+            final String name, final double value, final int maximumFractionDigits, final NumberFormat numberFormat) {
+        if (myByteWriter == null) {
+            addAttribute(name, numberFormat.format(value));
+            return;
+        }
+
+        try {
+            beginAttribute(name);
+            if (!myByteWriter.writeFixedPrecision(value, maximumFractionDigits)) {
+                myByteWriter.writeEscaped(numberFormat.format(value));
+            }
+            myByteWriter.write('"');
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write data.", e);
+        }
+    }
+
+    /**
+     * Adds an attribute with a timestamp value to the element.
+     *
+     * @param name The name of the attribute.
+     * @param timestampContainer The timestamp, which is written unchanged if it is unparsed.
+     */
+    protected void addAttribute(final String name, final TimestampContainer timestampContainer) {
+        if (myByteWriter == null
+                || !(timestampContainer instanceof SimpleTimestampContainer)
+                || timestampContainer.getTimestamp() == null) {
+            addAttribute(name, timestampContainer.getFormattedTimestamp(myTimestampFormat));
+            return;
+        }
+
+        try {
+            beginAttribute(name);
+            myByteWriter.writeTimestamp(timestampContainer.getTimestamp());
+            myByteWriter.write('"');
+
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to write data.", e);
+        }
+    }
+
+    /**
+     * Writes the attribute name and the opening quote of its value.
+     *
+     * @param name The name of the attribute.
+     * @throws IOException if an error occurs.
+     */
+    private void beginAttribute(final String name) throws IOException {
+        byte[] attributeStart = myAttributeStartBytes.get(name);
+
+        if (attributeStart == null) {
+            attributeStart = encode(" " + name + "=\"");
+            myAttributeStartBytes.put(name, attributeStart);
+        }
+
+        myByteWriter.writeBytes(attributeStart);
+    }
+
     /**
      * Writes the closing tag of the element.
      */
     protected void closeElement() {
         try {
+            if (myByteWriter != null) {
+                myByteWriter.writeBytes(myCloseElementBytes);
+                return;
+            }
+
             writeIndent();
 
             myWriter.append("</");
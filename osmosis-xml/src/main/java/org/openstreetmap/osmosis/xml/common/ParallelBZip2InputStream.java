@@ -0,0 +1,260 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Decompresses bzip2 data using multiple threads. Files created by parallel
+ * compression tools such as pbzip2 and lbzip2 consist of many independent
+ * bzip2 streams concatenated together. The start of each stream is located
+ * by searching for the stream and first block headers, and each stream is
+ * then decompressed on a worker thread. The decompressed data is returned in
+ * the original order.
+ * <p>
+ * A file created by the standard bzip2 tool contains a single stream which
+ * cannot be split. If no stream boundary is found within a limited amount of
+ * data the remainder of the file is decompressed on the reading thread.
+ */
+public class ParallelBZip2InputStream extends InputStream {
+    private static final Logger LOG = Logger.getLogger(ParallelBZip2InputStream.class.getName());
+
+    /**
+     * The magic bytes at the start of a stream ("BZh" followed by the block
+     * size digit) and its first block.
+     */
+    private static final int HEADER_LENGTH = 10;
+
+    private static final byte[] BLOCK_MAGIC = {0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+
+    /**
+     * The maximum amount of compressed data to buffer while searching for the
+     * next stream. This is far larger than a single stream written by a
+     * parallel compression tool.
+     */
+    private static final int MAX_STREAM_SIZE = 16 * 1024 * 1024;
+
+    private InputStream source;
+    private ExecutorService executor;
+    private int maxPendingStreams;
+    private byte[] buffer;
+    private int streamStart;
+    private int scanPosition;
+    private int bufferLimit;
+    private boolean sourceExhausted;
+    private Deque<Future<byte[]>> pendingStreams;
+    private InputStream sequentialStream;
+    private byte[] currentData;
+    private int currentPosition;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param source
+     *            The source of compressed data. This is closed when this
+     *            stream is closed.
+     * @param executor
+     *            The executor service managing the worker threads.
+     * @param maxPendingStreams
+     *            The maximum number of streams to be decompressing at any
+     *            point in time.
+     */
+    public ParallelBZip2InputStream(InputStream source, ExecutorService executor, int maxPendingStreams) {
+        this.source = source;
+        this.executor = executor;
+        this.maxPendingStreams = maxPendingStreams;
+
+        buffer = new byte[1024 * 1024];
+        streamStart = 0;
+        scanPosition = 1;
+        bufferLimit = 0;
+        sourceExhausted = false;
+        pendingStreams = new ArrayDeque<>();
+    }
+
+    private boolean isStreamHeader(int offset) {
+        byte blockSize = buffer[offset + 3];
+
+        if (buffer[offset] != 'B' || buffer[offset + 1] != 'Z' || buffer[offset + 2] != 'h') {
+            return false;
+        }
+        if (blockSize < '1' || blockSize > '9') {
+            return false;
+        }
+        for (int i = 0; i < BLOCK_MAGIC.length; i++) {
+            if (buffer[offset + 4 + i] != BLOCK_MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads more compressed data into the buffer, discarding data belonging to
+     * streams that have already been submitted.
+     */
+    private void fillBuffer() throws IOException {
+        int count;
+
+        if (streamStart > 0) {
+            System.arraycopy(buffer, streamStart, buffer, 0, bufferLimit - streamStart);
+            bufferLimit -= streamStart;
+            scanPosition -= streamStart;
+            streamStart = 0;
+        }
+        if (bufferLimit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        count = source.read(buffer, bufferLimit, buffer.length - bufferLimit);
+        if (count < 0) {
+            sourceExhausted = true;
+        } else {
+            bufferLimit += count;
+        }
+    }
+
+    private void submitStream(int streamEnd) {
+        final byte[] compressedData = Arrays.copyOfRange(buffer, streamStart, streamEnd);
+
+        pendingStreams.add(executor.submit(() -> {
+            try (InputStream decompressor =
+                    new BZip2CompressorInputStream(new ByteArrayInputStream(compressedData), true)) {
+                return decompressor.readAllBytes();
+            }
+        }));
+
+        streamStart = streamEnd;
+        scanPosition = streamEnd + 1;
+    }
+
+    /**
+     * Locates the next stream in the compressed data and submits it for
+     * decompression.
+     *
+     * @return True if a stream was submitted, false if no streams remain or
+     *         the remaining data must be decompressed sequentially.
+     */
+    private boolean submitNextStream() throws IOException {
+        if (sequentialStream != null) {
+            return false;
+        }
+
+        while (true) {
+            for (; scanPosition + HEADER_LENGTH <= bufferLimit; scanPosition++) {
+                if (isStreamHeader(scanPosition)) {
+                    submitStream(scanPosition);
+                    return true;
+                }
+            }
+
+            if (sourceExhausted) {
+                if (streamStart == bufferLimit) {
+                    return false;
+                }
+                submitStream(bufferLimit);
+                return true;
+            }
+
+            if (bufferLimit - streamStart >= MAX_STREAM_SIZE) {
+                LOG.fine("No bzip2 stream boundary found, decompressing the remaining data sequentially.");
+                sequentialStream = new BZip2CompressorInputStream(
+                        new SequenceInputStream(
+                                new ByteArrayInputStream(
+                                        Arrays.copyOfRange(buffer, streamStart, bufferLimit)),
+                                source),
+                        true);
+                buffer = null;
+                return false;
+            }
+
+            fillBuffer();
+        }
+    }
+
+    private byte[] getResult(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to decompress bzip2 stream.", e.getCause());
+        }
+    }
+
+    /**
+     * Ensures that decompressed data is available.
+     *
+     * @return False if the end of the data has been reached, or if only the
+     *         sequential stream remains.
+     */
+    private boolean ensureData() throws IOException {
+        while (currentData == null || currentPosition >= currentData.length) {
+            while (pendingStreams.size() < maxPendingStreams && submitNextStream()) {
+                // Keep submitting streams until the pending limit is reached.
+            }
+
+            if (pendingStreams.isEmpty()) {
+                return false;
+            }
+
+            currentData = getResult(pendingStreams.remove());
+            currentPosition = 0;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return sequentialStream != null ? sequentialStream.read() : -1;
+        }
+
+        return currentData[currentPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count;
+
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return sequentialStream != null ? sequentialStream.read(b, off, len) : -1;
+        }
+
+        count = Math.min(len, currentData.length - currentPosition);
+        System.arraycopy(currentData, currentPosition, b, off, count);
+        currentPosition += count;
+
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pendingStreams) {
+            future.cancel(true);
+        }
+        pendingStreams.clear();
+
+        if (sequentialStream != null) {
+            sequentialStream.close();
+        } else {
+            source.close();
+        }
+    }
+}
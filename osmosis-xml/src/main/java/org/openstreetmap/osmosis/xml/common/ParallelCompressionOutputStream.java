@@ -0,0 +1,234 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Compresses data using multiple threads in the style of pigz and pbzip2. The
+ * data is split into fixed size blocks and each block is compressed on a
+ * worker thread as an independent gzip member or bzip2 stream. The compressed
+ * blocks are written in the original order, producing a standard multi-member
+ * gzip or multi-stream bzip2 file readable by any decompressor.
+ * <p>
+ * Memory use is bounded by limiting the number of blocks being compressed at
+ * any point in time to twice the number of workers.
+ */
+public class ParallelCompressionOutputStream extends OutputStream {
+
+    /**
+     * The default block size for gzip. Each member starts with an empty
+     * dictionary so blocks must be large enough for this to be insignificant.
+     */
+    private static final int DEFAULT_GZIP_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * The default block size for bzip2, matching the largest bzip2 block size
+     * so that each stream contains a single block.
+     */
+    private static final int DEFAULT_BZIP2_BLOCK_SIZE = 900 * 1000;
+
+    private OutputStream destination;
+    private CompressionMethod compressionMethod;
+    private ExecutorService executor;
+    private int maxPendingBlocks;
+    private byte[] buffer;
+    private int bufferPosition;
+    private boolean blockWritten;
+    private Deque<Future<byte[]>> pendingBlocks;
+
+    /**
+     * Creates a new instance using the default block size for the compression
+     * method.
+     *
+     * @param destination
+     *            The destination stream for receiving compressed data. This is
+     *            closed when this stream is closed.
+     * @param compressionMethod
+     *            The compression method to employ, either gzip or bzip2.
+     * @param workers
+     *            The number of worker threads to compress blocks with.
+     */
+    public ParallelCompressionOutputStream(OutputStream destination, CompressionMethod compressionMethod,
+            int workers) {
+        this(destination, compressionMethod, workers,
+                CompressionMethod.BZip2.equals(compressionMethod)
+                        ? DEFAULT_BZIP2_BLOCK_SIZE : DEFAULT_GZIP_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param destination
+     *            The destination stream for receiving compressed data. This is
+     *            closed when this stream is closed.
+     * @param compressionMethod
+     *            The compression method to employ, either gzip or bzip2.
+     * @param workers
+     *            The number of worker threads to compress blocks with.
+     * @param blockSize
+     *            The number of uncompressed bytes in each block.
+     */
+    public ParallelCompressionOutputStream(OutputStream destination, CompressionMethod compressionMethod,
+            int workers, int blockSize) {
+        if (!CompressionMethod.GZip.equals(compressionMethod) && !CompressionMethod.BZip2.equals(compressionMethod)) {
+            throw new OsmosisRuntimeException(
+                    "Compression method " + compressionMethod + " doesn't support parallel compression.");
+        }
+        if (workers < 1) {
+            throw new OsmosisRuntimeException("At least one compression worker is required.");
+        }
+
+        this.destination = destination;
+        this.compressionMethod = compressionMethod;
+
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "Thread-compression");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        maxPendingBlocks = workers * 2;
+        buffer = new byte[blockSize];
+        bufferPosition = 0;
+        blockWritten = false;
+        pendingBlocks = new ArrayDeque<>();
+    }
+
+    private static byte[] compress(CompressionMethod compressionMethod, byte[] data, int length)
+            throws IOException {
+        ByteArrayOutputStream compressedData = new ByteArrayOutputStream(length / 4 + 64);
+        OutputStream compressor;
+
+        if (CompressionMethod.GZip.equals(compressionMethod)) {
+            compressor = new GZIPOutputStream(compressedData);
+        } else {
+            compressor = new BZip2CompressorOutputStream(compressedData);
+        }
+
+        try (OutputStream localCompressor = compressor) {
+            localCompressor.write(data, 0, length);
+        }
+
+        return compressedData.toByteArray();
+    }
+
+    private void writeResult(Future<byte[]> future) throws IOException {
+        byte[] compressedData;
+
+        try {
+            compressedData = future.get();
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to compress " + compressionMethod + " block.", e.getCause());
+        }
+
+        destination.write(compressedData);
+    }
+
+    /**
+     * Submits the buffered data for compression, first writing the oldest
+     * compressed block if the pending limit has been reached.
+     */
+    private void submitBlock() throws IOException {
+        final byte[] data = buffer;
+        final int length = bufferPosition;
+        final CompressionMethod localCompressionMethod = compressionMethod;
+
+        while (pendingBlocks.size() >= maxPendingBlocks) {
+            writeResult(pendingBlocks.remove());
+        }
+
+        pendingBlocks.add(executor.submit(() -> compress(localCompressionMethod, data, length)));
+        blockWritten = true;
+
+        buffer = new byte[data.length];
+        bufferPosition = 0;
+    }
+
+    /**
+     * Compresses any buffered data and writes all pending blocks to the
+     * destination.
+     */
+    private void drain() throws IOException {
+        if (bufferPosition > 0) {
+            submitBlock();
+        }
+
+        while (!pendingBlocks.isEmpty()) {
+            writeResult(pendingBlocks.remove());
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (bufferPosition == buffer.length) {
+            submitBlock();
+        }
+
+        buffer[bufferPosition++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int count;
+
+            if (bufferPosition == buffer.length) {
+                submitBlock();
+            }
+
+            count = Math.min(len, buffer.length - bufferPosition);
+            System.arraycopy(b, off, buffer, bufferPosition, count);
+            bufferPosition += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Compresses all data written so far and writes it to the destination.
+     * Each flush ends the current block, so frequent flushing reduces the
+     * compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        destination.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            try {
+                // An empty file isn't valid, it must contain at least one
+                // member.
+                if (!blockWritten) {
+                    submitBlock();
+                }
+                drain();
+            } finally {
+                for (Future<byte[]> future : pendingBlocks) {
+                    future.cancel(true);
+                }
+                pendingBlocks.clear();
+
+                destination.close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,449 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import org.openstreetmap.osmosis.core.time.DateFormatter;
+
+/**
+ * A writer encoding xml directly into a reusable UTF-8 byte buffer. In addition to the standard
+ * writer methods it allows element writers to output pre-encoded markup, escaped attribute values,
+ * numbers and timestamps without creating intermediate strings.
+ * <p>
+ * The output is identical to that of a {@link java.io.OutputStreamWriter} using the UTF-8 charset,
+ * including the replacement of unpaired surrogate characters with '?'.
+ */
+public class Utf8XmlWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * The largest UTF-8 encoding of a single character, or the longest escape sequence.
+     */
+    private static final int MAX_CHAR_BYTES = 8;
+
+    /**
+     * The longest formatted number or timestamp.
+     */
+    private static final int MAX_NUMBER_BYTES = 32;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * Timestamps up to the end of year 9999 can be formatted without a calendar.
+     */
+    private static final long MAX_FAST_TIMESTAMP = 253402300800000L;
+
+    /**
+     * The encoded replacements of each ASCII character requiring escaping in attribute values, or
+     * null if the character is written unchanged.
+     */
+    private static final byte[][] ASCII_ESCAPES;
+
+    static {
+        ASCII_ESCAPES = new byte[128][];
+        for (int i = 0; i < ASCII_ESCAPES.length; i++) {
+            String replacement = ElementWriter.XML_ENCODING.get(Character.valueOf((char) i));
+
+            if (replacement != null) {
+                ASCII_ESCAPES[i] = replacement.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private OutputStream out;
+    private byte[] buffer;
+    private int count;
+    private char highSurrogate;
+    private long timestampDay;
+    private byte[] timestampDayBytes;
+    private DateFormatter dateFormatter;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param out
+     *            The stream to receive the encoded data.
+     */
+    public Utf8XmlWriter(OutputStream out) {
+        this.out = out;
+
+        buffer = new byte[BUFFER_SIZE];
+        timestampDay = -1;
+        timestampDayBytes = new byte[11];
+    }
+
+    /**
+     * Passes the contents of the buffer to the output stream.
+     *
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Ensures the buffer has space for the specified number of bytes.
+     *
+     * @param length
+     *            The number of bytes.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if (count + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Replaces a high surrogate that hasn't been followed by a low surrogate.
+     */
+    private void endCharacters() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            ensureCapacity(1);
+            buffer[count++] = '?';
+        }
+    }
+
+    /**
+     * Encodes a single character. The buffer must have space for a four byte sequence.
+     *
+     * @param c
+     *            The character.
+     */
+    private void encodeCharacter(char c) {
+        if (highSurrogate != 0) {
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+
+                highSurrogate = 0;
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+
+                return;
+            }
+
+            highSurrogate = 0;
+            buffer[count++] = '?';
+        }
+
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = '?';
+        } else {
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Writes pre-encoded data.
+     *
+     * @param data
+     *            The UTF-8 bytes to write.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    public void writeBytes(byte[] data) throws IOException {
+        endCharacters();
+
+        if (data.length > buffer.length) {
+            flushBuffer();
+            out.write(data);
+        } else {
+            ensureCapacity(data.length);
+            System.arraycopy(data, 0, buffer, count, data.length);
+            count += data.length;
+        }
+    }
+
+    /**
+     * Writes a string with the characters that aren't permitted within xml attribute values
+     * escaped. Control characters not permitted in xml are removed.
+     *
+     * @param data
+     *            The string to write.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    public void writeEscaped(String data) throws IOException {
+        int length = data.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+
+            ensureCapacity(MAX_CHAR_BYTES);
+
+            if (c < 0x80) {
+                byte[] replacement = ASCII_ESCAPES[c];
+
+                if (replacement == null) {
+                    endCharacters();
+                    buffer[count++] = (byte) c;
+                } else if (replacement.length > 0) {
+                    endCharacters();
+                    System.arraycopy(replacement, 0, buffer, count, replacement.length);
+                    count += replacement.length;
+                }
+                // Removed characters don't separate a surrogate pair.
+            } else {
+                encodeCharacter(c);
+            }
+        }
+    }
+
+    /**
+     * Writes the positive digits of a number into the buffer.
+     */
+    private void writeDigits(long value, int minimumDigits) {
+        int start = count;
+        long remaining = value;
+
+        do {
+            buffer[count++] = (byte) ('0' + (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0 || count - start < minimumDigits);
+
+        // The digits were written least significant first.
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    /**
+     * Writes a number in the same form as {@link Long#toString(long)}.
+     *
+     * @param value
+     *            The number to write.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    public void writeLong(long value) throws IOException {
+        endCharacters();
+        ensureCapacity(MAX_NUMBER_BYTES);
+
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value));
+                return;
+            }
+            buffer[count++] = '-';
+            writeDigits(-value, 1);
+        } else {
+            writeDigits(value, 1);
+        }
+    }
+
+    /**
+     * Writes a decimal number rounded to a fixed number of decimal places with trailing zeros
+     * removed, in the same form as a {@link java.text.DecimalFormat} pattern such as "0.#######".
+     * Only values that are unambiguously close to a representable result are written, which
+     * includes all values originating from fixed precision coordinates.
+     *
+     * @param value
+     *            The number to write.
+     * @param maximumFractionDigits
+     *            The number of decimal places to round to, at most 9.
+     * @return True if the value was written, false if the caller must format it instead.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    public boolean writeFixedPrecision(double value, int maximumFractionDigits) throws IOException {
+        long scale = POWERS_OF_TEN[maximumFractionDigits];
+        double scaled;
+        long unscaled;
+        long fraction;
+        int fractionDigits;
+
+        if (!(Math.abs(value) < 1e9)) {
+            return false;
+        }
+
+        scaled = value * scale;
+        unscaled = Math.round(scaled);
+
+        // A value near a rounding boundary may round differently from the
+        // decimal formatting, and a negative value rounding to zero is written
+        // as "-0".
+        if (Math.abs(scaled - unscaled) > 0.001 || (unscaled == 0 && (value < 0 || 1 / value < 0))) {
+            return false;
+        }
+
+        endCharacters();
+        ensureCapacity(MAX_NUMBER_BYTES);
+
+        if (unscaled < 0) {
+            buffer[count++] = '-';
+            unscaled = -unscaled;
+        }
+        writeDigits(unscaled / scale, 1);
+
+        fraction = unscaled % scale;
+        if (fraction != 0) {
+            fractionDigits = maximumFractionDigits;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                fractionDigits--;
+            }
+
+            buffer[count++] = '.';
+            writeDigits(fraction, fractionDigits);
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes a timestamp in the same form as {@link DateFormatter}.
+     *
+     * @param timestamp
+     *            The timestamp to write.
+     * @throws IOException
+     *             if the stream can't be written.
+     */
+    public void writeTimestamp(Date timestamp) throws IOException {
+        long millis = timestamp.getTime();
+        long day;
+        int secondOfDay;
+
+        if (millis < 0 || millis >= MAX_FAST_TIMESTAMP) {
+            // The calendar handles the Julian calendar and years without four
+            // digits.
+            if (dateFormatter == null) {
+                dateFormatter = new DateFormatter();
+            }
+            write(dateFormatter.format(timestamp));
+            return;
+        }
+
+        endCharacters();
+        ensureCapacity(MAX_NUMBER_BYTES);
+
+        day = millis / MILLIS_PER_DAY;
+        if (day != timestampDay) {
+            encodeDay(day);
+        }
+        System.arraycopy(timestampDayBytes, 0, buffer, count, timestampDayBytes.length);
+        count += timestampDayBytes.length;
+
+        secondOfDay = (int) ((millis % MILLIS_PER_DAY) / 1000);
+        writeDigits(secondOfDay / 3600, 2);
+        buffer[count++] = ':';
+        writeDigits((secondOfDay / 60) % 60, 2);
+        buffer[count++] = ':';
+        writeDigits(secondOfDay % 60, 2);
+        buffer[count++] = 'Z';
+    }
+
+    /**
+     * Encodes the date portion of a timestamp for a day since the epoch.
+     */
+    private void encodeDay(long day) {
+        // Convert days since 1970-01-01 to a Gregorian date using years
+        // beginning on the 1st of March so that leap days fall at year end.
+        long shiftedDay = day + 719468;
+        long era = shiftedDay / 146097;
+        long dayOfEra = shiftedDay - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long dayOfMonth = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        byte[] dayBytes = timestampDayBytes;
+
+        dayBytes[0] = (byte) ('0' + year / 1000);
+        dayBytes[1] = (byte) ('0' + (year / 100) % 10);
+        dayBytes[2] = (byte) ('0' + (year / 10) % 10);
+        dayBytes[3] = (byte) ('0' + year % 10);
+        dayBytes[4] = '-';
+        dayBytes[5] = (byte) ('0' + month / 10);
+        dayBytes[6] = (byte) ('0' + month % 10);
+        dayBytes[7] = '-';
+        dayBytes[8] = (byte) ('0' + dayOfMonth / 10);
+        dayBytes[9] = (byte) ('0' + dayOfMonth % 10);
+        dayBytes[10] = 'T';
+
+        timestampDay = day;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureCapacity(MAX_CHAR_BYTES);
+        encodeCharacter((char) c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            ensureCapacity(MAX_CHAR_BYTES);
+            encodeCharacter(cbuf[i]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            ensureCapacity(MAX_CHAR_BYTES);
+            encodeCharacter(str.charAt(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                endCharacters();
+                flushBuffer();
+            } finally {
+                out.close();
+                out = null;
+            }
+        }
+    }
+}
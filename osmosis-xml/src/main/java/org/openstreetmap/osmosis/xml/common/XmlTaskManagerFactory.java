@@ -14,6 +14,8 @@ public abstract class XmlTaskManagerFactory extends TaskManagerFactory {
     private static final String ARG_COMPRESSION_METHOD = "compressionMethod";
     private static final String ARG_ENCODING_HACK = "encodingHack";
     private static final boolean DEFAULT_ENCODING_HACK = false;
+    private static final String ARG_COMPRESSION_WORKERS = "compressionWorkers";
+    private static final int DEFAULT_COMPRESSION_WORKERS = 0;
 
     /**
      * Utility method for retrieving a CompressionMethod argument value from a
@@ -48,6 +50,27 @@ public abstract class XmlTaskManagerFactory extends TaskManagerFactory {
         return result;
     }
 
+    /**
+     * Utility method for retrieving the number of worker threads used to
+     * compress output files.
+     *
+     * @param taskConfig
+     *            Contains all information required to instantiate and configure
+     *            the task.
+     * @return The value of the argument.
+     */
+    protected int getCompressionWorkersArgument(TaskConfiguration taskConfig) {
+        int compressionWorkers;
+
+        compressionWorkers = getIntegerArgument(taskConfig, ARG_COMPRESSION_WORKERS, DEFAULT_COMPRESSION_WORKERS);
+        if (compressionWorkers < 0) {
+            throw new OsmosisRuntimeException("Argument " + ARG_COMPRESSION_WORKERS + " for task "
+                    + taskConfig.getId() + " must not be negative.");
+        }
+
+        return compressionWorkers;
+    }
+
     /**
      * Utility method for retrieving the argument specifying whether to enable
      * the production file encoding hack to work around a bug in the current
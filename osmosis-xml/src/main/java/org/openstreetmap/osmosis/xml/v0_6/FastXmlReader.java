@@ -4,27 +4,50 @@ package org.openstreetmap.osmosis.xml.v0_6;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassController;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.xml.common.CompressionMethod;
+import org.openstreetmap.osmosis.xml.common.ParallelBZip2InputStream;
 import org.openstreetmap.osmosis.xml.v0_6.impl.BaseXMLReader;
 import org.openstreetmap.osmosis.xml.v0_6.impl.FastXmlParser;
+import org.openstreetmap.osmosis.xml.v0_6.impl.XmlBlockDecoder;
+import org.openstreetmap.osmosis.xml.v0_6.impl.XmlBlockSplitter;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * An OSM data source reading from an xml file. The entire contents of the file
  * are read.
+ * <p>
+ * If worker threads are enabled, the document is split into blocks of complete
+ * entities which are parsed concurrently, and bzip2 files consisting of
+ * multiple streams are decompressed concurrently. Entities are passed to the
+ * sink in their original order.
  *
  * @author Jiri Clement
  * @author Brett Henderson
  */
 public class FastXmlReader extends BaseXMLReader implements RunnableSource {
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
     private Sink sink;
+    private int workers;
+    private ExecutorService executorService;
 
     /**
      * Creates a new instance.
@@ -38,7 +61,27 @@ public class FastXmlReader extends BaseXMLReader implements RunnableSource {
      *            Specifies the compression method to employ.
      */
     public FastXmlReader(File file, boolean enableDateParsing, CompressionMethod compressionMethod) {
+        this(file, enableDateParsing, compressionMethod, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            The file to read.
+     * @param enableDateParsing
+     *            If true, dates will be parsed from xml data, else the current
+     *            date will be used thus saving parsing time.
+     * @param compressionMethod
+     *            Specifies the compression method to employ.
+     * @param workers
+     *            The number of worker threads for decompressing and parsing
+     *            the file. If 0, all processing occurs on the calling thread.
+     */
+    public FastXmlReader(File file, boolean enableDateParsing, CompressionMethod compressionMethod, int workers) {
         super(file, enableDateParsing, compressionMethod);
+
+        this.workers = workers;
     }
 
     /**
@@ -52,17 +95,94 @@ public class FastXmlReader extends BaseXMLReader implements RunnableSource {
      * Reads all data from the file and send it to the sink.
      */
     public void run() {
+        MultiPassController passController = null;
+        Map<String, Object> metaData = Collections.emptyMap();
+
+        if (workers > 0) {
+            executorService = Executors.newFixedThreadPool(workers);
+        }
+
         try {
-            this.sink.initialize(Collections.emptyMap());
-            this.handleXML(null);
+            // Local files may be read again if the sink requests it.
+            if (isRereadable()) {
+                passController = new MultiPassController(this.sink);
+                metaData = passController.addToMetaData(metaData);
+            }
+
+            this.sink.initialize(metaData);
+            do {
+                this.handleXML(null);
+            } while (passController != null && passController.completePass());
             this.sink.complete();
         } finally {
             this.sink.close();
+
+            if (executorService != null) {
+                executorService.shutdownNow();
+                executorService = null;
+            }
+        }
+    }
+
+    @Override
+    protected InputStream createCompressionInputStream(InputStream stream) {
+        if (executorService != null && CompressionMethod.BZip2.equals(getCompressionMethod())) {
+            return new ParallelBZip2InputStream(stream, executorService, workers * 2);
+        }
+
+        return super.createCompressionInputStream(stream);
+    }
+
+    private void sendResultsToSink(Future<List<EntityContainer>> blockResult) {
+        List<EntityContainer> entities;
+
+        try {
+            entities = blockResult.get();
+        } catch (InterruptedException e) {
+            throw new OsmosisRuntimeException("Thread was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new OsmosisRuntimeException("An xml parsing worker thread failed, aborting.", e.getCause());
+        }
+
+        for (EntityContainer entity : entities) {
+            this.sink.process(entity);
+        }
+    }
+
+    private void parseXmlBlocks(InputStream stream) {
+        XmlBlockSplitter splitter = new XmlBlockSplitter(stream, BLOCK_SIZE);
+        Deque<Future<List<EntityContainer>>> blockResults = new ArrayDeque<>();
+        byte[] block;
+
+        // The calling thread splits the document into blocks and sends the
+        // results to the sink in the original order. We allow each worker to
+        // have an extra block queued so that it doesn't go idle.
+        try {
+            while ((block = splitter.nextBlock()) != null) {
+                blockResults.add(executorService.submit(new XmlBlockDecoder(block, this.isEnableDateParsing())));
+
+                if (blockResults.size() >= workers * 2) {
+                    sendResultsToSink(blockResults.remove());
+                }
+            }
+
+            while (!blockResults.isEmpty()) {
+                sendResultsToSink(blockResults.remove());
+            }
+        } finally {
+            for (Future<List<EntityContainer>> blockResult : blockResults) {
+                blockResult.cancel(true);
+            }
         }
     }
 
     @Override
     protected void parseXML(InputStream stream, DefaultHandler handler) throws SAXException, IOException {
+        if (executorService != null) {
+            parseXmlBlocks(stream);
+            return;
+        }
+
         try {
             final XMLInputFactory factory = XMLInputFactory.newInstance();
             factory.setProperty(XMLInputFactory.IS_COALESCING, false);
@@ -3,6 +3,7 @@ package org.openstreetmap.osmosis.xml.v0_6;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.Writer;
 import org.openstreetmap.osmosis.core.container.v0_6.ChangeContainer;
 import org.openstreetmap.osmosis.core.task.v0_6.ChangeSink;
 import org.openstreetmap.osmosis.xml.common.BaseXmlWriter;
@@ -44,6 +45,23 @@ public class XmlChangeWriter extends BaseXmlWriter implements ChangeSink {
         osmChangeWriter = new OsmChangeWriter("osmChange", 0);
     }
 
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            The file to write.
+     * @param compressionMethod
+     *            Specifies the compression method to employ.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress the file. If 0,
+     *            the file is compressed on the writing thread.
+     */
+    public XmlChangeWriter(File file, CompressionMethod compressionMethod, int compressionWorkers) {
+        super(file, compressionMethod, compressionWorkers);
+
+        osmChangeWriter = new OsmChangeWriter("osmChange", 0);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -73,7 +91,7 @@ public class XmlChangeWriter extends BaseXmlWriter implements ChangeSink {
      * {@inheritDoc}
      */
     @Override
-    protected void setWriterOnElementWriter(BufferedWriter writer) {
+    protected void setWriterOnElementWriter(Writer writer) {
         osmChangeWriter.setWriter(writer);
     }
 }
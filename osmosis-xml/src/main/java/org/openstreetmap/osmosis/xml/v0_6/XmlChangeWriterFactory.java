@@ -25,18 +25,20 @@ public class XmlChangeWriterFactory extends XmlTaskManagerFactory {
         String fileName;
         File file;
         CompressionMethod compressionMethod;
+        int compressionWorkers;
         XmlChangeWriter task;
 
         // Get the task arguments.
         fileName =
                 getStringArgument(taskConfig, ARG_FILE_NAME, getDefaultStringArgument(taskConfig, DEFAULT_FILE_NAME));
         compressionMethod = getCompressionMethodArgument(taskConfig, fileName);
+        compressionWorkers = getCompressionWorkersArgument(taskConfig);
 
         // Create a file object from the file name provided.
         file = new File(fileName);
 
         // Build the task object.
-        task = new XmlChangeWriter(file, compressionMethod);
+        task = new XmlChangeWriter(file, compressionMethod, compressionWorkers);
 
         return new ChangeSinkManager(taskConfig.getId(), task, taskConfig.getPipeArgs());
     }
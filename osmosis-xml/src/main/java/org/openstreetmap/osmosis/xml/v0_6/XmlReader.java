@@ -3,6 +3,8 @@ package org.openstreetmap.osmosis.xml.v0_6;
 
 import java.io.File;
 import java.util.Collections;
+import java.util.Map;
+import org.openstreetmap.osmosis.core.task.v0_6.MultiPassController;
 import org.openstreetmap.osmosis.core.task.v0_6.RunnableSource;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.xml.common.CompressionMethod;
@@ -44,9 +46,20 @@ public class XmlReader extends BaseXMLReader implements RunnableSource {
      * Reads all data from the file and send it to the sink.
      */
     public void run() {
+        MultiPassController passController = null;
+        Map<String, Object> metaData = Collections.emptyMap();
+
         try {
-            this.sink.initialize(Collections.emptyMap());
-            this.handleXML(new OsmHandler(this.sink, this.isEnableDateParsing()));
+            // Local files may be read again if the sink requests it.
+            if (isRereadable()) {
+                passController = new MultiPassController(this.sink);
+                metaData = passController.addToMetaData(metaData);
+            }
+
+            this.sink.initialize(metaData);
+            do {
+                this.handleXML(new OsmHandler(this.sink, this.isEnableDateParsing()));
+            } while (passController != null && passController.completePass());
             this.sink.complete();
         } finally {
             this.sink.close();
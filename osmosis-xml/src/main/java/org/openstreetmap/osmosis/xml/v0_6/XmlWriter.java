@@ -3,6 +3,7 @@ package org.openstreetmap.osmosis.xml.v0_6;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.Writer;
 import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
 import org.openstreetmap.osmosis.xml.common.BaseXmlWriter;
@@ -61,6 +62,26 @@ public class XmlWriter extends BaseXmlWriter implements Sink {
         osmWriter = new OsmWriter("osm", 0, true, legacyBound);
     }
 
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            The file to write.
+     * @param compressionMethod
+     *            Specifies the compression method to employ.
+     * @param legacyBound
+     *            If true, write the legacy {@literal <bound>} element
+     *            instead of the correct {@literal <bounds>} one.
+     * @param compressionWorkers
+     *            The number of worker threads used to compress the file. If 0,
+     *            the file is compressed on the writing thread.
+     */
+    public XmlWriter(File file, CompressionMethod compressionMethod, boolean legacyBound, int compressionWorkers) {
+        super(file, compressionMethod, compressionWorkers);
+
+        osmWriter = new OsmWriter("osm", 0, true, legacyBound);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -90,7 +111,7 @@ public class XmlWriter extends BaseXmlWriter implements Sink {
      * {@inheritDoc}
      */
     @Override
-    protected void setWriterOnElementWriter(BufferedWriter writer) {
+    protected void setWriterOnElementWriter(Writer writer) {
         osmWriter.setWriter(writer);
     }
 }
@@ -49,6 +49,35 @@ public abstract class BaseXMLReader {
         return this.enableDateParsing;
     }
 
+    /**
+     * Returns the compression method of the file.
+     *
+     * @return The compression method
+     */
+    public CompressionMethod getCompressionMethod() {
+        return this.method;
+    }
+
+    /**
+     * Indicates whether the file can be read more than once. Only regular
+     * files qualify, stdin and other streams can only be read once.
+     *
+     * @return true if the file can be read again
+     */
+    protected boolean isRereadable() {
+        return !this.file.getName().equals("-") && this.file.isFile();
+    }
+
+    /**
+     * Wraps the raw file stream with a stream decompressing its contents.
+     *
+     * @param stream InputStream for the raw file
+     * @return An InputStream providing the uncompressed XML
+     */
+    protected InputStream createCompressionInputStream(final InputStream stream) {
+        return new CompressionActivator(this.method).createCompressionInputStream(stream);
+    }
+
     /**
      * Function to parse xml, this default function just uses the SAXParser.
      *
@@ -69,8 +98,7 @@ public abstract class BaseXMLReader {
      */
     protected void handleXML(final DefaultHandler handler) {
         try (InputStream stream = this.getInputStream()) {
-            try (InputStream compressionStream =
-                    new CompressionActivator(this.method).createCompressionInputStream(stream)) {
+            try (InputStream compressionStream = this.createCompressionInputStream(stream)) {
                 this.parseXML(compressionStream, handler);
             }
         } catch (final SAXParseException e) {
@@ -32,18 +32,18 @@ public class EntityWriter extends ElementWriter {
      *            The entity being written.
      */
     protected void addCommonAttributes(Entity entity) {
-        addAttribute("id", Long.toString(entity.getId()));
-        addAttribute("version", Integer.toString(entity.getVersion()));
-        addAttribute("timestamp", entity.getFormattedTimestamp(getTimestampFormat()));
+        addAttribute("id", entity.getId());
+        addAttribute("version", entity.getVersion());
+        addAttribute("timestamp", entity.getTimestampContainer());
 
         OsmUser user = entity.getUser();
         if (!user.equals(OsmUser.NONE)) {
-            addAttribute("uid", Integer.toString(user.getId()));
+            addAttribute("uid", user.getId());
             addAttribute("user", user.getName());
         }
 
         if (entity.getChangesetId() != 0) {
-            addAttribute("changeset", Long.toString(entity.getChangesetId()));
+            addAttribute("changeset", entity.getChangesetId());
         }
     }
 
@@ -26,6 +26,7 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.core.domain.v0_6.Way;
 import org.openstreetmap.osmosis.core.domain.v0_6.WayNode;
 import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 import org.openstreetmap.osmosis.xml.common.XmlTimestampFormat;
 
 /**
@@ -142,7 +143,7 @@ public class FastXmlParser {
             if (rawUserName == null) {
                 userName = "";
             } else {
-                userName = rawUserName;
+                userName = StringDictionary.intern(rawUserName);
             }
 
             return new OsmUser(userId, userName);
@@ -240,8 +241,8 @@ public class FastXmlParser {
 
     private Tag readTag() throws Exception {
         Tag tag = new Tag(
-                reader.getAttributeValue(null, ATTRIBUTE_NAME_KEY),
-                reader.getAttributeValue(null, ATTRIBUTE_NAME_VALUE));
+                StringDictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_KEY)),
+                StringDictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_VALUE)));
         reader.nextTag();
         reader.nextTag();
         return tag;
@@ -327,7 +328,7 @@ public class FastXmlParser {
 
         id = Long.parseLong(reader.getAttributeValue(null, ATTRIBUTE_NAME_REF));
         type = memberTypeParser.parse(reader.getAttributeValue(null, ATTRIBUTE_NAME_TYPE));
-        role = reader.getAttributeValue(null, ATTRIBUTE_NAME_ROLE);
+        role = StringDictionary.intern(reader.getAttributeValue(null, ATTRIBUTE_NAME_ROLE));
 
         RelationMember relationMember = new RelationMember(id, type, role);
 
@@ -376,8 +377,14 @@ public class FastXmlParser {
         try {
 
             String generator = null;
+            int event;
 
-            if (reader.nextTag() == XMLStreamConstants.START_ELEMENT
+            // Skip the prolog, which may include a document type declaration.
+            do {
+                event = reader.next();
+            } while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_DOCUMENT);
+
+            if (event == XMLStreamConstants.START_ELEMENT
                     && reader.getLocalName().equals("osm")) {
 
                 String fileVersion;
@@ -16,6 +16,11 @@ import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
  * @author Brett Henderson
  */
 public class NodeWriter extends EntityWriter {
+    /**
+     * The number of decimal places written for coordinates.
+     */
+    private static final int COORDINATE_FRACTION_DIGITS = 7;
+
     /**
      * Write the tags of a node.
      */
@@ -54,11 +59,11 @@ public class NodeWriter extends EntityWriter {
         addCommonAttributes(node);
 
         if (!Double.isNaN(node.getLatitude())) {
-            addAttribute("lat", numberFormat.format(node.getLatitude()));
+            addAttribute("lat", node.getLatitude(), COORDINATE_FRACTION_DIGITS, numberFormat);
         }
 
         if (!Double.isNaN(node.getLongitude())) {
-            addAttribute("lon", numberFormat.format(node.getLongitude()));
+            addAttribute("lon", node.getLongitude(), COORDINATE_FRACTION_DIGITS, numberFormat);
         }
 
         addMetatags(node);
@@ -36,7 +36,7 @@ public class RelationMemberWriter extends ElementWriter {
     public void processRelationMember(RelationMember relationMember) {
         beginOpenElement();
         addAttribute("type", memberTypeRenderer.render(relationMember.getMemberType()));
-        addAttribute("ref", Long.toString(relationMember.getMemberId()));
+        addAttribute("ref", relationMember.getMemberId());
         addAttribute("role", relationMember.getMemberRole());
         endOpenElement(true);
     }
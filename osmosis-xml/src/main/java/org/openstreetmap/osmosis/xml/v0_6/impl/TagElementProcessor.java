@@ -2,6 +2,7 @@
 package org.openstreetmap.osmosis.xml.v0_6.impl;
 
 import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
+import org.openstreetmap.osmosis.core.util.StringDictionary;
 import org.openstreetmap.osmosis.xml.common.BaseElementProcessor;
 import org.xml.sax.Attributes;
 
@@ -38,8 +39,8 @@ public class TagElementProcessor extends BaseElementProcessor {
         String key;
         String value;
 
-        key = attributes.getValue(ATTRIBUTE_NAME_KEY);
-        value = attributes.getValue(ATTRIBUTE_NAME_VALUE);
+        key = StringDictionary.intern(attributes.getValue(ATTRIBUTE_NAME_KEY));
+        value = StringDictionary.intern(attributes.getValue(ATTRIBUTE_NAME_VALUE));
 
         tag = new Tag(key, value);
     }
@@ -31,7 +31,7 @@ public class WayNodeWriter extends ElementWriter {
      */
     public void processWayNode(WayNode wayNode) {
         beginOpenElement();
-        addAttribute("ref", Long.toString(wayNode.getNodeId()));
+        addAttribute("ref", wayNode.getNodeId());
         endOpenElement(true);
     }
 }
@@ -0,0 +1,83 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6.impl;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.task.v0_6.Sink;
+
+/**
+ * Parses a single block of an xml document produced by {@link XmlBlockSplitter}
+ * and returns the decoded entities. This class is designed to be passed into a
+ * pool of worker threads to allow multi-threaded parsing.
+ */
+public class XmlBlockDecoder implements Callable<List<EntityContainer>> {
+    private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        return factory;
+    });
+
+    private byte[] block;
+    private boolean enableDateParsing;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param block
+     *            The xml document block to be parsed.
+     * @param enableDateParsing
+     *            If true, parsing of dates in the xml will be enabled,
+     *            otherwise the current system time will be used.
+     */
+    public XmlBlockDecoder(byte[] block, boolean enableDateParsing) {
+        this.block = block;
+        this.enableDateParsing = enableDateParsing;
+    }
+
+    @Override
+    public List<EntityContainer> call() {
+        final List<EntityContainer> entities = new ArrayList<>();
+        Sink collector = new Sink() {
+            @Override
+            public void initialize(Map<String, Object> metaData) {
+                // Do nothing.
+            }
+
+            @Override
+            public void process(EntityContainer entityContainer) {
+                entities.add(entityContainer);
+            }
+
+            @Override
+            public void complete() {
+                // Do nothing.
+            }
+
+            @Override
+            public void close() {
+                // Do nothing.
+            }
+        };
+
+        try {
+            new FastXmlParser(
+                            collector,
+                            FACTORY.get().createXMLStreamReader(new ByteArrayInputStream(block)),
+                            enableDateParsing)
+                    .readOsm();
+        } catch (XMLStreamException e) {
+            throw new OsmosisRuntimeException("Unable to parse xml block.", e);
+        }
+
+        return entities;
+    }
+}
@@ -0,0 +1,324 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+
+/**
+ * Splits an osm xml document into a sequence of smaller self-contained
+ * documents which can be parsed independently. Each block contains a run of
+ * complete top level elements (eg. node, way and relation) wrapped in a copy
+ * of the original document prolog and root element. Parsing the blocks in
+ * order produces the same results as parsing the original document.
+ * <p>
+ * The document is scanned at the byte level only tracking enough of the xml
+ * syntax to locate element boundaries, so the document must use an ASCII
+ * compatible encoding such as UTF-8.
+ */
+public class XmlBlockSplitter {
+    private static final byte[] ROOT_END_TAG = "</osm>".getBytes(StandardCharsets.UTF_8);
+
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_TAG_OPEN = 1;
+    private static final int STATE_START_TAG = 2;
+    private static final int STATE_END_TAG = 3;
+    private static final int STATE_MARKUP_OPEN = 4;
+    private static final int STATE_SKIP = 5;
+    private static final int STATE_DECLARATION = 6;
+
+    private static final int EVENT_NONE = 0;
+    private static final int EVENT_ROOT_START = 1;
+    private static final int EVENT_ELEMENT_END = 2;
+    private static final int EVENT_ROOT_END = 3;
+
+    private static final byte[] PROCESSING_INSTRUCTION_END = {'?', '>'};
+    private static final byte[] COMMENT_END = {'-', '-', '>'};
+    private static final byte[] CDATA_END = {']', ']', '>'};
+    private static final byte[] COMMENT_START = {'<', '!', '-', '-'};
+
+    private InputStream source;
+    private int targetBlockSize;
+    private byte[] buffer;
+    private int blockStart;
+    private int position;
+    private int limit;
+    private boolean sourceExhausted;
+    private boolean finished;
+    private byte[] documentHeader;
+
+    private int state;
+    private int depth;
+    private int tagStart;
+    private byte quote;
+    private byte previousByte;
+    private byte[] skipTerminator;
+    private int skipMatched;
+    private int skipReturnState;
+    private int declarationDepth;
+    private int commentStartMatched;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param source
+     *            The uncompressed xml document.
+     * @param targetBlockSize
+     *            The size in bytes at which a block is considered complete.
+     *            Blocks always end on an element boundary so may be larger.
+     */
+    public XmlBlockSplitter(InputStream source, int targetBlockSize) {
+        this.source = source;
+        this.targetBlockSize = targetBlockSize;
+
+        buffer = new byte[Math.max(65536, targetBlockSize * 2)];
+        state = STATE_TEXT;
+    }
+
+    private void fillBuffer() {
+        int count;
+
+        if (blockStart > 0) {
+            System.arraycopy(buffer, blockStart, buffer, 0, limit - blockStart);
+            limit -= blockStart;
+            position -= blockStart;
+            tagStart -= blockStart;
+            blockStart = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        try {
+            count = source.read(buffer, limit, buffer.length - limit);
+        } catch (IOException e) {
+            throw new OsmosisRuntimeException("Unable to read xml data.", e);
+        }
+        if (count < 0) {
+            sourceExhausted = true;
+        } else {
+            limit += count;
+        }
+    }
+
+    private void startSkipping(byte[] terminator, int returnState) {
+        state = STATE_SKIP;
+        skipTerminator = terminator;
+        skipMatched = 0;
+        skipReturnState = returnState;
+    }
+
+    /**
+     * Processes a single byte of the document.
+     *
+     * @return The structural event completed by the byte, if any.
+     */
+    private int processByte(byte b) {
+        int event = EVENT_NONE;
+
+        switch (state) {
+            case STATE_TEXT:
+                if (b == '<') {
+                    // The position has already moved past the current byte.
+                    tagStart = position - 1;
+                    state = STATE_TAG_OPEN;
+                }
+                break;
+
+            case STATE_TAG_OPEN:
+                if (b == '/') {
+                    state = STATE_END_TAG;
+                } else if (b == '?') {
+                    startSkipping(PROCESSING_INSTRUCTION_END, STATE_TEXT);
+                } else if (b == '!') {
+                    state = STATE_MARKUP_OPEN;
+                } else {
+                    state = STATE_START_TAG;
+                    quote = 0;
+                }
+                break;
+
+            case STATE_MARKUP_OPEN:
+                if (b == '-') {
+                    startSkipping(COMMENT_END, STATE_TEXT);
+                } else if (b == '[') {
+                    startSkipping(CDATA_END, STATE_TEXT);
+                } else {
+                    state = STATE_DECLARATION;
+                    quote = 0;
+                    declarationDepth = 0;
+                    commentStartMatched = 0;
+                }
+                break;
+
+            case STATE_DECLARATION:
+                // A declaration such as DOCTYPE may contain an internal subset
+                // enclosed in brackets holding further markup, so it only ends
+                // at a '>' outside of quotes, comments and brackets.
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == COMMENT_START[commentStartMatched]) {
+                    commentStartMatched++;
+                    if (commentStartMatched == COMMENT_START.length) {
+                        commentStartMatched = 0;
+                        startSkipping(COMMENT_END, STATE_DECLARATION);
+                    }
+                } else {
+                    commentStartMatched = b == '<' ? 1 : 0;
+                    if (b == '?' && previousByte == '<') {
+                        startSkipping(PROCESSING_INSTRUCTION_END, STATE_DECLARATION);
+                    } else if (b == '"' || b == '\'') {
+                        quote = b;
+                    } else if (b == '[') {
+                        declarationDepth++;
+                    } else if (b == ']') {
+                        declarationDepth--;
+                    } else if (b == '>' && declarationDepth == 0) {
+                        state = STATE_TEXT;
+                    }
+                }
+                break;
+
+            case STATE_START_TAG:
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    state = STATE_TEXT;
+                    if (previousByte == '/') {
+                        if (depth == 1) {
+                            event = EVENT_ELEMENT_END;
+                        } else if (depth == 0) {
+                            event = EVENT_ROOT_END;
+                        }
+                    } else {
+                        depth++;
+                        if (depth == 1) {
+                            event = EVENT_ROOT_START;
+                        }
+                    }
+                }
+                break;
+
+            case STATE_END_TAG:
+                if (b == '>') {
+                    state = STATE_TEXT;
+                    depth--;
+                    if (depth == 1) {
+                        event = EVENT_ELEMENT_END;
+                    } else if (depth == 0) {
+                        event = EVENT_ROOT_END;
+                    }
+                }
+                break;
+
+            case STATE_SKIP:
+                if (b == skipTerminator[skipMatched]) {
+                    skipMatched++;
+                    if (skipMatched == skipTerminator.length) {
+                        state = skipReturnState;
+                    }
+                } else if (skipMatched < 2 || b != skipTerminator[0] || b != skipTerminator[1]) {
+                    // The match restarts unless this is a repeat of a repeated
+                    // leading character (eg. "--->").
+                    skipMatched = b == skipTerminator[0] ? 1 : 0;
+                }
+                break;
+
+            default:
+                throw new OsmosisRuntimeException("Unknown xml scanner state " + state + ".");
+        }
+
+        previousByte = b;
+
+        return event;
+    }
+
+    /**
+     * Scans forward to the next structural event, reading more data as
+     * required.
+     */
+    private int nextEvent() {
+        while (true) {
+            while (position < limit) {
+                int event = processByte(buffer[position++]);
+
+                if (event != EVENT_NONE) {
+                    return event;
+                }
+            }
+
+            if (sourceExhausted) {
+                throw new OsmosisRuntimeException("The xml document ended unexpectedly.");
+            }
+            fillBuffer();
+        }
+    }
+
+    private byte[] buildBlock(int blockEnd) {
+        int blockLength = blockEnd - blockStart;
+        byte[] block = new byte[documentHeader.length + blockLength + ROOT_END_TAG.length];
+
+        System.arraycopy(documentHeader, 0, block, 0, documentHeader.length);
+        System.arraycopy(buffer, blockStart, block, documentHeader.length, blockLength);
+        System.arraycopy(ROOT_END_TAG, 0, block, documentHeader.length + blockLength, ROOT_END_TAG.length);
+
+        blockStart = blockEnd;
+
+        return block;
+    }
+
+    /**
+     * Gets the next block of the document.
+     *
+     * @return The block as a complete xml document, or null if the end of the
+     *         document has been reached.
+     */
+    public byte[] nextBlock() {
+        boolean elementFound = false;
+
+        if (finished) {
+            return null;
+        }
+
+        // The document header is everything up to and including the root
+        // element start tag.
+        if (documentHeader == null) {
+            int event = nextEvent();
+
+            if (event == EVENT_ROOT_END) {
+                // The root element is empty.
+                finished = true;
+                return null;
+            }
+            documentHeader = Arrays.copyOfRange(buffer, 0, position);
+            blockStart = position;
+        }
+
+        while (true) {
+            int event = nextEvent();
+
+            if (event == EVENT_ROOT_END) {
+                finished = true;
+                if (elementFound) {
+                    return buildBlock(tagStart);
+                }
+                return null;
+            }
+
+            if (event == EVENT_ELEMENT_END) {
+                elementFound = true;
+                if (position - blockStart >= targetBlockSize) {
+                    return buildBlock(position);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the parallel compression output stream.
+ */
+public class ParallelCompressionOutputStreamTest {
+
+    private static byte[] createData(int length) {
+        Random random = new Random(1);
+        byte[] data = new byte[length];
+
+        // Use a small alphabet so that the data is compressible.
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+
+        return data;
+    }
+
+    private static byte[] compress(CompressionMethod compressionMethod, byte[] data) throws IOException {
+        ByteArrayOutputStream compressedData = new ByteArrayOutputStream();
+
+        try (OutputStream outStream = new ParallelCompressionOutputStream(compressedData, compressionMethod, 3, 1000)) {
+            // Mix single byte and array writes spanning several blocks.
+            outStream.write(data[0]);
+            for (int offset = 1; offset < data.length; offset += 777) {
+                outStream.write(data, offset, Math.min(777, data.length - offset));
+            }
+        }
+
+        return compressedData.toByteArray();
+    }
+
+    /**
+     * Decompresses using the same streams as the xml readers so that all
+     * members or streams must be readable by Osmosis itself.
+     */
+    private static byte[] decompress(CompressionMethod compressionMethod, byte[] compressedData) throws IOException {
+        try (InputStream inStream = new CompressionActivator(compressionMethod)
+                .createCompressionInputStream(new ByteArrayInputStream(compressedData))) {
+            return inStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Verifies that multi-member gzip output decompresses to the original data.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testGZip() throws IOException {
+        byte[] data = createData(100000);
+
+        assertArrayEquals(data, decompress(CompressionMethod.GZip, compress(CompressionMethod.GZip, data)));
+    }
+
+    /**
+     * Verifies that multi-stream bzip2 output decompresses to the original data.
+     * The data spans several streams which must all be read.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testBZip2() throws IOException {
+        byte[] data = createData(20000);
+
+        assertArrayEquals(data, decompress(CompressionMethod.BZip2, compress(CompressionMethod.BZip2, data)));
+    }
+
+    /**
+     * Verifies that an empty stream still produces a valid compressed file.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        ByteArrayOutputStream compressedData = new ByteArrayOutputStream();
+
+        new ParallelCompressionOutputStream(compressedData, CompressionMethod.GZip, 2).close();
+
+        assertEquals(0, decompress(CompressionMethod.GZip, compressedData.toByteArray()).length);
+    }
+}
@@ -0,0 +1,172 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.domain.common.SimpleTimestampContainer;
+import org.openstreetmap.osmosis.core.domain.common.TimestampContainer;
+
+/**
+ * Tests the UTF-8 xml writer.
+ */
+public class Utf8XmlWriterTest {
+
+    private static final char[] CHARACTERS = {
+        'a', 'Z', '0', ' ', '<', '>', '&', '"', '\'', '\n', '\r', '\t', (char) 0x01, (char) 0x7F, (char) 0xE9,
+        (char) 0x416, (char) 0x4E2D, (char) 0xD83D, (char) 0xDE00, (char) 0xFFFD
+    };
+
+    private static String createString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(12);
+
+        for (int i = 0; i < length; i++) {
+            builder.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Renders an element with both the character and the byte writer and returns both results.
+     */
+    private static byte[][] render(ElementContent content) throws IOException {
+        ByteArrayOutputStream charOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+        BufferedWriter charWriter =
+                new BufferedWriter(new OutputStreamWriter(charOutput, StandardCharsets.UTF_8));
+        Utf8XmlWriter byteWriter = new Utf8XmlWriter(byteOutput);
+        TestElementWriter elementWriter = new TestElementWriter();
+
+        elementWriter.setWriter(charWriter);
+        content.write(elementWriter);
+        charWriter.close();
+
+        elementWriter.setWriter(byteWriter);
+        content.write(elementWriter);
+        byteWriter.close();
+
+        return new byte[][] {charOutput.toByteArray(), byteOutput.toByteArray()};
+    }
+
+    private static void assertSameOutput(ElementContent content) throws IOException {
+        byte[][] results = render(content);
+
+        assertArrayEquals(
+                results[0],
+                results[1],
+                "Expected " + new String(results[0], StandardCharsets.UTF_8) + " but was "
+                        + new String(results[1], StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies that escaped and encoded strings match those of the character writer.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testStrings() throws IOException {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 5000; i++) {
+            String value = createString(random);
+
+            assertSameOutput(writer -> writer.writeStringAttribute(value));
+        }
+    }
+
+    /**
+     * Verifies that numbers, coordinates and timestamps match those of the character writer.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testNumbers() throws IOException {
+        Random random = new Random(1);
+        double[] coordinates = {0, -0.0, 1e-8, -1e-8, 0.00000005, -0.00000005, 180, -180, 90.0000001, 12.34567895};
+        long[] timestamps = {0, -1, -30610224000000L, 253402300799999L, 253402300800000L, 951782400000L};
+
+        for (double coordinate : coordinates) {
+            assertSameOutput(writer -> writer.writeNumberAttributes(0, coordinate, new Date(0)));
+        }
+        for (long timestamp : timestamps) {
+            assertSameOutput(writer -> writer.writeNumberAttributes(timestamp, 0, new Date(timestamp)));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextLong();
+            long fixedCoordinate = random.nextLong() % 1800000000L;
+            double coordinate = (random.nextDouble() - 0.5) * 360;
+            Date timestamp = new Date((long) (random.nextDouble() * 2000000000000L));
+
+            // Coordinates are usually converted from fixed precision integers.
+            assertSameOutput(writer -> writer.writeNumberAttributes(id, fixedCoordinate / 1e7, timestamp));
+            assertSameOutput(writer -> writer.writeNumberAttributes(id, fixedCoordinate * 1e-7, timestamp));
+            assertSameOutput(writer -> writer.writeNumberAttributes(id, coordinate, timestamp));
+        }
+    }
+
+    /**
+     * Verifies that output spanning many buffers is written in full.
+     *
+     * @throws IOException
+     *             if an IO error occurs.
+     */
+    @Test
+    public void testLargeOutput() throws IOException {
+        byte[][] results = render(writer -> {
+            for (int i = 0; i < 20000; i++) {
+                writer.writeStringAttribute("value\u4E2D" + i);
+            }
+        });
+
+        assertTrue(results[1].length > 65536 * 4, "Output must span several buffers.");
+        assertArrayEquals(results[0], results[1]);
+    }
+
+    private interface ElementContent {
+        void write(TestElementWriter writer);
+    }
+
+    private static class TestElementWriter extends ElementWriter {
+        private NumberFormat numberFormat;
+
+        TestElementWriter() {
+            super("test", 1);
+
+            numberFormat = new DecimalFormat("0.#######;-0.#######", new DecimalFormatSymbols(Locale.US));
+        }
+
+        void writeStringAttribute(String value) {
+            beginOpenElement();
+            addAttribute("value", value);
+            endOpenElement(true);
+        }
+
+        void writeNumberAttributes(long id, double coordinate, Date timestamp) {
+            TimestampContainer timestampContainer = new SimpleTimestampContainer(timestamp);
+
+            beginOpenElement();
+            addAttribute("id", id);
+            addAttribute("lat", coordinate, 7, numberFormat);
+            addAttribute("timestamp", timestampContainer);
+            endOpenElement(false);
+            closeElement();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+
+/**
+ * Tests the fast xml reader.
+ */
+public class FastXmlReaderTest extends AbstractDataTest {
+
+    /**
+     * Tests reading a file using worker threads.
+     */
+    @Test
+    public void testParallelRead() {
+        File inputFile;
+        File outputFile;
+
+        // Generate input files.
+        inputFile = dataUtils.createDataFile("v0_6/xml-task-tests-v0_6.osm");
+        outputFile = dataUtils.newFile();
+
+        // Run the pipeline.
+        Osmosis.run(new String[] {
+            "-q", "--fast-read-xml-0.6", inputFile.getPath(), "workers=2", "--write-xml-0.6", outputFile.getPath()
+        });
+
+        // Validate that the output file matches the input file.
+        dataUtils.compareFiles(inputFile, outputFile);
+    }
+
+    /**
+     * Tests reading a bzip2 file consisting of multiple streams using worker
+     * threads, as created by parallel bzip2 compression tools.
+     *
+     * @throws IOException
+     *             if the test files cannot be created.
+     */
+    @Test
+    public void testParallelReadMultiStreamBZip2() throws IOException {
+        File uncompressedFile;
+        File inputFile;
+        File outputFile;
+        byte[] data;
+
+        // Generate input files. The file is compressed in three separate
+        // streams which are concatenated together.
+        uncompressedFile = dataUtils.createDataFile("v0_6/xml-task-tests-v0_6.osm");
+        inputFile = new File(dataUtils.getTempDir(), "testin.osm.bz2");
+        outputFile = dataUtils.newFile();
+        data = Files.readAllBytes(uncompressedFile.toPath());
+        try (OutputStream out = new FileOutputStream(inputFile)) {
+            int partSize = data.length / 3 + 1;
+
+            for (int offset = 0; offset < data.length; offset += partSize) {
+                BZip2CompressorOutputStream compressor = new BZip2CompressorOutputStream(out);
+
+                compressor.write(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + partSize)));
+                compressor.finish();
+            }
+        }
+
+        // Run the pipeline.
+        Osmosis.run(new String[] {
+            "-q", "--fast-read-xml-0.6", inputFile.getPath(), "workers=2", "--write-xml-0.6", outputFile.getPath()
+        });
+
+        // Validate that the output file matches the input file.
+        dataUtils.compareFiles(uncompressedFile, outputFile);
+    }
+}
@@ -1,10 +1,20 @@
 // This software is released into the Public Domain.  See copying.txt for details.
 package org.openstreetmap.osmosis.xml.v0_6;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.io.File;
+import java.util.Collections;
+import java.util.Date;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.osmosis.core.Osmosis;
+import org.openstreetmap.osmosis.core.container.v0_6.NodeContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.CommonEntityData;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.OsmUser;
+import org.openstreetmap.osmosis.core.domain.v0_6.Tag;
 import org.openstreetmap.osmosis.testutil.AbstractDataTest;
+import org.openstreetmap.osmosis.xml.common.CompressionMethod;
 
 /**
  * A simple test verifying the operation of the xml reader and writer tasks.
@@ -59,4 +69,78 @@ public class XmlReaderWriterTest extends AbstractDataTest {
         // Validate that the output file matches the input file.
         dataUtils.compareFiles(inputFile, outputFile);
     }
+
+
+    /**
+     * Tests writing a compressed file using multiple compression threads.
+     */
+    @Test
+    public void testParallelCompressed() {
+        File inputFile;
+        File workingFolder;
+        File compressedFile;
+        File outputFile;
+
+        // Generate input files.
+        inputFile = dataUtils.createDataFile("v0_6/xml-task-tests-v0_6.osm");
+        workingFolder = dataUtils.getTempDir();
+        compressedFile = new File(workingFolder, "testparallel.osm.gz");
+        outputFile = dataUtils.newFile();
+
+        // Write a compressed file in parallel, then read it back again.
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", inputFile.getPath(), "--write-xml-0.6", compressedFile.getPath(),
+            "compressionWorkers=2"
+        });
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", compressedFile.getPath(), "--write-xml-0.6", outputFile.getPath()
+        });
+
+        // Validate that the output file matches the input file.
+        dataUtils.compareFiles(inputFile, outputFile);
+    }
+
+    /**
+     * Tests writing a bzip2 file using multiple compression threads where the
+     * data spans many compressed streams, then reading it back again.
+     */
+    @Test
+    public void testParallelBZip2MultipleBlocks() {
+        File inputFile;
+        File workingFolder;
+        File compressedFile;
+        File outputFile;
+        XmlWriter writer;
+
+        // Generate an input file larger than several bzip2 blocks.
+        inputFile = dataUtils.newFile();
+        writer = new XmlWriter(inputFile, CompressionMethod.None);
+        writer.initialize(Collections.emptyMap());
+        for (int i = 1; i <= 20000; i++) {
+            CommonEntityData entityData = new CommonEntityData(
+                    i, 1, new Date(1234567890000L), new OsmUser(i % 100 + 1, "user" + (i % 100)), i / 10);
+
+            entityData.getTags().add(new Tag("name", "Node number " + i));
+            writer.process(new NodeContainer(new Node(entityData, (i % 1800) / 20.0 - 45, (i % 3600) / 20.0 - 90)));
+        }
+        writer.complete();
+        writer.close();
+        assertTrue(inputFile.length() > 3 * 900000, "The input must span several bzip2 blocks.");
+
+        workingFolder = dataUtils.getTempDir();
+        compressedFile = new File(workingFolder, "testparallel.osm.bz2");
+        outputFile = dataUtils.newFile();
+
+        // Write a compressed file in parallel, then read it back again.
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", inputFile.getPath(), "--write-xml-0.6", compressedFile.getPath(),
+            "compressionWorkers=2"
+        });
+        Osmosis.run(new String[] {
+            "-q", "--read-xml-0.6", compressedFile.getPath(), "--write-xml-0.6", outputFile.getPath()
+        });
+
+        // Validate that the output file matches the input file.
+        dataUtils.compareFiles(inputFile, outputFile);
+    }
 }
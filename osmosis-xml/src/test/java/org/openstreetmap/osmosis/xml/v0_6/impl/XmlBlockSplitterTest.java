@@ -0,0 +1,183 @@
+// This software is released into the Public Domain.  See copying.txt for details.
+package org.openstreetmap.osmosis.xml.v0_6.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.osmosis.core.OsmosisRuntimeException;
+import org.openstreetmap.osmosis.core.container.v0_6.BoundContainer;
+import org.openstreetmap.osmosis.core.container.v0_6.EntityContainer;
+import org.openstreetmap.osmosis.core.domain.v0_6.Node;
+import org.openstreetmap.osmosis.core.domain.v0_6.Way;
+
+/**
+ * Tests the xml block splitter.
+ */
+public class XmlBlockSplitterTest {
+    private static final String OSM_PREFIX = "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<!-- A comment containing <node> markup. -->\n"
+            + "<osm version=\"0.6\" generator=\"test\">\n";
+    private static final String OSM_SUFFIX = "</osm>\n";
+    private static final String ENTITY_ATTRIBUTES =
+            "version=\"1\" timestamp=\"2008-01-02T03:04:05Z\" uid=\"1\" user=\"a\" changeset=\"1\"";
+
+    private static List<String> split(String xml, int targetBlockSize) {
+        XmlBlockSplitter splitter =
+                new XmlBlockSplitter(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), targetBlockSize);
+        List<String> blocks = new ArrayList<>();
+        byte[] block;
+
+        while ((block = splitter.nextBlock()) != null) {
+            blocks.add(new String(block, StandardCharsets.UTF_8));
+        }
+
+        return blocks;
+    }
+
+    private static List<EntityContainer> decode(List<String> blocks) {
+        List<EntityContainer> entities = new ArrayList<>();
+
+        for (String block : blocks) {
+            entities.addAll(new XmlBlockDecoder(block.getBytes(StandardCharsets.UTF_8), true).call());
+        }
+
+        return entities;
+    }
+
+    /**
+     * Tests that each top level element can be placed in its own block.
+     */
+    @Test
+    public void testSplitElements() {
+        String bounds = "  <bounds minlat=\"-1\" minlon=\"-2\" maxlat=\"1\" maxlon=\"2\"/>\n";
+        String node1 = "  <node id=\"1\" " + ENTITY_ATTRIBUTES + " lat=\"1\" lon=\"2\">\n"
+                + "    <tag k=\"note\" v=\"a &gt; b /&gt; c\"/>\n"
+                + "    <tag k=\"quoted\" v='x > y />'/>\n"
+                + "  </node>\n";
+        String node2 = "  <node id=\"2\" " + ENTITY_ATTRIBUTES + " lat=\"3\" lon=\"4\"/>\n";
+        String way = "  <way id=\"3\" " + ENTITY_ATTRIBUTES + ">\n"
+                + "    <!-- </way> -->\n"
+                + "    <nd ref=\"1\"/>\n"
+                + "    <nd ref=\"2\"/>\n"
+                + "  </way>\n";
+        List<String> blocks = split(OSM_PREFIX + bounds + node1 + node2 + way + OSM_SUFFIX, 1);
+        List<EntityContainer> entities;
+
+        assertEquals(4, blocks.size(), "Incorrect number of blocks.");
+        // Blocks end immediately after the last element in the block.
+        assertEquals(OSM_PREFIX + bounds.stripTrailing() + "</osm>", blocks.get(0), "Incorrect first block.");
+        assertEquals(OSM_PREFIX + way.stripTrailing() + "</osm>", blocks.get(3), "Incorrect last block.");
+
+        // A large block size places all elements in a single block terminated
+        // by the original root end tag.
+        assertEquals(
+                List.of(OSM_PREFIX + bounds + node1 + node2 + way + "</osm>"),
+                split(OSM_PREFIX + bounds + node1 + node2 + way + OSM_SUFFIX, 1000000),
+                "Incorrect single block.");
+
+        entities = decode(blocks);
+        assertEquals(4, entities.size(), "Incorrect number of entities.");
+        assertEquals(BoundContainer.class, entities.get(0).getClass(), "Bound should be first.");
+        assertEquals(1, entities.get(1).getEntity().getId(), "Incorrect node id.");
+        assertEquals(
+                "x > y />",
+                entities.get(1).getEntity().getTags().stream()
+                        .filter(tag -> tag.getKey().equals("quoted"))
+                        .findFirst()
+                        .get()
+                        .getValue(),
+                "Incorrect tag value.");
+        assertEquals(2, ((Node) entities.get(2).getEntity()).getId(), "Incorrect node id.");
+        assertEquals(2, ((Way) entities.get(3).getEntity()).getWayNodes().size(), "Incorrect way node count.");
+    }
+
+    /**
+     * Tests that elements are grouped into blocks of the requested size.
+     */
+    @Test
+    public void testBlockSize() {
+        StringBuilder xml = new StringBuilder(OSM_PREFIX);
+        List<EntityContainer> entities;
+
+        for (int i = 1; i <= 1000; i++) {
+            xml.append("  <node id=\"").append(i).append("\" ").append(ENTITY_ATTRIBUTES);
+            xml.append(" lat=\"1\" lon=\"1\"/>\n");
+        }
+        xml.append(OSM_SUFFIX);
+
+        List<String> blocks = split(xml.toString(), 1000);
+
+        assertTrue(blocks.size() > 10, "Data should be split into many blocks.");
+        for (int i = 0; i < blocks.size() - 1; i++) {
+            assertTrue(
+                    blocks.get(i).length() - OSM_PREFIX.length() - "</osm>".length() >= 1000,
+                    "Blocks should not be smaller than the target size.");
+        }
+
+        entities = decode(blocks);
+        assertEquals(1000, entities.size(), "Incorrect number of entities.");
+        for (int i = 0; i < entities.size(); i++) {
+            assertEquals(i + 1, entities.get(i).getEntity().getId(), "Entities are out of order.");
+        }
+    }
+
+    /**
+     * Tests that a document type declaration with an internal subset containing
+     * markup is copied into each block intact.
+     */
+    @Test
+    public void testDoctypeInternalSubset() {
+        String prefix = "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<!DOCTYPE osm [\n"
+                + "  <!ENTITY note \"a > b ] c\">\n"
+                + "  <!-- A comment's ] > markup. -->\n"
+                + "  <?test data > ?>\n"
+                + "  <!ATTLIST node note CDATA #IMPLIED>\n"
+                + "]>\n"
+                + "<osm version=\"0.6\" generator=\"test\">\n";
+        String node1 = "  <node id=\"1\" " + ENTITY_ATTRIBUTES + " lat=\"1\" lon=\"2\"/>\n";
+        String node2 = "  <node id=\"2\" " + ENTITY_ATTRIBUTES + " lat=\"3\" lon=\"4\"/>\n";
+        List<String> blocks = split(prefix + node1 + node2 + OSM_SUFFIX, 1);
+        List<EntityContainer> entities;
+
+        assertEquals(
+                List.of(prefix + node1.stripTrailing() + "</osm>", prefix + node2.stripTrailing() + "</osm>"),
+                blocks,
+                "Incorrect blocks.");
+
+        entities = decode(blocks);
+        assertEquals(2, entities.size(), "Incorrect number of entities.");
+        assertEquals(1, entities.get(0).getEntity().getId(), "Incorrect node id.");
+        assertEquals(2, entities.get(1).getEntity().getId(), "Incorrect node id.");
+    }
+
+    /**
+     * Tests that an empty document produces no blocks.
+     */
+    @Test
+    public void testEmptyDocument() {
+        assertEquals(0, split(OSM_PREFIX + OSM_SUFFIX, 1).size(), "No blocks should be produced.");
+        assertNull(
+                new XmlBlockSplitter(
+                                new ByteArrayInputStream("<osm version=\"0.6\"/>".getBytes(StandardCharsets.UTF_8)), 1)
+                        .nextBlock(),
+                "No blocks should be produced.");
+    }
+
+    /**
+     * Tests that a truncated document is detected.
+     */
+    @Test
+    public void testTruncatedDocument() {
+        assertThrows(
+                OsmosisRuntimeException.class,
+                () -> split(OSM_PREFIX + "  <node id=\"1\" " + ENTITY_ATTRIBUTES + " lat=\"1\" lon=\"2\">\n", 1));
+    }
+}